@@ -0,0 +1,106 @@
+package net.coderodde.finance.loan.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.support.BinaryHeapPreprocessingMostCostEffectiveLoanFinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures the mutations of an actor graph, optionally with a
+ * preprocessing finder listening to the graph. The repairs of the finder run
+ * on the next query and are not measured here.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 22, 2018)
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActorGraphMutationBenchmark {
+    
+    @Param({"100", "1000"})
+    public int actorCount;
+    
+    @Param({"4", "16"})
+    public int arcsPerActor;
+    
+    @Param({"false", "true"})
+    public boolean withPreprocessingFinder;
+    
+    private ActorGraph<Integer> actorGraph;
+    private Actor<Integer>[] actors;
+    private Random random;
+    
+    // Keeps the listening finder reachable:
+    private MostCostEffectiveLoanFinder<Integer> finder;
+    
+    @Setup
+    public void setUp() {
+        random = new Random(RandomActorGraphs.SEED);
+        actorGraph = 
+                RandomActorGraphs.createActorGraph(
+                        actorCount,
+                        arcsPerActor,
+                        RandomActorGraphs.RateDistribution.UNIFORM,
+                        random);
+        actors = RandomActorGraphs.getActors(actorGraph);
+        
+        if (withPreprocessingFinder) {
+            finder = new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(
+                    actorGraph);
+        }
+    }
+    
+    @Benchmark
+    public void toggleArc() {
+        Actor<Integer> sourceActor = actors[random.nextInt(actors.length)];
+        Actor<Integer> targetActor = actors[random.nextInt(actors.length)];
+        
+        if (sourceActor.equals(targetActor)) {
+            return;
+        }
+        
+        if (actorGraph.hasArc(sourceActor, targetActor)) {
+            actorGraph.removeArc(sourceActor, targetActor);
+        } else {
+            actorGraph.addArc(sourceActor, 
+                              targetActor,
+                              RandomActorGraphs.MAXIMUM_INTEREST_RATE * 
+                                      random.nextDouble());
+        }
+    }
+    
+    @Benchmark
+    public void updatePotential() {
+        actorGraph.addActor(actors[random.nextInt(actors.length)],
+                            RandomActorGraphs.MAXIMUM_POTENTIAL * 
+                                    random.nextDouble());
+    }
+    
+    // Reuses the identity of the added actor, so that the actors pending 
+    // repair in the listening finder do not pile up:
+    @Benchmark
+    public void addAndRemoveActor() {
+        Actor<Integer> actor = new Actor<>(actorCount);
+        actorGraph.addActor(actor, 1.0);
+        actorGraph.addArc(actors[random.nextInt(actors.length)], actor, 0.01);
+        actorGraph.addArc(actor, actors[random.nextInt(actors.length)], 0.01);
+        actorGraph.removeActor(actor);
+    }
+}
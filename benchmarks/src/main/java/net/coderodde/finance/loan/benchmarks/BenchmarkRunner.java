@@ -0,0 +1,29 @@
+package net.coderodde.finance.loan.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * This class runs the benchmarks selected on the command line with the GC 
+ * profiler attached, so that the allocation rates are always reported.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 22, 2018)
+ */
+public final class BenchmarkRunner {
+    
+    public static void main(String[] args) 
+            throws CommandLineOptionException, RunnerException {
+        Options options = 
+                new OptionsBuilder()
+                        .parent(new CommandLineOptions(args))
+                        .addProfiler(GCProfiler.class)
+                        .build();
+        new Runner(options).run();
+    }
+}
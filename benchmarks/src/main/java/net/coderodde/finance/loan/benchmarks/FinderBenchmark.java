@@ -0,0 +1,209 @@
+package net.coderodde.finance.loan.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.MostCostEffectiveLoan;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.OffHeapActorGraph;
+import net.coderodde.finance.loan.support.BinaryHeapCompactMostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.support.BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.support.BinaryHeapMostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.support.BinaryHeapPreprocessingMostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.support.DaryHeapCompactMostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.support.FibonacciHeapCompactMostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.support.FibonacciHeapMostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.support.FibonacciHeapPreprocessingMostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.support.RadixHeapMostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.support.RadixHeapPreprocessingMostCostEffectiveLoanFinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures the loan queries of each finder. The queries cycle
+ * through all the actors of the graph, and the preprocessing, if any, is done
+ * before the measurement.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 22, 2018)
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FinderBenchmark {
+    
+    /**
+     * The finders under benchmark.
+     */
+    public enum FinderType {
+        
+        BINARY_HEAP {
+            @Override
+            MostCostEffectiveLoanFinder<Integer> 
+                createFinder(ActorGraph<Integer> actorGraph) {
+                return new BinaryHeapMostCostEffectiveLoanFinder<>();
+            }
+        },
+        
+        FIBONACCI_HEAP {
+            @Override
+            MostCostEffectiveLoanFinder<Integer> 
+                createFinder(ActorGraph<Integer> actorGraph) {
+                return new FibonacciHeapMostCostEffectiveLoanFinder<>();
+            }
+        },
+        
+        RADIX_HEAP {
+            @Override
+            MostCostEffectiveLoanFinder<Integer> 
+                createFinder(ActorGraph<Integer> actorGraph) {
+                return new RadixHeapMostCostEffectiveLoanFinder<>();
+            }
+        },
+        
+        BINARY_HEAP_PREPROCESSING {
+            @Override
+            MostCostEffectiveLoanFinder<Integer> 
+                createFinder(ActorGraph<Integer> actorGraph) {
+                return new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(
+                        actorGraph);
+            }
+        },
+        
+        FIBONACCI_HEAP_PREPROCESSING {
+            @Override
+            MostCostEffectiveLoanFinder<Integer> 
+                createFinder(ActorGraph<Integer> actorGraph) {
+                return new 
+                        FibonacciHeapPreprocessingMostCostEffectiveLoanFinder<>(
+                                actorGraph);
+            }
+        },
+        
+        RADIX_HEAP_PREPROCESSING {
+            @Override
+            MostCostEffectiveLoanFinder<Integer> 
+                createFinder(ActorGraph<Integer> actorGraph) {
+                return new RadixHeapPreprocessingMostCostEffectiveLoanFinder<>(
+                        actorGraph);
+            }
+        },
+        
+        BINARY_HEAP_LAZY_PREPROCESSING {
+            @Override
+            MostCostEffectiveLoanFinder<Integer> 
+                createFinder(ActorGraph<Integer> actorGraph) {
+                return new 
+                        BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder<>(
+                                actorGraph);
+            }
+        },
+        
+        BINARY_HEAP_COMPACT {
+            @Override
+            MostCostEffectiveLoanFinder<Integer> 
+                createFinder(ActorGraph<Integer> actorGraph) {
+                return new BinaryHeapCompactMostCostEffectiveLoanFinder<>(
+                        actorGraph.freeze());
+            }
+        },
+        
+        DARY_HEAP_COMPACT {
+            @Override
+            MostCostEffectiveLoanFinder<Integer> 
+                createFinder(ActorGraph<Integer> actorGraph) {
+                return new DaryHeapCompactMostCostEffectiveLoanFinder<>(
+                        actorGraph.freeze());
+            }
+        },
+        
+        FIBONACCI_HEAP_COMPACT {
+            @Override
+            MostCostEffectiveLoanFinder<Integer> 
+                createFinder(ActorGraph<Integer> actorGraph) {
+                return new FibonacciHeapCompactMostCostEffectiveLoanFinder<>(
+                        actorGraph.freeze());
+            }
+        },
+        
+        DARY_HEAP_OFF_HEAP {
+            @Override
+            MostCostEffectiveLoanFinder<Integer> 
+                createFinder(ActorGraph<Integer> actorGraph) {
+                return new DaryHeapCompactMostCostEffectiveLoanFinder<>(
+                        OffHeapActorGraph.copyOf(actorGraph.freeze()));
+            }
+        };
+        
+        abstract MostCostEffectiveLoanFinder<Integer> 
+            createFinder(ActorGraph<Integer> actorGraph);
+    }
+    
+    /**
+     * The maximum effective interest rate of all the queries.
+     */
+    private static final double MAXIMUM_INTEREST_RATE = 0.5;
+    
+    @Param({"BINARY_HEAP",
+            "FIBONACCI_HEAP",
+            "RADIX_HEAP",
+            "BINARY_HEAP_PREPROCESSING",
+            "FIBONACCI_HEAP_PREPROCESSING",
+            "RADIX_HEAP_PREPROCESSING",
+            "BINARY_HEAP_LAZY_PREPROCESSING",
+            "BINARY_HEAP_COMPACT",
+            "DARY_HEAP_COMPACT",
+            "FIBONACCI_HEAP_COMPACT",
+            "DARY_HEAP_OFF_HEAP"})
+    public FinderType finderType;
+    
+    @Param({"100", "1000"})
+    public int actorCount;
+    
+    @Param({"4", "16"})
+    public int arcsPerActor;
+    
+    @Param({"UNIFORM", "SKEWED"})
+    public RandomActorGraphs.RateDistribution rateDistribution;
+    
+    @Param({"50.0", "5000.0"})
+    public double requestedPotential;
+    
+    private MostCostEffectiveLoanFinder<Integer> finder;
+    private Actor<Integer>[] actors;
+    private int actorIndex;
+    
+    @Setup
+    public void setUp() {
+        ActorGraph<Integer> actorGraph = 
+                RandomActorGraphs.createActorGraph(
+                        actorCount,
+                        arcsPerActor,
+                        rateDistribution,
+                        new Random(RandomActorGraphs.SEED));
+        actors = RandomActorGraphs.getActors(actorGraph);
+        finder = finderType.createFinder(actorGraph);
+    }
+    
+    @Benchmark
+    public MostCostEffectiveLoan<Integer> findLenders() {
+        Actor<Integer> actor = actors[actorIndex];
+        actorIndex = (actorIndex + 1) % actors.length;
+        return finder.findLenders(actor, 
+                                  requestedPotential, 
+                                  MAXIMUM_INTEREST_RATE);
+    }
+}
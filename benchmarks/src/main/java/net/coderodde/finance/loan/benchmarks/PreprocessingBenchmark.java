@@ -0,0 +1,75 @@
+package net.coderodde.finance.loan.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.support.BinaryHeapPreprocessingMostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.support.FibonacciHeapPreprocessingMostCostEffectiveLoanFinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures building the lender lists of an entire graph.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 22, 2018)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PreprocessingBenchmark {
+    
+    @Param({"100", "1000"})
+    public int actorCount;
+    
+    @Param({"4", "16"})
+    public int arcsPerActor;
+    
+    @Param({"UNIFORM", "SKEWED"})
+    public RandomActorGraphs.RateDistribution rateDistribution;
+    
+    @Param({"1", "4"})
+    public int parallelism;
+    
+    private ActorGraph<Integer> actorGraph;
+    
+    // Every finder registers a graph listener, so start each iteration with 
+    // a fresh graph in order not to pile them up:
+    @Setup(Level.Iteration)
+    public void setUp() {
+        actorGraph = 
+                RandomActorGraphs.createActorGraph(
+                        actorCount,
+                        arcsPerActor,
+                        rateDistribution,
+                        new Random(RandomActorGraphs.SEED));
+    }
+    
+    @Benchmark
+    public MostCostEffectiveLoanFinder<Integer> binaryHeapPreprocessing() {
+        return new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(
+                actorGraph, 
+                parallelism);
+    }
+    
+    @Benchmark
+    public MostCostEffectiveLoanFinder<Integer> fibonacciHeapPreprocessing() {
+        return new FibonacciHeapPreprocessingMostCostEffectiveLoanFinder<>(
+                actorGraph, 
+                parallelism);
+    }
+}
@@ -0,0 +1,125 @@
+package net.coderodde.finance.loan.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+
+/**
+ * This class creates the random actor graphs the benchmarks run on. The same
+ * parameters and seed always produce the same graph.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 22, 2018)
+ */
+public final class RandomActorGraphs {
+    
+    /**
+     * The seed used by all the benchmarks.
+     */
+    public static final long SEED = 13L;
+    
+    /**
+     * The maximum potential of an actor.
+     */
+    public static final double MAXIMUM_POTENTIAL = 100.0;
+    
+    /**
+     * The maximum interest rate of an arc.
+     */
+    public static final double MAXIMUM_INTEREST_RATE = 0.1;
+    
+    /**
+     * The distributions of arc interest rates.
+     */
+    public enum RateDistribution {
+        
+        /**
+         * The interest rates are uniform over 
+         * {@code [0, MAXIMUM_INTEREST_RATE)}.
+         */
+        UNIFORM {
+            @Override
+            double nextInterestRate(Random random) {
+                return MAXIMUM_INTEREST_RATE * random.nextDouble();
+            }
+        },
+        
+        /**
+         * Most interest rates are close to zero and few are close to 
+         * {@code MAXIMUM_INTEREST_RATE}.
+         */
+        SKEWED {
+            @Override
+            double nextInterestRate(Random random) {
+                double value = random.nextDouble();
+                return MAXIMUM_INTEREST_RATE * value * value * value;
+            }
+        };
+        
+        abstract double nextInterestRate(Random random);
+    }
+    
+    private RandomActorGraphs() {}
+    
+    /**
+     * Creates a random actor graph.
+     * 
+     * @param actorCount       the number of actors.
+     * @param arcsPerActor     the average number of outgoing arcs per actor.
+     * @param rateDistribution the distribution of arc interest rates.
+     * @param random           the random number generator.
+     * @return a random actor graph.
+     */
+    public static ActorGraph<Integer> 
+        createActorGraph(int actorCount,
+                         int arcsPerActor,
+                         RateDistribution rateDistribution,
+                         Random random) {
+        ActorGraph<Integer> actorGraph = new ActorGraph<>();
+        List<Actor<Integer>> actors = new ArrayList<>(actorCount);
+        
+        for (int id = 0; id < actorCount; id++) {
+            Actor<Integer> actor = new Actor<>(id);
+            actors.add(actor);
+            actorGraph.addActor(actor, 
+                                MAXIMUM_POTENTIAL * random.nextDouble());
+        }
+        
+        long arcCount = 
+                Math.min((long) actorCount * arcsPerActor,
+                         (long) actorCount * (actorCount - 1));
+        
+        while (actorGraph.getNumberOfArcs() < arcCount) {
+            Actor<Integer> sourceActor = 
+                    actors.get(random.nextInt(actorCount));
+            Actor<Integer> targetActor = 
+                    actors.get(random.nextInt(actorCount));
+            
+            if (!sourceActor.equals(targetActor)) {
+                actorGraph.addArc(sourceActor, 
+                                  targetActor,
+                                  rateDistribution.nextInterestRate(random));
+            }
+        }
+        
+        return actorGraph;
+    }
+    
+    /**
+     * Returns the actors of the input graph sorted by their identities.
+     * 
+     * @param actorGraph the actor graph.
+     * @return the array of actors.
+     */
+    public static Actor<Integer>[] getActors(ActorGraph<Integer> actorGraph) {
+        Actor<Integer>[] actors = 
+                actorGraph.getActorSet().toArray(new Actor[0]);
+        Arrays.sort(actors, 
+                    (a, b) -> Integer.compare(a.getIdentity(), 
+                                              b.getIdentity()));
+        return actors;
+    }
+}
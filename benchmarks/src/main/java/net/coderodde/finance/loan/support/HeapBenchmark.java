@@ -0,0 +1,159 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.finance.loan.benchmarks.RandomActorGraphs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This benchmark measures the heaps in isolation. Since the indexed heaps are
+ * package-private, this benchmark lives in their package.
+ * <p>
+ * The {@code insertAndExtractAll} benchmark inserts all the priorities and 
+ * then extracts them all. The {@code decreasePriorities} benchmark mimics the
+ * searches: it inserts all the priorities, halves every other one, and then
+ * extracts them all; the object heaps emulate the decrease by inserting a 
+ * second entry.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 22, 2018)
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HeapBenchmark {
+    
+    /**
+     * The heaps under benchmark.
+     */
+    public enum HeapType {
+        PRIORITY_QUEUE,
+        FIBONACCI_HEAP,
+        INDEXED_BINARY_HEAP,
+        INDEXED_QUATERNARY_HEAP,
+        INDEXED_FIBONACCI_HEAP
+    }
+    
+    @Param({"PRIORITY_QUEUE",
+            "FIBONACCI_HEAP",
+            "INDEXED_BINARY_HEAP",
+            "INDEXED_QUATERNARY_HEAP",
+            "INDEXED_FIBONACCI_HEAP"})
+    public HeapType heapType;
+    
+    @Param({"1000", "100000"})
+    public int size;
+    
+    private double[] priorities;
+    private Double[] boxedPriorities;
+    private Queue<Double> queue;
+    private IndexedPriorityQueue indexedQueue;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(RandomActorGraphs.SEED);
+        priorities = new double[size];
+        boxedPriorities = new Double[size];
+        
+        for (int i = 0; i < size; i++) {
+            priorities[i] = random.nextDouble();
+            boxedPriorities[i] = priorities[i];
+        }
+        
+        switch (heapType) {
+            case PRIORITY_QUEUE:
+                queue = new PriorityQueue<>();
+                break;
+            
+            case FIBONACCI_HEAP:
+                queue = new FibonacciHeap<>();
+                break;
+            
+            case INDEXED_BINARY_HEAP:
+                indexedQueue = new IndexedDaryHeap(2, size);
+                break;
+            
+            case INDEXED_QUATERNARY_HEAP:
+                indexedQueue = new IndexedDaryHeap(4, size);
+                break;
+            
+            case INDEXED_FIBONACCI_HEAP:
+                indexedQueue = new IndexedFibonacciHeap(size);
+                break;
+        }
+    }
+    
+    @Benchmark
+    public double insertAndExtractAll() {
+        double sum = 0.0;
+        
+        if (queue != null) {
+            for (Double priority : boxedPriorities) {
+                queue.add(priority);
+            }
+            
+            while (!queue.isEmpty()) {
+                sum += queue.remove();
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                indexedQueue.insert(i, priorities[i]);
+            }
+            
+            while (!indexedQueue.isEmpty()) {
+                sum += priorities[indexedQueue.extractMinimum()];
+            }
+        }
+        
+        return sum;
+    }
+    
+    @Benchmark
+    public double decreasePriorities() {
+        double sum = 0.0;
+        
+        if (queue != null) {
+            for (Double priority : boxedPriorities) {
+                queue.add(priority);
+            }
+            
+            for (int i = 0; i < size; i += 2) {
+                queue.add(priorities[i] / 2.0);
+            }
+            
+            while (!queue.isEmpty()) {
+                sum += queue.remove();
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                indexedQueue.insert(i, priorities[i]);
+            }
+            
+            for (int i = 0; i < size; i += 2) {
+                indexedQueue.decreasePriority(i, priorities[i] / 2.0);
+            }
+            
+            while (!indexedQueue.isEmpty()) {
+                sum += indexedQueue.getPriority(indexedQueue.peekMinimum());
+                indexedQueue.extractMinimum();
+            }
+        }
+        
+        return sum;
+    }
+}
@@ -24,6 +24,11 @@ public final class Actor<I> {
      */
     private ActorGraph<I> ownerGraph;
     
+    /**
+     * The dense slot of this actor in its owner graph, or {@code -1}.
+     */
+    private int slot = -1;
+    
     public Actor(I identity) {
         this.identity = Objects.requireNonNull(identity,
                                                "The input identity is null.");
@@ -37,6 +42,18 @@ public final class Actor<I> {
         return identity;
     }
     
+    /**
+     * Returns the slot of this actor in its actor graph, or {@code -1} if 
+     * this actor does not belong to a graph. The slots of the actors of a 
+     * graph are distinct and below {@link ActorGraph#getSlotBound()}, so the
+     * finders may keep per-actor state in plain arrays indexed by the slots.
+     * 
+     * @return the slot of this actor or {@code -1}.
+     */
+    public int getSlot() {
+        return slot;
+    }
+    
     @Override
     public String toString() {
         return "[Actor, " + identity.toString() + "]";
@@ -68,4 +85,8 @@ public final class Actor<I> {
     void setOwnerActorGraph(ActorGraph<I> ownerGraph) {
         this.ownerGraph = ownerGraph;
     }
+    
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
 }
@@ -1,11 +1,15 @@
 package net.coderodde.finance.loan;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import static net.coderodde.finance.loan.Utils.checkPotential;
 
 /**
@@ -17,26 +21,34 @@ import static net.coderodde.finance.loan.Utils.checkPotential;
  */
 public final class ActorGraph<I> {
     
+    /**
+     * The flag of the apply methods marking a structural change.
+     */
+    private static final int STRUCTURE_CHANGED = 1;
+    
+    /**
+     * The flag of the apply methods marking a potential change.
+     */
+    private static final int POTENTIAL_CHANGED = 2;
+    
     /**
      * This map maps each actor node in the graph to the maximum number of 
      * resource units the node can lend. By definition, this value cannot be 
      * less than zero.
      */
-    private final Map<Actor<I>, Double> potentialMap = new HashMap<>();
+    private final Map<Actor<I>, Double> potentialMap;
     
     /**
      * Maps each arc in the actor graph to interest rate the tail actor can
      * offer to the head actor.
      */
-    private final Map<Actor<I>, Map<Actor<I>, Double>> 
-            interestRateMap = new HashMap<>();
+    private final Map<Actor<I>, Map<Actor<I>, Double>> interestRateMap;
     
     /**
      * Maps each actor <code>A</code> to the list of all other actors which have
      * incoming arcs to <code>A</code>.
      */
-    private final Map<Actor<I>, Set<Actor<I>>> incomingActors = 
-            new HashMap<>();
+    private final Map<Actor<I>, Set<Actor<I>>> incomingActors;
     
     /**
      * Caches the current number of arcs in this actor graph.
@@ -45,10 +57,57 @@ public final class ActorGraph<I> {
     
     /**
      * Used for making sure that in preprocessing finders we the actor graph is
-     * not modified after it is preprocessed.
+     * not modified after it is preprocessed. Counts only the structural 
+     * modifications, that is, changes of actors, arcs and interest rates.
      */
     private int modificationCount;
     
+    /**
+     * Counts the changes of actor potentials. Potential updates do not 
+     * affect the order of lenders, so they are versioned separately from the
+     * structural modifications.
+     */
+    private int potentialModificationCount;
+    
+    /**
+     * The slots released by the removed actors. The added actors reuse them
+     * before any new slot is taken, so that the slots stay dense.
+     */
+    private int[] freeSlots = new int[0];
+    
+    /**
+     * The number of the free slots in {@link #freeSlots}.
+     */
+    private int numberOfFreeSlots;
+    
+    /**
+     * One past the largest slot assigned since this graph was last empty.
+     */
+    private int slotBound;
+    
+    /**
+     * The listeners notified of the structural changes of this graph.
+     */
+    private final List<ActorGraphListener<I>> listeners = 
+            new CopyOnWriteArrayList<>();
+    
+    public ActorGraph() {
+        this(0);
+    }
+    
+    /**
+     * Constructs an empty graph whose maps are sized for 
+     * {@code expectedNumberOfActors} actors.
+     * 
+     * @param expectedNumberOfActors the expected number of actors.
+     */
+    ActorGraph(int expectedNumberOfActors) {
+        int capacity = capacityFor(expectedNumberOfActors);
+        this.potentialMap = new HashMap<>(capacity);
+        this.interestRateMap = new HashMap<>(capacity);
+        this.incomingActors = new HashMap<>(capacity);
+    }
+    
     /**
      * Returns the number of actors present in this actor graph.
      * 
@@ -68,7 +127,19 @@ public final class ActorGraph<I> {
     }
     
     /**
-     * Returns the current modification count of this graph.
+     * Returns one past the largest slot of the actors in this graph. The 
+     * bound never exceeds the largest number of actors this graph has held
+     * at a time since it was last empty.
+     * 
+     * @return the slot bound.
+     */
+    public int getSlotBound() {
+        return slotBound;
+    }
+    
+    /**
+     * Returns the current structural modification count of this graph. 
+     * Updating the potential of an actor does not change this count.
      * 
      * @return the modification count.
      */
@@ -76,6 +147,15 @@ public final class ActorGraph<I> {
         return modificationCount;
     }
     
+    /**
+     * Returns the current potential modification count of this graph.
+     * 
+     * @return the potential modification count.
+     */
+    public int getPotentialModificationCount() {
+        return potentialModificationCount;
+    }
+    
     /**
      * Adds a new actor to the graph with a specified potential. If the input 
      * actor is already in this graph, the potential and maximum interest rate
@@ -86,21 +166,7 @@ public final class ActorGraph<I> {
      */
     public void addActor(Actor<I> actor, double potential) {
         Objects.requireNonNull(actor, "The input actor is null.");
-        potentialMap.put(actor, checkPotential(potential));
-        
-        if (!actorBelongsToThisGraph(actor)) {
-            if (actorBelongsToOtherGraph(actor)) {
-                // If the input actor belongs to another graph, we need to 
-                // disconnect it from there:
-                actor.getActorGraph().modificationCount++;
-                actor.getActorGraph().removeActor(actor);
-            }
-            
-            actor.setOwnerActorGraph(this);
-            interestRateMap.put(actor, new HashMap<>());
-            incomingActors.put(actor, new HashSet<>());
-            modificationCount++;
-        }
+        countChanges(applyAddActor(actor, checkPotential(potential), 0, 0));
     }
     
     /**
@@ -110,22 +176,8 @@ public final class ActorGraph<I> {
      */
     public void removeActor(Actor<I> actor) {
         Objects.requireNonNull(actor, "The input actor is null.");
-        potentialMap.remove(actor);
-        numberOfArcs -= incomingActors.get(actor).size();
-        numberOfArcs -= interestRateMap.get(actor).size();
-        
-        for (Actor<I> incomingActor : incomingActors.get(actor)) {
-            interestRateMap.get(incomingActor).remove(actor);
-        }
-        
-        for (Actor<I> outgoingActor : interestRateMap.get(actor).keySet()) {
-            incomingActors.get(outgoingActor).remove(actor);
-        }
-        
-        interestRateMap.remove(actor);
-        incomingActors.remove(actor);
-        modificationCount++;
-        actor.setOwnerActorGraph(null);
+        checkActorIsInGraph(actor, "input actor");
+        countChanges(applyRemoveActor(actor));
     }
     
     /**
@@ -141,18 +193,9 @@ public final class ActorGraph<I> {
                        double interestRate) {
         checkArc(sourceActor, targetActor);
         checkNotSelfLoop(sourceActor, targetActor);
-        
-        if (!interestRateMap.get(sourceActor).containsKey(targetActor)) {
-            // Once here, the input arc does not exist in this graph so 
-            // increment the number of arcs counter.
-            numberOfArcs++;
-        }
-        
-        interestRateMap.get(sourceActor)
-                       .put(targetActor, 
-                            Utils.checkInterestRate(interestRate));
-        incomingActors.get(targetActor).add(sourceActor);
-        modificationCount++;
+        countChanges(applyAddArc(sourceActor, 
+                                 targetActor, 
+                                 Utils.checkInterestRate(interestRate)));
     }
     
     /**
@@ -177,13 +220,18 @@ public final class ActorGraph<I> {
      */
     public void removeArc(Actor<I> sourceActor, Actor<I> targetActor) {
         checkArc(sourceActor, targetActor);
+        countChanges(applyRemoveArc(sourceActor, targetActor));
+    }
         
-        if (interestRateMap.get(sourceActor).containsKey(targetActor)) {
-            numberOfArcs--;
-            interestRateMap.get(sourceActor).remove(targetActor);
-            incomingActors.get(targetActor).remove(sourceActor);
-            modificationCount++;
-        }
+    /**
+     * Starts a new batch of changes to this graph. The changes are validated
+     * and applied only when the batch is committed, and the whole batch 
+     * increments the modification counts of this graph at most once.
+     * 
+     * @return a new batch.
+     */
+    public Batch<I> batch() {
+        return new Batch<>(this);
     }
     
     /**
@@ -200,9 +248,43 @@ public final class ActorGraph<I> {
      */
     public void clear() {
         modificationCount += potentialMap.size();
+        potentialModificationCount += potentialMap.size();
+        
+        for (Actor<I> actor : potentialMap.keySet()) {
+            actor.setOwnerActorGraph(null);
+            actor.setSlot(-1);
+        }
+        
         potentialMap.clear();
         interestRateMap.clear();
         incomingActors.clear();
+        numberOfArcs = 0;
+        numberOfFreeSlots = 0;
+        slotBound = 0;
+        
+        for (ActorGraphListener<I> listener : listeners) {
+            listener.onGraphCleared();
+        }
+    }
+    
+    /**
+     * Registers a listener to be notified of the structural changes of this 
+     * graph.
+     * 
+     * @param listener the listener to add.
+     */
+    public void addActorGraphListener(ActorGraphListener<I> listener) {
+        Objects.requireNonNull(listener, "The input listener is null.");
+        listeners.add(listener);
+    }
+    
+    /**
+     * Unregisters a listener.
+     * 
+     * @param listener the listener to remove.
+     */
+    public void removeActorGraphListener(ActorGraphListener<I> listener) {
+        listeners.remove(listener);
     }
     
     /**
@@ -213,9 +295,7 @@ public final class ActorGraph<I> {
      */
     public Set<Actor<I>> getIncomingArcs(Actor<I> actor) {
         Objects.requireNonNull(actor, "The input actor is null.");
-        checkActorIsInGraph(
-                actor,            
-                "The input actor (" + actor + ") is not in this graph.");
+        checkActorIsInGraph(actor, "input actor");
         return Collections.unmodifiableSet(incomingActors.get(actor));
     }
     
@@ -226,12 +306,8 @@ public final class ActorGraph<I> {
      * @return a set view of outgoing actors.
      */
     public Set<Actor<I>> getOutgoingArcs(Actor<I> actor) {
-        Objects.requireNonNull(
-                actor,
-                "The input actor (" + actor + ") is not in this graph.");
-        checkActorIsInGraph(
-                actor, 
-                "The input actor (" + actor + ") is not in this graph.");
+        Objects.requireNonNull(actor, "The input actor is null.");
+        checkActorIsInGraph(actor, "input actor");
         return Collections.unmodifiableSet(interestRateMap.get(actor).keySet());
     }
     
@@ -247,10 +323,8 @@ public final class ActorGraph<I> {
     public double getInterestRate(Actor<I> sourceActor, Actor<I> targetActor) {
         Objects.requireNonNull(sourceActor, "The input source actor is null.");
         Objects.requireNonNull(targetActor, "The input target actor is null.");
-        checkActorIsInGraph(sourceActor, 
-                            "The source actor is not in this graph.");
-        checkActorIsInGraph(targetActor,
-                            "The target actor is not in this graph.");
+        checkActorIsInGraph(sourceActor, "source actor");
+        checkActorIsInGraph(targetActor, "target actor");
         checkArcExists(sourceActor, targetActor);
         return interestRateMap.get(sourceActor).get(targetActor);
     }
@@ -263,10 +337,331 @@ public final class ActorGraph<I> {
      */
     public double getActorPotential(Actor<I> actor) {
         Objects.requireNonNull(actor, "The input actor is null.");
-        checkActorIsInGraph(actor, "The input actor is not in this graph.");
+        checkActorIsInGraph(actor, "input actor");
         return potentialMap.get(actor);
     }
     
+    /**
+     * Returns an immutable snapshot of this actor graph in which the actors
+     * are indexed densely and the incoming arcs are stored in primitive
+     * arrays. Later modifications of this graph are not reflected in the
+     * returned snapshot.
+     * 
+     * @return a compact snapshot of this actor graph.
+     */
+    public CompactActorGraph<I> freeze() {
+        int numberOfActors = potentialMap.size();
+        Actor<I>[] actors = new Actor[numberOfActors];
+        Map<Actor<I>, Integer> actorIndexMap = new HashMap<>(numberOfActors);
+        double[] potentials = new double[numberOfActors];
+        int[] incomingArcOffsets = new int[numberOfActors + 1];
+        int actorIndex = 0;
+        
+        for (Map.Entry<Actor<I>, Double> entry : potentialMap.entrySet()) {
+            actors[actorIndex] = entry.getKey();
+            potentials[actorIndex] = entry.getValue();
+            actorIndexMap.put(entry.getKey(), actorIndex);
+            actorIndex++;
+        }
+        
+        for (int i = 0; i < numberOfActors; i++) {
+            incomingArcOffsets[i + 1] = 
+                    incomingArcOffsets[i] 
+                    + incomingActors.get(actors[i]).size();
+        }
+        
+        int[] arcSources = new int[numberOfArcs];
+        double[] arcInterestRates = new double[numberOfArcs];
+        
+        for (int i = 0; i < numberOfActors; i++) {
+            Actor<I> targetActor = actors[i];
+            int arcIndex = incomingArcOffsets[i];
+            
+            for (Actor<I> sourceActor : incomingActors.get(targetActor)) {
+                arcSources[arcIndex] = actorIndexMap.get(sourceActor);
+                arcInterestRates[arcIndex] =
+                        interestRateMap.get(sourceActor).get(targetActor);
+                arcIndex++;
+            }
+        }
+        
+        return new CompactActorGraph<>(actors,
+                                       actorIndexMap,
+                                       incomingArcOffsets,
+                                       arcSources,
+                                       arcInterestRates,
+                                       potentials,
+                                       modificationCount);
+    }
+    
+    /**
+     * Adds actors and arcs given in the compressed sparse row layout of 
+     * {@link CompactActorGraph} in a single pass with presized maps. The 
+     * {@code i}th actor has the potential {@code potentials[i]}, and its 
+     * incoming arcs are the arcs {@code incomingArcOffsets[i]} (inclusive) 
+     * through {@code incomingArcOffsets[i + 1]} (exclusive). The arc 
+     * {@code j} comes from the actor {@code arcSources[j]} and has the 
+     * interest rate {@code arcInterestRates[j]}.
+     * <p>
+     * This graph must be empty, and the actors must not belong to any graph.
+     * The potentials, interest rates and actor indices must already be 
+     * validated by the caller, and there must be no self-loops. Only 
+     * duplicate actors and duplicate arcs are detected here. The 
+     * modification counts are incremented once.
+     * 
+     * @param actors             the actors.
+     * @param potentials         the potentials of the actors.
+     * @param incomingArcOffsets the offsets of the incoming arcs.
+     * @param arcSources         the source actor index of each arc.
+     * @param arcInterestRates   the interest rate of each arc.
+     * @throws IllegalArgumentException if an actor or an arc is duplicated.
+     */
+    void addAll(Actor<I>[] actors,
+                double[] potentials,
+                int[] incomingArcOffsets,
+                int[] arcSources,
+                double[] arcInterestRates) {
+        if (!potentialMap.isEmpty()) {
+            throw new IllegalStateException("The actor graph is not empty.");
+        }
+        
+        int numberOfActors = actors.length;
+        int[] outDegrees = new int[numberOfActors];
+        numberOfFreeSlots = 0;
+        slotBound = numberOfActors;
+        
+        for (int arcSource : arcSources) {
+            outDegrees[arcSource]++;
+        }
+        
+        Map<Actor<I>, Double>[] outgoingRateMaps = new Map[numberOfActors];
+        Set<Actor<I>>[] incomingActorSets = new Set[numberOfActors];
+        
+        for (int i = 0; i < numberOfActors; i++) {
+            Actor<I> actor = actors[i];
+            
+            if (potentialMap.put(actor, potentials[i]) != null) {
+                throw new IllegalArgumentException(
+                        "Duplicate actor: " + actor + ".");
+            }
+            
+            outgoingRateMaps[i] = new HashMap<>(capacityFor(outDegrees[i]));
+            incomingActorSets[i] = 
+                    new HashSet<>(
+                            capacityFor(incomingArcOffsets[i + 1] 
+                                      - incomingArcOffsets[i]));
+            interestRateMap.put(actor, outgoingRateMaps[i]);
+            incomingActors.put(actor, incomingActorSets[i]);
+            actor.setOwnerActorGraph(this);
+            actor.setSlot(i);
+        }
+        
+        for (int i = 0; i < numberOfActors; i++) {
+            for (int arc = incomingArcOffsets[i]; 
+                    arc < incomingArcOffsets[i + 1]; 
+                    arc++) {
+                int sourceIndex = arcSources[arc];
+                
+                if (!incomingActorSets[i].add(actors[sourceIndex])) {
+                    throw new IllegalArgumentException(
+                            "Duplicate arc: (" + actors[sourceIndex] + ", " +
+                            actors[i] + ").");
+                }
+                
+                outgoingRateMaps[sourceIndex].put(actors[i], 
+                                                  arcInterestRates[arc]);
+            }
+        }
+        
+        numberOfArcs = arcSources.length;
+        modificationCount++;
+        potentialModificationCount++;
+    }
+    
+    /**
+     * Adds an actor or updates its potential, and notifies the listeners. 
+     * The arguments must be validated by the caller.
+     * 
+     * @param actor                the actor to add.
+     * @param potential            the potential of the actor.
+     * @param expectedOutDegree    the expected number of outgoing arcs of a
+     *                             new actor.
+     * @param expectedInDegree     the expected number of incoming arcs of a
+     *                             new actor.
+     * @return the change flags.
+     */
+    private int applyAddActor(Actor<I> actor, 
+                              double potential,
+                              int expectedOutDegree,
+                              int expectedInDegree) {
+        Double oldPotential = potentialMap.put(actor, potential);
+        int changes = 0;
+        
+        boolean potentialChanged = oldPotential == null 
+                                || oldPotential.doubleValue() != potential;
+        
+        if (potentialChanged) {
+            changes |= POTENTIAL_CHANGED;
+        }
+        
+        if (actorBelongsToThisGraph(actor)) {
+            if (potentialChanged) {
+                for (ActorGraphListener<I> listener : listeners) {
+                    listener.onPotentialChanged(actor);
+                }
+            }
+        } else {
+            if (actorBelongsToOtherGraph(actor)) {
+                // If the input actor belongs to another graph, we need to 
+                // disconnect it from there:
+                actor.getActorGraph().modificationCount++;
+                actor.getActorGraph().removeActor(actor);
+            }
+            
+            actor.setOwnerActorGraph(this);
+            assignSlot(actor);
+            interestRateMap.put(
+                    actor, 
+                    new HashMap<>(capacityFor(expectedOutDegree)));
+            incomingActors.put(
+                    actor, 
+                    new HashSet<>(capacityFor(expectedInDegree)));
+            changes |= STRUCTURE_CHANGED;
+            
+            for (ActorGraphListener<I> listener : listeners) {
+                listener.onActorAdded(actor);
+            }
+        }
+        
+        return changes;
+    }
+    
+    /**
+     * Removes an actor in this graph and notifies the listeners.
+     * 
+     * @param actor the actor to remove.
+     * @return the change flags.
+     */
+    private int applyRemoveActor(Actor<I> actor) {
+        for (ActorGraphListener<I> listener : listeners) {
+            listener.beforeActorRemoved(actor);
+        }
+        
+        potentialMap.remove(actor);
+        numberOfArcs -= incomingActors.get(actor).size();
+        numberOfArcs -= interestRateMap.get(actor).size();
+        
+        for (Actor<I> incomingActor : incomingActors.get(actor)) {
+            interestRateMap.get(incomingActor).remove(actor);
+        }
+        
+        for (Actor<I> outgoingActor : interestRateMap.get(actor).keySet()) {
+            incomingActors.get(outgoingActor).remove(actor);
+        }
+        
+        interestRateMap.remove(actor);
+        incomingActors.remove(actor);
+        actor.setOwnerActorGraph(null);
+        releaseSlot(actor);
+        return STRUCTURE_CHANGED | POTENTIAL_CHANGED;
+    }
+    
+    private void assignSlot(Actor<I> actor) {
+        actor.setSlot(numberOfFreeSlots > 0 ? 
+                      freeSlots[--numberOfFreeSlots] : 
+                      slotBound++);
+    }
+    
+    /**
+     * Releases the slot of a removed actor. Once the graph is empty, all the
+     * slots are released at once.
+     * 
+     * @param actor the removed actor.
+     */
+    private void releaseSlot(Actor<I> actor) {
+        if (potentialMap.isEmpty()) {
+            numberOfFreeSlots = 0;
+            slotBound = 0;
+        } else {
+            if (numberOfFreeSlots == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, 
+                                          Math.max(16, 2 * numberOfFreeSlots));
+            }
+            
+            freeSlots[numberOfFreeSlots++] = actor.getSlot();
+        }
+        
+        actor.setSlot(-1);
+    }
+    
+    /**
+     * Adds an arc or updates its interest rate, and notifies the listeners.
+     * The arguments must be validated by the caller.
+     * 
+     * @param sourceActor  the tail actor.
+     * @param targetActor  the head actor.
+     * @param interestRate the interest rate of the arc.
+     * @return the change flags.
+     */
+    private int applyAddArc(Actor<I> sourceActor,
+                            Actor<I> targetActor,
+                            double interestRate) {
+        if (interestRateMap.get(sourceActor)
+                           .put(targetActor, interestRate) == null) {
+            // Once here, the input arc did not exist in this graph so 
+            // increment the number of arcs counter.
+            numberOfArcs++;
+            incomingActors.get(targetActor).add(sourceActor);
+        }
+        
+        fireArcChanged(sourceActor, targetActor);
+        return STRUCTURE_CHANGED;
+    }
+    
+    /**
+     * Removes an arc if it exists, and notifies the listeners.
+     * 
+     * @param sourceActor the tail actor.
+     * @param targetActor the head actor.
+     * @return the change flags.
+     */
+    private int applyRemoveArc(Actor<I> sourceActor, Actor<I> targetActor) {
+        if (interestRateMap.get(sourceActor).remove(targetActor) == null) {
+            return 0;
+        }
+        
+        numberOfArcs--;
+        incomingActors.get(targetActor).remove(sourceActor);
+        fireArcChanged(sourceActor, targetActor);
+        return STRUCTURE_CHANGED;
+    }
+    
+    /**
+     * Increments the modification counts selected by the change flags.
+     * 
+     * @param changes the change flags.
+     */
+    private void countChanges(int changes) {
+        if ((changes & STRUCTURE_CHANGED) != 0) {
+            modificationCount++;
+        }
+        
+        if ((changes & POTENTIAL_CHANGED) != 0) {
+            potentialModificationCount++;
+        }
+    }
+    
+    /**
+     * Returns the initial capacity of a hash map that holds 
+     * {@code numberOfElements} elements without rehashing.
+     * 
+     * @param numberOfElements the expected number of elements.
+     * @return the initial capacity.
+     */
+    private static int capacityFor(int numberOfElements) {
+        return Math.max(16, (int) (numberOfElements / 0.75f) + 1);
+    }
+    
     /**
      * Checks that the given actors are not {@code null}, and that both the 
      * input actors are in this graph.
@@ -277,14 +672,15 @@ public final class ActorGraph<I> {
     private void checkArc(Actor<I> sourceActor, Actor<I> targetActor) {
         Objects.requireNonNull(sourceActor, "The source actor is null.");
         Objects.requireNonNull(targetActor, "The target actor is null.");
-        checkActorIsInGraph(
-                sourceActor,
-                "The input source actor (" + sourceActor 
-                                           + ") is not in this graph.");
-        checkActorIsInGraph(
-                targetActor, 
-                "The input target actor (" + targetActor 
-                                           + ") is not in this graph.");
+        checkActorIsInGraph(sourceActor, "input source actor");
+        checkActorIsInGraph(targetActor, "input target actor");
+    }
+    
+    // Notifies all the listeners of a changed arc:
+    private void fireArcChanged(Actor<I> sourceActor, Actor<I> targetActor) {
+        for (ActorGraphListener<I> listener : listeners) {
+            listener.onArcChanged(sourceActor, targetActor);
+        }
     }
     
     // Returns true only if the input actor belongs to this graph:
@@ -309,10 +705,13 @@ public final class ActorGraph<I> {
         }
     }
     
-    // Makes sure the input actor is in this graph.
-    private void checkActorIsInGraph(Actor<I> actor, String errorMessage) {
+    // Makes sure the input actor is in this graph. This runs on every query,
+    // so the error message is built only on failure.
+    private void checkActorIsInGraph(Actor<I> actor, String actorDescription) {
         if (actor.getActorGraph() != this) {
-            throw new IllegalStateException(errorMessage);
+            throw new IllegalStateException(
+                    "The " + actorDescription + " (" + actor + 
+                    ") is not in this graph.");
         }
     }
     
@@ -324,4 +723,303 @@ public final class ActorGraph<I> {
                     "self-loop for " + actor1 + ".");
         }
     }
+    
+    /**
+     * This static inner class implements a batch of changes to an actor 
+     * graph. The changes are recorded in primitive arrays and nothing is 
+     * applied before {@link #commit()}. Committing validates the whole batch
+     * first, so an invalid batch leaves the graph untouched, and then applies
+     * the changes in their recording order in a single pass. The listeners 
+     * of the graph are notified of each change, but the modification counts
+     * of the graph are incremented at most once per batch, so the finders
+     * tracking the graph see a single modification.
+     * <p>
+     * A batch is not thread-safe, and may be committed only once.
+     * 
+     * @param <I> the actor identity type.
+     */
+    public static final class Batch<I> {
+        
+        private static final byte ADD_ACTOR = 0;
+        private static final byte REMOVE_ACTOR = 1;
+        private static final byte ADD_ARC = 2;
+        private static final byte REMOVE_ARC = 3;
+        
+        private static final int INITIAL_CAPACITY = 16;
+        
+        /**
+         * The degrees of an actor that gets no arcs in a batch.
+         */
+        private static final int[] NO_ARCS = new int[2];
+        
+        /**
+         * The graph this batch modifies.
+         */
+        private final ActorGraph<I> actorGraph;
+        
+        /**
+         * The operation code of each recorded change.
+         */
+        private byte[] operations = new byte[INITIAL_CAPACITY];
+        
+        /**
+         * The actor of each actor change, and the tail actor of each arc 
+         * change.
+         */
+        private Actor<I>[] firstActors = new Actor[INITIAL_CAPACITY];
+        
+        /**
+         * The head actor of each arc change.
+         */
+        private Actor<I>[] secondActors = new Actor[INITIAL_CAPACITY];
+        
+        /**
+         * The potential of each added actor, and the interest rate of each 
+         * added arc.
+         */
+        private double[] values = new double[INITIAL_CAPACITY];
+        
+        /**
+         * The number of recorded changes.
+         */
+        private int size;
+        
+        private boolean committed;
+        
+        private Batch(ActorGraph<I> actorGraph) {
+            this.actorGraph = actorGraph;
+        }
+        
+        /**
+         * Records adding an actor or updating its potential.
+         * 
+         * @param actor     the actor.
+         * @param potential the potential of the actor.
+         * @return this batch.
+         * @see ActorGraph#addActor(Actor, double)
+         */
+        public Batch<I> addActor(Actor<I> actor, double potential) {
+            Objects.requireNonNull(actor, "The input actor is null.");
+            record(ADD_ACTOR, actor, null, checkPotential(potential));
+            return this;
+        }
+        
+        /**
+         * Records removing an actor.
+         * 
+         * @param actor the actor to remove.
+         * @return this batch.
+         * @see ActorGraph#removeActor(Actor)
+         */
+        public Batch<I> removeActor(Actor<I> actor) {
+            Objects.requireNonNull(actor, "The input actor is null.");
+            record(REMOVE_ACTOR, actor, null, 0.0);
+            return this;
+        }
+        
+        /**
+         * Records adding an arc or updating its interest rate.
+         * 
+         * @param sourceActor  the loan source actor.
+         * @param targetActor  the loan target actor.
+         * @param interestRate the interest rate of the arc.
+         * @return this batch.
+         * @see ActorGraph#addArc(Actor, Actor, double)
+         */
+        public Batch<I> addArc(Actor<I> sourceActor,
+                               Actor<I> targetActor,
+                               double interestRate) {
+            Objects.requireNonNull(sourceActor, "The source actor is null.");
+            Objects.requireNonNull(targetActor, "The target actor is null.");
+            actorGraph.checkNotSelfLoop(sourceActor, targetActor);
+            record(ADD_ARC,
+                   sourceActor,
+                   targetActor,
+                   Utils.checkInterestRate(interestRate));
+            return this;
+        }
+        
+        /**
+         * Records removing an arc. Removing a missing arc does nothing.
+         * 
+         * @param sourceActor the tail actor.
+         * @param targetActor the head actor.
+         * @return this batch.
+         * @see ActorGraph#removeArc(Actor, Actor)
+         */
+        public Batch<I> removeArc(Actor<I> sourceActor, Actor<I> targetActor) {
+            Objects.requireNonNull(sourceActor, "The source actor is null.");
+            Objects.requireNonNull(targetActor, "The target actor is null.");
+            record(REMOVE_ARC, sourceActor, targetActor, 0.0);
+            return this;
+        }
+        
+        /**
+         * Returns the number of recorded changes.
+         * 
+         * @return the number of changes.
+         */
+        public int size() {
+            return size;
+        }
+        
+        /**
+         * Validates and applies all the recorded changes.
+         * 
+         * @throws IllegalStateException if the batch is already committed, or
+         *                               if a change refers to an actor that
+         *                               is not in the graph at that point of
+         *                               the batch. In the latter case the 
+         *                               graph is not modified.
+         */
+        public void commit() {
+            checkNotCommitted();
+            Map<Actor<I>, int[]> addedActorDegrees = validate();
+            committed = true;
+            int changes = 0;
+            
+            for (int i = 0; i < size; i++) {
+                Actor<I> firstActor = firstActors[i];
+                Actor<I> secondActor = secondActors[i];
+                
+                switch (operations[i]) {
+                    case ADD_ACTOR:
+                        int[] degrees = 
+                                addedActorDegrees.getOrDefault(firstActor,
+                                                               NO_ARCS);
+                        changes |= actorGraph.applyAddActor(firstActor,
+                                                            values[i],
+                                                            degrees[0],
+                                                            degrees[1]);
+                        break;
+                    
+                    case REMOVE_ACTOR:
+                        changes |= actorGraph.applyRemoveActor(firstActor);
+                        break;
+                    
+                    case ADD_ARC:
+                        changes |= actorGraph.applyAddArc(firstActor,
+                                                          secondActor,
+                                                          values[i]);
+                        break;
+                    
+                    case REMOVE_ARC:
+                        changes |= actorGraph.applyRemoveArc(firstActor,
+                                                             secondActor);
+                        break;
+                }
+            }
+            
+            actorGraph.countChanges(changes);
+            operations = null;
+            firstActors = null;
+            secondActors = null;
+            values = null;
+        }
+        
+        /**
+         * Simulates the membership of the actors through the batch, and
+         * makes sure every change refers only to actors in the graph. The 
+         * actors are tracked by reference, as {@link Actor} tracks its owner
+         * graph.
+         * 
+         * @return the number of outgoing and incoming arcs added in this 
+         *         batch to each actor new to the graph.
+         */
+        private Map<Actor<I>, int[]> validate() {
+            Map<Actor<I>, Boolean> membershipMap = new IdentityHashMap<>();
+            Map<Actor<I>, int[]> addedActorDegrees = new IdentityHashMap<>();
+            
+            for (int i = 0; i < size; i++) {
+                Actor<I> firstActor = firstActors[i];
+                Actor<I> secondActor = secondActors[i];
+                
+                switch (operations[i]) {
+                    case ADD_ACTOR:
+                        if (!isInGraph(membershipMap, firstActor)) {
+                            addedActorDegrees.put(firstActor, new int[2]);
+                        }
+                        
+                        membershipMap.put(firstActor, Boolean.TRUE);
+                        break;
+                    
+                    case REMOVE_ACTOR:
+                        checkInGraph(membershipMap, firstActor, i);
+                        membershipMap.put(firstActor, Boolean.FALSE);
+                        break;
+                    
+                    case ADD_ARC:
+                        checkInGraph(membershipMap, firstActor, i);
+                        checkInGraph(membershipMap, secondActor, i);
+                        int[] sourceDegrees = 
+                                addedActorDegrees.get(firstActor);
+                        int[] targetDegrees = 
+                                addedActorDegrees.get(secondActor);
+                        
+                        if (sourceDegrees != null) {
+                            sourceDegrees[0]++;
+                        }
+                        
+                        if (targetDegrees != null) {
+                            targetDegrees[1]++;
+                        }
+                        
+                        break;
+                    
+                    case REMOVE_ARC:
+                        checkInGraph(membershipMap, firstActor, i);
+                        checkInGraph(membershipMap, secondActor, i);
+                        break;
+                }
+            }
+            
+            return addedActorDegrees;
+        }
+        
+        private boolean isInGraph(Map<Actor<I>, Boolean> membershipMap,
+                                  Actor<I> actor) {
+            Boolean member = membershipMap.get(actor);
+            return member != null ? 
+                   member : 
+                   actor.getActorGraph() == actorGraph;
+        }
+        
+        private void checkInGraph(Map<Actor<I>, Boolean> membershipMap,
+                                  Actor<I> actor,
+                                  int changeIndex) {
+            if (!isInGraph(membershipMap, actor)) {
+                throw new IllegalStateException(
+                        "The actor (" + actor + ") of the change " + 
+                        changeIndex + " is not in the graph.");
+            }
+        }
+        
+        private void record(byte operation,
+                            Actor<I> firstActor,
+                            Actor<I> secondActor,
+                            double value) {
+            checkNotCommitted();
+            
+            if (size == operations.length) {
+                int capacity = 2 * size;
+                operations = Arrays.copyOf(operations, capacity);
+                firstActors = Arrays.copyOf(firstActors, capacity);
+                secondActors = Arrays.copyOf(secondActors, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            
+            operations[size] = operation;
+            firstActors[size] = firstActor;
+            secondActors[size] = secondActor;
+            values[size] = value;
+            size++;
+        }
+        
+        private void checkNotCommitted() {
+            if (committed) {
+                throw new IllegalStateException(
+                        "The batch is already committed.");
+            }
+        }
+    }
 }
@@ -0,0 +1,50 @@
+package net.coderodde.finance.loan;
+
+/**
+ * This interface defines the API for objects listening to the structural 
+ * changes of an {@link ActorGraph}. All the methods are called on the thread
+ * modifying the graph.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 19, 2018)
+ * @param <I> the actor identity type.
+ */
+public interface ActorGraphListener<I> {
+    
+    /**
+     * Called after a new actor is added to the graph.
+     * 
+     * @param actor the new actor.
+     */
+    public default void onActorAdded(Actor<I> actor) {}
+    
+    /**
+     * Called right before an actor is removed from the graph. At this point
+     * the actor and all its arcs are still in the graph.
+     * 
+     * @param actor the actor being removed.
+     */
+    public default void beforeActorRemoved(Actor<I> actor) {}
+    
+    /**
+     * Called after an arc is added, removed, or its interest rate is updated.
+     * 
+     * @param sourceActor the tail actor of the arc.
+     * @param targetActor the head actor of the arc.
+     */
+    public default void onArcChanged(Actor<I> sourceActor, 
+                                     Actor<I> targetActor) {}
+    
+    /**
+     * Called after the potential of an actor already in the graph is 
+     * updated. Potential updates do not count as structural changes.
+     * 
+     * @param actor the actor whose potential changed.
+     */
+    public default void onPotentialChanged(Actor<I> actor) {}
+    
+    /**
+     * Called after the graph is cleared.
+     */
+    public default void onGraphCleared() {}
+}
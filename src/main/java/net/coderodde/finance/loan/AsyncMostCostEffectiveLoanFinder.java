@@ -0,0 +1,314 @@
+package net.coderodde.finance.loan;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * This class implements an asynchronous facade over a most cost-effective
+ * loan finder. The queries run on an executor of the caller's choice, for
+ * example a virtual thread per task executor where the platform provides
+ * one, or on a fork/join pool of a given size owned by the facade, so that
+ * the threads issuing the queries never block on the search.
+ * <p>
+ * A query may be given a timeout, after which its future completes with a
+ * {@link TimeoutException}, and its future may be cancelled. In both cases
+ * the search notices it at the next settled lender and stops, since the 
+ * facade always streams the lenders via
+ * {@link MostCostEffectiveLoanFinder#findLenders(Actor, double, double,
+ * LenderConsumer)}. The finders relying on the default implementation of 
+ * that method complete their search before the first lender is streamed.
+ * <p>
+ * The finder must support concurrent queries, and the actor graph must not
+ * be modified while a query is running.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 26, 2018)
+ * @param <I> the actor identity type.
+ */
+public final class AsyncMostCostEffectiveLoanFinder<I>
+        implements AutoCloseable {
+    
+    /**
+     * The finder answering the queries.
+     */
+    private final MostCostEffectiveLoanFinder<I> finder;
+    
+    /**
+     * The executor running the queries.
+     */
+    private final Executor executor;
+    
+    /**
+     * The pool created by this facade, or {@code null} if the executor was
+     * supplied by the caller.
+     */
+    private final ForkJoinPool ownedPool;
+    
+    /**
+     * Completes the futures of the queries that run out of time.
+     */
+    private final ScheduledExecutorService timer;
+    
+    /**
+     * Whether {@link #close()} has been called.
+     */
+    private volatile boolean closed;
+    
+    /**
+     * Constructs the facade running the queries on the input executor. The
+     * executor is not shut down by {@link #close()}.
+     * 
+     * @param finder   the finder answering the queries.
+     * @param executor the executor running the queries.
+     */
+    public AsyncMostCostEffectiveLoanFinder(
+            MostCostEffectiveLoanFinder<I> finder,
+            Executor executor) {
+        this(finder,
+             Objects.requireNonNull(executor, "The input executor is null."),
+             null);
+    }
+    
+    /**
+     * Constructs the facade running the queries on a fork/join pool of
+     * {@code parallelism} threads. The pool is shut down by {@link #close()}.
+     * 
+     * @param finder      the finder answering the queries.
+     * @param parallelism the number of threads to use.
+     */
+    public AsyncMostCostEffectiveLoanFinder(
+            MostCostEffectiveLoanFinder<I> finder,
+            int parallelism) {
+        this(finder, null, new ForkJoinPool(checkParallelism(parallelism)));
+    }
+    
+    private AsyncMostCostEffectiveLoanFinder(
+            MostCostEffectiveLoanFinder<I> finder,
+            Executor executor,
+            ForkJoinPool ownedPool) {
+        this.finder = Objects.requireNonNull(finder,
+                                             "The input finder is null.");
+        this.executor = executor != null ? executor : ownedPool;
+        this.ownedPool = ownedPool;
+        
+        ScheduledThreadPoolExecutor timer =
+                new ScheduledThreadPoolExecutor(1, (runnable) -> {
+                    Thread thread = new Thread(runnable,
+                                               "loan-query-timeout");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        timer.setRemoveOnCancelPolicy(true);
+        this.timer = timer;
+    }
+    
+    /**
+     * Starts computing the most cost-effective loan for the input actor.
+     * Cancelling the returned future stops the search. If this facade is
+     * closed, the returned future completes with a 
+     * {@link RejectedExecutionException}.
+     * 
+     * @param actor               the debt actor.
+     * @param requestedPotential  the requested potential.
+     * @param maximumInterestRate the maximum allowed effective interest rate.
+     * @return the future of the loan.
+     */
+    public CompletableFuture<MostCostEffectiveLoan<I>> findLendersAsync(
+            Actor<I> actor,
+            double requestedPotential,
+            double maximumInterestRate) {
+        Objects.requireNonNull(actor, "The input actor is null.");
+        Utils.checkRequestedPotential(requestedPotential);
+        Utils.checkMaximumInterestRate(maximumInterestRate);
+        CompletableFuture<MostCostEffectiveLoan<I>> future =
+                new CompletableFuture<>();
+        
+        if (closed) {
+            future.completeExceptionally(
+                    new RejectedExecutionException("The finder is closed."));
+            return future;
+        }
+        
+        try {
+            executor.execute(() -> runQuery(actor,
+                                            requestedPotential,
+                                            maximumInterestRate,
+                                            future));
+        } catch (RejectedExecutionException ex) {
+            future.completeExceptionally(ex);
+        }
+        
+        return future;
+    }
+    
+    /**
+     * Starts computing the most cost-effective loan for the input actor. If
+     * the loan is not ready within the timeout, the returned future
+     * completes with a {@link TimeoutException} and the search stops. If 
+     * this facade is closed, the returned future completes with a 
+     * {@link RejectedExecutionException}.
+     * 
+     * @param actor               the debt actor.
+     * @param requestedPotential  the requested potential.
+     * @param maximumInterestRate the maximum allowed effective interest rate.
+     * @param timeout             the time to wait for the loan.
+     * @param unit                the unit of {@code timeout}.
+     * @return the future of the loan.
+     */
+    public CompletableFuture<MostCostEffectiveLoan<I>> findLendersAsync(
+            Actor<I> actor,
+            double requestedPotential,
+            double maximumInterestRate,
+            long timeout,
+            TimeUnit unit) {
+        Objects.requireNonNull(unit, "The input time unit is null.");
+        
+        if (timeout <= 0L) {
+            throw new IllegalArgumentException(
+                    "The timeout is not positive: " + timeout + ".");
+        }
+        
+        CompletableFuture<MostCostEffectiveLoan<I>> future =
+                findLendersAsync(actor,
+                                 requestedPotential,
+                                 maximumInterestRate);
+        
+        if (future.isDone()) {
+            return future;
+        }
+        
+        ScheduledFuture<?> timeoutTask;
+        
+        try {
+            timeoutTask = 
+                    timer.schedule(
+                            () -> future.completeExceptionally(
+                                    new TimeoutException(
+                                            "The query timed out after " +
+                                            timeout + " " + unit + ".")),
+                            timeout,
+                            unit);
+        } catch (RejectedExecutionException ex) {
+            // Closed after the query was submitted. Completing the future 
+            // stops the search:
+            future.completeExceptionally(ex);
+            return future;
+        }
+        
+        future.whenComplete((loan, throwable) -> timeoutTask.cancel(false));
+        return future;
+    }
+    
+    /**
+     * Stops the timeout timer and, if this facade created its own pool,
+     * shuts the pool down. The queries already running are completed, and
+     * the queries started afterwards are rejected.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        timer.shutdownNow();
+        
+        if (ownedPool != null) {
+            ownedPool.shutdown();
+        }
+    }
+    
+    private void runQuery(Actor<I> actor,
+                          double requestedPotential,
+                          double maximumInterestRate,
+                          CompletableFuture<MostCostEffectiveLoan<I>> future) {
+        if (future.isDone()) {
+            // Cancelled or timed out while waiting in the executor.
+            return;
+        }
+        
+        try {
+            LoanCollector<I> collector = new LoanCollector<>(future);
+            finder.findLenders(actor,
+                               requestedPotential,
+                               maximumInterestRate,
+                               collector);
+            future.complete(collector.toLoan(actor,
+                                             requestedPotential,
+                                             maximumInterestRate));
+        } catch (Throwable throwable) {
+            future.completeExceptionally(throwable);
+        }
+    }
+    
+    private static int checkParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(
+                    "The parallelism is too small: " + parallelism + ".");
+        }
+        
+        return parallelism;
+    }
+    
+    /**
+     * This inner static class collects the streamed lenders of a query into
+     * parallel arrays and stops the search as soon as the future of the
+     * query is completed by a timeout or a cancellation.
+     * 
+     * @param <I> the actor identity type.
+     */
+    private static final class LoanCollector<I> implements LenderConsumer<I> {
+        
+        private static final int INITIAL_CAPACITY = 16;
+        
+        private final CompletableFuture<?> future;
+        private Actor<I>[] lenders = new Actor[INITIAL_CAPACITY];
+        private double[] lenderPotentials = new double[INITIAL_CAPACITY];
+        private Actor<I>[] lenderDirections = new Actor[INITIAL_CAPACITY];
+        private double collectedPotential;
+        private int size;
+        
+        LoanCollector(CompletableFuture<?> future) {
+            this.future = future;
+        }
+        
+        @Override
+        public boolean accept(Actor<I> lender,
+                              double potential,
+                              double effectiveInterestRate,
+                              Actor<I> direction) {
+            if (size == lenders.length) {
+                int capacity = 2 * size;
+                lenders = Arrays.copyOf(lenders, capacity);
+                lenderPotentials = Arrays.copyOf(lenderPotentials, capacity);
+                lenderDirections = Arrays.copyOf(lenderDirections, capacity);
+            }
+            
+            lenders[size] = lender;
+            lenderPotentials[size] = potential;
+            lenderDirections[size] = direction;
+            collectedPotential += potential;
+            size++;
+            return !future.isDone();
+        }
+        
+        MostCostEffectiveLoan<I> toLoan(Actor<I> actor,
+                                        double requestedPotential,
+                                        double maximumInterestRate) {
+            return new MostCostEffectiveLoan<>(
+                    actor,
+                    collectedPotential,
+                    requestedPotential,
+                    maximumInterestRate,
+                    lenders,
+                    lenderPotentials,
+                    lenderDirections,
+                    size);
+        }
+    }
+}
@@ -0,0 +1,676 @@
+package net.coderodde.finance.loan;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class implements a binary file format for actor graphs. Reading maps
+ * the numeric sections of the file with NIO and copies them into primitive
+ * arrays in bulk, after which the graph is built in a single pass without
+ * the per-arc validation of {@link ActorGraph#addArc(Actor, Actor, double)}.
+ * <p>
+ * All the numbers are big-endian, and every number is aligned to its own
+ * size. A file with {@code n} actors and {@code m} arcs consists of:
+ * <ol>
+ *   <li>the header: the magic number {@code 0x4D434547}, the format version,
+ *       {@code n} and {@code m}, all {@code int}s,</li>
+ *   <li>{@code n} {@code double} potentials,</li>
+ *   <li>{@code m} {@code double} interest rates of the arcs,</li>
+ *   <li>{@code n + 1} {@code int} offsets: the incoming arcs of the actor
+ *       {@code i} are the arcs {@code offsets[i]} (inclusive) through
+ *       {@code offsets[i + 1]} (exclusive),</li>
+ *   <li>{@code m} {@code int} source actor indices of the arcs,</li>
+ *   <li>the actor table: the identities of the {@code n} actors written by an
+ *       {@link IdentityCodec}.</li>
+ * </ol>
+ * This is the layout of {@link CompactActorGraph}, so a file may also be read
+ * directly into a compact read-only view without building any per-arc maps,
+ * or mapped into an {@link OffHeapActorGraph} without copying the numbers
+ * onto the heap at all.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 24, 2018)
+ */
+public final class BinaryActorGraphFormat {
+    
+    /**
+     * The magic number starting each graph file ("MCEG").
+     */
+    private static final int MAGIC = 0x4D434547;
+    
+    /**
+     * The version of the file format.
+     */
+    private static final int VERSION = 1;
+    
+    /**
+     * The length of the file header in bytes.
+     */
+    private static final int HEADER_SIZE = 16;
+    
+    /**
+     * The maximum number of bytes mapped at a time.
+     */
+    private static final int MAXIMUM_MAPPING_SIZE = 1 << 30;
+    
+    /**
+     * The length of the stream buffers.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    private BinaryActorGraphFormat() {}
+    
+    /**
+     * Writes the input actor graph to a file.
+     * 
+     * @param <I>           the actor identity type.
+     * @param actorGraph    the actor graph to write.
+     * @param path          the path of the file to write.
+     * @param identityCodec writes the actor identities.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static <I> void write(ActorGraph<I> actorGraph,
+                                 Path path,
+                                 IdentityCodec<I> identityCodec)
+            throws IOException {
+        Objects.requireNonNull(actorGraph, "The input actor graph is null.");
+        Objects.requireNonNull(path, "The input path is null.");
+        Objects.requireNonNull(identityCodec,
+                               "The input identity codec is null.");
+        CompactActorGraph<I> compactActorGraph = actorGraph.freeze();
+        int numberOfActors = compactActorGraph.getNumberOfActors();
+        int numberOfArcs = compactActorGraph.getNumberOfArcs();
+        
+        try (DataOutputStream output =
+                new DataOutputStream(
+                        new BufferedOutputStream(
+                                Files.newOutputStream(path),
+                                BUFFER_SIZE))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(numberOfActors);
+            output.writeInt(numberOfArcs);
+            
+            for (int i = 0; i < numberOfActors; i++) {
+                output.writeDouble(compactActorGraph.getActorPotential(i));
+            }
+            
+            for (int arc = 0; arc < numberOfArcs; arc++) {
+                output.writeDouble(compactActorGraph.getArcInterestRate(arc));
+            }
+            
+            for (int i = 0; i < numberOfActors; i++) {
+                output.writeInt(compactActorGraph.getIncomingArcStart(i));
+            }
+            
+            output.writeInt(numberOfArcs);
+            
+            for (int arc = 0; arc < numberOfArcs; arc++) {
+                output.writeInt(compactActorGraph.getArcSource(arc));
+            }
+            
+            for (int i = 0; i < numberOfActors; i++) {
+                identityCodec.write(compactActorGraph.getActor(i)
+                                                     .getIdentity(),
+                                    output);
+            }
+        }
+    }
+    
+    /**
+     * Reads an actor graph from a file.
+     * 
+     * @param <I>           the actor identity type.
+     * @param path          the path of the file to read.
+     * @param identityCodec reads the actor identities.
+     * @return the actor graph.
+     * @throws IOException if an I/O error occurs or the file is malformed.
+     */
+    public static <I> ActorGraph<I> readActorGraph(
+            Path path,
+            IdentityCodec<I> identityCodec) throws IOException {
+        GraphData<I> graphData = read(path, identityCodec);
+        ActorGraph<I> actorGraph =
+                new ActorGraph<>(graphData.actors.length);
+        
+        try {
+            actorGraph.addAll(graphData.actors,
+                              graphData.potentials,
+                              graphData.incomingArcOffsets,
+                              graphData.arcSources,
+                              graphData.arcInterestRates);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Malformed graph file: " +
+                                  ex.getMessage(), ex);
+        }
+        
+        return actorGraph;
+    }
+    
+    /**
+     * Reads a compact read-only view of an actor graph from a file. Only the
+     * actor index is hashed; the arcs stay in the primitive arrays read from
+     * the file.
+     * 
+     * @param <I>           the actor identity type.
+     * @param path          the path of the file to read.
+     * @param identityCodec reads the actor identities.
+     * @return the compact actor graph.
+     * @throws IOException if an I/O error occurs or the file is malformed.
+     */
+    public static <I> CompactActorGraph<I> readCompactActorGraph(
+            Path path,
+            IdentityCodec<I> identityCodec) throws IOException {
+        GraphData<I> graphData = read(path, identityCodec);
+        Map<Actor<I>, Integer> actorIndexMap =
+                new HashMap<>(graphData.actors.length * 4 / 3 + 1);
+        
+        for (int i = 0; i < graphData.actors.length; i++) {
+            if (actorIndexMap.put(graphData.actors[i], i) != null) {
+                throw new IOException(
+                        "Malformed graph file: duplicate actor " +
+                        graphData.actors[i] + ".");
+            }
+        }
+        
+        for (int i = 0; i < graphData.actors.length; i++) {
+            checkNoDuplicateArcs(graphData, i);
+        }
+        
+        return new CompactActorGraph<>(graphData.actors,
+                                       actorIndexMap,
+                                       graphData.incomingArcOffsets,
+                                       graphData.arcSources,
+                                       graphData.arcInterestRates,
+                                       graphData.potentials,
+                                       0);
+    }
+    
+    /**
+     * Maps a graph file into an off-heap graph. The numbers are not copied:
+     * the graph reads them from the file mapping, so the operating system
+     * pages them in on demand and a graph larger than the Java heap, or even
+     * the physical memory, may be searched. Only the actor table is read
+     * onto the heap. All the numbers are validated in a single pass over the
+     * mapping.
+     * 
+     * @param <I>           the actor identity type.
+     * @param path          the path of the file to read.
+     * @param identityCodec reads the actor identities.
+     * @return the off-heap actor graph.
+     * @throws IOException if an I/O error occurs or the file is malformed.
+     */
+    public static <I> OffHeapActorGraph<I> readOffHeapActorGraph(
+            Path path,
+            IdentityCodec<I> identityCodec) throws IOException {
+        return readOffHeapActorGraph(path,
+                                     identityCodec,
+                                     OffHeapActorGraph.DEFAULT_CHUNK_SHIFT);
+    }
+    
+    static <I> OffHeapActorGraph<I> readOffHeapActorGraph(
+            Path path,
+            IdentityCodec<I> identityCodec,
+            int chunkShift) throws IOException {
+        Objects.requireNonNull(path, "The input path is null.");
+        Objects.requireNonNull(identityCodec,
+                               "The input identity codec is null.");
+        
+        try (FileChannel channel = FileChannel.open(path,
+                                                    StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            int numberOfActors = header.numberOfActors;
+            int numberOfArcs = header.numberOfArcs;
+            DoubleBuffer[] potentials =
+                    mapDoubleChunks(channel,
+                                    header.getPotentialsPosition(),
+                                    numberOfActors,
+                                    chunkShift);
+            DoubleBuffer[] arcInterestRates =
+                    mapDoubleChunks(channel,
+                                    header.getInterestRatesPosition(),
+                                    numberOfArcs,
+                                    chunkShift);
+            IntBuffer[] incomingArcOffsets =
+                    mapIntChunks(channel,
+                                 header.getOffsetsPosition(),
+                                 numberOfActors + 1,
+                                 chunkShift);
+            IntBuffer[] arcSources =
+                    mapIntChunks(channel,
+                                 header.getSourcesPosition(),
+                                 numberOfArcs,
+                                 chunkShift);
+            Actor<I>[] actors = new Actor[numberOfActors];
+            readActors(channel,
+                       header.getActorTablePosition(),
+                       actors,
+                       identityCodec);
+            OffHeapActorGraph<I> actorGraph;
+            
+            try {
+                actorGraph = new OffHeapActorGraph<>(actors,
+                                                     potentials,
+                                                     incomingArcOffsets,
+                                                     arcSources,
+                                                     arcInterestRates,
+                                                     numberOfArcs,
+                                                     chunkShift);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException("Malformed graph file: " +
+                                      ex.getMessage(), ex);
+            }
+            
+            checkIndexedActorGraph(actorGraph);
+            return actorGraph;
+        }
+    }
+    
+    /**
+     * Reads and validates the contents of a graph file.
+     * 
+     * @param <I>           the actor identity type.
+     * @param path          the path of the file to read.
+     * @param identityCodec reads the actor identities.
+     * @return the contents of the file.
+     * @throws IOException if an I/O error occurs or the file is malformed.
+     */
+    private static <I> GraphData<I> read(Path path,
+                                         IdentityCodec<I> identityCodec)
+            throws IOException {
+        Objects.requireNonNull(path, "The input path is null.");
+        Objects.requireNonNull(identityCodec,
+                               "The input identity codec is null.");
+        
+        try (FileChannel channel = FileChannel.open(path,
+                                                    StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            GraphData<I> graphData = new GraphData<>(header.numberOfActors,
+                                                     header.numberOfArcs);
+            readDoubles(channel,
+                        header.getPotentialsPosition(),
+                        graphData.potentials);
+            readDoubles(channel,
+                        header.getInterestRatesPosition(),
+                        graphData.arcInterestRates);
+            readInts(channel,
+                     header.getOffsetsPosition(),
+                     graphData.incomingArcOffsets);
+            readInts(channel,
+                     header.getSourcesPosition(),
+                     graphData.arcSources);
+            checkGraphData(graphData);
+            
+            readActors(channel,
+                       header.getActorTablePosition(),
+                       graphData.actors,
+                       identityCodec);
+            return graphData;
+        }
+    }
+    
+    /**
+     * Reads and checks the header of a graph file.
+     * 
+     * @param channel the channel of the file.
+     * @return the header.
+     * @throws IOException if an I/O error occurs or the file is malformed.
+     */
+    private static Header readHeader(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        
+        if (fileSize < HEADER_SIZE) {
+            throw new IOException("Malformed graph file: truncated.");
+        }
+        
+        MappedByteBuffer header =
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not a graph file.");
+        }
+        
+        if (header.getInt(4) != VERSION) {
+            throw new IOException(
+                    "Unsupported graph file version: " +
+                    header.getInt(4) + ".");
+        }
+        
+        int numberOfActors = header.getInt(8);
+        int numberOfArcs = header.getInt(12);
+        
+        if (numberOfActors < 0 
+                || numberOfArcs < 0 
+                || numberOfActors == Integer.MAX_VALUE) {
+            throw new IOException(
+                    "Malformed graph file: invalid size.");
+        }
+        
+        Header result = new Header(numberOfActors, numberOfArcs);
+        
+        if (fileSize < result.getActorTablePosition()) {
+            throw new IOException("Malformed graph file: truncated.");
+        }
+        
+        return result;
+    }
+    
+    private static <I> void readActors(FileChannel channel,
+                                       long position,
+                                       Actor<I>[] actors,
+                                       IdentityCodec<I> identityCodec)
+            throws IOException {
+        channel.position(position);
+        DataInputStream input =
+                new DataInputStream(
+                        new BufferedInputStream(
+                                Channels.newInputStream(channel),
+                                BUFFER_SIZE));
+        
+        for (int i = 0; i < actors.length; i++) {
+            actors[i] = new Actor<>(identityCodec.read(input));
+        }
+    }
+    
+    /**
+     * Validates all the numbers read from a graph file in bulk.
+     * 
+     * @param graphData the contents of the file.
+     * @throws IOException if the contents are malformed.
+     */
+    private static void checkGraphData(GraphData<?> graphData)
+            throws IOException {
+        int numberOfActors = graphData.potentials.length;
+        int numberOfArcs = graphData.arcSources.length;
+        
+        for (double potential : graphData.potentials) {
+            if (!(potential >= 0.0 && potential < Double.POSITIVE_INFINITY)) {
+                throw new IOException(
+                        "Malformed graph file: invalid potential " +
+                        potential + ".");
+            }
+        }
+        
+        for (double interestRate : graphData.arcInterestRates) {
+            if (!(interestRate >= 0.0
+                    && interestRate < Double.POSITIVE_INFINITY)) {
+                throw new IOException(
+                        "Malformed graph file: invalid interest rate " +
+                        interestRate + ".");
+            }
+        }
+        
+        int[] offsets = graphData.incomingArcOffsets;
+        
+        if (offsets[0] != 0 || offsets[numberOfActors] != numberOfArcs) {
+            throw new IOException(
+                    "Malformed graph file: invalid arc offsets.");
+        }
+        
+        for (int i = 0; i < numberOfActors; i++) {
+            if (offsets[i] > offsets[i + 1]) {
+                throw new IOException(
+                        "Malformed graph file: invalid arc offsets.");
+            }
+            
+            for (int arc = offsets[i]; arc < offsets[i + 1]; arc++) {
+                int source = graphData.arcSources[arc];
+                
+                if (source < 0 || source >= numberOfActors || source == i) {
+                    throw new IOException(
+                            "Malformed graph file: invalid arc source " +
+                            source + " for actor " + i + ".");
+                }
+            }
+        }
+    }
+    
+    /**
+     * Makes sure no two incoming arcs of the input actor come from the same
+     * actor.
+     * 
+     * @param graphData  the contents of a graph file.
+     * @param actorIndex the index of the target actor.
+     * @throws IOException if there are duplicate arcs.
+     */
+    private static void checkNoDuplicateArcs(GraphData<?> graphData,
+                                             int actorIndex)
+            throws IOException {
+        int start = graphData.incomingArcOffsets[actorIndex];
+        int end = graphData.incomingArcOffsets[actorIndex + 1];
+        
+        if (end - start < 2) {
+            return;
+        }
+        
+        int[] sources = new int[end - start];
+        System.arraycopy(graphData.arcSources, start, sources, 0, end - start);
+        Arrays.sort(sources);
+        
+        for (int i = 1; i < sources.length; i++) {
+            if (sources[i - 1] == sources[i]) {
+                throw new IOException(
+                        "Malformed graph file: duplicate arc (" +
+                        sources[i] + ", " + actorIndex + ").");
+            }
+        }
+    }
+    
+    /**
+     * Validates all the numbers of an off-heap graph in a single pass. The
+     * duplicate arcs are detected by stamping the source actors of the 
+     * incoming arcs of each actor.
+     * 
+     * @param actorGraph the graph to check.
+     * @throws IOException if the graph is malformed.
+     */
+    private static void checkIndexedActorGraph(
+            IndexedActorGraph<?> actorGraph) throws IOException {
+        int numberOfActors = actorGraph.getNumberOfActors();
+        int numberOfArcs = actorGraph.getNumberOfArcs();
+        int[] stamps = new int[numberOfActors];
+        
+        if (actorGraph.getIncomingArcStart(0) != 0
+                || actorGraph.getIncomingArcStart(numberOfActors) 
+                        != numberOfArcs) {
+            throw new IOException(
+                    "Malformed graph file: invalid arc offsets.");
+        }
+        
+        for (int i = 0; i < numberOfActors; i++) {
+            double potential = actorGraph.getActorPotential(i);
+            
+            if (!(potential >= 0.0 && potential < Double.POSITIVE_INFINITY)) {
+                throw new IOException(
+                        "Malformed graph file: invalid potential " +
+                        potential + ".");
+            }
+            
+            int start = actorGraph.getIncomingArcStart(i);
+            int end = actorGraph.getIncomingArcEnd(i);
+            
+            if (start > end) {
+                throw new IOException(
+                        "Malformed graph file: invalid arc offsets.");
+            }
+            
+            for (int arc = start; arc < end; arc++) {
+                int source = actorGraph.getArcSource(arc);
+                double interestRate = actorGraph.getArcInterestRate(arc);
+                
+                if (source < 0 || source >= numberOfActors || source == i) {
+                    throw new IOException(
+                            "Malformed graph file: invalid arc source " +
+                            source + " for actor " + i + ".");
+                }
+                
+                if (stamps[source] == i + 1) {
+                    throw new IOException(
+                            "Malformed graph file: duplicate arc (" +
+                            source + ", " + i + ").");
+                }
+                
+                stamps[source] = i + 1;
+                
+                if (!(interestRate >= 0.0
+                        && interestRate < Double.POSITIVE_INFINITY)) {
+                    throw new IOException(
+                            "Malformed graph file: invalid interest rate " +
+                            interestRate + ".");
+                }
+            }
+        }
+    }
+    
+    private static DoubleBuffer[] mapDoubleChunks(FileChannel channel,
+                                                  long position,
+                                                  int length,
+                                                  int chunkShift)
+            throws IOException {
+        DoubleBuffer[] chunks = 
+                new DoubleBuffer[OffHeapActorGraph.getNumberOfChunks(
+                        length, 
+                        chunkShift)];
+        
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            chunks[chunk] = 
+                    channel.map(FileChannel.MapMode.READ_ONLY,
+                                position + ((long) Double.BYTES 
+                                                   << chunkShift) * chunk,
+                                (long) Double.BYTES *
+                                OffHeapActorGraph.getChunkLength(length,
+                                                                 chunk,
+                                                                 chunkShift))
+                           .asDoubleBuffer();
+        }
+        
+        return chunks;
+    }
+    
+    private static IntBuffer[] mapIntChunks(FileChannel channel,
+                                            long position,
+                                            int length,
+                                            int chunkShift)
+            throws IOException {
+        IntBuffer[] chunks = 
+                new IntBuffer[OffHeapActorGraph.getNumberOfChunks(
+                        length, 
+                        chunkShift)];
+        
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            chunks[chunk] = 
+                    channel.map(FileChannel.MapMode.READ_ONLY,
+                                position + ((long) Integer.BYTES 
+                                                   << chunkShift) * chunk,
+                                (long) Integer.BYTES *
+                                OffHeapActorGraph.getChunkLength(length,
+                                                                 chunk,
+                                                                 chunkShift))
+                           .asIntBuffer();
+        }
+        
+        return chunks;
+    }
+    
+    private static void readDoubles(FileChannel channel,
+                                    long position,
+                                    double[] array) throws IOException {
+        int maximumCount = MAXIMUM_MAPPING_SIZE / Double.BYTES;
+        
+        for (int index = 0; index < array.length; index += maximumCount) {
+            int count = Math.min(maximumCount, array.length - index);
+            channel.map(FileChannel.MapMode.READ_ONLY,
+                        position + (long) Double.BYTES * index,
+                        (long) Double.BYTES * count)
+                   .asDoubleBuffer()
+                   .get(array, index, count);
+        }
+    }
+    
+    private static void readInts(FileChannel channel,
+                                 long position,
+                                 int[] array) throws IOException {
+        int maximumCount = MAXIMUM_MAPPING_SIZE / Integer.BYTES;
+        
+        for (int index = 0; index < array.length; index += maximumCount) {
+            int count = Math.min(maximumCount, array.length - index);
+            channel.map(FileChannel.MapMode.READ_ONLY,
+                        position + (long) Integer.BYTES * index,
+                        (long) Integer.BYTES * count)
+                   .asIntBuffer()
+                   .get(array, index, count);
+        }
+    }
+    
+    /**
+     * This inner static class holds the sizes read from the header of a 
+     * graph file, and computes the positions of the file sections.
+     */
+    private static final class Header {
+        
+        final int numberOfActors;
+        final int numberOfArcs;
+        
+        Header(int numberOfActors, int numberOfArcs) {
+            this.numberOfActors = numberOfActors;
+            this.numberOfArcs = numberOfArcs;
+        }
+        
+        long getPotentialsPosition() {
+            return HEADER_SIZE;
+        }
+        
+        long getInterestRatesPosition() {
+            return getPotentialsPosition() + 8L * numberOfActors;
+        }
+        
+        long getOffsetsPosition() {
+            return getInterestRatesPosition() + 8L * numberOfArcs;
+        }
+        
+        long getSourcesPosition() {
+            return getOffsetsPosition() + 4L * (numberOfActors + 1);
+        }
+        
+        long getActorTablePosition() {
+            return getSourcesPosition() + 4L * numberOfArcs;
+        }
+    }
+    
+    /**
+     * This inner static class holds the contents of a graph file.
+     * 
+     * @param <I> the actor identity type.
+     */
+    private static final class GraphData<I> {
+        
+        final Actor<I>[] actors;
+        final double[] potentials;
+        final int[] incomingArcOffsets;
+        final int[] arcSources;
+        final double[] arcInterestRates;
+        
+        GraphData(int numberOfActors, int numberOfArcs) {
+            this.actors = new Actor[numberOfActors];
+            this.potentials = new double[numberOfActors];
+            this.incomingArcOffsets = new int[numberOfActors + 1];
+            this.arcSources = new int[numberOfArcs];
+            this.arcInterestRates = new double[numberOfArcs];
+        }
+    }
+}
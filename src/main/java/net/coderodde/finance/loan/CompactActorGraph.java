@@ -0,0 +1,183 @@
+package net.coderodde.finance.loan;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class implements an immutable snapshot of an {@link ActorGraph}. Each
+ * actor is given a dense integer index in the range
+ * {@code 0, 1, ..., getNumberOfActors() - 1}, and the incoming arcs of all
+ * actors are laid out in compressed sparse row form: the incoming arcs of the
+ * actor with index {@code i} occupy the arc indices
+ * {@code getIncomingArcStart(i), ..., getIncomingArcEnd(i) - 1}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 15, 2018)
+ * @param <I> the actor identity type.
+ */
+public final class CompactActorGraph<I> implements IndexedActorGraph<I> {
+    
+    /**
+     * Maps each actor index to the actual actor.
+     */
+    private final Actor<I>[] actors;
+    
+    /**
+     * Maps each actor to its index.
+     */
+    private final Map<Actor<I>, Integer> actorIndexMap;
+    
+    /**
+     * The incoming arcs of the actor with index {@code i} start from
+     * {@code incomingArcOffsets[i]} and end before
+     * {@code incomingArcOffsets[i + 1]}.
+     */
+    private final int[] incomingArcOffsets;
+    
+    /**
+     * Maps each arc index to the index of the lending actor of the arc.
+     */
+    private final int[] arcSources;
+    
+    /**
+     * Maps each arc index to the interest rate of the arc.
+     */
+    private final double[] arcInterestRates;
+    
+    /**
+     * Maps each actor index to the potential of the actor.
+     */
+    private final double[] potentials;
+    
+    /**
+     * The modification count of the source actor graph at the moment this
+     * snapshot was taken.
+     */
+    private final int modificationCount;
+    
+    CompactActorGraph(Actor<I>[] actors,
+                      Map<Actor<I>, Integer> actorIndexMap,
+                      int[] incomingArcOffsets,
+                      int[] arcSources,
+                      double[] arcInterestRates,
+                      double[] potentials,
+                      int modificationCount) {
+        this.actors = actors;
+        this.actorIndexMap = actorIndexMap;
+        this.incomingArcOffsets = incomingArcOffsets;
+        this.arcSources = arcSources;
+        this.arcInterestRates = arcInterestRates;
+        this.potentials = potentials;
+        this.modificationCount = modificationCount;
+    }
+    
+    /**
+     * Returns the number of actors in this graph.
+     * 
+     * @return the number of actors.
+     */
+    @Override
+    public int getNumberOfActors() {
+        return actors.length;
+    }
+    
+    /**
+     * Returns the number of arcs in this graph.
+     * 
+     * @return the number of arcs.
+     */
+    @Override
+    public int getNumberOfArcs() {
+        return arcSources.length;
+    }
+    
+    /**
+     * Returns the modification count of the source actor graph at the moment
+     * this snapshot was taken.
+     * 
+     * @return the modification count of the source graph.
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+    
+    /**
+     * Returns the actor with the given index.
+     * 
+     * @param actorIndex the index of the actor.
+     * @return the actor.
+     */
+    @Override
+    public Actor<I> getActor(int actorIndex) {
+        return actors[actorIndex];
+    }
+    
+    /**
+     * Returns the index of the input actor, or {@code -1} if the actor is not
+     * in this graph.
+     * 
+     * @param actor the actor to look up.
+     * @return the index of the actor or {@code -1}.
+     */
+    @Override
+    public int getActorIndex(Actor<I> actor) {
+        Objects.requireNonNull(actor, "The input actor is null.");
+        Integer actorIndex = actorIndexMap.get(actor);
+        return actorIndex == null ? -1 : actorIndex;
+    }
+    
+    /**
+     * Returns the potential of the actor with the given index.
+     * 
+     * @param actorIndex the index of the actor.
+     * @return the potential of the actor.
+     */
+    @Override
+    public double getActorPotential(int actorIndex) {
+        return potentials[actorIndex];
+    }
+    
+    /**
+     * Returns the index of the first incoming arc of the given actor.
+     * 
+     * @param actorIndex the index of the target actor.
+     * @return the index of the first incoming arc.
+     */
+    @Override
+    public int getIncomingArcStart(int actorIndex) {
+        return incomingArcOffsets[actorIndex];
+    }
+    
+    /**
+     * Returns the index one past the last incoming arc of the given actor.
+     * 
+     * @param actorIndex the index of the target actor.
+     * @return the index one past the last incoming arc.
+     */
+    @Override
+    public int getIncomingArcEnd(int actorIndex) {
+        return incomingArcOffsets[actorIndex + 1];
+    }
+    
+    /**
+     * Returns the index of the lending actor of the given arc.
+     * 
+     * @param arcIndex the index of the arc.
+     * @return the index of the source actor of the arc.
+     */
+    @Override
+    public int getArcSource(int arcIndex) {
+        return arcSources[arcIndex];
+    }
+    
+    /**
+     * Returns the interest rate of the given arc.
+     * 
+     * @param arcIndex the index of the arc.
+     * @return the interest rate of the arc.
+     */
+    @Override
+    public double getArcInterestRate(int arcIndex) {
+        return arcInterestRates[arcIndex];
+    }
+}
@@ -0,0 +1,120 @@
+package net.coderodde.finance.loan;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class describes the outcome of an edge list import. Malformed lines do
+ * not abort the import; they are skipped and recorded here, so that a caller
+ * may decide whether the imported graph is usable.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 25, 2018)
+ * @param <G> the type of the imported graph.
+ */
+public final class EdgeListImportReport<G> {
+    
+    /**
+     * The imported graph.
+     */
+    private final G graph;
+    
+    /**
+     * The number of lines read, including the skipped ones.
+     */
+    private final long numberOfLines;
+    
+    /**
+     * The number of arc lines overridden by a later line for the same arc.
+     */
+    private final long numberOfDuplicateArcs;
+    
+    /**
+     * The total number of skipped malformed lines.
+     */
+    private final long numberOfErrors;
+    
+    /**
+     * The descriptions of the first skipped lines.
+     */
+    private final List<String> errors;
+    
+    EdgeListImportReport(G graph,
+                         long numberOfLines,
+                         long numberOfDuplicateArcs,
+                         long numberOfErrors,
+                         List<String> errors) {
+        this.graph = graph;
+        this.numberOfLines = numberOfLines;
+        this.numberOfDuplicateArcs = numberOfDuplicateArcs;
+        this.numberOfErrors = numberOfErrors;
+        this.errors = Collections.unmodifiableList(errors);
+    }
+    
+    /**
+     * Returns the imported graph. The graph contains everything except the
+     * skipped lines.
+     * 
+     * @return the imported graph.
+     */
+    public G getGraph() {
+        return graph;
+    }
+    
+    /**
+     * Returns the number of lines read, including blank lines, comments and
+     * skipped lines.
+     * 
+     * @return the number of lines.
+     */
+    public long getNumberOfLines() {
+        return numberOfLines;
+    }
+    
+    /**
+     * Returns the number of arc lines that were overridden by a later line
+     * for the same arc. As with
+     * {@link ActorGraph#addArc(Actor, Actor, double)}, the last interest
+     * rate wins.
+     * 
+     * @return the number of duplicate arcs.
+     */
+    public long getNumberOfDuplicateArcs() {
+        return numberOfDuplicateArcs;
+    }
+    
+    /**
+     * Returns the total number of skipped malformed lines.
+     * 
+     * @return the number of errors.
+     */
+    public long getNumberOfErrors() {
+        return numberOfErrors;
+    }
+    
+    /**
+     * Returns the descriptions of the skipped lines. Only the first
+     * {@link EdgeListImporter#MAXIMUM_REPORTED_ERRORS} errors are described.
+     * 
+     * @return the error descriptions.
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+    
+    /**
+     * Returns {@code true} only if no line was skipped.
+     * 
+     * @return {@code true} if the import had no errors.
+     */
+    public boolean isSuccessful() {
+        return numberOfErrors == 0;
+    }
+    
+    @Override
+    public String toString() {
+        return "[EdgeListImportReport, lines = " + numberOfLines +
+               ", duplicate arcs = " + numberOfDuplicateArcs +
+               ", errors = " + numberOfErrors + "]";
+    }
+}
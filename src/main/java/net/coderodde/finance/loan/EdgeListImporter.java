@@ -0,0 +1,809 @@
+package net.coderodde.finance.loan;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * This class imports actor graphs from CSV or TSV edge lists. Each line of
+ * the input is one of:
+ * <ul>
+ *   <li>{@code actor,potential}: declares an actor with a potential,</li>
+ *   <li>{@code source,target,interestRate}: declares an arc,</li>
+ *   <li>a blank line or a comment starting with {@code #}.</li>
+ * </ul>
+ * The fields are separated by commas or tabs, and the spaces around them are
+ * ignored. Quoting is not supported. An actor appearing only in arcs gets
+ * the potential zero. If an actor or an arc is declared several times, the
+ * last declaration wins, as with {@link ActorGraph#addActor(Actor, double)}
+ * and {@link ActorGraph#addArc(Actor, Actor, double)}.
+ * <p>
+ * The input is streamed through a fixed-size byte buffer and parsed in place:
+ * no string is created per line, only one per distinct actor identity. The
+ * arcs are collected into primitive arrays and the graph is built in a single
+ * bulk pass at the end, so the text of the input never has to fit in memory.
+ * Malformed lines do not throw; they are skipped and recorded in the
+ * returned {@link EdgeListImportReport}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 25, 2018)
+ * @param <I> the actor identity type.
+ */
+public final class EdgeListImporter<I> {
+    
+    /**
+     * The maximum number of errors described in an import report. The errors
+     * after that are only counted.
+     */
+    public static final int MAXIMUM_REPORTED_ERRORS = 100;
+    
+    /**
+     * The initial length of the read buffer. The buffer grows only if a
+     * single line does not fit in it.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    /**
+     * The powers of ten that are exactly representable as doubles.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0,  1e1,  1e2,  1e3,  1e4,  1e5,  1e6,  1e7,  1e8,  1e9,  1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21,
+        1e22
+    };
+    
+    /**
+     * The maximum number of digits of a decimal number whose value is always
+     * exactly representable as a double.
+     */
+    private static final int MAXIMUM_EXACT_DIGITS = 15;
+    
+    /**
+     * Converts the identity strings to actor identities.
+     */
+    private final Function<String, I> identityParser;
+    
+    /**
+     * Constructs an importer.
+     * 
+     * @param identityParser converts the identity fields to actor identities.
+     *                       It may throw a runtime exception on invalid
+     *                       identities, which is reported as an error.
+     */
+    public EdgeListImporter(Function<String, I> identityParser) {
+        this.identityParser =
+                Objects.requireNonNull(identityParser,
+                                       "The input identity parser is null.");
+    }
+    
+    /**
+     * Imports an actor graph from the input stream. The stream is not closed.
+     * 
+     * @param input the input stream.
+     * @return the import report holding the imported actor graph.
+     * @throws IOException if an I/O error occurs.
+     */
+    public EdgeListImportReport<ActorGraph<I>> importActorGraph(
+            InputStream input) throws IOException {
+        ImportState<I> state = parse(input);
+        Actor<I>[] actors = state.getActors();
+        long numberOfDuplicateArcs = state.buildIncomingArcs();
+        ActorGraph<I> actorGraph = new ActorGraph<>(actors.length);
+        actorGraph.addAll(actors,
+                          state.getPotentials(),
+                          state.incomingArcOffsets,
+                          state.arcSources,
+                          state.arcInterestRates);
+        return state.createReport(actorGraph, numberOfDuplicateArcs);
+    }
+    
+    /**
+     * Imports an actor graph from a file.
+     * 
+     * @param path the path of the file.
+     * @return the import report holding the imported actor graph.
+     * @throws IOException if an I/O error occurs.
+     */
+    public EdgeListImportReport<ActorGraph<I>> importActorGraph(Path path)
+            throws IOException {
+        Objects.requireNonNull(path, "The input path is null.");
+        
+        try (InputStream input = Files.newInputStream(path)) {
+            return importActorGraph(input);
+        }
+    }
+    
+    /**
+     * Imports a compact read-only actor graph from the input stream. No
+     * per-arc maps are built, so this needs considerably less memory than
+     * {@link #importActorGraph(InputStream)}. The stream is not closed.
+     * 
+     * @param input the input stream.
+     * @return the import report holding the imported compact actor graph.
+     * @throws IOException if an I/O error occurs.
+     */
+    public EdgeListImportReport<CompactActorGraph<I>> importCompactActorGraph(
+            InputStream input) throws IOException {
+        ImportState<I> state = parse(input);
+        long numberOfDuplicateArcs = state.buildIncomingArcs();
+        CompactActorGraph<I> compactActorGraph =
+                new CompactActorGraph<>(state.getActors(),
+                                        state.actorIndexMap,
+                                        state.incomingArcOffsets,
+                                        state.arcSources,
+                                        state.arcInterestRates,
+                                        state.getPotentials(),
+                                        0);
+        return state.createReport(compactActorGraph, numberOfDuplicateArcs);
+    }
+    
+    /**
+     * Imports a compact read-only actor graph from a file.
+     * 
+     * @param path the path of the file.
+     * @return the import report holding the imported compact actor graph.
+     * @throws IOException if an I/O error occurs.
+     */
+    public EdgeListImportReport<CompactActorGraph<I>> importCompactActorGraph(
+            Path path) throws IOException {
+        Objects.requireNonNull(path, "The input path is null.");
+        
+        try (InputStream input = Files.newInputStream(path)) {
+            return importCompactActorGraph(input);
+        }
+    }
+    
+    /**
+     * Streams the input through the read buffer and parses it line by line.
+     * 
+     * @param input the input stream.
+     * @return the parsed actors and arcs.
+     * @throws IOException if an I/O error occurs.
+     */
+    private ImportState<I> parse(InputStream input) throws IOException {
+        Objects.requireNonNull(input, "The input stream is null.");
+        ImportState<I> state = new ImportState<>();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int end = 0;
+        int scanFrom = 0;
+        int read;
+        
+        while ((read = input.read(buffer, end, buffer.length - end)) >= 0) {
+            end += read;
+            int lineStart = 0;
+            
+            for (int i = scanFrom; i < end; i++) {
+                if (buffer[i] == '\n') {
+                    parseLine(state, buffer, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            
+            int remaining = end - lineStart;
+            
+            if (remaining == buffer.length) {
+                // A single line fills the whole buffer:
+                buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+            } else {
+                System.arraycopy(buffer, lineStart, buffer, 0, remaining);
+            }
+            
+            end = remaining;
+            scanFrom = remaining;
+        }
+        
+        if (end > 0) {
+            parseLine(state, buffer, 0, end);
+        }
+        
+        return state;
+    }
+    
+    /**
+     * Parses a single line {@code bytes[from], ..., bytes[to - 1]} without
+     * the line terminator.
+     */
+    private void parseLine(ImportState<I> state,
+                           byte[] bytes,
+                           int from,
+                           int to) {
+        state.numberOfLines++;
+        
+        if (to > from && bytes[to - 1] == '\r') {
+            to--;
+        }
+        
+        from = skipSpaces(bytes, from, to);
+        
+        if (from == to || bytes[from] == '#') {
+            return;
+        }
+        
+        int[] fieldBounds = state.fieldBounds;
+        int numberOfFields = 0;
+        int fieldStart = from;
+        
+        for (int i = from; i <= to; i++) {
+            if (i == to || bytes[i] == ',' || bytes[i] == '\t') {
+                if (numberOfFields == 3) {
+                    state.reportError("Expected 2 or 3 fields: " +
+                                      text(bytes, from, to) + ".");
+                    return;
+                }
+                
+                int fieldEnd = i;
+                
+                while (fieldEnd > fieldStart && bytes[fieldEnd - 1] == ' ') {
+                    fieldEnd--;
+                }
+                
+                fieldBounds[2 * numberOfFields] =
+                        skipSpaces(bytes, fieldStart, fieldEnd);
+                fieldBounds[2 * numberOfFields + 1] = fieldEnd;
+                numberOfFields++;
+                fieldStart = i + 1;
+            }
+        }
+        
+        for (int field = 0; field < numberOfFields; field++) {
+            if (fieldBounds[2 * field] == fieldBounds[2 * field + 1]) {
+                state.reportError("Empty field: " +
+                                  text(bytes, from, to) + ".");
+                return;
+            }
+        }
+        
+        if (numberOfFields == 2) {
+            parseActorLine(state, bytes, fieldBounds);
+        } else if (numberOfFields == 3) {
+            parseArcLine(state, bytes, fieldBounds);
+        } else {
+            state.reportError("Expected 2 or 3 fields: " +
+                              text(bytes, from, to) + ".");
+        }
+    }
+    
+    private void parseActorLine(ImportState<I> state,
+                                byte[] bytes,
+                                int[] fieldBounds) {
+        double potential =
+                parseNumber(bytes, fieldBounds[2], fieldBounds[3]);
+        
+        if (!(potential >= 0.0 && potential < Double.POSITIVE_INFINITY)) {
+            state.reportError("Invalid potential: " +
+                              text(bytes, fieldBounds[2], fieldBounds[3]) +
+                              ".");
+            return;
+        }
+        
+        int actorIndex =
+                resolveActor(state, bytes, fieldBounds[0], fieldBounds[1]);
+        
+        if (actorIndex >= 0) {
+            state.potentials[actorIndex] = potential;
+        }
+    }
+    
+    private void parseArcLine(ImportState<I> state,
+                              byte[] bytes,
+                              int[] fieldBounds) {
+        double interestRate =
+                parseNumber(bytes, fieldBounds[4], fieldBounds[5]);
+        
+        if (!(interestRate >= 0.0
+                && interestRate < Double.POSITIVE_INFINITY)) {
+            state.reportError("Invalid interest rate: " +
+                              text(bytes, fieldBounds[4], fieldBounds[5]) +
+                              ".");
+            return;
+        }
+        
+        int sourceFrom = fieldBounds[0];
+        int sourceTo = fieldBounds[1];
+        int targetFrom = fieldBounds[2];
+        int targetTo = fieldBounds[3];
+        if (sourceTo - sourceFrom == targetTo - targetFrom
+                && regionsEqual(bytes, sourceFrom, targetFrom, sourceTo)) {
+            state.reportError("Self-loops are not allowed: " +
+                              text(bytes, sourceFrom, sourceTo) + ".");
+            return;
+        }
+        
+        int sourceHash = hash(bytes, sourceFrom, sourceTo);
+        int targetHash = hash(bytes, targetFrom, targetTo);
+        int sourceIndex =
+                state.findActor(bytes, sourceFrom, sourceTo, sourceHash);
+        int targetIndex =
+                state.findActor(bytes, targetFrom, targetTo, targetHash);
+        I sourceIdentity = null;
+        I targetIdentity = null;
+        
+        // Parse both the new identities before adding any actor, so that an
+        // invalid line leaves no trace in the graph:
+        if (sourceIndex < 0) {
+            sourceIdentity = parseIdentity(state, bytes, sourceFrom, sourceTo);
+            
+            if (sourceIdentity == null) {
+                return;
+            }
+        }
+        
+        if (targetIndex < 0) {
+            targetIdentity = parseIdentity(state, bytes, targetFrom, targetTo);
+            
+            if (targetIdentity == null) {
+                return;
+            }
+        }
+        
+        if (sourceIndex < 0) {
+            sourceIndex = state.addActor(bytes,
+                                         sourceFrom,
+                                         sourceTo,
+                                         sourceHash,
+                                         sourceIdentity);
+        }
+        
+        if (targetIndex < 0) {
+            targetIndex = state.addActor(bytes,
+                                         targetFrom,
+                                         targetTo,
+                                         targetHash,
+                                         targetIdentity);
+        }
+        
+        if (sourceIndex == targetIndex) {
+            // Two distinct tokens denote the same identity:
+            state.reportError("Self-loops are not allowed: " +
+                              text(bytes, sourceFrom, sourceTo) + ".");
+            return;
+        }
+        
+        state.addArc(sourceIndex, targetIndex, interestRate);
+    }
+    
+    /**
+     * Returns the index of the actor whose identity is in
+     * {@code bytes[from], ..., bytes[to - 1]}, adding the actor if needed.
+     * 
+     * @return the actor index, or -1 if the identity is invalid.
+     */
+    private int resolveActor(ImportState<I> state,
+                             byte[] bytes,
+                             int from,
+                             int to) {
+        int hash = hash(bytes, from, to);
+        int actorIndex = state.findActor(bytes, from, to, hash);
+        
+        if (actorIndex >= 0) {
+            return actorIndex;
+        }
+        
+        I identity = parseIdentity(state, bytes, from, to);
+        
+        if (identity == null) {
+            return -1;
+        }
+        
+        return state.addActor(bytes, from, to, hash, identity);
+    }
+    
+    /**
+     * Converts an identity field to an actor identity.
+     * 
+     * @return the identity, or {@code null} if the field is invalid.
+     */
+    private I parseIdentity(ImportState<I> state,
+                            byte[] bytes,
+                            int from,
+                            int to) {
+        String text = text(bytes, from, to);
+        I identity;
+        
+        try {
+            identity = identityParser.apply(text);
+        } catch (RuntimeException ex) {
+            identity = null;
+        }
+        
+        if (identity == null) {
+            state.reportError("Invalid actor identity: " + text + ".");
+        }
+        
+        return identity;
+    }
+    
+    /**
+     * Parses a number in {@code bytes[from], ..., bytes[to - 1]}. Plain
+     * decimals of at most {@link #MAXIMUM_EXACT_DIGITS} digits are parsed in
+     * place: both the digits and the power of ten are exact doubles, so the
+     * single division rounds exactly as {@link Double#parseDouble(String)}
+     * does. Other numbers fall back to {@link Double#parseDouble(String)}.
+     * 
+     * @return the parsed number, or NaN if the field is not a number.
+     */
+    private static double parseNumber(byte[] bytes, int from, int to) {
+        long digits = 0L;
+        int numberOfDigits = 0;
+        int numberOfFractionDigits = 0;
+        boolean seenPoint = false;
+        int i = from;
+        
+        for (; i < to; i++) {
+            int b = bytes[i];
+            
+            if (b >= '0' && b <= '9') {
+                digits = 10 * digits + (b - '0');
+                numberOfDigits++;
+                
+                if (seenPoint) {
+                    numberOfFractionDigits++;
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        
+        if (i == to
+                && numberOfDigits > 0
+                && numberOfDigits <= MAXIMUM_EXACT_DIGITS) {
+            return digits / POWERS_OF_TEN[numberOfFractionDigits];
+        }
+        
+        try {
+            return Double.parseDouble(
+                    new String(bytes,
+                               from,
+                               to - from,
+                               StandardCharsets.ISO_8859_1));
+        } catch (NumberFormatException ex) {
+            return Double.NaN;
+        }
+    }
+    
+    // Checks that the regions starting at 'from1' and 'from2' are equal. The
+    // first region ends at 'to1':
+    private static boolean regionsEqual(byte[] bytes,
+                                        int from1,
+                                        int from2,
+                                        int to1) {
+        for (int i = from1, j = from2; i < to1; i++, j++) {
+            if (bytes[i] != bytes[j]) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    private static int skipSpaces(byte[] bytes, int from, int to) {
+        while (from < to && bytes[from] == ' ') {
+            from++;
+        }
+        
+        return from;
+    }
+    
+    // The FNV-1a hash of the bytes, with the high bits spread downwards.
+    private static int hash(byte[] bytes, int from, int to) {
+        int hash = 0x811C9DC5;
+        
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ bytes[i]) * 0x01000193;
+        }
+        
+        return hash ^ (hash >>> 16);
+    }
+    
+    private static String text(byte[] bytes, int from, int to) {
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * This inner static class holds the state of a single import.
+     * 
+     * @param <I> the actor identity type.
+     */
+    private static final class ImportState<I> {
+        
+        /**
+         * The bounds of the fields of the current line.
+         */
+        final int[] fieldBounds = new int[6];
+        
+        /**
+         * The open addressing hash table mapping identity tokens to token
+         * indices plus one. Zero marks an empty slot.
+         */
+        int[] tokenTable = new int[1 << 10];
+        
+        /**
+         * Stores the bytes of all the distinct identity tokens.
+         */
+        byte[] tokenBytes = new byte[1 << 12];
+        
+        int tokenBytesSize;
+        int[] tokenHashes = new int[1 << 8];
+        int[] tokenOffsets = new int[1 << 8];
+        int[] tokenLengths = new int[1 << 8];
+        int[] tokenActorIndices = new int[1 << 8];
+        int numberOfTokens;
+        
+        /**
+         * Maps each actor to its index. Distinct tokens may denote the same
+         * identity, for example "1" and "01" with an integer parser.
+         */
+        final Map<Actor<I>, Integer> actorIndexMap = new HashMap<>();
+        
+        Actor<I>[] actors = new Actor[1 << 8];
+        double[] potentials = new double[1 << 8];
+        int numberOfActors;
+        
+        int[] arcSourceBuffer = new int[1 << 10];
+        int[] arcTargetBuffer = new int[1 << 10];
+        double[] arcInterestRateBuffer = new double[1 << 10];
+        int numberOfArcs;
+        
+        int[] incomingArcOffsets;
+        int[] arcSources;
+        double[] arcInterestRates;
+        
+        long numberOfLines;
+        long numberOfErrors;
+        final List<String> errors = new ArrayList<>();
+        
+        void reportError(String message) {
+            numberOfErrors++;
+            
+            if (errors.size() < MAXIMUM_REPORTED_ERRORS) {
+                errors.add("Line " + numberOfLines + ": " + message);
+            }
+        }
+        
+        /**
+         * Returns the index of the actor denoted by the token, or -1 if the
+         * token has not been seen.
+         */
+        int findActor(byte[] bytes, int from, int to, int hash) {
+            int mask = tokenTable.length - 1;
+            
+            for (int slot = hash & mask;
+                    tokenTable[slot] != 0;
+                    slot = (slot + 1) & mask) {
+                int token = tokenTable[slot] - 1;
+                
+                if (tokenHashes[token] == hash
+                        && tokenEquals(token, bytes, from, to)) {
+                    return tokenActorIndices[token];
+                }
+            }
+            
+            return -1;
+        }
+        
+        /**
+         * Adds a new token denoting the input identity, and the actor with
+         * that identity unless it already exists.
+         * 
+         * @return the index of the actor.
+         */
+        int addActor(byte[] bytes, int from, int to, int hash, I identity) {
+            Actor<I> actor = new Actor<>(identity);
+            Integer existingActorIndex = actorIndexMap.get(actor);
+            int actorIndex;
+            
+            if (existingActorIndex != null) {
+                actorIndex = existingActorIndex;
+            } else {
+                if (numberOfActors == actors.length) {
+                    actors = Arrays.copyOf(actors, 2 * numberOfActors);
+                    potentials = Arrays.copyOf(potentials,
+                                               2 * numberOfActors);
+                }
+                
+                actorIndex = numberOfActors++;
+                actors[actorIndex] = actor;
+                actorIndexMap.put(actor, actorIndex);
+            }
+            
+            addToken(bytes, from, to, hash, actorIndex);
+            return actorIndex;
+        }
+        
+        void addArc(int sourceIndex, int targetIndex, double interestRate) {
+            if (numberOfArcs == arcSourceBuffer.length) {
+                if (numberOfArcs == Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException(
+                            "Too many arcs in the edge list.");
+                }
+                
+                int capacity =
+                        (int) Math.min(2L * numberOfArcs,
+                                       Integer.MAX_VALUE - 8);
+                arcSourceBuffer = Arrays.copyOf(arcSourceBuffer, capacity);
+                arcTargetBuffer = Arrays.copyOf(arcTargetBuffer, capacity);
+                arcInterestRateBuffer =
+                        Arrays.copyOf(arcInterestRateBuffer, capacity);
+            }
+            
+            arcSourceBuffer[numberOfArcs] = sourceIndex;
+            arcTargetBuffer[numberOfArcs] = targetIndex;
+            arcInterestRateBuffer[numberOfArcs] = interestRate;
+            numberOfArcs++;
+        }
+        
+        Actor<I>[] getActors() {
+            return Arrays.copyOf(actors, numberOfActors);
+        }
+        
+        double[] getPotentials() {
+            return Arrays.copyOf(potentials, numberOfActors);
+        }
+        
+        /**
+         * Groups the collected arcs by their target actors with a counting
+         * sort, and drops all but the last occurrence of each arc. The arc
+         * buffers are released.
+         * 
+         * @return the number of dropped duplicate arcs.
+         */
+        long buildIncomingArcs() {
+            int[] offsets = new int[numberOfActors + 1];
+            
+            for (int arc = 0; arc < numberOfArcs; arc++) {
+                offsets[arcTargetBuffer[arc] + 1]++;
+            }
+            
+            for (int i = 0; i < numberOfActors; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            
+            int[] sources = new int[numberOfArcs];
+            double[] interestRates = new double[numberOfArcs];
+            int[] positions = Arrays.copyOf(offsets, numberOfActors);
+            
+            for (int arc = 0; arc < numberOfArcs; arc++) {
+                int position = positions[arcTargetBuffer[arc]]++;
+                sources[position] = arcSourceBuffer[arc];
+                interestRates[position] = arcInterestRateBuffer[arc];
+            }
+            
+            arcSourceBuffer = null;
+            arcTargetBuffer = null;
+            arcInterestRateBuffer = null;
+            
+            // The counting sort is stable, so scanning each group backwards
+            // meets the last occurrence of each arc first. The stamps record
+            // the target actor for which each source was last met:
+            int[] stamps = new int[numberOfActors];
+            Arrays.fill(stamps, -1);
+            int size = 0;
+            
+            for (int i = 0; i < numberOfActors; i++) {
+                int start = offsets[i];
+                int end = offsets[i + 1];
+                
+                for (int arc = end - 1; arc >= start; arc--) {
+                    if (stamps[sources[arc]] == i) {
+                        sources[arc] = -1;
+                    } else {
+                        stamps[sources[arc]] = i;
+                    }
+                }
+                
+                offsets[i] = size;
+                
+                for (int arc = start; arc < end; arc++) {
+                    if (sources[arc] >= 0) {
+                        sources[size] = sources[arc];
+                        interestRates[size] = interestRates[arc];
+                        size++;
+                    }
+                }
+            }
+            
+            offsets[numberOfActors] = size;
+            incomingArcOffsets = offsets;
+            arcSources = size == numberOfArcs ?
+                         sources :
+                         Arrays.copyOf(sources, size);
+            arcInterestRates = size == numberOfArcs ?
+                               interestRates :
+                               Arrays.copyOf(interestRates, size);
+            return numberOfArcs - size;
+        }
+        
+        <G> EdgeListImportReport<G> createReport(G graph,
+                                                 long numberOfDuplicateArcs) {
+            return new EdgeListImportReport<>(graph,
+                                              numberOfLines,
+                                              numberOfDuplicateArcs,
+                                              numberOfErrors,
+                                              errors);
+        }
+        
+        private boolean tokenEquals(int token,
+                                    byte[] bytes,
+                                    int from,
+                                    int to) {
+            if (tokenLengths[token] != to - from) {
+                return false;
+            }
+            
+            int offset = tokenOffsets[token];
+            
+            for (int i = from; i < to; i++) {
+                if (tokenBytes[offset++] != bytes[i]) {
+                    return false;
+                }
+            }
+            
+            return true;
+        }
+        
+        private void addToken(byte[] bytes,
+                              int from,
+                              int to,
+                              int hash,
+                              int actorIndex) {
+            int length = to - from;
+            
+            if (numberOfTokens == tokenHashes.length) {
+                int capacity = 2 * numberOfTokens;
+                tokenHashes = Arrays.copyOf(tokenHashes, capacity);
+                tokenOffsets = Arrays.copyOf(tokenOffsets, capacity);
+                tokenLengths = Arrays.copyOf(tokenLengths, capacity);
+                tokenActorIndices = Arrays.copyOf(tokenActorIndices, capacity);
+            }
+            
+            if (tokenBytesSize + length > tokenBytes.length) {
+                tokenBytes =
+                        Arrays.copyOf(
+                                tokenBytes,
+                                Math.max(2 * tokenBytes.length,
+                                         tokenBytesSize + length));
+            }
+            
+            System.arraycopy(bytes, from, tokenBytes, tokenBytesSize, length);
+            int token = numberOfTokens++;
+            tokenHashes[token] = hash;
+            tokenOffsets[token] = tokenBytesSize;
+            tokenLengths[token] = length;
+            tokenActorIndices[token] = actorIndex;
+            tokenBytesSize += length;
+            
+            // Keep the load factor of the token table at most one half:
+            if (2 * numberOfTokens > tokenTable.length) {
+                tokenTable = new int[2 * tokenTable.length];
+                
+                for (int t = 0; t < numberOfTokens; t++) {
+                    insertToken(t);
+                }
+            } else {
+                insertToken(token);
+            }
+        }
+        
+        private void insertToken(int token) {
+            int mask = tokenTable.length - 1;
+            int slot = tokenHashes[token] & mask;
+            
+            while (tokenTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            
+            tokenTable[slot] = token + 1;
+        }
+    }
+}
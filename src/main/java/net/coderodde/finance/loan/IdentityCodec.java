@@ -0,0 +1,86 @@
+package net.coderodde.finance.loan;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * This interface defines how actor identities are written to and read from
+ * the binary files describing actor graphs. Reading back a written identity
+ * must produce an identity equal to the original.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 24, 2018)
+ * @param <I> the actor identity type.
+ */
+public interface IdentityCodec<I> {
+    
+    /**
+     * The codec for {@link Integer} identities.
+     */
+    public static final IdentityCodec<Integer> INTEGER =
+            new IdentityCodec<Integer>() {
+        @Override
+        public void write(Integer identity, DataOutput output)
+                throws IOException {
+            output.writeInt(identity);
+        }
+        
+        @Override
+        public Integer read(DataInput input) throws IOException {
+            return input.readInt();
+        }
+    };
+    
+    /**
+     * The codec for {@link Long} identities.
+     */
+    public static final IdentityCodec<Long> LONG =
+            new IdentityCodec<Long>() {
+        @Override
+        public void write(Long identity, DataOutput output)
+                throws IOException {
+            output.writeLong(identity);
+        }
+        
+        @Override
+        public Long read(DataInput input) throws IOException {
+            return input.readLong();
+        }
+    };
+    
+    /**
+     * The codec for {@link String} identities.
+     */
+    public static final IdentityCodec<String> STRING =
+            new IdentityCodec<String>() {
+        @Override
+        public void write(String identity, DataOutput output)
+                throws IOException {
+            output.writeUTF(identity);
+        }
+        
+        @Override
+        public String read(DataInput input) throws IOException {
+            return input.readUTF();
+        }
+    };
+    
+    /**
+     * Writes the input identity to the output.
+     * 
+     * @param identity the identity to write.
+     * @param output   the output to write to.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(I identity, DataOutput output) throws IOException;
+    
+    /**
+     * Reads an identity from the input.
+     * 
+     * @param input the input to read from.
+     * @return the identity read.
+     * @throws IOException if an I/O error occurs.
+     */
+    public I read(DataInput input) throws IOException;
+}
@@ -0,0 +1,87 @@
+package net.coderodde.finance.loan;
+
+/**
+ * This interface defines the read-only view of an actor graph searched by the
+ * compact finders. Each actor is given a dense integer index in the range
+ * {@code 0, 1, ..., getNumberOfActors() - 1}, and the incoming arcs of all
+ * actors are laid out in compressed sparse row form: the incoming arcs of the
+ * actor with index {@code i} occupy the arc indices
+ * {@code getIncomingArcStart(i), ..., getIncomingArcEnd(i) - 1}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 26, 2018)
+ * @param <I> the actor identity type.
+ */
+public interface IndexedActorGraph<I> {
+    
+    /**
+     * Returns the number of actors in this graph.
+     * 
+     * @return the number of actors.
+     */
+    public int getNumberOfActors();
+    
+    /**
+     * Returns the number of arcs in this graph.
+     * 
+     * @return the number of arcs.
+     */
+    public int getNumberOfArcs();
+    
+    /**
+     * Returns the actor with the given index.
+     * 
+     * @param actorIndex the index of the actor.
+     * @return the actor.
+     */
+    public Actor<I> getActor(int actorIndex);
+    
+    /**
+     * Returns the index of the input actor, or {@code -1} if the actor is not
+     * in this graph.
+     * 
+     * @param actor the actor to look up.
+     * @return the index of the actor or {@code -1}.
+     */
+    public int getActorIndex(Actor<I> actor);
+    
+    /**
+     * Returns the potential of the actor with the given index.
+     * 
+     * @param actorIndex the index of the actor.
+     * @return the potential of the actor.
+     */
+    public double getActorPotential(int actorIndex);
+    
+    /**
+     * Returns the index of the first incoming arc of the given actor.
+     * 
+     * @param actorIndex the index of the target actor.
+     * @return the index of the first incoming arc.
+     */
+    public int getIncomingArcStart(int actorIndex);
+    
+    /**
+     * Returns the index one past the last incoming arc of the given actor.
+     * 
+     * @param actorIndex the index of the target actor.
+     * @return the index one past the last incoming arc.
+     */
+    public int getIncomingArcEnd(int actorIndex);
+    
+    /**
+     * Returns the index of the lending actor of the given arc.
+     * 
+     * @param arcIndex the index of the arc.
+     * @return the index of the source actor of the arc.
+     */
+    public int getArcSource(int arcIndex);
+    
+    /**
+     * Returns the interest rate of the given arc.
+     * 
+     * @param arcIndex the index of the arc.
+     * @return the interest rate of the arc.
+     */
+    public double getArcInterestRate(int arcIndex);
+}
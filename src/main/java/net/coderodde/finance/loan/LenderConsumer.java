@@ -0,0 +1,34 @@
+package net.coderodde.finance.loan;
+
+/**
+ * This interface defines the API for objects receiving the lenders of a loan
+ * one at a time, in the order the search settles them, that is, by
+ * non-decreasing effective interest rate. See
+ * {@link MostCostEffectiveLoanFinder#findLenders(Actor, double, double,
+ * LenderConsumer)}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 26, 2018)
+ * @param <I> the actor identity type.
+ */
+@FunctionalInterface
+public interface LenderConsumer<I> {
+    
+    /**
+     * Receives the next lender of the loan.
+     * 
+     * @param lender                the lending actor.
+     * @param potential             the potential the lender issues.
+     * @param effectiveInterestRate the effective interest rate of the lender,
+     *                              or {@link Double#NaN} if the finder does
+     *                              not know it.
+     * @param direction             the actor to whom the lender issues the
+     *                              potential.
+     * @return {@code true} to continue the search, or {@code false} to stop
+     *         it after this lender.
+     */
+    public boolean accept(Actor<I> lender,
+                          double potential,
+                          double effectiveInterestRate,
+                          Actor<I> direction);
+}
@@ -0,0 +1,59 @@
+package net.coderodde.finance.loan;
+
+import java.util.Objects;
+
+/**
+ * This class describes a single query in a batch of most cost-effective loan
+ * queries: the borrowing actor, the requested potential and the maximum
+ * allowed effective interest rate.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 23, 2018)
+ * @param <I> the actor identity type.
+ */
+public final class LoanQuery<I> {
+    
+    /**
+     * The borrowing actor.
+     */
+    private final Actor<I> actor;
+    
+    /**
+     * The requested potential.
+     */
+    private final double requestedPotential;
+    
+    /**
+     * The maximum allowed effective interest rate.
+     */
+    private final double maximumInterestRate;
+    
+    public LoanQuery(Actor<I> actor,
+                     double requestedPotential,
+                     double maximumInterestRate) {
+        this.actor = Objects.requireNonNull(actor, "The input actor is null.");
+        this.requestedPotential =
+                Utils.checkRequestedPotential(requestedPotential);
+        this.maximumInterestRate =
+                Utils.checkMaximumInterestRate(maximumInterestRate);
+    }
+    
+    public Actor<I> getActor() {
+        return actor;
+    }
+    
+    public double getRequestedPotential() {
+        return requestedPotential;
+    }
+    
+    public double getMaximumInterestRate() {
+        return maximumInterestRate;
+    }
+    
+    @Override
+    public String toString() {
+        return "[LoanQuery, actor = " + actor + ", requestedPotential = " + 
+                requestedPotential + ", maximumInterestRate = " + 
+                maximumInterestRate + "]";
+    }
+}
@@ -0,0 +1,177 @@
+package net.coderodde.finance.loan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class implements answering batches of loan queries in parallel. The
+ * queries are grouped by borrower, and the groups are distributed among the
+ * worker threads of a fork/join pool.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 23, 2018)
+ */
+final class LoanQueryBatches {
+    
+    /**
+     * Each worker thread splits its range of borrower groups until the range
+     * is at most the number of groups divided by this value times the 
+     * parallelism.
+     */
+    private static final int TASKS_PER_WORKER = 16;
+    
+    private LoanQueryBatches() {}
+    
+    /**
+     * Answers the input queries with {@code parallelism} threads.
+     * 
+     * @param <I>         the actor identity type.
+     * @param finder      the finder answering the queries.
+     * @param queries     the queries to answer.
+     * @param parallelism the number of threads to use.
+     * @return the loans in the order of the queries.
+     */
+    static <I> List<MostCostEffectiveLoan<I>> findLendersInParallel(
+            MostCostEffectiveLoanFinder<I> finder,
+            List<LoanQuery<I>> queries,
+            int parallelism) {
+        Objects.requireNonNull(queries, "The input query list is null.");
+        checkParallelism(parallelism);
+        
+        if (parallelism == 1) {
+            return finder.findLendersBatch(queries);
+        }
+        
+        Map<Actor<I>, List<Integer>> actorToQueryIndicesMap = 
+                new LinkedHashMap<>();
+        
+        for (int i = 0; i < queries.size(); i++) {
+            LoanQuery<I> query = 
+                    Objects.requireNonNull(queries.get(i), 
+                                           "A query is null.");
+            actorToQueryIndicesMap.computeIfAbsent(query.getActor(), 
+                                                   (a) -> new ArrayList<>())
+                                  .add(i);
+        }
+        
+        List<List<Integer>> groups = 
+                new ArrayList<>(actorToQueryIndicesMap.values());
+        MostCostEffectiveLoan<I>[] loans = 
+                new MostCostEffectiveLoan[queries.size()];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        int threshold = 
+                Math.max(1, groups.size() / (parallelism * TASKS_PER_WORKER));
+        
+        try {
+            pool.invoke(new BatchTask<>(finder, 
+                                        queries, 
+                                        groups,
+                                        loans,
+                                        0, 
+                                        groups.size(), 
+                                        threshold));
+        } finally {
+            pool.shutdown();
+        }
+        
+        return Arrays.asList(loans);
+    }
+    
+    /**
+     * Makes sure the requested parallelism is at least one.
+     * 
+     * @param parallelism the parallelism to check.
+     */
+    private static void checkParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(
+                    "The parallelism is too small: " + parallelism + ".");
+        }
+    }
+    
+    /**
+     * This inner static class implements a fork/join task answering the 
+     * queries of a range of borrower groups. Each leaf task hands its groups 
+     * to the finder as a single batch, and writes only to the loan slots of 
+     * its own queries.
+     * 
+     * @param <I> the actor identity type.
+     */
+    private static final class BatchTask<I> extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final MostCostEffectiveLoanFinder<I> finder;
+        private final List<LoanQuery<I>> queries;
+        private final List<List<Integer>> groups;
+        private final MostCostEffectiveLoan<I>[] loans;
+        private final int fromIndex;
+        private final int toIndex;
+        private final int threshold;
+        
+        BatchTask(MostCostEffectiveLoanFinder<I> finder,
+                  List<LoanQuery<I>> queries,
+                  List<List<Integer>> groups,
+                  MostCostEffectiveLoan<I>[] loans,
+                  int fromIndex,
+                  int toIndex,
+                  int threshold) {
+            this.finder = finder;
+            this.queries = queries;
+            this.groups = groups;
+            this.loans = loans;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+            this.threshold = threshold;
+        }
+        
+        @Override
+        protected void compute() {
+            if (toIndex - fromIndex <= threshold) {
+                List<Integer> queryIndices = new ArrayList<>();
+                
+                for (int i = fromIndex; i < toIndex; i++) {
+                    queryIndices.addAll(groups.get(i));
+                }
+                
+                List<LoanQuery<I>> batch = 
+                        new ArrayList<>(queryIndices.size());
+                
+                for (int queryIndex : queryIndices) {
+                    batch.add(queries.get(queryIndex));
+                }
+                
+                List<MostCostEffectiveLoan<I>> batchLoans = 
+                        finder.findLendersBatch(batch);
+                
+                for (int i = 0; i < queryIndices.size(); i++) {
+                    loans[queryIndices.get(i)] = batchLoans.get(i);
+                }
+                
+                return;
+            }
+            
+            int middleIndex = (fromIndex + toIndex) >>> 1;
+            invokeAll(new BatchTask<>(finder,
+                                      queries,
+                                      groups,
+                                      loans,
+                                      fromIndex,
+                                      middleIndex,
+                                      threshold),
+                      new BatchTask<>(finder,
+                                      queries,
+                                      groups,
+                                      loans,
+                                      middleIndex,
+                                      toIndex,
+                                      threshold));
+        }
+    }
+}
@@ -6,7 +6,10 @@ import java.util.Map;
 import java.util.Objects;
 
 /**
- * This class implements a most cost-effective loan.
+ * This class implements a most cost-effective loan. The lenders are held in
+ * three parallel arrays in the order they were allocated, so a loan costs a
+ * handful of objects regardless of its size. The map views are built only
+ * when asked for.
  * 
  * @author Rodion "rodde" Efremov
  * @version 1.6 (Mar 2, 2018)
@@ -39,23 +42,149 @@ public final class MostCostEffectiveLoan<I> {
     private final double maximumInterestRate;
     
     /**
-     * Maps each relevant actor to the potential he/she issued to the lender 
-     * actor directly or indirectly.
+     * The lending actors in the order they were allocated.
      */
-    private Map<Actor<I>, Double> potentialMap = new HashMap<>();
+    private final Actor<I>[] lenders;
     
     /**
-     * Maps each relevant actor to another actor to whom he issued some 
-     * potential.
+     * The potential each lender issued to the lender actor directly or 
+     * indirectly.
      */
-    private Map<Actor<I>, Actor<I>> directionMap = new HashMap<>();
+    private final double[] lenderPotentials;
 
+    /**
+     * The actor to whom each lender issued its potential.
+     */
+    private final Actor<I>[] lenderDirections;
+    
+    /**
+     * The potential map, built on the first call to 
+     * {@link #getPotentialMapView()}.
+     */
+    private volatile Map<Actor<I>, Double> potentialMap;
+    
+    /**
+     * The direction map, built on the first call to 
+     * {@link #getDirectionMap()}.
+     */
+    private volatile Map<Actor<I>, Actor<I>> directionMap;
+    
+    /**
+     * Constructs a loan from the maps of its lenders. The lenders are the keys
+     * of {@code potentialMap}.
+     * 
+     * @param lenderActor         the borrowing actor.
+     * @param potential           the received potential.
+     * @param requestedPotential  the requested potential.
+     * @param maximumInterestRate the maximum interest rate.
+     * @param potentialMap        maps each lender to its issued potential.
+     * @param directionMap        maps each lender to the actor it issued to.
+     * @throws IllegalArgumentException if the maps have different lenders.
+     */
     public MostCostEffectiveLoan(Actor<I> lenderActor,
                                  double potential,
                                  double requestedPotential,
                                  double maximumInterestRate,
                                  Map<Actor<I>, Double> potentialMap,
                                  Map<Actor<I>, Actor<I>> directionMap) {
+        this(lenderActor,
+             potential,
+             requestedPotential,
+             maximumInterestRate,
+             checkLenderMaps(potentialMap, directionMap));
+        int index = 0;
+        
+        for (Map.Entry<Actor<I>, Double> entry : potentialMap.entrySet()) {
+            lenders[index] = entry.getKey();
+            lenderPotentials[index] = entry.getValue();
+            lenderDirections[index] = directionMap.get(entry.getKey());
+            index++;
+        }
+    }
+    
+    /**
+     * Constructs a loan from the parallel arrays of its lenders. The arrays
+     * are copied.
+     * 
+     * @param lenderActor         the borrowing actor.
+     * @param potential           the received potential.
+     * @param requestedPotential  the requested potential.
+     * @param maximumInterestRate the maximum interest rate.
+     * @param lenders             the lenders in allocation order.
+     * @param lenderPotentials    the potential issued by each lender.
+     * @param lenderDirections    the actor each lender issued to.
+     * @throws IllegalArgumentException if the arrays differ in length.
+     */
+    public MostCostEffectiveLoan(Actor<I> lenderActor,
+                                 double potential,
+                                 double requestedPotential,
+                                 double maximumInterestRate,
+                                 Actor<I>[] lenders,
+                                 double[] lenderPotentials,
+                                 Actor<I>[] lenderDirections) {
+        this(lenderActor,
+             potential,
+             requestedPotential,
+             maximumInterestRate,
+             lenders,
+             lenderPotentials,
+             lenderDirections,
+             checkLenderArrayLengths(lenders, 
+                                     lenderPotentials, 
+                                     lenderDirections));
+    }
+    
+    /**
+     * Constructs a loan from the leading {@code numberOfLenders} components 
+     * of the parallel arrays of its lenders. The components are copied, so
+     * the caller may reuse the arrays as buffers.
+     * 
+     * @param lenderActor         the borrowing actor.
+     * @param potential           the received potential.
+     * @param requestedPotential  the requested potential.
+     * @param maximumInterestRate the maximum interest rate.
+     * @param lenders             the lenders in allocation order.
+     * @param lenderPotentials    the potential issued by each lender.
+     * @param lenderDirections    the actor each lender issued to.
+     * @param numberOfLenders     the number of lenders.
+     * @throws IllegalArgumentException if an array is shorter than 
+     *                                  {@code numberOfLenders}.
+     */
+    public MostCostEffectiveLoan(Actor<I> lenderActor,
+                                 double potential,
+                                 double requestedPotential,
+                                 double maximumInterestRate,
+                                 Actor<I>[] lenders,
+                                 double[] lenderPotentials,
+                                 Actor<I>[] lenderDirections,
+                                 int numberOfLenders) {
+        this(lenderActor,
+             potential,
+             requestedPotential,
+             maximumInterestRate,
+             checkNumberOfLenders(lenders,
+                                  lenderPotentials,
+                                  lenderDirections,
+                                  numberOfLenders));
+        System.arraycopy(lenders, 0, this.lenders, 0, numberOfLenders);
+        System.arraycopy(lenderPotentials, 
+                         0, 
+                         this.lenderPotentials, 
+                         0, 
+                         numberOfLenders);
+        System.arraycopy(lenderDirections, 
+                         0, 
+                         this.lenderDirections, 
+                         0, 
+                         numberOfLenders);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private MostCostEffectiveLoan(Actor<I> lenderActor,
+                                  double potential,
+                                  double requestedPotential,
+                                  double maximumInterestRate,
+                                  int numberOfLenders) {
         this.lenderActor =
                 Objects.requireNonNull(lenderActor, 
                                        "The input lender actor is null.");
@@ -64,8 +193,9 @@ public final class MostCostEffectiveLoan<I> {
                 Utils.checkRequestedPotential(requestedPotential);
         this.maximumInterestRate =
                 Utils.checkMaximumInterestRate(maximumInterestRate);
-        this.potentialMap = new HashMap<>(potentialMap);
-        this.directionMap = new HashMap<>(directionMap);
+        this.lenders = new Actor[numberOfLenders];
+        this.lenderPotentials = new double[numberOfLenders];
+        this.lenderDirections = new Actor[numberOfLenders];
     }
     
     public Actor<I> getLenderActor() {
@@ -84,12 +214,80 @@ public final class MostCostEffectiveLoan<I> {
         return maximumInterestRate;
     }
     
+    /**
+     * Returns the number of the lenders of this loan.
+     * 
+     * @return the number of lenders.
+     */
+    public int getNumberOfLenders() {
+        return lenders.length;
+    }
+    
+    /**
+     * Returns the lender with the given index. The lenders are indexed in the
+     * order they were allocated; for the loans found by the finders this is
+     * the order of non-decreasing effective interest rates.
+     * 
+     * @param index the index of the lender.
+     * @return the lender.
+     */
+    public Actor<I> getLender(int index) {
+        return lenders[index];
+    }
+    
+    /**
+     * Returns the potential issued by the lender with the given index.
+     * 
+     * @param index the index of the lender.
+     * @return the potential issued by the lender.
+     */
+    public double getLenderPotential(int index) {
+        return lenderPotentials[index];
+    }
+    
+    /**
+     * Returns the actor to whom the lender with the given index issued its
+     * potential.
+     * 
+     * @param index the index of the lender.
+     * @return the next actor on the way towards the lender actor.
+     */
+    public Actor<I> getLenderDirection(int index) {
+        return lenderDirections[index];
+    }
+    
     public Map<Actor<I>, Double> getPotentialMapView() {
-        return Collections.unmodifiableMap(potentialMap);
+        Map<Actor<I>, Double> map = potentialMap;
+        
+        if (map == null) {
+            map = new HashMap<>(getMapCapacity(lenders.length));
+            
+            for (int i = 0; i < lenders.length; i++) {
+                map.put(lenders[i], lenderPotentials[i]);
+            }
+            
+            map = Collections.unmodifiableMap(map);
+            potentialMap = map;
+        }
+        
+        return map;
     }
     
     public Map<Actor<I>, Actor<I>> getDirectionMap() {
-        return Collections.unmodifiableMap(directionMap);
+        Map<Actor<I>, Actor<I>> map = directionMap;
+        
+        if (map == null) {
+            map = new HashMap<>(getMapCapacity(lenders.length));
+            
+            for (int i = 0; i < lenders.length; i++) {
+                map.put(lenders[i], lenderDirections[i]);
+            }
+            
+            map = Collections.unmodifiableMap(map);
+            directionMap = map;
+        }
+        
+        return map;
     }
     
     // Used for unit testing.
@@ -113,8 +311,8 @@ public final class MostCostEffectiveLoan<I> {
                 && getReceivedPotential() == other.getReceivedPotential() 
                 && getRequestedPotential() == other.getRequestedPotential()
                 && getMaximumInterestRate() == other.getMaximumInterestRate()
-                && potentialMap.equals(other.potentialMap)
-                && directionMap.equals(other.directionMap);
+                && getPotentialMapView().equals(other.getPotentialMapView())
+                && getDirectionMap().equals(other.getDirectionMap());
     }
     
     @Override
@@ -130,20 +328,72 @@ public final class MostCostEffectiveLoan<I> {
                 .append(maximumInterestRate)
                 .append(",\npotentials:");
         
-        for (Map.Entry<Actor<I>, Double> entry : potentialMap.entrySet()) {
+        for (int i = 0; i < lenders.length; i++) {
             stringBuilder.append("\n")
-                         .append(entry.getKey())
+                         .append(lenders[i])
                          .append(" -> ")
-                         .append(entry.getValue());
+                         .append(lenderPotentials[i]);
         }
                 
-        for (Map.Entry<Actor<I>, Actor<I>> entry : directionMap.entrySet()) {
+        for (int i = 0; i < lenders.length; i++) {
             stringBuilder.append("\n")
-                         .append(entry.getKey())
+                         .append(lenders[i])
                          .append(" -> ")
-                         .append(entry.getValue());
+                         .append(lenderDirections[i]);
         }
                 
         return stringBuilder.append("]").toString();
     }
+    
+    private static <I> int checkLenderMaps(
+            Map<Actor<I>, Double> potentialMap,
+            Map<Actor<I>, Actor<I>> directionMap) {
+        if (!potentialMap.keySet().equals(directionMap.keySet())) {
+            throw new IllegalArgumentException(
+                    "The potential map and the direction map have " +
+                    "different lenders.");
+        }
+        
+        return potentialMap.size();
+    }
+    
+    private static <I> int checkLenderArrayLengths(
+            Actor<I>[] lenders,
+            double[] lenderPotentials,
+            Actor<I>[] lenderDirections) {
+        if (lenders.length != lenderPotentials.length 
+                || lenders.length != lenderDirections.length) {
+            throw new IllegalArgumentException(
+                    "The lender arrays differ in length.");
+        }
+        
+        return lenders.length;
+    }
+    
+    private static <I> int checkNumberOfLenders(Actor<I>[] lenders,
+                                                double[] lenderPotentials,
+                                                Actor<I>[] lenderDirections,
+                                                int numberOfLenders) {
+        if (numberOfLenders < 0 
+                || numberOfLenders > lenders.length
+                || numberOfLenders > lenderPotentials.length
+                || numberOfLenders > lenderDirections.length) {
+            throw new IllegalArgumentException(
+                    "The number of lenders is out of range: " + 
+                    numberOfLenders + ".");
+        }
+        
+        return numberOfLenders;
+    }
+    
+    /**
+     * Returns the initial capacity of a hash map that holds the given number 
+     * of entries without rehashing.
+     * 
+     * @param numberOfEntries the number of entries.
+     * @return the initial capacity.
+     */
+    private static int getMapCapacity(int numberOfEntries) {
+        return (int) (numberOfEntries / 0.75f) + 1;
+    }
 }
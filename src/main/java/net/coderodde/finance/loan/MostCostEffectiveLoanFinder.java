@@ -1,5 +1,9 @@
 package net.coderodde.finance.loan;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
 /**
  * This interface defines the API for all most cost effective loan finder 
  * algorithms.
@@ -24,4 +28,82 @@ public interface MostCostEffectiveLoanFinder<I> {
     public MostCostEffectiveLoan<I>  findLenders(Actor<I> actor,
                                                  double requiredPrincipal,
                                                  double maximumInterestRate);
+    
+    /**
+     * Streams the lenders of the most cost effective loan of the input actor
+     * to {@code consumer} as the search settles them, without building the
+     * loan. The consumer receives exactly the lenders, potentials and
+     * directions of the loan returned by
+     * {@link #findLenders(Actor, double, double)} in the order of their
+     * effective interest rates, unless it stops the search early by
+     * returning {@code false}. The default implementation computes the whole
+     * loan first and replays its lenders; as the loan does not record the
+     * effective interest rates, the consumer receives {@link Double#NaN} in 
+     * their place. All the finders of this library override it.
+     * 
+     * @param actor               the debt actor.
+     * @param requiredPrincipal   the required principal.
+     * @param maximumInterestRate the maximum allowed effective interest rate.
+     * @param consumer            the consumer receiving the lenders.
+     */
+    public default void findLenders(Actor<I> actor,
+                                    double requiredPrincipal,
+                                    double maximumInterestRate,
+                                    LenderConsumer<I> consumer) {
+        Objects.requireNonNull(consumer, "The input consumer is null.");
+        MostCostEffectiveLoan<I> loan = findLenders(actor, 
+                                                    requiredPrincipal, 
+                                                    maximumInterestRate);
+        
+        for (int i = 0; i < loan.getNumberOfLenders(); i++) {
+            if (!consumer.accept(loan.getLender(i),
+                                 loan.getLenderPotential(i),
+                                 Double.NaN,
+                                 loan.getLenderDirection(i))) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Answers a batch of queries. The {@code i}th loan in the returned list
+     * answers the {@code i}th query. The default implementation answers the 
+     * queries one by one; the finders that can share work between the 
+     * queries of the same borrower override it.
+     * 
+     * @param queries the queries to answer.
+     * @return the loans in the order of the queries.
+     */
+    public default List<MostCostEffectiveLoan<I>> findLendersBatch(
+            List<LoanQuery<I>> queries) {
+        Objects.requireNonNull(queries, "The input query list is null.");
+        List<MostCostEffectiveLoan<I>> loans = new ArrayList<>(queries.size());
+        
+        for (LoanQuery<I> query : queries) {
+            loans.add(findLenders(query.getActor(),
+                                  query.getRequestedPotential(),
+                                  query.getMaximumInterestRate()));
+        }
+        
+        return loans;
+    }
+    
+    /**
+     * Answers a batch of queries using {@code parallelism} threads. The 
+     * queries of the same borrower are always answered by the same thread 
+     * via {@link #findLendersBatch(java.util.List)}. The finder must support
+     * concurrent queries, and the actor graph must not be modified while the 
+     * batch is running.
+     * 
+     * @param queries     the queries to answer.
+     * @param parallelism the number of threads to use.
+     * @return the loans in the order of the queries.
+     */
+    public default List<MostCostEffectiveLoan<I>> findLendersBatch(
+            List<LoanQuery<I>> queries, 
+            int parallelism) {
+        return LoanQueryBatches.findLendersInParallel(this, 
+                                                      queries, 
+                                                      parallelism);
+    }
 }
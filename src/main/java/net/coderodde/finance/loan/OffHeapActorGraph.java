@@ -0,0 +1,341 @@
+package net.coderodde.finance.loan;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Objects;
+
+/**
+ * This class implements an immutable actor graph whose numbers live outside
+ * of the Java heap. The potentials, the arc offsets, the arc sources and the
+ * interest rates are held in direct or memory-mapped buffers, so the garbage
+ * collector never scans nor copies them. Since a single buffer holds at most
+ * {@code 2^31 - 1} bytes, each of the four arrays is split into chunks of
+ * equal length, which is a power of two.
+ * <p>
+ * Only the actors themselves stay on the heap: an array of the actors and an
+ * open addressing table of their indices, that is, one object and about 12
+ * bytes per actor and nothing per arc.
+ * <p>
+ * A graph is obtained either by copying another indexed graph into direct
+ * buffers via {@link #copyOf(IndexedActorGraph)}, or by mapping a file via
+ * {@link BinaryActorGraphFormat#readOffHeapActorGraph(java.nio.file.Path,
+ * IdentityCodec)}. The buffers are released once the graph is garbage
+ * collected.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 26, 2018)
+ * @param <I> the actor identity type.
+ */
+public final class OffHeapActorGraph<I> implements IndexedActorGraph<I> {
+    
+    /**
+     * The base-2 logarithm of the default number of elements in a chunk. A
+     * chunk of doubles takes one gigabyte.
+     */
+    static final int DEFAULT_CHUNK_SHIFT = 27;
+    
+    /**
+     * Maps each actor index to the actual actor.
+     */
+    private final Actor<I>[] actors;
+    
+    /**
+     * The open addressing table mapping the actors to their indices. Each
+     * slot holds either zero or the index of an actor plus one.
+     */
+    private final int[] actorIndexTable;
+    
+    private final DoubleBuffer[] potentials;
+    private final IntBuffer[] incomingArcOffsets;
+    private final IntBuffer[] arcSources;
+    private final DoubleBuffer[] arcInterestRates;
+    private final int numberOfArcs;
+    
+    /**
+     * The base-2 logarithm of the number of elements in a chunk.
+     */
+    private final int chunkShift;
+    
+    /**
+     * Extracts the index of an element within its chunk.
+     */
+    private final int chunkMask;
+    
+    /**
+     * Constructs an off-heap graph from its chunks.
+     * 
+     * @param actors             the actors.
+     * @param potentials         the potentials of the actors.
+     * @param incomingArcOffsets the {@code n + 1} incoming arc offsets.
+     * @param arcSources         the source actor indices of the arcs.
+     * @param arcInterestRates   the interest rates of the arcs.
+     * @param numberOfArcs       the number of arcs.
+     * @param chunkShift         the base-2 logarithm of the chunk length.
+     * @throws IllegalArgumentException if there are duplicate actors.
+     */
+    OffHeapActorGraph(Actor<I>[] actors,
+                      DoubleBuffer[] potentials,
+                      IntBuffer[] incomingArcOffsets,
+                      IntBuffer[] arcSources,
+                      DoubleBuffer[] arcInterestRates,
+                      int numberOfArcs,
+                      int chunkShift) {
+        this.actors = actors;
+        this.actorIndexTable = createActorIndexTable(actors);
+        this.potentials = potentials;
+        this.incomingArcOffsets = incomingArcOffsets;
+        this.arcSources = arcSources;
+        this.arcInterestRates = arcInterestRates;
+        this.numberOfArcs = numberOfArcs;
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1 << chunkShift) - 1;
+    }
+    
+    /**
+     * Copies the input graph into direct buffers. The actors are shared with
+     * the input graph, so that the loans found in both graphs are equal.
+     * 
+     * @param <I>        the actor identity type.
+     * @param actorGraph the graph to copy.
+     * @return the off-heap copy of the input graph.
+     */
+    public static <I> OffHeapActorGraph<I> copyOf(
+            IndexedActorGraph<I> actorGraph) {
+        return copyOf(actorGraph, DEFAULT_CHUNK_SHIFT);
+    }
+    
+    static <I> OffHeapActorGraph<I> copyOf(IndexedActorGraph<I> actorGraph,
+                                           int chunkShift) {
+        Objects.requireNonNull(actorGraph, "The input actor graph is null.");
+        int numberOfActors = actorGraph.getNumberOfActors();
+        int numberOfArcs = actorGraph.getNumberOfArcs();
+        int chunkLength = 1 << chunkShift;
+        Actor<I>[] actors = new Actor[numberOfActors];
+        DoubleBuffer[] potentials =
+                allocateDoubleChunks(numberOfActors, chunkShift);
+        IntBuffer[] incomingArcOffsets =
+                allocateIntChunks(numberOfActors + 1, chunkShift);
+        IntBuffer[] arcSources = allocateIntChunks(numberOfArcs, chunkShift);
+        DoubleBuffer[] arcInterestRates =
+                allocateDoubleChunks(numberOfArcs, chunkShift);
+        
+        for (int i = 0; i < numberOfActors; i++) {
+            actors[i] = actorGraph.getActor(i);
+            potentials[i >>> chunkShift]
+                    .put(i & (chunkLength - 1),
+                         actorGraph.getActorPotential(i));
+            incomingArcOffsets[i >>> chunkShift]
+                    .put(i & (chunkLength - 1),
+                         actorGraph.getIncomingArcStart(i));
+        }
+        
+        incomingArcOffsets[numberOfActors >>> chunkShift]
+                .put(numberOfActors & (chunkLength - 1), numberOfArcs);
+        
+        for (int arc = 0; arc < numberOfArcs; arc++) {
+            arcSources[arc >>> chunkShift]
+                    .put(arc & (chunkLength - 1),
+                         actorGraph.getArcSource(arc));
+            arcInterestRates[arc >>> chunkShift]
+                    .put(arc & (chunkLength - 1),
+                         actorGraph.getArcInterestRate(arc));
+        }
+        
+        return new OffHeapActorGraph<>(actors,
+                                       potentials,
+                                       incomingArcOffsets,
+                                       arcSources,
+                                       arcInterestRates,
+                                       numberOfArcs,
+                                       chunkShift);
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getNumberOfActors() {
+        return actors.length;
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getNumberOfArcs() {
+        return numberOfArcs;
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Actor<I> getActor(int actorIndex) {
+        return actors[actorIndex];
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getActorIndex(Actor<I> actor) {
+        Objects.requireNonNull(actor, "The input actor is null.");
+        int mask = actorIndexTable.length - 1;
+        
+        for (int slot = hash(actor) & mask;
+                actorIndexTable[slot] != 0;
+                slot = (slot + 1) & mask) {
+            int actorIndex = actorIndexTable[slot] - 1;
+            
+            if (actors[actorIndex].equals(actor)) {
+                return actorIndex;
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getActorPotential(int actorIndex) {
+        return potentials[actorIndex >>> chunkShift]
+                .get(actorIndex & chunkMask);
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getIncomingArcStart(int actorIndex) {
+        return incomingArcOffsets[actorIndex >>> chunkShift]
+                .get(actorIndex & chunkMask);
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getIncomingArcEnd(int actorIndex) {
+        return getIncomingArcStart(actorIndex + 1);
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getArcSource(int arcIndex) {
+        return arcSources[arcIndex >>> chunkShift].get(arcIndex & chunkMask);
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getArcInterestRate(int arcIndex) {
+        return arcInterestRates[arcIndex >>> chunkShift]
+                .get(arcIndex & chunkMask);
+    }
+    
+    /**
+     * Returns the number of chunks needed for the input number of elements.
+     * 
+     * @param length     the number of elements.
+     * @param chunkShift the base-2 logarithm of the chunk length.
+     * @return the number of chunks.
+     */
+    static int getNumberOfChunks(int length, int chunkShift) {
+        return (int) (((long) length + (1L << chunkShift) - 1) >>> chunkShift);
+    }
+    
+    /**
+     * Returns the number of elements in the given chunk.
+     * 
+     * @param length     the total number of elements.
+     * @param chunk      the index of the chunk.
+     * @param chunkShift the base-2 logarithm of the chunk length.
+     * @return the number of elements in the chunk.
+     */
+    static int getChunkLength(int length, int chunk, int chunkShift) {
+        return (int) Math.min(1L << chunkShift,
+                              length - ((long) chunk << chunkShift));
+    }
+    
+    private static DoubleBuffer[] allocateDoubleChunks(int length,
+                                                       int chunkShift) {
+        DoubleBuffer[] chunks =
+                new DoubleBuffer[getNumberOfChunks(length, chunkShift)];
+        
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            chunks[chunk] =
+                    allocate(Double.BYTES
+                             * getChunkLength(length, chunk, chunkShift))
+                            .asDoubleBuffer();
+        }
+        
+        return chunks;
+    }
+    
+    private static IntBuffer[] allocateIntChunks(int length, int chunkShift) {
+        IntBuffer[] chunks =
+                new IntBuffer[getNumberOfChunks(length, chunkShift)];
+        
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            chunks[chunk] =
+                    allocate(Integer.BYTES
+                             * getChunkLength(length, chunk, chunkShift))
+                            .asIntBuffer();
+        }
+        
+        return chunks;
+    }
+    
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+    
+    private static int hash(Actor<?> actor) {
+        int h = actor.hashCode();
+        return h ^ (h >>> 16);
+    }
+    
+    /**
+     * Builds the open addressing table of the actor indices. The table is
+     * kept at most half full.
+     * 
+     * @param actors the actors.
+     * @return the actor index table.
+     * @throws IllegalArgumentException if there are duplicate actors.
+     */
+    private static int[] createActorIndexTable(Actor<?>[] actors) {
+        int capacity = 2;
+        
+        while (capacity < 2L * actors.length && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        
+        int[] table = new int[capacity];
+        int mask = capacity - 1;
+        
+        for (int actorIndex = 0; actorIndex < actors.length; actorIndex++) {
+            Actor<?> actor = actors[actorIndex];
+            int slot = hash(actor) & mask;
+            
+            while (table[slot] != 0) {
+                if (actors[table[slot] - 1].equals(actor)) {
+                    throw new IllegalArgumentException(
+                            "Duplicate actor " + actor + ".");
+                }
+                
+                slot = (slot + 1) & mask;
+            }
+            
+            table[slot] = actorIndex + 1;
+        }
+        
+        return table;
+    }
+}
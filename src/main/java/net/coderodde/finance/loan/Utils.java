@@ -17,11 +17,7 @@ public final class Utils {
      * @return the input value.
      */
     public static double checkPotential(double potential) {
-        return checkDoubleIsPositiveOrZero(
-                potential, 
-                "The input potential is NaN.", 
-                "The input potential is negative: " + potential + ".", 
-                "The input potential is positive infinite.");
+        return checkDoubleIsPositiveOrZero(potential, "potential");
     }
     
     /**
@@ -32,12 +28,8 @@ public final class Utils {
      * @return the input value.
      */
     public static double checkRequestedPotential(double requestedPotential) {
-        return checkDoubleIsPositiveOrZero(
-                requestedPotential,
-                "The input requested potential is NaN.",
-                "The input requested potential is negative: " + 
-                        requestedPotential + ".",
-                "The input requested potential is positive infinite.");
+        return checkDoubleIsPositiveOrZero(requestedPotential, 
+                                           "requested potential");
     }
     
     /**
@@ -48,12 +40,8 @@ public final class Utils {
      * @return the input value.
      */
     public static double checkMaximumInterestRate(double maximumInterestRate) {
-        return checkDoubleIsPositiveOrZero(
-                maximumInterestRate,
-                "The input maximum interest rate is NaN.",
-                "The input maximum interest rate is negative: " +
-                        maximumInterestRate + ".",
-                "The input maximum interest rate is positive infinite.");
+        return checkDoubleIsPositiveOrZero(maximumInterestRate,
+                                           "maximum interest rate");
     }
     
     /**
@@ -64,29 +52,27 @@ public final class Utils {
      * @return the input value.
      */
     public static double checkInterestRate(double interestRate) {
-        return checkDoubleIsPositiveOrZero(
-                interestRate,
-                "The input interest rate is NaN.",
-                "The input interest rate is negative: " +
-                        interestRate + ".",
-                "The input interest rate is positive infinite.");
+        return checkDoubleIsPositiveOrZero(interestRate, "interest rate");
     }
     
-    private static double checkDoubleIsPositiveOrZero(
-            double targetValue,
-            String errorMessageOnNaN,
-            String errorMessageOnNegative,
-            String errorMessageOnInfinite) {
+    // These checks run on every graph update and query, so the error 
+    // messages are built only on failure.
+    private static double checkDoubleIsPositiveOrZero(double targetValue,
+                                                      String valueName) {
         if (Double.isNaN(targetValue)) {
-            throw new IllegalArgumentException(errorMessageOnNaN);
+            throw new IllegalArgumentException(
+                    "The input " + valueName + " is NaN.");
         }
         
         if (targetValue < 0.0) {
-            throw new IllegalArgumentException(errorMessageOnNegative);
+            throw new IllegalArgumentException(
+                    "The input " + valueName + " is negative: " + 
+                    targetValue + ".");
         }
         
         if (Double.isInfinite(targetValue)) {
-            throw new IllegalArgumentException(errorMessageOnInfinite);
+            throw new IllegalArgumentException(
+                    "The input " + valueName + " is positive infinite.");
         }
         
         return targetValue;
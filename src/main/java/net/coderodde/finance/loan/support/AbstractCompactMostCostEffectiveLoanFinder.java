@@ -0,0 +1,286 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Supplier;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.IndexedActorGraph;
+import net.coderodde.finance.loan.LenderConsumer;
+import net.coderodde.finance.loan.MostCostEffectiveLoan;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.Utils;
+
+/**
+ * This abstract class implements the main logic of most cost-effective loan 
+ * finders that run against an {@link IndexedActorGraph} using an indexed 
+ * priority queue. Since each actor appears in the queue at most once, the 
+ * size of the queue is bounded by the number of actors and no objects are 
+ * allocated per relaxed arc. The search state is kept per thread, so a 
+ * single finder may serve several threads at a time.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 16, 2018)
+ * @param <I> the actor identity type.
+ */
+abstract class AbstractCompactMostCostEffectiveLoanFinder<I> 
+        extends AbstractMostCostEffectiveLoanFinderBase
+        implements MostCostEffectiveLoanFinder<I> {
+    
+    /**
+     * The compact actor graph being searched.
+     */
+    private final IndexedActorGraph<I> actorGraph;
+    
+    /**
+     * Holds the reusable search state of each thread using this finder.
+     */
+    private final ThreadLocal<SearchState> searchStates;
+    
+    protected AbstractCompactMostCostEffectiveLoanFinder(
+            IndexedActorGraph<I> actorGraph,
+            Supplier<? extends IndexedPriorityQueue> openSupplier) {
+        this.actorGraph = 
+                Objects.requireNonNull(
+                        actorGraph, 
+                        "The input compact actor graph is null.");
+        Objects.requireNonNull(openSupplier, 
+                               "The input queue supplier is null.");
+        this.searchStates = 
+                ThreadLocal.withInitial(
+                        () -> new SearchState(
+                                openSupplier.get(),
+                                actorGraph.getNumberOfActors()));
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public MostCostEffectiveLoan<I> findLenders(Actor<I> actor,
+                                                double requestedPotential,
+                                                double maximumInterestRate) {
+        // Sanity checks:
+        Objects.requireNonNull(actor, "The input actor is null.");
+        int actorIndex = actorGraph.getActorIndex(actor);
+        checkActorIndex(actorIndex);
+        Utils.checkRequestedPotential(requestedPotential);
+        Utils.checkMaximumInterestRate(maximumInterestRate);
+        
+        SearchState searchState = searchStates.get();
+        double collectedPrincipal = search(actorIndex,
+                                           requestedPotential,
+                                           maximumInterestRate,
+                                           searchState,
+                                           null);
+        
+        return searchState.lenderBuffer.toLoan(actorGraph,
+                                               actor,
+                                               collectedPrincipal,
+                                               requestedPotential,
+                                               maximumInterestRate);
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void findLenders(Actor<I> actor,
+                            double requestedPotential,
+                            double maximumInterestRate,
+                            LenderConsumer<I> consumer) {
+        // Sanity checks:
+        Objects.requireNonNull(actor, "The input actor is null.");
+        Objects.requireNonNull(consumer, "The input consumer is null.");
+        int actorIndex = actorGraph.getActorIndex(actor);
+        checkActorIndex(actorIndex);
+        Utils.checkRequestedPotential(requestedPotential);
+        Utils.checkMaximumInterestRate(maximumInterestRate);
+        
+        search(actorIndex,
+               requestedPotential,
+               maximumInterestRate,
+               searchStates.get(),
+               consumer);
+    }
+    
+    /**
+     * Settles the lenders of the given actor in the order of their effective
+     * interest rates. Without a consumer, the lenders are collected into the
+     * lender buffer of the search state; otherwise each lender is handed to
+     * the consumer as soon as it is settled, and the search stops as soon as
+     * the consumer returns {@code false}.
+     * 
+     * @param actorIndex          the index of the borrowing actor.
+     * @param requestedPotential  the requested potential.
+     * @param maximumInterestRate the maximum effective interest rate.
+     * @param searchState         the state of the calling thread.
+     * @param consumer            the consumer of the lenders, or 
+     *                            {@code null}.
+     * @return the collected potential.
+     */
+    private double search(int actorIndex,
+                          double requestedPotential,
+                          double maximumInterestRate,
+                          SearchState searchState,
+                          LenderConsumer<I> consumer) {
+        // Algorithm state:
+        IndexedPriorityQueue open = searchState.open;
+        int[] closedSearchNumbers = searchState.closedSearchNumbers;
+        int[] directions = searchState.directions;
+        int closedMark = searchState.nextSearchNumber();
+        LenderBuffer lenderBuffer = searchState.lenderBuffer;
+        double collectedPrincipal = 0.0;
+        
+        // Loop initialization:
+        open.clear();
+        lenderBuffer.clear();
+        closedSearchNumbers[actorIndex] = closedMark;
+        relaxIncomingArcs(actorIndex, 
+                          0.0, 
+                          maximumInterestRate,
+                          searchState,
+                          closedMark);
+        
+        while (!open.isEmpty() && collectedPrincipal < requestedPotential) {
+            double effectiveInterestRate = 
+                    open.getPriority(open.peekMinimum());
+            int sourceActorIndex = open.extractMinimum();
+            closedSearchNumbers[sourceActorIndex] = closedMark;
+            
+            double potentialIncrease = 
+                    Math.min(actorGraph.getActorPotential(sourceActorIndex),
+                             requestedPotential - collectedPrincipal);
+            
+            collectedPrincipal += potentialIncrease;
+            
+            if (consumer == null) {
+                lenderBuffer.add(sourceActorIndex,
+                                 directions[sourceActorIndex],
+                                 potentialIncrease);
+            } else if (!consumer.accept(
+                    actorGraph.getActor(sourceActorIndex),
+                    potentialIncrease,
+                    effectiveInterestRate,
+                    actorGraph.getActor(directions[sourceActorIndex]))) {
+                break;
+            }
+            
+            relaxIncomingArcs(sourceActorIndex,
+                              effectiveInterestRate,
+                              maximumInterestRate,
+                              searchState,
+                              closedMark);
+        }
+        
+        return collectedPrincipal;
+    }
+    
+    /**
+     * Relaxes all the incoming arcs of the given actor.
+     * 
+     * @param actorIndex            the index of the actor just settled.
+     * @param effectiveInterestRate the effective interest rate of the actor.
+     * @param maximumInterestRate   the maximum allowed interest rate.
+     * @param searchState           the state of the current search.
+     * @param closedMark            the closed mark of the current search.
+     */
+    private void relaxIncomingArcs(int actorIndex,
+                                   double effectiveInterestRate,
+                                   double maximumInterestRate,
+                                   SearchState searchState,
+                                   int closedMark) {
+        IndexedPriorityQueue open = searchState.open;
+        int[] closedSearchNumbers = searchState.closedSearchNumbers;
+        int[] directions = searchState.directions;
+        
+        for (int arc = actorGraph.getIncomingArcStart(actorIndex),
+                 end = actorGraph.getIncomingArcEnd(actorIndex);
+                 arc < end;
+                 arc++) {
+            int lendingActorIndex = actorGraph.getArcSource(arc);
+            
+            if (closedSearchNumbers[lendingActorIndex] == closedMark) {
+                continue;
+            }
+            
+            double nextInterestRate = 
+                    combineInterestRates(effectiveInterestRate,
+                                         actorGraph.getArcInterestRate(arc));
+            
+            if (nextInterestRate > maximumInterestRate) {
+                continue;
+            }
+            
+            if (!open.contains(lendingActorIndex)) {
+                open.insert(lendingActorIndex, nextInterestRate);
+                directions[lendingActorIndex] = actorIndex;
+            } else if (nextInterestRate 
+                    < open.getPriority(lendingActorIndex)) {
+                open.decreasePriority(lendingActorIndex, nextInterestRate);
+                directions[lendingActorIndex] = actorIndex;
+            }
+        }
+    }
+    
+    /**
+     * Makes sure the actor index denotes an actor in the compact graph.
+     * 
+     * @param actorIndex the actor index to check.
+     */
+    private void checkActorIndex(int actorIndex) {
+        if (actorIndex < 0) {
+            throw new IllegalStateException(
+                    "The input actor does not belong to the compact graph.");
+        }
+    }
+    
+    /**
+     * This inner static class holds the reusable state of a search.
+     */
+    private static final class SearchState {
+        
+        final IndexedPriorityQueue open;
+        
+        /**
+         * Maps each actor index to the number of the search in which the 
+         * actor was closed.
+         */
+        final int[] closedSearchNumbers;
+        
+        /**
+         * Maps each actor index to the index of the actor it lends to on the
+         * best path found so far.
+         */
+        final int[] directions;
+        
+        final LenderBuffer lenderBuffer;
+        
+        /**
+         * The number of the current search.
+         */
+        int searchNumber;
+        
+        SearchState(IndexedPriorityQueue open, int numberOfActors) {
+            this.open = open;
+            this.open.ensureCapacity(numberOfActors);
+            this.closedSearchNumbers = new int[numberOfActors];
+            this.directions = new int[numberOfActors];
+            this.lenderBuffer = new LenderBuffer(numberOfActors);
+        }
+        
+        /**
+         * Returns the number of the next search. If the search number 
+         * overflows, the closed marks are reset.
+         * 
+         * @return the next search number.
+         */
+        int nextSearchNumber() {
+            if (++searchNumber == 0) {
+                Arrays.fill(closedSearchNumbers, 0);
+                searchNumber = 1;
+            }
+            
+            return searchNumber;
+        }
+    }
+}
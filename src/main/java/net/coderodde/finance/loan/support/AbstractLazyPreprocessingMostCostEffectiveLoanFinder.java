@@ -0,0 +1,315 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Supplier;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+
+/**
+ * This abstract class implements a lazily preprocessing most cost-effective 
+ * loan finder. Instead of building the lender lists of all actors up front, 
+ * the finder builds the lender list of an actor on its first query and keeps
+ * it in a cache holding at most a given number of lender lists. When the 
+ * cache is full, the least recently used lender list is evicted.
+ * <p>
+ * On a structural change of the actor graph, the finder drops, before the 
+ * next query, exactly the cached lender lists that contain the head actor of
+ * the changed arc (or the removed actor), since only those lists may change.
+ * Likewise, on a potential change only the cached lender lists containing 
+ * the actor recompute their prefix sums of the lender potentials.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 20, 2018)
+ * @param <I> the actor identity type.
+ */
+abstract class AbstractLazyPreprocessingMostCostEffectiveLoanFinder<I>
+extends AbstractLenderListMostCostEffectiveLoanFinder<I> {
+    
+    /**
+     * The default maximum number of cached lender lists.
+     */
+    public static final int DEFAULT_MAXIMUM_CACHE_SIZE = 1024;
+    
+    /**
+     * The maximum number of cached lender lists.
+     */
+    private final int maximumCacheSize;
+    
+    /**
+     * Maps the recently queried actors to their lender lists in the access 
+     * order. Guards all the cache state below.
+     */
+    private final Map<Actor<I>, LenderList<I>> cache;
+    
+    /**
+     * The actors whose presence in a lender list invalidates the list.
+     */
+    private final Set<Actor<I>> changedActors = new HashSet<>();
+    
+    /**
+     * The actors whose presence in a lender list invalidates the prefix sums
+     * of the list.
+     */
+    private final Set<Actor<I>> changedPotentialActors = new HashSet<>();
+    
+    /**
+     * Holds the priority queue of each thread building lender lists.
+     */
+    private final ThreadLocal<Queue<HeapNode<I>>> opens;
+    
+    /**
+     * Holds the closed set of each thread building lender lists.
+     */
+    private final ThreadLocal<ClosedActorSet> closedSets = 
+            ThreadLocal.withInitial(ClosedActorSet::new);
+    
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    
+    protected AbstractLazyPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            Supplier<? extends Queue<HeapNode<I>>> openSupplier,
+            MostCostEffectiveLoanFinder<I> fallbackFinder) {
+        this(actorGraph, 
+             openSupplier, 
+             fallbackFinder, 
+             PreprocessingLimits.UNLIMITED, 
+             DEFAULT_MAXIMUM_CACHE_SIZE);
+    }
+    
+    /**
+     * Constructs the finder caching at most {@code maximumCacheSize} lender
+     * lists. The lender lists are cut according to 
+     * {@code preprocessingLimits}, and the queries the cut lists cannot 
+     * answer are delegated to {@code fallbackFinder}.
+     * 
+     * @param actorGraph          the actor graph to search.
+     * @param openSupplier        the supplier of priority queues.
+     * @param fallbackFinder      the finder for queries beyond the limits.
+     * @param preprocessingLimits the bounds of the lender lists.
+     * @param maximumCacheSize    the maximum number of cached lender lists.
+     */
+    protected AbstractLazyPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            Supplier<? extends Queue<HeapNode<I>>> openSupplier,
+            MostCostEffectiveLoanFinder<I> fallbackFinder,
+            PreprocessingLimits preprocessingLimits,
+            int maximumCacheSize) {
+        super(actorGraph, openSupplier, fallbackFinder, preprocessingLimits);
+        checkMaximumCacheSize(maximumCacheSize);
+        this.maximumCacheSize = maximumCacheSize;
+        this.cache = new LinkedHashMap<Actor<I>, LenderList<I>>(
+                16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<Actor<I>, LenderList<I>> eldest) {
+                if (size() > maximumCacheSize) {
+                    evictionCount++;
+                    return true;
+                }
+                
+                return false;
+            }
+        };
+        
+        this.opens = ThreadLocal.withInitial(openSupplier);
+        listenToActorGraph();
+    }
+    
+    /**
+     * Returns the number of queries answered from the cache.
+     * 
+     * @return the number of cache hits.
+     */
+    public long getCacheHitCount() {
+        synchronized (cache) {
+            return hitCount;
+        }
+    }
+    
+    /**
+     * Returns the number of queries that had to build a lender list.
+     * 
+     * @return the number of cache misses.
+     */
+    public long getCacheMissCount() {
+        synchronized (cache) {
+            return missCount;
+        }
+    }
+    
+    /**
+     * Returns the number of lender lists evicted due to the cache being full.
+     * 
+     * @return the number of cache evictions.
+     */
+    public long getCacheEvictionCount() {
+        synchronized (cache) {
+            return evictionCount;
+        }
+    }
+    
+    /**
+     * Returns the number of currently cached lender lists.
+     * 
+     * @return the cache size.
+     */
+    public int getCacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+    
+    /**
+     * Returns the maximum number of cached lender lists.
+     * 
+     * @return the maximum cache size.
+     */
+    public int getMaximumCacheSize() {
+        return maximumCacheSize;
+    }
+    
+    @Override
+    void onActorAdded(Actor<I> actor) {
+        // A new actor has no arcs, so no lender list changes.
+    }
+    
+    @Override
+    void beforeActorRemoved(Actor<I> actor) {
+        synchronized (cache) {
+            changedActors.add(actor);
+        }
+    }
+    
+    @Override
+    void onArcChanged(Actor<I> targetActor) {
+        synchronized (cache) {
+            changedActors.add(targetActor);
+        }
+    }
+    
+    @Override
+    void onPotentialChanged(Actor<I> actor) {
+        synchronized (cache) {
+            changedPotentialActors.add(actor);
+        }
+    }
+    
+    @Override
+    void onGraphCleared() {
+        synchronized (cache) {
+            cache.clear();
+            changedActors.clear();
+            changedPotentialActors.clear();
+        }
+    }
+    
+    /**
+     * {@inheritDoc }
+     * The lender list is built if it is not cached.
+     */
+    @Override
+    LenderList<I> getLenderList(Actor<I> actor, SearchMetrics metrics) {
+        synchronized (cache) {
+            dropChangedLenderLists();
+            invalidateChangedPotentials();
+            
+            if (cache.containsKey(actor)) {
+                hitCount++;
+                return cache.get(actor);
+            }
+            
+            missCount++;
+        }
+        
+        LenderList<I> lenderList = buildLenderList(actor, 
+                                                   opens.get(), 
+                                                   closedSets.get(), 
+                                                   metrics);
+        
+        synchronized (cache) {
+            cache.put(actor, lenderList);
+        }
+        
+        return lenderList;
+    }
+    
+    /**
+     * Removes from the cache all the lender lists that belong to or contain 
+     * a changed actor. Runs in time linear in the total length of the cached
+     * lender lists. Must be called while holding the cache lock.
+     */
+    private void dropChangedLenderLists() {
+        if (changedActors.isEmpty()) {
+            return;
+        }
+        
+        Iterator<Map.Entry<Actor<I>, LenderList<I>>> iterator = 
+                cache.entrySet().iterator();
+        
+        while (iterator.hasNext()) {
+            Map.Entry<Actor<I>, LenderList<I>> entry = iterator.next();
+            
+            if (changedActors.contains(entry.getKey()) 
+                    || containsAny(entry.getValue(), changedActors)) {
+                iterator.remove();
+            }
+        }
+        
+        changedActors.clear();
+    }
+    
+    /**
+     * Invalidates the prefix sums of the cached lender lists that contain an
+     * actor whose potential has changed. Must be called while holding the 
+     * cache lock.
+     */
+    private void invalidateChangedPotentials() {
+        if (changedPotentialActors.isEmpty()) {
+            return;
+        }
+        
+        for (LenderList<I> lenderList : cache.values()) {
+            if (containsAny(lenderList, changedPotentialActors)) {
+                lenderList.invalidatePotentialPrefixSums();
+            }
+        }
+        
+        changedPotentialActors.clear();
+    }
+    
+    private boolean containsAny(LenderList<I> lenderList, 
+                                Set<Actor<I>> actors) {
+        if (lenderList == null) {
+            return false;
+        }
+        
+        for (int i = 0; i < lenderList.size(); i++) {
+            if (actors.contains(lenderList.getLender(i))) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Makes sure the maximum cache size is at least one.
+     * 
+     * @param maximumCacheSize the maximum cache size to check.
+     */
+    private static void checkMaximumCacheSize(int maximumCacheSize) {
+        if (maximumCacheSize < 1) {
+            throw new IllegalArgumentException(
+                    "The maximum cache size is too small: " + 
+                    maximumCacheSize + ".");
+        }
+    }
+}
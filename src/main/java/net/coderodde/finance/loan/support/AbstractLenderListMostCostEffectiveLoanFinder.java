@@ -0,0 +1,592 @@
+package net.coderodde.finance.loan.support;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Supplier;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.ActorGraphListener;
+import net.coderodde.finance.loan.LenderConsumer;
+import net.coderodde.finance.loan.LoanQuery;
+import net.coderodde.finance.loan.MostCostEffectiveLoan;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.Utils;
+
+/**
+ * This abstract class holds the machinery shared by the finders that answer
+ * the queries from precomputed lender lists: building the lender list of an
+ * actor, turning a lender list into a loan, and relaying the changes of the
+ * actor graph to the subclass. The lender lists may be cut according to 
+ * {@link PreprocessingLimits}; the queries a cut list cannot answer go to a 
+ * fallback finder searching the graph on the fly.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 20, 2018)
+ * @param <I> the actor identity type.
+ */
+abstract class AbstractLenderListMostCostEffectiveLoanFinder<I>
+extends AbstractMostCostEffectiveLoanFinderBase
+implements MostCostEffectiveLoanFinder<I> {
+    
+    /**
+     * The actor graph being preprocessed.
+     */
+    final ActorGraph<I> actorGraph;
+    
+    /**
+     * Creates the priority queues used for building the lender lists.
+     */
+    final Supplier<? extends Queue<HeapNode<I>>> openSupplier;
+    
+    /**
+     * The finder answering the queries the cut lender lists cannot answer.
+     */
+    private final MostCostEffectiveLoanFinder<I> fallbackFinder;
+    
+    /**
+     * The bounds at which the lender lists are cut.
+     */
+    private final PreprocessingLimits preprocessingLimits;
+    
+    /**
+     * Receives the cost metrics of the queries, or {@code null} if the 
+     * metrics are not collected.
+     */
+    private volatile SearchMetricsListener<I> searchMetricsListener;
+    
+    AbstractLenderListMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            Supplier<? extends Queue<HeapNode<I>>> openSupplier,
+            MostCostEffectiveLoanFinder<I> fallbackFinder,
+            PreprocessingLimits preprocessingLimits) {
+        this.actorGraph = 
+                Objects.requireNonNull(
+                        actorGraph, 
+                        "The input actor graph is null.");
+        this.openSupplier = 
+                Objects.requireNonNull(
+                        openSupplier,
+                        "The input queue supplier is null.");
+        this.fallbackFinder = 
+                Objects.requireNonNull(
+                        fallbackFinder,
+                        "The input fallback finder is null.");
+        this.preprocessingLimits = 
+                Objects.requireNonNull(
+                        preprocessingLimits,
+                        "The input preprocessing limits are null.");
+    }
+    
+    /**
+     * Returns the bounds at which this finder cuts the lender lists.
+     * 
+     * @return the preprocessing limits.
+     */
+    public PreprocessingLimits getPreprocessingLimits() {
+        return preprocessingLimits;
+    }
+    
+    /**
+     * Installs the listener receiving the cost metrics of each query, or 
+     * stops collecting the metrics if the listener is {@code null}.
+     * 
+     * @param searchMetricsListener the listener or {@code null}.
+     */
+    public void setSearchMetricsListener(
+            SearchMetricsListener<I> searchMetricsListener) {
+        this.searchMetricsListener = searchMetricsListener;
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public MostCostEffectiveLoan<I> findLenders(Actor<I> actor, 
+                                                double requestedPotential,
+                                                double maximumInterestRate) {
+        Objects.requireNonNull(actor, "The input actor is null.");
+        checkActorBelongsToGraph(actor);
+        Utils.checkRequestedPotential(requestedPotential);
+        Utils.checkMaximumInterestRate(maximumInterestRate);
+        SearchMetricsListener<I> listener = searchMetricsListener;
+        SearchMetrics metrics = listener == null ? null : new SearchMetrics();
+        LenderList<I> lenderList = getLenderList(actor, metrics);
+        MostCostEffectiveLoan<I> loan;
+        
+        if (lenderListSuffices(lenderList, 
+                               requestedPotential, 
+                               maximumInterestRate)) {
+            loan = collectLoan(actor,
+                               lenderList,
+                               requestedPotential,
+                               maximumInterestRate);
+        } else {
+            loan = fallbackFinder.findLenders(actor, 
+                                              requestedPotential, 
+                                              maximumInterestRate);
+            
+            if (metrics != null) {
+                metrics.setFallbackUsed();
+            }
+        }
+        
+        if (listener != null) {
+            metrics.report(listener, 
+                           new LoanQuery<>(actor, 
+                                           requestedPotential, 
+                                           maximumInterestRate), 
+                           loan.getNumberOfLenders());
+        }
+        
+        return loan;
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void findLenders(Actor<I> actor,
+                            double requestedPotential,
+                            double maximumInterestRate,
+                            LenderConsumer<I> consumer) {
+        Objects.requireNonNull(actor, "The input actor is null.");
+        Objects.requireNonNull(consumer, "The input consumer is null.");
+        checkActorBelongsToGraph(actor);
+        Utils.checkRequestedPotential(requestedPotential);
+        Utils.checkMaximumInterestRate(maximumInterestRate);
+        SearchMetricsListener<I> listener = searchMetricsListener;
+        SearchMetrics metrics = listener == null ? null : new SearchMetrics();
+        LenderList<I> lenderList = getLenderList(actor, metrics);
+        int numberOfLenders = 0;
+        
+        if (lenderListSuffices(lenderList, 
+                               requestedPotential, 
+                               maximumInterestRate)) {
+            if (lenderList != null) {
+                numberOfLenders = lenderList.streamLoan(actorGraph,
+                                                        requestedPotential,
+                                                        maximumInterestRate,
+                                                        consumer);
+            }
+        } else {
+            fallbackFinder.findLenders(actor, 
+                                       requestedPotential, 
+                                       maximumInterestRate,
+                                       consumer);
+            
+            if (metrics != null) {
+                metrics.setFallbackUsed();
+            }
+        }
+        
+        if (listener != null) {
+            metrics.report(listener, 
+                           new LoanQuery<>(actor, 
+                                           requestedPotential, 
+                                           maximumInterestRate), 
+                           numberOfLenders);
+        }
+    }
+    
+    /**
+     * Returns the total potential the input actor can borrow with effective
+     * interest rates not exceeding {@code maximumInterestRate}. Runs in 
+     * logarithmic time as long as no lender in the list of the actor has 
+     * changed its potential since the last query involving the list.
+     * 
+     * @param actor               the borrowing actor.
+     * @param maximumInterestRate the maximum allowed effective interest rate.
+     * @return the total available potential.
+     */
+    public double getAvailablePotential(Actor<I> actor, 
+                                        double maximumInterestRate) {
+        Objects.requireNonNull(actor, "The input actor is null.");
+        checkActorBelongsToGraph(actor);
+        Utils.checkMaximumInterestRate(maximumInterestRate);
+        LenderList<I> lenderList = getLenderList(actor);
+        
+        if (lenderList == null) {
+            return 0.0;
+        }
+        
+        if (maximumInterestRate >= lenderList.getTruncationRate()) {
+            // The lenders cut from the list may be within the rate:
+            return fallbackFinder.findLenders(actor, 
+                                              Double.MAX_VALUE, 
+                                              maximumInterestRate)
+                                 .getReceivedPotential();
+        }
+        
+        return lenderList.getPotentialPrefixSums(actorGraph)
+                [lenderList.countLendersWithin(maximumInterestRate)];
+    }
+    
+    /**
+     * Returns {@code true} only if the lender list, which may be cut by the 
+     * preprocessing limits, contains all the lenders of the loan. This is 
+     * the case if the lenders cut from the list are all above the maximum 
+     * interest rate, or if the lenders within the rate left in the list 
+     * already provide the requested potential.
+     * 
+     * @param lenderList          the lender list.
+     * @param requestedPotential  the requested potential.
+     * @param maximumInterestRate the maximum effective interest rate.
+     * @return {@code true} if the loan can be collected from the list.
+     */
+    private boolean lenderListSuffices(LenderList<I> lenderList,
+                                       double requestedPotential,
+                                       double maximumInterestRate) {
+        if (lenderList == null 
+                || maximumInterestRate < lenderList.getTruncationRate()) {
+            return true;
+        }
+        
+        return lenderList.getPotentialPrefixSums(actorGraph)
+                [lenderList.size()] >= requestedPotential;
+    }
+    
+    /**
+     * Returns the lender list of the input actor.
+     * 
+     * @param actor the target actor.
+     * @return the lender list or {@code null} if the actor has no lenders.
+     */
+    final LenderList<I> getLenderList(Actor<I> actor) {
+        return getLenderList(actor, null);
+    }
+    
+    /**
+     * Returns the lender list of the input actor.
+     * 
+     * @param actor   the target actor.
+     * @param metrics the metrics to add the costs of building the list to, 
+     *                or {@code null}.
+     * @return the lender list or {@code null} if the actor has no lenders.
+     */
+    abstract LenderList<I> getLenderList(Actor<I> actor, 
+                                         SearchMetrics metrics);
+    
+    /**
+     * Called after a new actor is added to the graph.
+     * 
+     * @param actor the new actor.
+     */
+    abstract void onActorAdded(Actor<I> actor);
+    
+    /**
+     * Called right before an actor is removed from the graph.
+     * 
+     * @param actor the actor being removed.
+     */
+    abstract void beforeActorRemoved(Actor<I> actor);
+    
+    /**
+     * Called after an arc is added, removed or updated.
+     * 
+     * @param targetActor the head actor of the changed arc.
+     */
+    abstract void onArcChanged(Actor<I> targetActor);
+    
+    /**
+     * Called after the potential of an actor already in the graph changes.
+     * Only the lender lists containing the actor need to recompute their
+     * prefix sums of the lender potentials.
+     * 
+     * @param actor the actor whose potential changed.
+     */
+    abstract void onPotentialChanged(Actor<I> actor);
+    
+    /**
+     * Called after the graph is cleared.
+     */
+    abstract void onGraphCleared();
+    
+    /**
+     * Starts relaying the changes of the actor graph to this finder. Called 
+     * by the subclasses once they are fully constructed.
+     */
+    final void listenToActorGraph() {
+        actorGraph.addActorGraphListener(
+                new LenderListGraphListener<>(actorGraph, this));
+    }
+    
+    /**
+     * Collects the loan for the input actor from its lender list.
+     * 
+     * @param actor               the borrowing actor.
+     * @param lenderList          the lender list of the actor or 
+     *                            {@code null} if the actor has no lenders.
+     * @param requestedPotential  the requested potential.
+     * @param maximumInterestRate the maximum effective interest rate.
+     * @return the loan.
+     */
+    MostCostEffectiveLoan<I> collectLoan(Actor<I> actor,
+                                         LenderList<I> lenderList,
+                                         double requestedPotential,
+                                         double maximumInterestRate) {
+        if (lenderList == null) {
+            return new MostCostEffectiveLoan<>(actor,
+                                               0.0,
+                                               requestedPotential,
+                                               maximumInterestRate,
+                                               new Actor[0],
+                                               new double[0],
+                                               new Actor[0]);
+        }
+        
+        return lenderList.collectLoan(actor,
+                                      actorGraph,
+                                      requestedPotential,
+                                      maximumInterestRate);
+    }
+    
+    /**
+     * Builds the lender list of a single actor, cut according to the 
+     * preprocessing limits.
+     * 
+     * @param startingActor the target actor for which to build the list of
+     *                      lenders.
+     * @param open          the priority queue to use.
+     * @param closed        the closed set to use.
+     * @param metrics       the metrics to add the search costs to, or 
+     *                      {@code null}.
+     * @return the lender list or {@code null} if the actor has no lenders 
+     *         at all.
+     */
+    LenderList<I> buildLenderList(Actor<I> startingActor,
+                                  Queue<HeapNode<I>> open,
+                                  ClosedActorSet closed,
+                                  SearchMetrics metrics) {
+        open.clear();
+        closed.clear(actorGraph.getSlotBound());
+        closed.add(startingActor);
+        LenderList<I> lenderList = null;
+        int maximumNumberOfLenders = 
+                preprocessingLimits.getMaximumNumberOfLenders();
+        double maximumPotential = preprocessingLimits.getMaximumPotential();
+        double maximumInterestRate = 
+                preprocessingLimits.getMaximumInterestRate();
+        int numberOfLenders = 0;
+        double collectedPotential = 0.0;
+        int heapInsertions = 0;
+        int heapRemovals = 0;
+        int stalePops = 0;
+        int arcsRelaxed = 0;
+        
+        // Priority queue initialization:
+        for (Actor<I> sourceActor : actorGraph.getIncomingArcs(startingActor)) {
+            open.add(new HeapNode<>(
+                        sourceActor, 
+                        startingActor, 
+                        actorGraph.getInterestRate(sourceActor, 
+                                                   startingActor)));
+            heapInsertions++;
+            arcsRelaxed++;
+        }
+        
+        // The actual search:
+        while (!open.isEmpty()) {
+            HeapNode<I> currentHeapNode = open.remove();
+            Actor<I> currentSourceActor = currentHeapNode.getSourceActor();
+            double effectiveInterestRate = 
+                    currentHeapNode.getEffectiveInterestRate();
+            heapRemovals++;
+            
+            if (closed.contains(currentSourceActor)) {
+                // A stale entry for an actor that is already settled.
+                stalePops++;
+                continue;
+            }
+            
+            if (numberOfLenders == maximumNumberOfLenders 
+                    || collectedPotential >= maximumPotential
+                    || effectiveInterestRate > maximumInterestRate) {
+                // Cut the list here. All the remaining lenders have at least
+                // the current effective interest rate:
+                if (lenderList == null) {
+                    lenderList = new LenderList<>(0);
+                }
+                
+                lenderList.setTruncationRate(effectiveInterestRate);
+                break;
+            }
+            
+            closed.add(currentSourceActor);
+            numberOfLenders++;
+            collectedPotential += 
+                    actorGraph.getActorPotential(currentSourceActor);
+            
+            // Deal with the lender list:
+            if (lenderList == null) {
+                lenderList = new LenderList<>(open.size() + 1);
+            }
+            
+            lenderList.add(currentSourceActor, 
+                           currentHeapNode.getTargetActor(), 
+                           effectiveInterestRate);
+            
+            // Populate more into the priority queue:
+            for (Actor<I> lendingActor 
+                    : actorGraph.getIncomingArcs(currentSourceActor)) {
+                arcsRelaxed++;
+                
+                if (!closed.contains(lendingActor)) {
+                    double nextInterestRate = 
+                            combineInterestRates(
+                                    effectiveInterestRate,
+                                    actorGraph.getInterestRate(
+                                            lendingActor, 
+                                            currentSourceActor));
+                    
+                    open.add(new HeapNode<>(lendingActor,
+                                            currentSourceActor,
+                                            nextInterestRate));
+                    heapInsertions++;
+                }
+            }
+        }
+        
+        if (metrics != null) {
+            metrics.addSearch(heapInsertions,
+                              heapRemovals,
+                              stalePops,
+                              arcsRelaxed,
+                              numberOfLenders);
+        }
+        
+        if (lenderList != null) {
+            lenderList.trimToSize();
+        }
+        
+        return lenderList;
+    }
+    
+    /**
+     * Makes sure the input actor belongs to the actor graph preprocessed by 
+     * this class.
+     * 
+     * @param actor the actor to check. 
+     */
+    void checkActorBelongsToGraph(Actor<I> actor) {
+        if (actorGraph != actor.getActorGraph()) {
+            throw new IllegalStateException(
+                    "The input actor does not belong to the " +
+                    "preprocessed graph.");
+        }
+    }
+    
+    /**
+     * Returns the set of actors reachable from the input actor along the arcs,
+     * including the input actor itself. Only the lender lists of these actors
+     * may depend on the incoming arcs of the input actor.
+     * 
+     * @param actor the starting actor.
+     * @return the set of downstream actors.
+     */
+    Set<Actor<I>> getDownstreamActors(Actor<I> actor) {
+        Set<Actor<I>> visited = new HashSet<>();
+        Deque<Actor<I>> queue = new ArrayDeque<>();
+        visited.add(actor);
+        queue.add(actor);
+        
+        while (!queue.isEmpty()) {
+            for (Actor<I> child : actorGraph.getOutgoingArcs(queue.remove())) {
+                if (visited.add(child)) {
+                    queue.add(child);
+                }
+            }
+        }
+        
+        return visited;
+    }
+    
+    /**
+     * This inner static class relays the graph changes to the finder. It 
+     * refers to the finder weakly, so that the graph does not keep unused 
+     * finders alive, and unregisters itself once the finder is collected.
+     * 
+     * @param <I> the actor identity type.
+     */
+    private static final class LenderListGraphListener<I> 
+            implements ActorGraphListener<I> {
+        
+        private final ActorGraph<I> actorGraph;
+        private final WeakReference<
+                AbstractLenderListMostCostEffectiveLoanFinder<I>> 
+                finderReference;
+        
+        LenderListGraphListener(
+                ActorGraph<I> actorGraph,
+                AbstractLenderListMostCostEffectiveLoanFinder<I> finder) {
+            this.actorGraph = actorGraph;
+            this.finderReference = new WeakReference<>(finder);
+        }
+        
+        @Override
+        public void onActorAdded(Actor<I> actor) {
+            AbstractLenderListMostCostEffectiveLoanFinder<I> finder = 
+                    getFinder();
+            
+            if (finder != null) {
+                finder.onActorAdded(actor);
+            }
+        }
+        
+        @Override
+        public void beforeActorRemoved(Actor<I> actor) {
+            AbstractLenderListMostCostEffectiveLoanFinder<I> finder = 
+                    getFinder();
+            
+            if (finder != null) {
+                finder.beforeActorRemoved(actor);
+            }
+        }
+        
+        @Override
+        public void onArcChanged(Actor<I> sourceActor, Actor<I> targetActor) {
+            AbstractLenderListMostCostEffectiveLoanFinder<I> finder = 
+                    getFinder();
+            
+            if (finder != null) {
+                finder.onArcChanged(targetActor);
+            }
+        }
+        
+        @Override
+        public void onPotentialChanged(Actor<I> actor) {
+            AbstractLenderListMostCostEffectiveLoanFinder<I> finder = 
+                    getFinder();
+            
+            if (finder != null) {
+                finder.onPotentialChanged(actor);
+            }
+        }
+        
+        @Override
+        public void onGraphCleared() {
+            AbstractLenderListMostCostEffectiveLoanFinder<I> finder = 
+                    getFinder();
+            
+            if (finder != null) {
+                finder.onGraphCleared();
+            }
+        }
+        
+        private AbstractLenderListMostCostEffectiveLoanFinder<I> 
+            getFinder() {
+            AbstractLenderListMostCostEffectiveLoanFinder<I> finder = 
+                    finderReference.get();
+            
+            if (finder == null) {
+                actorGraph.removeActorGraphListener(this);
+            }
+            
+            return finder;
+        }
+    }
+}
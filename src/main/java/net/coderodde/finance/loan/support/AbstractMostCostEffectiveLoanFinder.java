@@ -1,20 +1,26 @@
 package net.coderodde.finance.loan.support;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
-import java.util.Set;
+import java.util.function.Supplier;
 import net.coderodde.finance.loan.Actor;
 import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.LenderConsumer;
+import net.coderodde.finance.loan.LoanQuery;
 import net.coderodde.finance.loan.MostCostEffectiveLoan;
 import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
 import net.coderodde.finance.loan.Utils;
 
 /**
  * This abstract class implements the main logic of most cost-effective loan 
- * finders.
+ * finders. The search state is kept per thread, so a single finder may serve
+ * several threads at a time as long as the actor graph is not modified. The 
+ * batch queries of the same borrower share a single search.
  * 
  * @author Rodion "rodde" Efremov
  * @version 1.6 (Mar 13, 2018)
@@ -24,10 +30,35 @@ abstract class AbstractMostCostEffectiveLoanFinder<I>
         extends AbstractMostCostEffectiveLoanFinderBase
         implements MostCostEffectiveLoanFinder<I> {
     
-    private final Queue<HeapNode<I>> open;
+    /**
+     * Holds the reusable search state of each thread using this finder.
+     */
+    private final ThreadLocal<SearchState<I>> searchStates;
+    
+    /**
+     * Receives the cost metrics of the queries, or {@code null} if the 
+     * metrics are not collected.
+     */
+    private volatile SearchMetricsListener<I> searchMetricsListener;
     
-    protected AbstractMostCostEffectiveLoanFinder(Queue<HeapNode<I>> open) {
-        this.open = open;
+    protected AbstractMostCostEffectiveLoanFinder(
+            Supplier<? extends Queue<HeapNode<I>>> openSupplier) {
+        Objects.requireNonNull(openSupplier, 
+                               "The input queue supplier is null.");
+        this.searchStates = 
+                ThreadLocal.withInitial(
+                        () -> new SearchState<>(openSupplier.get()));
+    }
+    
+    /**
+     * Installs the listener receiving the cost metrics of each query, or 
+     * stops collecting the metrics if the listener is {@code null}.
+     * 
+     * @param searchMetricsListener the listener or {@code null}.
+     */
+    public void setSearchMetricsListener(
+            SearchMetricsListener<I> searchMetricsListener) {
+        this.searchMetricsListener = searchMetricsListener;
     }
     
     @Override
@@ -39,17 +70,192 @@ abstract class AbstractMostCostEffectiveLoanFinder<I>
         checkActorBelongsToGraph(actor);
         Utils.checkRequestedPotential(requestedPotential);
         Utils.checkMaximumInterestRate(maximumInterestRate);
+        
+        SearchMetricsListener<I> listener = searchMetricsListener;
+        SearchMetrics metrics = listener == null ? null : new SearchMetrics();
+        LenderList<I> lenders = search(actor, 
+                                       requestedPotential, 
+                                       maximumInterestRate,
+                                       metrics,
+                                       null);
+        MostCostEffectiveLoan<I> loan = 
+                lenders.collectSearchedLoan(actor,
+                                            actor.getActorGraph(),
+                                            requestedPotential,
+                                            maximumInterestRate);
+        
+        if (listener != null) {
+            metrics.report(listener, 
+                           new LoanQuery<>(actor, 
+                                           requestedPotential, 
+                                           maximumInterestRate), 
+                           loan.getNumberOfLenders());
+        }
+        
+        return loan;
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void findLenders(Actor<I> actor,
+                            double requestedPotential,
+                            double maximumInterestRate,
+                            LenderConsumer<I> consumer) {
+        // Sanity checks:
+        Objects.requireNonNull(actor, "The input actor is null.");
+        Objects.requireNonNull(consumer, "The input consumer is null.");
+        checkActorBelongsToGraph(actor);
+        Utils.checkRequestedPotential(requestedPotential);
+        Utils.checkMaximumInterestRate(maximumInterestRate);
+        
+        SearchMetricsListener<I> listener = searchMetricsListener;
+        SearchMetrics metrics = listener == null ? null : new SearchMetrics();
+        LenderList<I> lenders = search(actor, 
+                                       requestedPotential, 
+                                       maximumInterestRate,
+                                       metrics,
+                                       consumer);
+        
+        if (listener != null) {
+            metrics.report(listener, 
+                           new LoanQuery<>(actor, 
+                                           requestedPotential, 
+                                           maximumInterestRate), 
+                           lenders.size());
+        }
+    }
+    
+    /**
+     * Answers the queries of each borrower with a single search for the 
+     * largest requested potential and the largest maximum interest rate 
+     * among them. Since the lenders are settled in the order of their 
+     * effective interest rates, the loan of each query is a prefix of the 
+     * settled lenders. If the metrics are collected, the cost of the shared
+     * search is reported with the first query of each borrower.
+     * 
+     * @param queries the queries to answer.
+     * @return the loans in the order of the queries.
+     */
+    @Override
+    public List<MostCostEffectiveLoan<I>> findLendersBatch(
+            List<LoanQuery<I>> queries) {
+        Objects.requireNonNull(queries, "The input query list is null.");
+        Map<Actor<I>, List<Integer>> actorToQueryIndicesMap = 
+                new LinkedHashMap<>();
+        
+        for (int i = 0; i < queries.size(); i++) {
+            LoanQuery<I> query = 
+                    Objects.requireNonNull(queries.get(i), 
+                                           "A query is null.");
+            checkActorBelongsToGraph(query.getActor());
+            actorToQueryIndicesMap.computeIfAbsent(query.getActor(), 
+                                                   (a) -> new ArrayList<>())
+                                  .add(i);
+        }
+        
+        MostCostEffectiveLoan<I>[] loans = 
+                new MostCostEffectiveLoan[queries.size()];
+        SearchMetricsListener<I> listener = searchMetricsListener;
+        
+        for (Map.Entry<Actor<I>, List<Integer>> entry 
+                : actorToQueryIndicesMap.entrySet()) {
+            Actor<I> actor = entry.getKey();
+            double requestedPotential = 0.0;
+            double maximumInterestRate = 0.0;
+            
+            for (int queryIndex : entry.getValue()) {
+                LoanQuery<I> query = queries.get(queryIndex);
+                requestedPotential = 
+                        Math.max(requestedPotential, 
+                                 query.getRequestedPotential());
+                maximumInterestRate = 
+                        Math.max(maximumInterestRate,
+                                 query.getMaximumInterestRate());
+            }
+            
+            SearchMetrics metrics = 
+                    listener == null ? null : new SearchMetrics();
+            LenderList<I> lenders = search(actor,
+                                           requestedPotential,
+                                           maximumInterestRate,
+                                           metrics,
+                                           null);
+            
+            for (int queryIndex : entry.getValue()) {
+                LoanQuery<I> query = queries.get(queryIndex);
+                loans[queryIndex] = 
+                        lenders.collectSearchedLoan(
+                                actor,
+                                actor.getActorGraph(),
+                                query.getRequestedPotential(),
+                                query.getMaximumInterestRate());
+                
+                if (listener != null) {
+                    if (metrics == null) {
+                        metrics = new SearchMetrics();
+                    }
+                    
+                    metrics.report(listener, 
+                                   query, 
+                                   loans[queryIndex].getNumberOfLenders());
+                    metrics = null;
+                }
+            }
+        }
+        
+        return Arrays.asList(loans);
+    }
+    
+    /**
+     * Settles the lenders of the input actor in the order of their effective
+     * interest rates until the settled lenders together hold at least 
+     * {@code requestedPotential} or no lender within 
+     * {@code maximumInterestRate} is left. The returned list belongs to the 
+     * search state of the calling thread and is overwritten by the next 
+     * search. If a consumer is given, each lender is handed to it as soon as
+     * it is settled along with the potential it issues to the loan, and the
+     * search stops as soon as the consumer returns {@code false}.
+     * 
+     * @param actor               the borrowing actor.
+     * @param requestedPotential  the requested potential.
+     * @param maximumInterestRate the maximum effective interest rate.
+     * @param metrics             the metrics to add the search costs to, or
+     *                            {@code null}.
+     * @param consumer            the consumer of the lenders, or 
+     *                            {@code null}.
+     * @return the settled lenders.
+     */
+    private LenderList<I> search(Actor<I> actor,
+                                 double requestedPotential,
+                                 double maximumInterestRate,
+                                 SearchMetrics metrics,
+                                 LenderConsumer<I> consumer) {
         ActorGraph<I> actorGraph = actor.getActorGraph();
         
         // Algorithm state:
-        Set<Actor<I>> closed = new HashSet<>();
-        Map<Actor<I>, Double> solutionPotentialFunction = new HashMap<>();
-        Map<Actor<I>, Actor<I>> directionFunction = new HashMap<>();
+        SearchState<I> searchState = searchStates.get();
+        searchState.clear(actorGraph.getSlotBound());
+        Queue<HeapNode<I>> open = searchState.open;
+        ClosedActorSet closed = searchState.closed;
+        LenderList<I> lenders = searchState.lenders;
         double collectedPrincipal = 0.0;
         
+        // The cost counters are plain locals, so that they cost next to 
+        // nothing when the metrics are not collected:
+        int heapInsertions = 0;
+        int heapRemovals = 0;
+        int stalePops = 0;
+        int arcsRelaxed = 0;
+        
         // Loop initialization:
+        closed.add(actor);
+        
         for (Actor<I> initialIncomingActor 
                 : actorGraph.getIncomingArcs(actor)) {
+            arcsRelaxed++;
+            
             if (actorGraph.getInterestRate(initialIncomingActor, actor)
                     <= maximumInterestRate) {
                 open.add(
@@ -59,6 +265,7 @@ abstract class AbstractMostCostEffectiveLoanFinder<I>
                         actorGraph.getInterestRate(initialIncomingActor, actor)
                     )
                 );
+                heapInsertions++;
             }
         }
         
@@ -66,19 +273,36 @@ abstract class AbstractMostCostEffectiveLoanFinder<I>
             HeapNode<I> currentHeapNode = open.remove();
             Actor<I> targetActor = currentHeapNode.getTargetActor();
             Actor<I> sourceActor = currentHeapNode.getSourceActor();
+            heapRemovals++;
+            
+            if (closed.contains(sourceActor)) {
+                // A stale entry for an actor that is already settled.
+                stalePops++;
+                continue;
+            }
+            
             double effectiveInterestRate =
                     currentHeapNode.getEffectiveInterestRate();
-            double potentialIncrease = 
-                    Math.min(actorGraph.getActorPotential(sourceActor),
-                             requestedPotential - collectedPrincipal);
-
-            collectedPrincipal += potentialIncrease;
-            solutionPotentialFunction.put(sourceActor, potentialIncrease);
-            directionFunction.put(sourceActor, targetActor);
+            double potential = actorGraph.getActorPotential(sourceActor);
+            lenders.add(sourceActor, targetActor, effectiveInterestRate);
             closed.add(sourceActor);
+
+            if (consumer != null 
+                    && !consumer.accept(
+                            sourceActor,
+                            Math.min(potential, 
+                                     requestedPotential - collectedPrincipal),
+                            effectiveInterestRate,
+                            targetActor)) {
+                break;
+            }
+            
+            collectedPrincipal += potential;
             
             for (Actor<I> lendingActor :
                     actorGraph.getIncomingArcs(sourceActor)) {
+                arcsRelaxed++;
+                
                 if (!closed.contains(lendingActor)) {
                     double nextInterestRate = 
                             combineInterestRates(
@@ -90,17 +314,21 @@ abstract class AbstractMostCostEffectiveLoanFinder<I>
                         open.add(new HeapNode<>(lendingActor,
                                                 sourceActor, 
                                                 nextInterestRate));
+                        heapInsertions++;
                     }
                 }
             }
         }
         
-        return new MostCostEffectiveLoan<>(actor,
-                                           collectedPrincipal,
-                                           requestedPotential,
-                                           maximumInterestRate,
-                                           solutionPotentialFunction,
-                                           directionFunction);
+        if (metrics != null) {
+            metrics.addSearch(heapInsertions,
+                              heapRemovals,
+                              stalePops,
+                              arcsRelaxed,
+                              lenders.size());
+        }
+        
+        return lenders;
     }
     
     /**
@@ -116,4 +344,28 @@ abstract class AbstractMostCostEffectiveLoanFinder<I>
                     "The input actor does not belong to an actor graph.");
         }
     }
+    
+    /**
+     * This inner static class holds the reusable state of a search. The 
+     * settled lenders may be reused since the loan copies them out of the
+     * reused {@link LenderList} into its own arrays.
+     * 
+     * @param <I> the actor identity type.
+     */
+    private static final class SearchState<I> {
+        
+        final Queue<HeapNode<I>> open;
+        final ClosedActorSet closed = new ClosedActorSet();
+        final LenderList<I> lenders = new LenderList<>(16);
+        
+        SearchState(Queue<HeapNode<I>> open) {
+            this.open = open;
+        }
+        
+        void clear(int slotBound) {
+            open.clear();
+            closed.clear(slotBound);
+            lenders.clear();
+        }
+    }
 }
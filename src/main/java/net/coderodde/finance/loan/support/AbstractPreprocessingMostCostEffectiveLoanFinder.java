@@ -1,176 +1,453 @@
 package net.coderodde.finance.loan.support;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
 import net.coderodde.finance.loan.Actor;
 import net.coderodde.finance.loan.ActorGraph;
-import net.coderodde.finance.loan.MostCostEffectiveLoan;
+import net.coderodde.finance.loan.IdentityCodec;
 import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
-import net.coderodde.finance.loan.Utils;
 
 /**
  * This abstract class implements a preprocessing most cost-effective finders.
+ * The finder listens to the structural changes of the actor graph, and before
+ * the next query rebuilds only the lender lists of the actors downstream of 
+ * the changed arcs. The order of lenders does not depend on the potentials, 
+ * which are read at query time, so potential updates need no repairs at all.
+ * Apart from such repairs, the finder does not mutate any state while 
+ * answering queries, so a single finder may serve several threads at a time 
+ * as long as the graph is not modified concurrently.
+ * <p>
+ * The lender lists may be saved to a file with 
+ * {@link #saveIndex(Path, IdentityCodec)}, and a later process may map the 
+ * file instead of preprocessing the graph again.
  * 
  * @author Rodion "rodde" Efremov
  * @version 1.6 (Mar 13, 2018)
  * @param <I> the actor identity type.
  */
 abstract class AbstractPreprocessingMostCostEffectiveLoanFinder<I> 
-extends AbstractMostCostEffectiveLoanFinderBase
-implements MostCostEffectiveLoanFinder<I> {
+extends AbstractLenderListMostCostEffectiveLoanFinder<I> {
 
     /**
-     * The actor graph being preprocessed.
+     * Each worker thread of a parallel preprocessing splits its range of 
+     * actors until the range is at most the number of actors divided by this
+     * value times the parallelism.
      */
-    private final ActorGraph<I> actorGraph;
+    private static final int TASKS_PER_WORKER = 16;
     
     /**
-     * The actual priority queue implementation.
+     * The number of threads used for preprocessing.
      */
-    private final Queue<HeapNode<I>> open;
+    private final int parallelism;
     
     /**
-     * Maps each actor to the list head of its lender list.
+     * Maps each actor to its lender list.
      */
-    private final Map<Actor<I>, LenderListNode<I>> actorToLenderListHeadMap;
+    private final Map<Actor<I>, LenderList<I>> actorToLenderListMap;
     
     /**
      * Caches the expected modification count of the actor graph.
      */
-    private final int expectedModificationCount;
+    private volatile int expectedModificationCount;
+    
+    /**
+     * Guards the repair state below.
+     */
+    private final Object repairLock = new Object();
+    
+    /**
+     * The actors whose lender lists must be rebuilt before the next query.
+     */
+    private final Set<Actor<I>> dirtyActors = new HashSet<>();
+    
+    /**
+     * The head actors of the changed arcs. The lender lists of all actors 
+     * downstream of them must be rebuilt before the next query.
+     */
+    private final Set<Actor<I>> changedArcHeads = new HashSet<>();
+    
+    /**
+     * The actors whose potentials have changed. The prefix sums of the 
+     * lender lists of all actors downstream of them must be recomputed 
+     * before the next query.
+     */
+    private final Set<Actor<I>> changedPotentialActors = new HashSet<>();
+    
+    /**
+     * Set when there are prefix sums to invalidate.
+     */
+    private volatile boolean potentialsChanged;
+    
+    /**
+     * Set when the entire graph must be preprocessed again.
+     */
+    private boolean rebuildAll;
+    
+    /**
+     * Set when there is anything to repair.
+     */
+    private volatile boolean repairPending;
+    
+    /**
+     * The memory-mapped index the lender lists missing from 
+     * {@code actorToLenderListMap} are decoded from, or {@code null} if the 
+     * finder preprocessed the graph itself. Released on the first repair.
+     */
+    private volatile PreprocessedIndex<I> preprocessedIndex;
     
     protected AbstractPreprocessingMostCostEffectiveLoanFinder(
             ActorGraph<I> actorGraph,
-            Queue<HeapNode<I>> open) {
-        this.actorGraph = 
-                Objects.requireNonNull(
-                        actorGraph, 
-                        "The input actor graph is null.");
-        this.open = open;
-        this.actorToLenderListHeadMap = 
-                new HashMap<>(actorGraph.getNumberOfActors());
+            Supplier<? extends Queue<HeapNode<I>>> openSupplier,
+            MostCostEffectiveLoanFinder<I> fallbackFinder) {
+        this(actorGraph, 
+             openSupplier, 
+             fallbackFinder, 
+             PreprocessingLimits.UNLIMITED, 
+             1);
+    }
+   
+    /**
+     * Constructs the finder preprocessing the actor graph with 
+     * {@code parallelism} worker threads. Each worker uses its own priority 
+     * queue and search state. The lender lists are cut according to 
+     * {@code preprocessingLimits}, and the queries the cut lists cannot 
+     * answer are delegated to {@code fallbackFinder}.
+     * 
+     * @param actorGraph          the actor graph to preprocess.
+     * @param openSupplier        the supplier of priority queues.
+     * @param fallbackFinder      the finder for queries beyond the limits.
+     * @param preprocessingLimits the bounds of the lender lists.
+     * @param parallelism         the number of preprocessing threads.
+     */
+    protected AbstractPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            Supplier<? extends Queue<HeapNode<I>>> openSupplier,
+            MostCostEffectiveLoanFinder<I> fallbackFinder,
+            PreprocessingLimits preprocessingLimits,
+            int parallelism) {
+        super(actorGraph, openSupplier, fallbackFinder, preprocessingLimits);
+        checkParallelism(parallelism);
+        this.parallelism = parallelism;
+        this.actorToLenderListMap = 
+                new ConcurrentHashMap<>(actorGraph.getNumberOfActors());
         this.expectedModificationCount = actorGraph.getModificationCount();
         preprocessGraph();
+        listenToActorGraph();
     }
-   
+    
     /**
-     * {@inheritDoc }
+     * Constructs the finder answering the queries from a loaded index 
+     * instead of preprocessing the actor graph. The lender lists are decoded
+     * from the index on their first query.
+     * 
+     * @param actorGraph        the actor graph the index was built for.
+     * @param openSupplier      the supplier of priority queues.
+     * @param fallbackFinder    the finder for queries beyond the limits.
+     * @param preprocessedIndex the loaded index.
+     * @param parallelism       the number of threads used for repairs.
      */
+    AbstractPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            Supplier<? extends Queue<HeapNode<I>>> openSupplier,
+            MostCostEffectiveLoanFinder<I> fallbackFinder,
+            PreprocessedIndex<I> preprocessedIndex,
+            int parallelism) {
+        super(actorGraph, 
+              openSupplier, 
+              fallbackFinder, 
+              preprocessedIndex.getPreprocessingLimits());
+        checkParallelism(parallelism);
+        this.parallelism = parallelism;
+        this.actorToLenderListMap = new ConcurrentHashMap<>();
+        this.expectedModificationCount = actorGraph.getModificationCount();
+        this.preprocessedIndex = preprocessedIndex;
+        listenToActorGraph();
+    }
+    
+    /**
+     * Writes the lender lists of this finder to a file, from which 
+     * {@code load} methods of the concrete finders can restore the finder 
+     * without preprocessing the graph again. The file format is described in
+     * {@link PreprocessedIndex}.
+     * 
+     * @param path          the path of the file to write.
+     * @param identityCodec writes the actor identities.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void saveIndex(Path path, IdentityCodec<I> identityCodec) 
+            throws IOException {
+        Objects.requireNonNull(path, "The input path is null.");
+        Objects.requireNonNull(identityCodec, 
+                               "The input identity codec is null.");
+        PreprocessedIndex.save(path, 
+                               actorGraph, 
+                               getPreprocessingLimits(), 
+                               this::getLenderList, 
+                               identityCodec);
+    }
+    
     @Override
-    public MostCostEffectiveLoan<I> findLenders(Actor<I> actor, 
-                                                double requestedPotential,
-                                                double maximumInterestRate) {
-        Objects.requireNonNull(actor, "The input actor is null.");
-        checkActorBelongsToGraph(actor);
+    LenderList<I> getLenderList(Actor<I> actor, SearchMetrics metrics) {
+        repairIfNeeded();
+        invalidateChangedPotentials();
         checkModificationCount();
-        Utils.checkRequestedPotential(requestedPotential);
-        Utils.checkMaximumInterestRate(maximumInterestRate);
-        
-        Map<Actor<I>, Double> solutionPotentialFunction = new HashMap<>();
-        Map<Actor<I>, Actor<I>> directionFunction = new HashMap<>();
-        double collectedPrincipal = 0.0;
-        Actor<I> previousActor = actor;
-        
-        for (LenderListNode<I> node = actorToLenderListHeadMap.get(actor);
-                node != null 
-                && collectedPrincipal < requestedPotential
-                && node.getEffectiveInterestRate() <= maximumInterestRate;
-                node = node.getNextLenderListNode()) {
-            Actor<I> lender = node.getActor();
-            double potentialIncrease =
-                    Math.min(requestedPotential - collectedPrincipal,
-                             actor.getActorGraph().getActorPotential(lender));
-            collectedPrincipal += potentialIncrease;
-            solutionPotentialFunction.put(lender, potentialIncrease);
-            directionFunction.put(lender, previousActor);
-            previousActor = lender;
-        }
-        
-        return new MostCostEffectiveLoan<>(actor,
-                                           collectedPrincipal,
-                                           requestedPotential,
-                                           maximumInterestRate,
-                                           solutionPotentialFunction,
-                                           directionFunction);
+        LenderList<I> lenderList = actorToLenderListMap.get(actor);
+        PreprocessedIndex<I> index = preprocessedIndex;
+        
+        if (lenderList == null && index != null) {
+            lenderList = index.getLenderList(actor);
+        
+            if (lenderList != null) {
+                LenderList<I> previousLenderList = 
+                        actorToLenderListMap.putIfAbsent(actor, lenderList);
+                
+                if (previousLenderList != null) {
+                    lenderList = previousLenderList;
+                }
+            }
+        }
+        
+        return lenderList;
     }
     
     /**
      * Preprocesses the entire actor graph.
      */
     private void preprocessGraph() {
-        for (Actor<I> startingActor : actorGraph.getActorSet()) {
-            preprocessSingleActor(startingActor);
-        }
+        preprocessActors(new ArrayList<>(actorGraph.getActorSet()));
     }
     
     /**
-     * Preprocesses a single actor.
+     * Rebuilds the lender lists of the input actors.
      * 
-     * @param startingActor the target actor for which to build the list of
-     *                      lenders.
-     */
-    private void preprocessSingleActor(Actor<I> startingActor) {
-        open.clear();
-        Set<Actor<I>> closed = new HashSet<>();
-        closed.add(startingActor);
-        LenderListNode<I> lastLenderListNode = null;
-        
-        // Priority queue initialization:
-        for (Actor<I> sourceActor : actorGraph.getIncomingArcs(startingActor)) {
-            open.add(new HeapNode<>(
-                        sourceActor, 
-                        null, 
-                        actorGraph.getInterestRate(sourceActor, 
-                                                   startingActor)));
-        }
-        
-        // The actual search:
-        while (!open.isEmpty()) {
-            HeapNode<I> currentHeapNode = open.remove();
-            Actor<I> currentSourceActor = currentHeapNode.getSourceActor();
-            double effectiveInterestRate = 
-                    currentHeapNode.getEffectiveInterestRate();
+     * @param actors the actors to preprocess.
+     */
+    private void preprocessActors(List<Actor<I>> actors) {
+        LenderList<I>[] lenderLists = new LenderList[actors.size()];
+        
+        if (parallelism == 1 || actors.size() <= parallelism) {
+            Queue<HeapNode<I>> open = openSupplier.get();
+            ClosedActorSet closed = new ClosedActorSet();
             
-            closed.add(currentSourceActor);
+            for (int i = 0; i < actors.size(); i++) {
+                lenderLists[i] = 
+                        buildLenderList(actors.get(i), open, closed, null);
+            }
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            int threshold = 
+                    Math.max(1, 
+                             actors.size() / (parallelism * TASKS_PER_WORKER));
             
-            // Deal with the lender list:
-            if (lastLenderListNode == null) {
-                lastLenderListNode = 
-                        new LenderListNode<>(currentSourceActor,
-                                             effectiveInterestRate);
-                actorToLenderListHeadMap.put(startingActor,
-                                             lastLenderListNode);
+            try {
+                pool.invoke(new PreprocessingTask(actors,
+                                                  lenderLists,
+                                                  0,
+                                                  actors.size(),
+                                                  threshold));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        
+        for (int i = 0; i < actors.size(); i++) {
+            if (lenderLists[i] != null) {
+                actorToLenderListMap.put(actors.get(i), lenderLists[i]);
+            } else {
+                actorToLenderListMap.remove(actors.get(i));
+            }
+        }
+    }
+    
+    /**
+     * Rebuilds the lender lists invalidated by the graph changes since the 
+     * last repair.
+     */
+    private void repairIfNeeded() {
+        if (!repairPending) {
+            return;
+        }
+        
+        synchronized (repairLock) {
+            if (!repairPending) {
+                return;
+            }
+            
+            releasePreprocessedIndex();
+                    
+            if (rebuildAll) {
+                actorToLenderListMap.clear();
+                preprocessGraph();
             } else {
-                LenderListNode lenderListNode = 
-                        new LenderListNode<>(currentSourceActor,
-                                             effectiveInterestRate);
+                for (Actor<I> changedArcHead : changedArcHeads) {
+                    if (changedArcHead.getActorGraph() == actorGraph) {
+                        dirtyActors.addAll(
+                                getDownstreamActors(changedArcHead));
+                    }
+                }
+                
+                List<Actor<I>> actors = new ArrayList<>(dirtyActors.size());
                 
-                lastLenderListNode.setNextLenderListNode(lenderListNode);
-                lastLenderListNode = lenderListNode;
+                for (Actor<I> actor : dirtyActors) {
+                    if (actor.getActorGraph() == actorGraph) {
+                        actors.add(actor);
+                    } else {
+                        actorToLenderListMap.remove(actor);
+                    }
+                }
+                
+                preprocessActors(actors);
+            }
+            
+            rebuildAll = false;
+            dirtyActors.clear();
+            changedArcHeads.clear();
+            expectedModificationCount = actorGraph.getModificationCount();
+            repairPending = false;
+        }
+    }
+    
+    /**
+     * Invalidates the prefix sums of the lender lists that may contain an 
+     * actor whose potential has changed since the last query. Those are the
+     * lists of the actors downstream of the changed actor, so the lists of 
+     * all the other actors keep their prefix sums. The lists not decoded 
+     * from the loaded index yet compute their prefix sums from scratch 
+     * anyway.
+     */
+    private void invalidateChangedPotentials() {
+        if (!potentialsChanged) {
+            return;
+        }
+        
+        synchronized (repairLock) {
+            if (!potentialsChanged) {
+                return;
             }
             
-            // Populate more into the priority queue:
-            for (Actor<I> lendingActor 
-                    : actorGraph.getIncomingArcs(currentSourceActor)) {
-                if (!closed.contains(lendingActor)) {
-                    double nextInterestRate = 
-                            combineInterestRates(
-                                    effectiveInterestRate,
-                                    actorGraph.getInterestRate(
-                                            lendingActor, 
-                                            currentSourceActor));
+            Set<Actor<I>> invalidatedActors = new HashSet<>();
+            
+            for (Actor<I> changedActor : changedPotentialActors) {
+                if (changedActor.getActorGraph() == actorGraph 
+                        && !invalidatedActors.contains(changedActor)) {
+                    invalidatedActors.addAll(
+                            getDownstreamActors(changedActor));
+                }
+            }
+            
+            for (Actor<I> actor : invalidatedActors) {
+                LenderList<I> lenderList = actorToLenderListMap.get(actor);
+                
+                if (lenderList != null) {
+                    lenderList.invalidatePotentialPrefixSums();
+                }
+            }
+            
+            changedPotentialActors.clear();
+            potentialsChanged = false;
+        }
+    }
+    
+    /**
+     * Decodes all the lender lists not decoded yet from the loaded index, so
+     * that the repair below may work on {@code actorToLenderListMap} alone,
+     * and releases the index. Must be called while holding the repair lock.
+     */
+    private void releasePreprocessedIndex() {
+        PreprocessedIndex<I> index = preprocessedIndex;
+        
+        if (index == null) {
+            return;
+        }
+        
+        if (!rebuildAll) {
+            for (int i = 0; i < index.getNumberOfActors(); i++) {
+                Actor<I> actor = index.getActor(i);
+                
+                if (actor.getActorGraph() == actorGraph 
+                        && !actorToLenderListMap.containsKey(actor)) {
+                    LenderList<I> lenderList = index.getLenderList(i);
                     
-                    open.add(new HeapNode<>(lendingActor,
-                                            null,
-                                            nextInterestRate));
+                    if (lenderList != null) {
+                        actorToLenderListMap.put(actor, lenderList);
+                    }
                 }
             }
         }
+        
+        preprocessedIndex = null;
+    }
+    
+    /**
+     * Schedules the lender list of a new actor for building.
+     */
+    @Override
+    void onActorAdded(Actor<I> actor) {
+        synchronized (repairLock) {
+            dirtyActors.add(actor);
+            repairPending = true;
+        }
+    }
+    
+    /**
+     * Schedules the actors downstream of a removed actor for rebuilding.
+     */
+    @Override
+    void beforeActorRemoved(Actor<I> actor) {
+        // The downstream actors must be computed while the removed actor is 
+        // still in the graph:
+        Set<Actor<I>> downstreamActors = getDownstreamActors(actor);
+        
+        synchronized (repairLock) {
+            dirtyActors.addAll(downstreamActors);
+            repairPending = true;
+        }
+    }
+    
+    /**
+     * Schedules the actors downstream of a changed arc for rebuilding.
+     */
+    @Override
+    void onArcChanged(Actor<I> targetActor) {
+        synchronized (repairLock) {
+            changedArcHeads.add(targetActor);
+            repairPending = true;
+        }
+    }
+    
+    /**
+     * Schedules the prefix sums of the lender lists downstream of the actor
+     * for invalidation.
+     */
+    @Override
+    void onPotentialChanged(Actor<I> actor) {
+        synchronized (repairLock) {
+            changedPotentialActors.add(actor);
+            potentialsChanged = true;
+        }
+    }
+    
+    /**
+     * Schedules the entire graph for preprocessing.
+     */
+    @Override
+    void onGraphCleared() {
+        synchronized (repairLock) {
+            rebuildAll = true;
+            repairPending = true;
+        }
     }
     
     /**
@@ -184,62 +461,69 @@ implements MostCostEffectiveLoanFinder<I> {
     }
     
     /**
-     * Makes sure the input actor belongs to the actor graph preprocessed by 
-     * this class.
+     * Makes sure the requested parallelism is at least one.
      * 
-     * @param actor the actor to check. 
+     * @param parallelism the parallelism to check.
      */
-    private void checkActorBelongsToGraph(Actor<I> actor) {
-        if (actorGraph != actor.getActorGraph()) {
-            throw new IllegalStateException(
-                    "The input actor does not belong to the " +
-                    "preprocessed graph.");
+    private static void checkParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(
+                    "The parallelism is too small: " + parallelism + ".");
         }
     }
     
     /**
-     * This inner static class implements a singly-linked list of lenders that
-     * is sorted by effective interest rates with the head of the list having 
-     * the smallest effective interest rate.
-     * 
-     * @param <I> the actor identity type.
+     * This inner class implements a fork/join task preprocessing a range of 
+     * actors. Each leaf task uses its own priority queue, and writes only 
+     * to its own range of the result array.
      */
-    private static final class LenderListNode<I> {
+    private final class PreprocessingTask extends RecursiveAction {
         
-        /**
-         * The lending actor.
-         */
-        private final Actor<I> actor;
+        private static final long serialVersionUID = 1L;
         
-        /**
-         * The effective interest rate the lending actor can offer.
-         */
-        private final double effectiveInterestRate;
+        private final List<Actor<I>> actors;
+        private final LenderList<I>[] lenderLists;
+        private final int fromIndex;
+        private final int toIndex;
+        private final int threshold;
         
-        /**
-         * The next most cost-effective lender.
-         */
-        private LenderListNode<I> nextLenderListNode;
-        
-        LenderListNode(Actor<I> actor, double effectiveInterestRate) {
-            this.actor = actor;
-            this.effectiveInterestRate = effectiveInterestRate;
+        PreprocessingTask(List<Actor<I>> actors,
+                          LenderList<I>[] lenderLists,
+                          int fromIndex,
+                          int toIndex,
+                          int threshold) {
+            this.actors = actors;
+            this.lenderLists = lenderLists;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+            this.threshold = threshold;
         }
         
-        void setNextLenderListNode(LenderListNode<I> nextLenderListNode) {
-            this.nextLenderListNode = nextLenderListNode;
-        }
+        @Override
+        protected void compute() {
+            if (toIndex - fromIndex <= threshold) {
+                Queue<HeapNode<I>> open = openSupplier.get();
+                ClosedActorSet closed = new ClosedActorSet();
         
-        Actor<I> getActor() {
-            return actor;
-        }
+                for (int i = fromIndex; i < toIndex; i++) {
+                    lenderLists[i] = 
+                            buildLenderList(actors.get(i), open, closed, null);
+                }
         
-        double getEffectiveInterestRate() {
-            return effectiveInterestRate;
-        }
+                return;
+            }
         
-        LenderListNode<I> getNextLenderListNode() {
-            return nextLenderListNode;
+            int middleIndex = (fromIndex + toIndex) >>> 1;
+            invokeAll(new PreprocessingTask(actors,
+                                            lenderLists,
+                                            fromIndex,
+                                            middleIndex,
+                                            threshold),
+                      new PreprocessingTask(actors,
+                                            lenderLists,
+                                            middleIndex,
+                                            toIndex,
+                                            threshold));
         }
     }
 }
@@ -0,0 +1,20 @@
+package net.coderodde.finance.loan.support;
+
+import net.coderodde.finance.loan.IndexedActorGraph;
+
+/**
+ * This class implements a most cost-effective loan finder running against an
+ * {@link IndexedActorGraph} using an indexed binary heap with decrease-key.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 15, 2018)
+ * @param <I> the actor identity type.
+ */
+public final class BinaryHeapCompactMostCostEffectiveLoanFinder<I>
+        extends AbstractCompactMostCostEffectiveLoanFinder<I> {
+    
+    public BinaryHeapCompactMostCostEffectiveLoanFinder(
+            IndexedActorGraph<I> actorGraph) {
+        super(actorGraph, () -> new IndexedDaryHeap(2, 0));
+    }
+}
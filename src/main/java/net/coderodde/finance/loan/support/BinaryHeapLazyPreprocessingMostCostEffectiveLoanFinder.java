@@ -0,0 +1,44 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.PriorityQueue;
+import net.coderodde.finance.loan.ActorGraph;
+
+/**
+ * This class builds the lender lists lazily on demand using a binary heap, and
+ * caches the recently used ones.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 20, 2018)
+ * @param <I> the actor identity type.
+ */
+public final class BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder<I>
+        extends AbstractLazyPreprocessingMostCostEffectiveLoanFinder<I> {
+    
+    public BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph) {
+        this(actorGraph, PreprocessingLimits.UNLIMITED);
+    }
+    
+    public BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            int maximumCacheSize) {
+        this(actorGraph, PreprocessingLimits.UNLIMITED, maximumCacheSize);
+    }
+    
+    public BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            PreprocessingLimits preprocessingLimits) {
+        this(actorGraph, preprocessingLimits, DEFAULT_MAXIMUM_CACHE_SIZE);
+    }
+    
+    public BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            PreprocessingLimits preprocessingLimits,
+            int maximumCacheSize) {
+        super(actorGraph, 
+              PriorityQueue::new, 
+              new BinaryHeapMostCostEffectiveLoanFinder<>(),
+              preprocessingLimits,
+              maximumCacheSize);
+    }
+}
@@ -14,6 +14,6 @@ public final class BinaryHeapMostCostEffectiveLoanFinder<I>
         extends AbstractMostCostEffectiveLoanFinder<I> {
 
     public BinaryHeapMostCostEffectiveLoanFinder() {
-        super(new PriorityQueue<HeapNode<I>>());
+        super(PriorityQueue::new);
     }
 }
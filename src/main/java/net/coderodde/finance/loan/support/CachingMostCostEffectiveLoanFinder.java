@@ -0,0 +1,476 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.LenderConsumer;
+import net.coderodde.finance.loan.MostCostEffectiveLoan;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.Utils;
+
+/**
+ * This class implements a caching decorator around any most cost-effective
+ * loan finder. The loan for the query {@code (actor, P, r)} is a prefix of
+ * the lenders of the query {@code (actor, P', r')}, sorted by effective
+ * interest rates, whenever {@code P <= P'} and {@code r <= r'}. The finder
+ * therefore remembers, for each recently queried borrower, the lenders of
+ * the largest query asked so far, and answers the dominated queries by
+ * truncating them. A query that is not dominated is passed to the decorated
+ * finder with the requested potential and the maximum interest rate raised
+ * to cover the cached query as well, and its lenders replace the cached ones.
+ * A streamed query that is not dominated is streamed through the decorated 
+ * finder as is and leaves the cache untouched.
+ * <p>
+ * The whole cache is dropped as soon as the modification count or the
+ * potential modification count of the actor graph changes. At most a given
+ * number of borrowers are cached; when the cache is full, the least recently
+ * used borrower is evicted.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 23, 2018)
+ * @param <I> the actor identity type.
+ */
+public final class CachingMostCostEffectiveLoanFinder<I>
+        extends AbstractMostCostEffectiveLoanFinderBase
+        implements MostCostEffectiveLoanFinder<I> {
+    
+    /**
+     * The default maximum number of cached borrowers.
+     */
+    public static final int DEFAULT_MAXIMUM_CACHE_SIZE = 4096;
+    
+    /**
+     * The actor graph being searched.
+     */
+    private final ActorGraph<I> actorGraph;
+    
+    /**
+     * The decorated finder.
+     */
+    private final MostCostEffectiveLoanFinder<I> finder;
+    
+    /**
+     * The maximum number of cached borrowers.
+     */
+    private final int maximumCacheSize;
+    
+    /**
+     * Maps the recently queried borrowers to their cached lenders in the
+     * access order. Guards all the cache state below.
+     */
+    private final Map<Actor<I>, CachedLenders<I>> cache;
+    
+    /**
+     * The modification counts of the actor graph the cached lenders were
+     * computed at.
+     */
+    private int expectedModificationCount;
+    private int expectedPotentialModificationCount;
+    
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    
+    public CachingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            MostCostEffectiveLoanFinder<I> finder) {
+        this(actorGraph, finder, DEFAULT_MAXIMUM_CACHE_SIZE);
+    }
+    
+    /**
+     * Constructs the finder caching the lenders of at most
+     * {@code maximumCacheSize} borrowers.
+     * 
+     * @param actorGraph       the actor graph to search.
+     * @param finder           the finder to decorate.
+     * @param maximumCacheSize the maximum number of cached borrowers.
+     */
+    public CachingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            MostCostEffectiveLoanFinder<I> finder,
+            int maximumCacheSize) {
+        this.actorGraph =
+                Objects.requireNonNull(
+                        actorGraph,
+                        "The input actor graph is null.");
+        this.finder =
+                Objects.requireNonNull(
+                        finder,
+                        "The input finder is null.");
+        checkMaximumCacheSize(maximumCacheSize);
+        this.maximumCacheSize = maximumCacheSize;
+        this.cache = new LinkedHashMap<Actor<I>, CachedLenders<I>>(
+                16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<Actor<I>, CachedLenders<I>> eldest) {
+                if (size() > maximumCacheSize) {
+                    evictionCount++;
+                    return true;
+                }
+                
+                return false;
+            }
+        };
+        
+        this.expectedModificationCount = actorGraph.getModificationCount();
+        this.expectedPotentialModificationCount =
+                actorGraph.getPotentialModificationCount();
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public MostCostEffectiveLoan<I> findLenders(Actor<I> actor,
+                                                double requestedPotential,
+                                                double maximumInterestRate) {
+        Objects.requireNonNull(actor, "The input actor is null.");
+        checkActorBelongsToGraph(actor);
+        Utils.checkRequestedPotential(requestedPotential);
+        Utils.checkMaximumInterestRate(maximumInterestRate);
+        return getLenderList(actor, requestedPotential, maximumInterestRate)
+                .collectLoan(actor,
+                             actorGraph,
+                             requestedPotential,
+                             maximumInterestRate);
+    }
+    
+    /**
+     * {@inheritDoc }
+     * <p>
+     * On a cache miss the query is streamed through the decorated finder, so
+     * that the consumer may stop the search early, and its lenders are not
+     * cached.
+     */
+    @Override
+    public void findLenders(Actor<I> actor,
+                            double requestedPotential,
+                            double maximumInterestRate,
+                            LenderConsumer<I> consumer) {
+        Objects.requireNonNull(actor, "The input actor is null.");
+        Objects.requireNonNull(consumer, "The input consumer is null.");
+        checkActorBelongsToGraph(actor);
+        Utils.checkRequestedPotential(requestedPotential);
+        Utils.checkMaximumInterestRate(maximumInterestRate);
+        CachedLenders<I> cachedLenders = lookUp(actor, 
+                                                requestedPotential,
+                                                maximumInterestRate);
+        
+        if (cachedLenders != null 
+                && cachedLenders.dominates(requestedPotential, 
+                                           maximumInterestRate)) {
+            cachedLenders.lenderList.streamLoan(actorGraph,
+                                                requestedPotential,
+                                                maximumInterestRate,
+                                                consumer);
+        } else {
+            finder.findLenders(actor,
+                               requestedPotential,
+                               maximumInterestRate,
+                               consumer);
+        }
+    }
+    
+    /**
+     * Returns the lenders answering the input query, either from the cache
+     * or from the decorated finder.
+     * 
+     * @param actor               the borrowing actor.
+     * @param requestedPotential  the requested potential.
+     * @param maximumInterestRate the maximum effective interest rate.
+     * @return the lender list containing the lenders of the query.
+     */
+    private LenderList<I> getLenderList(Actor<I> actor,
+                                        double requestedPotential,
+                                        double maximumInterestRate) {
+        CachedLenders<I> cachedLenders = lookUp(actor,
+                                                requestedPotential,
+                                                maximumInterestRate);
+        double searchedPotential = requestedPotential;
+        double searchedInterestRate = maximumInterestRate;
+        
+        if (cachedLenders != null) {
+            if (cachedLenders.dominates(requestedPotential, 
+                                        maximumInterestRate)) {
+                return cachedLenders.lenderList;
+            }
+            
+            // Extend the cached query so that the new lenders answer both 
+            // the old and the new queries:
+            searchedPotential = 
+                    Math.max(searchedPotential, 
+                             cachedLenders.requestedPotential);
+            searchedInterestRate = 
+                    Math.max(searchedInterestRate,
+                             cachedLenders.maximumInterestRate);
+        }
+        
+        int modificationCount = actorGraph.getModificationCount();
+        int potentialModificationCount = 
+                actorGraph.getPotentialModificationCount();
+        MostCostEffectiveLoan<I> loan = 
+                finder.findLenders(actor, 
+                                   searchedPotential, 
+                                   searchedInterestRate);
+        cachedLenders = new CachedLenders<>(loan, 
+                                            toLenderList(actor, loan),
+                                            actorGraph);
+        
+        synchronized (cache) {
+            if (modificationCount == expectedModificationCount
+                    && potentialModificationCount 
+                    == expectedPotentialModificationCount) {
+                cache.put(actor, cachedLenders);
+            }
+        }
+        
+        return cachedLenders.lenderList;
+    }
+    
+    /**
+     * Returns the cached lenders of the input actor, or {@code null} if 
+     * there are none, and counts the query as a hit if the cached lenders
+     * answer it and as a miss otherwise.
+     * 
+     * @param actor               the borrowing actor.
+     * @param requestedPotential  the requested potential.
+     * @param maximumInterestRate the maximum effective interest rate.
+     * @return the cached lenders of the actor, or {@code null}.
+     */
+    private CachedLenders<I> lookUp(Actor<I> actor,
+                                    double requestedPotential,
+                                    double maximumInterestRate) {
+        synchronized (cache) {
+            dropCacheIfGraphChanged();
+            CachedLenders<I> cachedLenders = cache.get(actor);
+            
+            if (cachedLenders != null 
+                    && cachedLenders.dominates(requestedPotential, 
+                                               maximumInterestRate)) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+            
+            return cachedLenders;
+        }
+    }
+    
+    /**
+     * Returns the number of queries answered from the cache.
+     * 
+     * @return the number of cache hits.
+     */
+    public long getCacheHitCount() {
+        synchronized (cache) {
+            return hitCount;
+        }
+    }
+    
+    /**
+     * Returns the number of queries passed to the decorated finder.
+     * 
+     * @return the number of cache misses.
+     */
+    public long getCacheMissCount() {
+        synchronized (cache) {
+            return missCount;
+        }
+    }
+    
+    /**
+     * Returns the number of borrowers evicted due to the cache being full.
+     * 
+     * @return the number of cache evictions.
+     */
+    public long getCacheEvictionCount() {
+        synchronized (cache) {
+            return evictionCount;
+        }
+    }
+    
+    /**
+     * Returns the number of currently cached borrowers.
+     * 
+     * @return the cache size.
+     */
+    public int getCacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+    
+    /**
+     * Returns the maximum number of cached borrowers.
+     * 
+     * @return the maximum cache size.
+     */
+    public int getMaximumCacheSize() {
+        return maximumCacheSize;
+    }
+    
+    /**
+     * Clears the cache if the actor graph has been modified since the cached
+     * lenders were computed. Must be called while holding the cache lock.
+     */
+    private void dropCacheIfGraphChanged() {
+        int modificationCount = actorGraph.getModificationCount();
+        int potentialModificationCount =
+                actorGraph.getPotentialModificationCount();
+        
+        if (modificationCount != expectedModificationCount
+                || potentialModificationCount
+                != expectedPotentialModificationCount) {
+            cache.clear();
+            expectedModificationCount = modificationCount;
+            expectedPotentialModificationCount = potentialModificationCount;
+        }
+    }
+    
+    /**
+     * Sorts the lenders of the input loan by their effective interest rates.
+     * The rates are recomputed along the direction map of the loan exactly
+     * as the searching finders compute them.
+     * 
+     * @param actor the borrowing actor.
+     * @param loan  the loan of the actor.
+     * @return the lenders of the loan.
+     */
+    private LenderList<I> toLenderList(Actor<I> actor,
+                                       MostCostEffectiveLoan<I> loan) {
+        Map<Actor<I>, Actor<I>> directionMap = loan.getDirectionMap();
+        Map<Actor<I>, Double> effectiveInterestRateMap =
+                new HashMap<>(directionMap.size());
+        Deque<Actor<I>> stack = new ArrayDeque<>();
+        
+        for (Actor<I> lender : directionMap.keySet()) {
+            // Walk towards the borrower until an actor with a known rate:
+            for (Actor<I> current = lender;
+                    current != actor
+                    && !effectiveInterestRateMap.containsKey(current);
+                    current = directionMap.get(current)) {
+                stack.push(current);
+            }
+            
+            while (!stack.isEmpty()) {
+                Actor<I> current = stack.pop();
+                Actor<I> next = directionMap.get(current);
+                double interestRate =
+                        actorGraph.getInterestRate(current, next);
+                
+                if (next != actor) {
+                    interestRate =
+                            combineInterestRates(
+                                    effectiveInterestRateMap.get(next),
+                                    interestRate);
+                }
+                
+                effectiveInterestRateMap.put(current, interestRate);
+            }
+        }
+        
+        Actor<I>[] lenders = new Actor[loan.getNumberOfLenders()];
+        
+        for (int i = 0; i < lenders.length; i++) {
+            lenders[i] = loan.getLender(i);
+        }
+        
+        // The sort is stable, so the lenders with equal rates keep the order
+        // the search settled them in:
+        Arrays.sort(lenders,
+                    (a, b) -> Double.compare(
+                            effectiveInterestRateMap.get(a),
+                            effectiveInterestRateMap.get(b)));
+        LenderList<I> lenderList = new LenderList<>(lenders.length);
+        
+        for (Actor<I> lender : lenders) {
+            lenderList.add(lender,
+                           directionMap.get(lender),
+                           effectiveInterestRateMap.get(lender));
+        }
+        
+        return lenderList;
+    }
+    
+    /**
+     * Makes sure the input actor belongs to the actor graph of this finder.
+     * 
+     * @param actor the actor to check.
+     */
+    private void checkActorBelongsToGraph(Actor<I> actor) {
+        if (actorGraph != actor.getActorGraph()) {
+            throw new IllegalStateException(
+                    "The input actor does not belong to the cached graph.");
+        }
+    }
+    
+    /**
+     * Makes sure the maximum cache size is at least one.
+     * 
+     * @param maximumCacheSize the maximum cache size to check.
+     */
+    private static void checkMaximumCacheSize(int maximumCacheSize) {
+        if (maximumCacheSize < 1) {
+            throw new IllegalArgumentException(
+                    "The maximum cache size is too small: " +
+                    maximumCacheSize + ".");
+        }
+    }
+    
+    /**
+     * This inner static class holds the lenders of the largest query asked
+     * for a borrower.
+     * 
+     * @param <I> the actor identity type.
+     */
+    private static final class CachedLenders<I> {
+        
+        final double requestedPotential;
+        final double maximumInterestRate;
+        
+        /**
+         * Set if the lenders within the maximum interest rate could not
+         * provide the requested potential, in which case the list holds all
+         * of them.
+         */
+        final boolean exhausted;
+        
+        final LenderList<I> lenderList;
+        
+        CachedLenders(MostCostEffectiveLoan<I> loan,
+                      LenderList<I> lenderList,
+                      ActorGraph<I> actorGraph) {
+            this.requestedPotential = loan.getRequestedPotential();
+            this.maximumInterestRate = loan.getMaximumInterestRate();
+            // The received potential is a sum of clamped potentials and may 
+            // round below the request even if the request was met, so ask
+            // whether the full potentials of the lenders fall short:
+            this.exhausted =
+                    lenderList.getPotentialPrefixSums(actorGraph)
+                              [lenderList.size()] < requestedPotential;
+            this.lenderList = lenderList;
+        }
+        
+        /**
+         * Returns {@code true} if the loan of the input query is a prefix of
+         * the cached lenders.
+         * 
+         * @param requestedPotential  the requested potential of the query.
+         * @param maximumInterestRate the maximum interest rate of the query.
+         * @return {@code true} if the cached lenders answer the query.
+         */
+        boolean dominates(double requestedPotential,
+                          double maximumInterestRate) {
+            return maximumInterestRate <= this.maximumInterestRate
+                    && (requestedPotential <= this.requestedPotential
+                        || exhausted);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.Arrays;
+import net.coderodde.finance.loan.Actor;
+
+/**
+ * This class implements the set of the settled actors of a search. The set
+ * maps each actor slot to the number of the search in which the actor was 
+ * settled, so it hashes nothing and is cleared in constant time by starting
+ * a new search number.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 26, 2018)
+ */
+final class ClosedActorSet {
+    
+    /**
+     * Maps each actor slot to the number of the search in which the actor 
+     * was settled.
+     */
+    private int[] closedSearchNumbers = new int[0];
+    
+    /**
+     * The number of the current search.
+     */
+    private int searchNumber;
+    
+    /**
+     * Empties this set for a search in a graph with the given slot bound. If
+     * the search number overflows, the closed marks are reset.
+     * 
+     * @param slotBound the slot bound of the graph to search.
+     */
+    void clear(int slotBound) {
+        if (closedSearchNumbers.length < slotBound) {
+            closedSearchNumbers = 
+                    new int[Math.max(slotBound, 
+                                     2 * closedSearchNumbers.length)];
+        }
+        
+        if (++searchNumber == 0) {
+            Arrays.fill(closedSearchNumbers, 0);
+            searchNumber = 1;
+        }
+    }
+    
+    void add(Actor<?> actor) {
+        closedSearchNumbers[actor.getSlot()] = searchNumber;
+    }
+    
+    boolean contains(Actor<?> actor) {
+        return closedSearchNumbers[actor.getSlot()] == searchNumber;
+    }
+}
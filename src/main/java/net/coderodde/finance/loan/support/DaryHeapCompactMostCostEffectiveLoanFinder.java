@@ -0,0 +1,26 @@
+package net.coderodde.finance.loan.support;
+
+import net.coderodde.finance.loan.IndexedActorGraph;
+
+/**
+ * This class implements a most cost-effective loan finder running against an 
+ * {@link IndexedActorGraph} using an indexed d-ary heap with decrease-key.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 16, 2018)
+ * @param <I> the actor identity type.
+ */
+public final class DaryHeapCompactMostCostEffectiveLoanFinder<I> 
+        extends AbstractCompactMostCostEffectiveLoanFinder<I> {
+    
+    public DaryHeapCompactMostCostEffectiveLoanFinder(
+            IndexedActorGraph<I> actorGraph) {
+        this(actorGraph, IndexedDaryHeap.DEFAULT_DEGREE);
+    }
+    
+    public DaryHeapCompactMostCostEffectiveLoanFinder(
+            IndexedActorGraph<I> actorGraph,
+            int degree) {
+        super(actorGraph, () -> new IndexedDaryHeap(degree, 0));
+    }
+}
@@ -1,60 +1,162 @@
 package net.coderodde.finance.loan.support;
 
 import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
 
 /**
- * This class implements an unindexed Fibonacci heap supporting only put and 
- * remove operations.
+ * This class implements a Fibonacci heap. In addition to the usual queue
+ * operations, {@link #insert(java.lang.Comparable)} returns a handle through
+ * which the element can be replaced later with a smaller one via
+ * {@link #decreaseKey(Handle, Comparable)}.
+ * The nodes of removed elements, including those dropped by
+ * {@link #clear()}, are pooled and reused by later insertions, so a handle is
+ * valid only until its element leaves the heap.
  * 
  * @author Rodion "rodde" Efremov
- * @version 1.6 (Mar 9, 2018)
+ * @version 1.6 (Mar 17, 2018)
  * @param <E> the element type.
  */
 public final class FibonacciHeap<E extends Comparable<? super E>> 
         extends AbstractQueue<E> {
 
+    /**
+     * This interface defines the handle of an element in a Fibonacci heap.
+     * 
+     * @param <E> the element type.
+     */
+    public interface Handle<E> {
+        
+        /**
+         * Returns the element this handle refers to.
+         * 
+         * @return the element.
+         */
+        E getElement();
+    }
+    
     @Override
     public Iterator<E> iterator() {
-        throw new UnsupportedOperationException("Not supported yet.");
+        List<E> elements = new ArrayList<>(size);
+        
+        if (minimumNode == null) {
+            return Collections.<E>emptyList().iterator();
+        }
+        
+        Deque<FibonacciHeapNode<E>> stack = new ArrayDeque<>();
+        stack.push(minimumNode);
+        
+        while (!stack.isEmpty()) {
+            FibonacciHeapNode<E> firstSibling = stack.pop();
+            FibonacciHeapNode<E> node = firstSibling;
+            
+            do {
+                elements.add(node.element);
+                
+                if (node.child != null) {
+                    stack.push(node.child);
+                }
+                
+                node = node.right;
+            } while (node != firstSibling);
+        }
+        
+        // The iterator walks a snapshot, so it must not remove elements:
+        return Collections.unmodifiableList(elements).iterator();
     }
 
     @Override
     public boolean offer(E e) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        insert(e);
+        return true;
     }
 
     @Override
     public E poll() {
-        throw new UnsupportedOperationException("Not supported yet.");
+        if (size == 0) {
+            return null;
+        }
+        
+        FibonacciHeapNode<E> z = minimumNode;
+        FibonacciHeapNode<E> x = z.child;
+        FibonacciHeapNode<E> tmpRight;
+        int numberOfChildren = z.degree;
+        
+        while (numberOfChildren > 0) {
+            tmpRight = x.right;
+            
+            x.left.right = x.right;
+            x.right.left = x.left;
+            
+            x.left = minimumNode;
+            x.right = minimumNode.right;
+            minimumNode.right = x;
+            x.right.left = x;
+            
+            x.parent = null;
+            x = tmpRight;
+            numberOfChildren--;
+        }
+        
+        z.left.right = z.right;
+        z.right.left = z.left;
+        
+        if (z == z.right) {
+            minimumNode = null;
+        } else {
+            minimumNode = z.right;
+            consolidate();
+        }
+        
+        size--;
+        E element = z.element;
+        releaseNode(z);
+        return element;
     }
-
+    
     @Override
     public E peek() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return minimumNode == null ? null : minimumNode.element;
     }
-
-    private static final class FibonacciHeapNode<E> {
-        private final E element;
+    
+    private static final class FibonacciHeapNode<E> implements Handle<E> {
+        private E element;
         private FibonacciHeapNode<E> parent;
         private FibonacciHeapNode<E> left = this;
         private FibonacciHeapNode<E> right = this;
         private FibonacciHeapNode<E> child;
         private int degree;
+        private boolean marked;
         
         FibonacciHeapNode(E element) {
             this.element = element;
         }
+        
+        @Override
+        public E getElement() {
+            return element;
+        }
     }
     
     private static final int DEFAULT_CHILD_ARRAY_LENGTH = 5;
     private static final double LOG_PHI = Math.log((1 + Math.sqrt(5)) / 2);
     private FibonacciHeapNode<E> minimumNode;
     private int size;
-    private FibonacciHeapNode<E>[] array = 
+    private FibonacciHeapNode<E>[] array =
             new FibonacciHeapNode[DEFAULT_CHILD_ARRAY_LENGTH];
     
+    /**
+     * The head of the singly-linked (via {@code right}) list of nodes
+     * available for reuse.
+     */
+    private FibonacciHeapNode<E> nodePool;
+    
     @Override
     public int size() {
         return size;
@@ -64,10 +166,16 @@ public final class FibonacciHeap<E extends Comparable<? super E>>
     public boolean isEmpty() {
         return size == 0;
     }
-
-    @Override
-    public boolean add(E e) {
-        FibonacciHeapNode<E> node = new FibonacciHeapNode<>(e);
+    
+    /**
+     * Inserts the input element into this heap.
+     * 
+     * @param e the element to insert.
+     * @return the handle of the inserted element.
+     */
+    public Handle<E> insert(E e) {
+        Objects.requireNonNull(e, "The input element is null.");
+        FibonacciHeapNode<E> node = obtainNode(e);
         
         if (minimumNode != null) {
             node.left = minimumNode;
@@ -83,56 +191,91 @@ public final class FibonacciHeap<E extends Comparable<? super E>>
         }
         
         size++;
-        return true;
+        return node;
     }
-
-    @Override
-    public E remove() {
-        if (size == 0) {
-            throw new IllegalStateException("This FibonacciHeap is empty.");
-        }
-        
-        FibonacciHeapNode<E> z = minimumNode;
-        FibonacciHeapNode<E> x = z.child;
-        FibonacciHeapNode<E> tmpRight;
-        int numberOfChildren = z.degree;
+    
+    /**
+     * Replaces the element referred to by the handle with a smaller or equal
+     * element.
+     * 
+     * @param handle  the handle of the element in this heap.
+     * @param element the new element.
+     */
+    public void decreaseKey(Handle<E> handle, E element) {
+        Objects.requireNonNull(element, "The input element is null.");
+        FibonacciHeapNode<E> x = (FibonacciHeapNode<E>) handle;
         
-        while (numberOfChildren > 0) {
-            tmpRight = x.right;
-            
-            x.left.right = x.right;
-            x.right.left = x.left;
-            
-            x.left = minimumNode;
-            x.right = minimumNode.right;
-            minimumNode.right = x;
-            x.right.left = x;
-            
-            x.parent = null;
-            x = tmpRight;
-            numberOfChildren--;
+        if (element.compareTo(x.element) > 0) {
+            throw new IllegalArgumentException(
+                    "The new element is larger than the current one.");
         }
         
-        z.left.right = z.right;
-        z.right.left = z.left;
+        x.element = element;
+        FibonacciHeapNode<E> y = x.parent;
         
-        if (z == z.right) {
-            minimumNode = null;
-        } else {
-            minimumNode = z.right;
-            consolidate();
+        if (y != null && x.element.compareTo(y.element) < 0) {
+            cut(x, y);
+            cascadingCut(y);
         }
         
-        size--;
-        return z.element;
+        if (x.element.compareTo(minimumNode.element) < 0) {
+            minimumNode = x;
+        }
     }
     
     @Override
     public void clear() {
+        if (minimumNode != null) {
+            // Return all the nodes to the pool so that the next search reuses
+            // them instead of allocating:
+            Deque<FibonacciHeapNode<E>> stack = new ArrayDeque<>();
+            stack.push(minimumNode);
+            
+            while (!stack.isEmpty()) {
+                FibonacciHeapNode<E> firstSibling = stack.pop();
+                FibonacciHeapNode<E> node = firstSibling;
+                
+                do {
+                    FibonacciHeapNode<E> next = node.right;
+                    
+                    if (node.child != null) {
+                        stack.push(node.child);
+                    }
+                    
+                    releaseNode(node);
+                    node = next;
+                } while (node != firstSibling);
+            }
+        }
+        
         this.minimumNode = null;
         this.size = 0;
     }
     
+    private FibonacciHeapNode<E> obtainNode(E element) {
+        if (nodePool == null) {
+            return new FibonacciHeapNode<>(element);
+        }
+        
+        FibonacciHeapNode<E> node = nodePool;
+        nodePool = node.right;
+        node.element = element;
+        node.left = node;
+        node.right = node;
+        return node;
+    }
+    
+    private void releaseNode(FibonacciHeapNode<E> node) {
+        node.element = null;
+        node.parent = null;
+        node.child = null;
+        node.left = null;
+        node.degree = 0;
+        node.marked = false;
+        node.right = nodePool;
+        nodePool = node;
+    }
+    
     private void consolidate() {
         int arrayCapacity = ((int) Math.floor(Math.log(size) / LOG_PHI)) + 1;
         ensureArrayCapacity(arrayCapacity);
@@ -199,6 +342,7 @@ public final class FibonacciHeap<E extends Comparable<? super E>>
         y.left.right = y.right;
         y.right.left = y.left;
         y.parent = x;
+        y.marked = false;
         
         if (x.child == null) {
             x.child = y;
@@ -214,6 +358,44 @@ public final class FibonacciHeap<E extends Comparable<? super E>>
         x.degree++;
     }
     
+    // Cuts 'x' from its parent 'y' and moves it to the root list:
+    private void cut(FibonacciHeapNode<E> x, FibonacciHeapNode<E> y) {
+        if (x.right == x) {
+            y.child = null;
+        } else {
+            x.left.right = x.right;
+            x.right.left = x.left;
+            
+            if (y.child == x) {
+                y.child = x.right;
+            }
+        }
+        
+        y.degree--;
+        
+        x.left = minimumNode;
+        x.right = minimumNode.right;
+        minimumNode.right = x;
+        x.right.left = x;
+        x.parent = null;
+        x.marked = false;
+    }
+    
+    private void cascadingCut(FibonacciHeapNode<E> y) {
+        FibonacciHeapNode<E> z = y.parent;
+        
+        while (z != null) {
+            if (!y.marked) {
+                y.marked = true;
+                return;
+            }
+            
+            cut(y, z);
+            y = z;
+            z = y.parent;
+        }
+    }
+    
     private void moveToRootList(FibonacciHeapNode<E> node) {
         node.left.right = node.right;
         node.right.left = node.left;
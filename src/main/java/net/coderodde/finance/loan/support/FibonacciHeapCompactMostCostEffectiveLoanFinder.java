@@ -0,0 +1,21 @@
+package net.coderodde.finance.loan.support;
+
+import net.coderodde.finance.loan.IndexedActorGraph;
+
+/**
+ * This class implements a most cost-effective loan finder running against an 
+ * {@link IndexedActorGraph} using an indexed Fibonacci heap with 
+ * decrease-key.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 17, 2018)
+ * @param <I> the actor identity type.
+ */
+public final class FibonacciHeapCompactMostCostEffectiveLoanFinder<I> 
+        extends AbstractCompactMostCostEffectiveLoanFinder<I> {
+    
+    public FibonacciHeapCompactMostCostEffectiveLoanFinder(
+            IndexedActorGraph<I> actorGraph) {
+        super(actorGraph, () -> new IndexedFibonacciHeap(0));
+    }
+}
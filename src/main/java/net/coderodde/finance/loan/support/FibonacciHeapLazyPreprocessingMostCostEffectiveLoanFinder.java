@@ -0,0 +1,43 @@
+package net.coderodde.finance.loan.support;
+
+import net.coderodde.finance.loan.ActorGraph;
+
+/**
+ * This class builds the lender lists lazily on demand using a Fibonacci heap,
+ * and caches the recently used ones.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 20, 2018)
+ * @param <I> the actor identity type.
+ */
+public final class FibonacciHeapLazyPreprocessingMostCostEffectiveLoanFinder<I>
+        extends AbstractLazyPreprocessingMostCostEffectiveLoanFinder<I> {
+    
+    public FibonacciHeapLazyPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph) {
+        this(actorGraph, PreprocessingLimits.UNLIMITED);
+    }
+    
+    public FibonacciHeapLazyPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            int maximumCacheSize) {
+        this(actorGraph, PreprocessingLimits.UNLIMITED, maximumCacheSize);
+    }
+    
+    public FibonacciHeapLazyPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            PreprocessingLimits preprocessingLimits) {
+        this(actorGraph, preprocessingLimits, DEFAULT_MAXIMUM_CACHE_SIZE);
+    }
+    
+    public FibonacciHeapLazyPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            PreprocessingLimits preprocessingLimits,
+            int maximumCacheSize) {
+        super(actorGraph, 
+              FibonacciHeap::new, 
+              new FibonacciHeapMostCostEffectiveLoanFinder<>(),
+              preprocessingLimits,
+              maximumCacheSize);
+    }
+}
@@ -12,6 +12,6 @@ public final class FibonacciHeapMostCostEffectiveLoanFinder<I>
         extends AbstractMostCostEffectiveLoanFinder<I> {
     
     public FibonacciHeapMostCostEffectiveLoanFinder() {
-        super(new FibonacciHeap<HeapNode<I>>());
+        super(FibonacciHeap::new);
     }
 }
@@ -1,6 +1,10 @@
 package net.coderodde.finance.loan.support;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
 import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.IdentityCodec;
 
 /**
  * This class preprocesses the actor graph in order to answer the loan queries
@@ -15,6 +19,92 @@ public final class FibonacciHeapPreprocessingMostCostEffectiveLoanFinder<I>
 
     public FibonacciHeapPreprocessingMostCostEffectiveLoanFinder(
             ActorGraph<I> actorGraph) {
-        super(actorGraph, new FibonacciHeap<>());
+        this(actorGraph, PreprocessingLimits.UNLIMITED);
+    }
+    
+    public FibonacciHeapPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            int parallelism) {
+        this(actorGraph, PreprocessingLimits.UNLIMITED, parallelism);
+    }
+    
+    public FibonacciHeapPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            PreprocessingLimits preprocessingLimits) {
+        this(actorGraph, preprocessingLimits, 1);
+    }
+    
+    public FibonacciHeapPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            PreprocessingLimits preprocessingLimits,
+            int parallelism) {
+        super(actorGraph, 
+              FibonacciHeap::new, 
+              new FibonacciHeapMostCostEffectiveLoanFinder<>(),
+              preprocessingLimits,
+              parallelism);
+    }
+    
+    private FibonacciHeapPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            PreprocessedIndex<I> preprocessedIndex,
+            int parallelism) {
+        super(actorGraph, 
+              FibonacciHeap::new, 
+              new FibonacciHeapMostCostEffectiveLoanFinder<>(),
+              preprocessedIndex,
+              parallelism);
+    }
+    
+    /**
+     * Restores a finder from an index file written by 
+     * {@link #saveIndex(java.nio.file.Path, IdentityCodec)}. The file is 
+     * memory-mapped, and the lender lists are decoded on their first query.
+     * 
+     * @param <I>           the actor identity type.
+     * @param actorGraph    the actor graph the index was built for.
+     * @param path          the path of the index file.
+     * @param identityCodec reads the actor identities.
+     * @return the finder.
+     * @throws IOException if an I/O error occurs or the file is not an index
+     *                     file.
+     * @throws IllegalArgumentException if the index was built for another 
+     *                                  graph.
+     */
+    public static <I> FibonacciHeapPreprocessingMostCostEffectiveLoanFinder<I> 
+        load(ActorGraph<I> actorGraph, 
+             Path path, 
+             IdentityCodec<I> identityCodec) throws IOException {
+        return load(actorGraph, path, identityCodec, 1);
+    }
+    
+    /**
+     * Restores a finder from an index file. Later repairs of the lender 
+     * lists use {@code parallelism} threads.
+     * 
+     * @param <I>           the actor identity type.
+     * @param actorGraph    the actor graph the index was built for.
+     * @param path          the path of the index file.
+     * @param identityCodec reads the actor identities.
+     * @param parallelism   the number of threads used for repairs.
+     * @return the finder.
+     * @throws IOException if an I/O error occurs or the file is not an index
+     *                     file.
+     * @throws IllegalArgumentException if the index was built for another 
+     *                                  graph.
+     */
+    public static <I> FibonacciHeapPreprocessingMostCostEffectiveLoanFinder<I> 
+        load(ActorGraph<I> actorGraph, 
+             Path path, 
+             IdentityCodec<I> identityCodec,
+             int parallelism) throws IOException {
+        Objects.requireNonNull(actorGraph, "The input actor graph is null.");
+        Objects.requireNonNull(path, "The input path is null.");
+        Objects.requireNonNull(identityCodec, 
+                               "The input identity codec is null.");
+        return new FibonacciHeapPreprocessingMostCostEffectiveLoanFinder<>(
+                actorGraph, 
+                PreprocessedIndex.load(path, actorGraph, identityCodec),
+                parallelism);
     }
 }
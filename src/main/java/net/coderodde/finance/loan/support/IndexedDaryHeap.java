@@ -0,0 +1,214 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.Arrays;
+
+/**
+ * This class implements an indexed d-ary heap over dense integer elements. 
+ * The heap is stored in two parallel primitive arrays, so that neither 
+ * insertions nor priority decreases allocate any objects.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 16, 2018)
+ */
+final class IndexedDaryHeap implements IndexedPriorityQueue {
+    
+    /**
+     * The default degree of the heap.
+     */
+    static final int DEFAULT_DEGREE = 4;
+    
+    /**
+     * The marker for elements not present in the heap.
+     */
+    private static final int ABSENT = -1;
+    
+    /**
+     * The maximum number of children of each heap node.
+     */
+    private final int degree;
+    
+    /**
+     * Maps each heap position to the element stored at it.
+     */
+    private int[] heapElements;
+    
+    /**
+     * Maps each heap position to the priority of the element stored at it.
+     */
+    private double[] heapPriorities;
+    
+    /**
+     * Maps each element to its heap position, or {@code ABSENT}.
+     */
+    private int[] positions;
+    
+    /**
+     * The number of elements in this heap.
+     */
+    private int size;
+    
+    IndexedDaryHeap(int degree, int capacity) {
+        if (degree < 2) {
+            throw new IllegalArgumentException(
+                    "The heap degree is too small: " + degree + ".");
+        }
+        
+        this.degree = degree;
+        this.heapElements = new int[0];
+        this.heapPriorities = new double[0];
+        this.positions = new int[0];
+        ensureCapacity(capacity);
+    }
+    
+    @Override
+    public void ensureCapacity(int capacity) {
+        if (capacity > positions.length) {
+            int oldCapacity = positions.length;
+            heapElements = Arrays.copyOf(heapElements, capacity);
+            heapPriorities = Arrays.copyOf(heapPriorities, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            Arrays.fill(positions, oldCapacity, capacity, ABSENT);
+        }
+    }
+    
+    @Override
+    public void insert(int element, double priority) {
+        int position = size++;
+        heapElements[position] = element;
+        heapPriorities[position] = priority;
+        positions[element] = position;
+        siftUp(position);
+    }
+    
+    @Override
+    public void decreasePriority(int element, double priority) {
+        int position = positions[element];
+        heapPriorities[position] = priority;
+        siftUp(position);
+    }
+    
+    @Override
+    public boolean contains(int element) {
+        return positions[element] != ABSENT;
+    }
+    
+    @Override
+    public double getPriority(int element) {
+        return heapPriorities[positions[element]];
+    }
+    
+    @Override
+    public int peekMinimum() {
+        checkNotEmpty();
+        return heapElements[0];
+    }
+    
+    @Override
+    public int extractMinimum() {
+        checkNotEmpty();
+        
+        int minimumElement = heapElements[0];
+        positions[minimumElement] = ABSENT;
+        size--;
+        
+        if (size > 0) {
+            heapElements[0] = heapElements[size];
+            heapPriorities[0] = heapPriorities[size];
+            positions[heapElements[0]] = 0;
+            siftDown(0);
+        }
+        
+        return minimumElement;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heapElements[i]] = ABSENT;
+        }
+        
+        size = 0;
+    }
+    
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new IllegalStateException("This IndexedDaryHeap is empty.");
+        }
+    }
+    
+    private void siftUp(int position) {
+        int element = heapElements[position];
+        double priority = heapPriorities[position];
+        
+        while (position > 0) {
+            int parentPosition = (position - 1) / degree;
+            
+            if (heapPriorities[parentPosition] <= priority) {
+                break;
+            }
+            
+            moveToPosition(parentPosition, position);
+            position = parentPosition;
+        }
+        
+        heapElements[position] = element;
+        heapPriorities[position] = priority;
+        positions[element] = position;
+    }
+    
+    private void siftDown(int position) {
+        int element = heapElements[position];
+        double priority = heapPriorities[position];
+        
+        while (true) {
+            int firstChildPosition = degree * position + 1;
+            
+            if (firstChildPosition >= size) {
+                break;
+            }
+            
+            int lastChildPosition = 
+                    Math.min(firstChildPosition + degree, size);
+            int minimumChildPosition = firstChildPosition;
+            double minimumChildPriority = heapPriorities[firstChildPosition];
+            
+            for (int childPosition = firstChildPosition + 1; 
+                    childPosition < lastChildPosition;
+                    childPosition++) {
+                if (heapPriorities[childPosition] < minimumChildPriority) {
+                    minimumChildPriority = heapPriorities[childPosition];
+                    minimumChildPosition = childPosition;
+                }
+            }
+            
+            if (priority <= minimumChildPriority) {
+                break;
+            }
+            
+            moveToPosition(minimumChildPosition, position);
+            position = minimumChildPosition;
+        }
+        
+        heapElements[position] = element;
+        heapPriorities[position] = priority;
+        positions[element] = position;
+    }
+    
+    // Moves the heap entry at 'sourcePosition' to 'targetPosition':
+    private void moveToPosition(int sourcePosition, int targetPosition) {
+        int element = heapElements[sourcePosition];
+        heapElements[targetPosition] = element;
+        heapPriorities[targetPosition] = heapPriorities[sourcePosition];
+        positions[element] = targetPosition;
+    }
+}
@@ -0,0 +1,303 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.Arrays;
+
+/**
+ * This class implements an indexed Fibonacci heap over dense integer 
+ * elements. The nodes are not objects but slots in parallel primitive arrays 
+ * indexed by the elements themselves, so the node pool is allocated once per 
+ * capacity and neither insertions nor priority decreases allocate anything.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 17, 2018)
+ */
+final class IndexedFibonacciHeap implements IndexedPriorityQueue {
+    
+    /**
+     * The marker for a missing node.
+     */
+    private static final int NONE = -1;
+    
+    /**
+     * The maximum degree of a node in a Fibonacci heap with at most 
+     * {@code Integer.MAX_VALUE} nodes is below this value.
+     */
+    private static final int MAXIMUM_DEGREE = 64;
+    
+    private double[] priorities = new double[0];
+    private int[] parents = new int[0];
+    private int[] lefts = new int[0];
+    private int[] rights = new int[0];
+    private int[] children = new int[0];
+    private int[] degrees = new int[0];
+    private boolean[] marked = new boolean[0];
+    
+    /**
+     * An element is in this heap only if its membership mark equals 
+     * {@code currentMembershipMark}. This way clearing the heap is a constant
+     * time operation.
+     */
+    private int[] membershipMarks = new int[0];
+    private int currentMembershipMark = 1;
+    
+    /**
+     * Maps each degree to a root of that degree during consolidation.
+     */
+    private final int[] rootsByDegree = new int[MAXIMUM_DEGREE];
+    
+    private int minimumElement = NONE;
+    private int size;
+    
+    IndexedFibonacciHeap(int capacity) {
+        ensureCapacity(capacity);
+    }
+    
+    @Override
+    public void ensureCapacity(int capacity) {
+        if (capacity > priorities.length) {
+            priorities = Arrays.copyOf(priorities, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            lefts = Arrays.copyOf(lefts, capacity);
+            rights = Arrays.copyOf(rights, capacity);
+            children = Arrays.copyOf(children, capacity);
+            degrees = Arrays.copyOf(degrees, capacity);
+            marked = Arrays.copyOf(marked, capacity);
+            membershipMarks = Arrays.copyOf(membershipMarks, capacity);
+        }
+    }
+    
+    @Override
+    public void insert(int element, double priority) {
+        priorities[element] = priority;
+        parents[element] = NONE;
+        children[element] = NONE;
+        degrees[element] = 0;
+        marked[element] = false;
+        membershipMarks[element] = currentMembershipMark;
+        
+        if (minimumElement == NONE) {
+            lefts[element] = element;
+            rights[element] = element;
+            minimumElement = element;
+        } else {
+            addToRootList(element);
+            
+            if (priority < priorities[minimumElement]) {
+                minimumElement = element;
+            }
+        }
+        
+        size++;
+    }
+    
+    @Override
+    public void decreasePriority(int element, double priority) {
+        priorities[element] = priority;
+        int parent = parents[element];
+        
+        if (parent != NONE && priority < priorities[parent]) {
+            cut(element, parent);
+            cascadingCut(parent);
+        }
+        
+        if (priority < priorities[minimumElement]) {
+            minimumElement = element;
+        }
+    }
+    
+    @Override
+    public boolean contains(int element) {
+        return membershipMarks[element] == currentMembershipMark;
+    }
+    
+    @Override
+    public double getPriority(int element) {
+        return priorities[element];
+    }
+    
+    @Override
+    public int peekMinimum() {
+        checkNotEmpty();
+        return minimumElement;
+    }
+    
+    @Override
+    public int extractMinimum() {
+        checkNotEmpty();
+        int z = minimumElement;
+        int x = children[z];
+        
+        for (int i = degrees[z]; i > 0; i--) {
+            int next = rights[x];
+            unlink(x);
+            addToRootList(x);
+            parents[x] = NONE;
+            x = next;
+        }
+        
+        unlink(z);
+        
+        if (z == rights[z]) {
+            minimumElement = NONE;
+        } else {
+            minimumElement = rights[z];
+            consolidate();
+        }
+        
+        membershipMarks[z] = 0;
+        size--;
+        return z;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    @Override
+    public void clear() {
+        if (++currentMembershipMark == 0) {
+            Arrays.fill(membershipMarks, 0);
+            currentMembershipMark = 1;
+        }
+        
+        minimumElement = NONE;
+        size = 0;
+    }
+    
+    private void consolidate() {
+        Arrays.fill(rootsByDegree, NONE);
+        int rootListSize = 1;
+        
+        for (int x = rights[minimumElement];
+                x != minimumElement; 
+                x = rights[x]) {
+            rootListSize++;
+        }
+        
+        int x = minimumElement;
+        
+        while (rootListSize > 0) {
+            int degree = degrees[x];
+            int next = rights[x];
+            
+            while (rootsByDegree[degree] != NONE) {
+                int y = rootsByDegree[degree];
+                
+                if (priorities[x] > priorities[y]) {
+                    int tmp = y;
+                    y = x;
+                    x = tmp;
+                }
+                
+                link(y, x);
+                rootsByDegree[degree] = NONE;
+                degree++;
+            }
+            
+            rootsByDegree[degree] = x;
+            x = next;
+            rootListSize--;
+        }
+        
+        minimumElement = NONE;
+        
+        for (int root : rootsByDegree) {
+            if (root == NONE) {
+                continue;
+            }
+            
+            if (minimumElement == NONE) {
+                lefts[root] = root;
+                rights[root] = root;
+                minimumElement = root;
+            } else {
+                addToRootList(root);
+                
+                if (priorities[root] < priorities[minimumElement]) {
+                    minimumElement = root;
+                }
+            }
+        }
+    }
+    
+    // Makes 'y' a child of 'x':
+    private void link(int y, int x) {
+        unlink(y);
+        parents[y] = x;
+        marked[y] = false;
+        
+        if (children[x] == NONE) {
+            children[x] = y;
+            lefts[y] = y;
+            rights[y] = y;
+        } else {
+            int child = children[x];
+            lefts[y] = child;
+            rights[y] = rights[child];
+            rights[child] = y;
+            lefts[rights[y]] = y;
+        }
+        
+        degrees[x]++;
+    }
+    
+    // Cuts 'x' from its parent 'y' and moves it to the root list:
+    private void cut(int x, int y) {
+        if (rights[x] == x) {
+            children[y] = NONE;
+        } else {
+            if (children[y] == x) {
+                children[y] = rights[x];
+            }
+            
+            unlink(x);
+        }
+        
+        degrees[y]--;
+        addToRootList(x);
+        parents[x] = NONE;
+        marked[x] = false;
+    }
+    
+    private void cascadingCut(int y) {
+        int z = parents[y];
+        
+        while (z != NONE) {
+            if (!marked[y]) {
+                marked[y] = true;
+                return;
+            }
+            
+            cut(y, z);
+            y = z;
+            z = parents[y];
+        }
+    }
+    
+    // Inserts 'x' to the right of the minimum root:
+    private void addToRootList(int x) {
+        lefts[x] = minimumElement;
+        rights[x] = rights[minimumElement];
+        rights[minimumElement] = x;
+        lefts[rights[x]] = x;
+    }
+    
+    // Removes 'x' from its sibling list leaving the pointers of 'x' intact:
+    private void unlink(int x) {
+        rights[lefts[x]] = rights[x];
+        lefts[rights[x]] = lefts[x];
+    }
+    
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new IllegalStateException(
+                    "This IndexedFibonacciHeap is empty.");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package net.coderodde.finance.loan.support;
+
+/**
+ * This interface defines the API for priority queues over dense integer 
+ * elements from the range {@code 0, 1, ..., capacity - 1}. Each element may 
+ * appear in the queue at most once, which allows decreasing its priority in 
+ * place instead of inserting a duplicate.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 16, 2018)
+ */
+interface IndexedPriorityQueue {
+    
+    /**
+     * Makes sure this queue can hold the elements 
+     * {@code 0, 1, ..., capacity - 1}.
+     * 
+     * @param capacity the requested capacity.
+     */
+    void ensureCapacity(int capacity);
+    
+    /**
+     * Inserts an element that is not present in this queue.
+     * 
+     * @param element  the element to insert.
+     * @param priority the priority of the element.
+     */
+    void insert(int element, double priority);
+    
+    /**
+     * Decreases the priority of an element present in this queue.
+     * 
+     * @param element  the target element.
+     * @param priority the new priority. Must not be larger than the current 
+     *                 one.
+     */
+    void decreasePriority(int element, double priority);
+    
+    /**
+     * Returns {@code true} only if the input element is in this queue.
+     * 
+     * @param element the element to query.
+     * @return {@code true} only if the element is in this queue.
+     */
+    boolean contains(int element);
+    
+    /**
+     * Returns the current priority of an element present in this queue.
+     * 
+     * @param element the target element.
+     * @return the priority of the element.
+     */
+    double getPriority(int element);
+    
+    /**
+     * Returns the element with the smallest priority without removing it.
+     * 
+     * @return the element with the smallest priority.
+     */
+    int peekMinimum();
+    
+    /**
+     * Removes and returns the element with the smallest priority.
+     * 
+     * @return the element with the smallest priority.
+     */
+    int extractMinimum();
+    
+    /**
+     * Returns the number of elements in this queue.
+     * 
+     * @return the size of this queue.
+     */
+    int size();
+    
+    /**
+     * Returns {@code true} only if this queue is empty.
+     * 
+     * @return {@code true} only if this queue is empty.
+     */
+    boolean isEmpty();
+    
+    /**
+     * Removes all the elements from this queue.
+     */
+    void clear();
+}
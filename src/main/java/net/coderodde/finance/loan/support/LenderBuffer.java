@@ -0,0 +1,93 @@
+package net.coderodde.finance.loan.support;
+
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.IndexedActorGraph;
+import net.coderodde.finance.loan.MostCostEffectiveLoan;
+
+/**
+ * This class collects the lenders settled by a compact search as actor
+ * indices. The buffer is reused between the searches of a thread, so a
+ * search allocates only the three exact-size arrays of its loan.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 26, 2018)
+ */
+final class LenderBuffer {
+    
+    /**
+     * The indices of the lenders in the order they were settled.
+     */
+    private final int[] lenderIndices;
+    
+    /**
+     * The index of the actor each lender lends to.
+     */
+    private final int[] directionIndices;
+    
+    /**
+     * The potential each lender issued.
+     */
+    private final double[] potentials;
+    
+    private int size;
+    
+    LenderBuffer(int numberOfActors) {
+        this.lenderIndices = new int[numberOfActors];
+        this.directionIndices = new int[numberOfActors];
+        this.potentials = new double[numberOfActors];
+    }
+    
+    void clear() {
+        size = 0;
+    }
+    
+    /**
+     * Appends a lender to this buffer. Each actor may be added at most once
+     * per search.
+     * 
+     * @param lenderIndex    the index of the lending actor.
+     * @param directionIndex the index of the actor the lender lends to.
+     * @param potential      the potential issued by the lender.
+     */
+    void add(int lenderIndex, int directionIndex, double potential) {
+        lenderIndices[size] = lenderIndex;
+        directionIndices[size] = directionIndex;
+        potentials[size] = potential;
+        size++;
+    }
+    
+    /**
+     * Creates the loan holding the lenders of this buffer.
+     * 
+     * @param <I>                 the actor identity type.
+     * @param actorGraph          the searched graph.
+     * @param actor               the borrowing actor.
+     * @param collectedPrincipal  the collected potential.
+     * @param requestedPotential  the requested potential.
+     * @param maximumInterestRate the maximum interest rate.
+     * @return the loan.
+     */
+    @SuppressWarnings("unchecked")
+    <I> MostCostEffectiveLoan<I> toLoan(IndexedActorGraph<I> actorGraph,
+                                        Actor<I> actor,
+                                        double collectedPrincipal,
+                                        double requestedPotential,
+                                        double maximumInterestRate) {
+        Actor<I>[] lenders = new Actor[size];
+        Actor<I>[] directions = new Actor[size];
+        
+        for (int i = 0; i < size; i++) {
+            lenders[i] = actorGraph.getActor(lenderIndices[i]);
+            directions[i] = actorGraph.getActor(directionIndices[i]);
+        }
+        
+        return new MostCostEffectiveLoan<>(actor,
+                                           collectedPrincipal,
+                                           requestedPotential,
+                                           maximumInterestRate,
+                                           lenders,
+                                           potentials,
+                                           directions,
+                                           size);
+    }
+}
@@ -0,0 +1,378 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.Arrays;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.LenderConsumer;
+import net.coderodde.finance.loan.MostCostEffectiveLoan;
+
+/**
+ * This class implements a list of lenders that is sorted by effective 
+ * interest rates with the smallest effective interest rate first. The 
+ * lenders, the actors they lend to on the most cost-effective path, and the
+ * effective interest rates are stored in parallel arrays, so a query scans 
+ * the list sequentially without per-lender objects.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 23, 2018)
+ * @param <I> the actor identity type.
+ */
+final class LenderList<I> {
+    
+    /**
+     * The lending actors.
+     */
+    private Actor<I>[] lenders;
+    
+    /**
+     * The actor each lender lends to on its most cost-effective path.
+     */
+    private Actor<I>[] borrowers;
+    
+    /**
+     * The effective interest rates the lenders can offer.
+     */
+    private double[] effectiveInterestRates;
+    
+    /**
+     * The number of lenders in this list.
+     */
+    private int size;
+    
+    /**
+     * The effective interest rate of the first lender cut from this list,
+     * or positive infinity if no lender was cut. All the lenders missing
+     * from this list have at least this effective interest rate.
+     */
+    private double truncationRate = Double.POSITIVE_INFINITY;
+    
+    /**
+     * Counts the potential changes of the lenders in this list reported via
+     * {@link #invalidatePotentialPrefixSums()}.
+     */
+    private volatile int potentialModificationCount;
+    
+    /**
+     * The cumulative potentials of the lenders together with the potential
+     * modification count of this list they were computed at.
+     */
+    private volatile PotentialPrefixSums potentialPrefixSums;
+    
+    LenderList(int initialCapacity) {
+        this.lenders = new Actor[initialCapacity];
+        this.borrowers = new Actor[initialCapacity];
+        this.effectiveInterestRates = new double[initialCapacity];
+    }
+    
+    void add(Actor<I> lender, 
+             Actor<I> borrower, 
+             double effectiveInterestRate) {
+        if (size == lenders.length) {
+            resize(Math.max(1, 2 * size));
+        }
+        
+        lenders[size] = lender;
+        borrowers[size] = borrower;
+        effectiveInterestRates[size] = effectiveInterestRate;
+        size++;
+    }
+    
+    /**
+     * Removes all the lenders from this list while keeping its capacity, so
+     * that the list may be reused by the next search.
+     */
+    void clear() {
+        Arrays.fill(lenders, 0, size, null);
+        Arrays.fill(borrowers, 0, size, null);
+        size = 0;
+        truncationRate = Double.POSITIVE_INFINITY;
+        potentialPrefixSums = null;
+    }
+    
+    void trimToSize() {
+        if (size < lenders.length) {
+            resize(size);
+        }
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    double getTruncationRate() {
+        return truncationRate;
+    }
+    
+    void setTruncationRate(double truncationRate) {
+        this.truncationRate = truncationRate;
+    }
+    
+    Actor<I> getLender(int index) {
+        return lenders[index];
+    }
+    
+    Actor<I> getBorrower(int index) {
+        return borrowers[index];
+    }
+    
+    double getEffectiveInterestRate(int index) {
+        return effectiveInterestRates[index];
+    }
+    
+    /**
+     * Returns the number of leading lenders whose effective interest 
+     * rates do not exceed {@code maximumInterestRate}.
+     * 
+     * @param maximumInterestRate the maximum effective interest rate.
+     * @return the number of lenders within the interest rate.
+     */
+    int countLendersWithin(double maximumInterestRate) {
+        int low = 0;
+        int high = size;
+        
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            
+            if (effectiveInterestRates[middle] <= maximumInterestRate) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        
+        return low;
+    }
+    
+    /**
+     * Returns the number of leading lenders needed to collect 
+     * {@code requestedPotential}, or the size of this list if all the 
+     * lenders together cannot provide it.
+     * 
+     * @param requestedPotential the requested potential.
+     * @param actorGraph         the graph holding the potentials.
+     * @return the number of lenders needed.
+     */
+    int countLendersNeededFor(double requestedPotential,
+                              ActorGraph<I> actorGraph) {
+        double[] prefixSums = getPotentialPrefixSums(actorGraph);
+        int low = 0;
+        int high = size;
+        
+        // Find the smallest count whose prefix sum reaches the request:
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            
+            if (prefixSums[middle] < requestedPotential) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        
+        return low;
+    }
+    
+    /**
+     * Marks the prefix sums of the lender potentials stale after the 
+     * potential of a lender in this list has changed. The owner of the list
+     * must call this method for every such change, one call at a time.
+     */
+    void invalidatePotentialPrefixSums() {
+        potentialModificationCount++;
+    }
+    
+    /**
+     * Returns the array whose {@code i}th component is the total 
+     * potential of the first {@code i} lenders. The array is recomputed
+     * only if this list has been invalidated since the last call, so the 
+     * potential changes of the actors outside this list do not cost 
+     * anything here.
+     * 
+     * @param actorGraph the graph holding the potentials.
+     * @return the prefix sums of the lender potentials.
+     */
+    double[] getPotentialPrefixSums(ActorGraph<I> actorGraph) {
+        int potentialModificationCount = this.potentialModificationCount;
+        PotentialPrefixSums current = potentialPrefixSums;
+        
+        if (current == null 
+                || current.potentialModificationCount 
+                != potentialModificationCount) {
+            double[] prefixSums = new double[size + 1];
+            
+            for (int i = 0; i < size; i++) {
+                prefixSums[i + 1] = 
+                        prefixSums[i] + 
+                        actorGraph.getActorPotential(lenders[i]);
+            }
+            
+            current = new PotentialPrefixSums(potentialModificationCount,
+                                              prefixSums);
+            potentialPrefixSums = current;
+        }
+        
+        return current.prefixSums;
+    }
+    
+    /**
+     * Collects the loan for the input actor from the leading lenders of this
+     * list. The list must contain all the lenders of the actor up to the
+     * cutoffs of the query. Both cutoffs are binary searched, which pays off
+     * for the lists that outlive the query, as their prefix sums are cached.
+     * 
+     * @param actor               the borrowing actor.
+     * @param actorGraph          the graph holding the potentials.
+     * @param requestedPotential  the requested potential.
+     * @param maximumInterestRate the maximum effective interest rate.
+     * @return the loan.
+     */
+    MostCostEffectiveLoan<I> collectLoan(Actor<I> actor,
+                                         ActorGraph<I> actorGraph,
+                                         double requestedPotential,
+                                         double maximumInterestRate) {
+        double collectedPrincipal = 0.0;
+        
+        // Binary search both cutoffs so that the loop below touches only the
+        // lenders that take part in the loan:
+        int numberOfLenders = 
+                Math.min(countLendersWithin(maximumInterestRate),
+                         countLendersNeededFor(requestedPotential, 
+                                               actorGraph));
+        double[] lenderPotentials = new double[numberOfLenders];
+        
+        for (int i = 0; i < numberOfLenders; i++) {
+            double potentialIncrease =
+                    Math.min(requestedPotential - collectedPrincipal,
+                             actorGraph.getActorPotential(lenders[i]));
+            collectedPrincipal += potentialIncrease;
+            lenderPotentials[i] = potentialIncrease;
+        }
+        
+        return toLoan(actor,
+                      collectedPrincipal,
+                      requestedPotential,
+                      maximumInterestRate,
+                      lenderPotentials,
+                      numberOfLenders);
+    }
+    
+    /**
+     * Collects the loan for the input actor from the lenders of a list that
+     * was filled by the search of this very query. The cutoffs are found by
+     * scanning the list from the front, so that no prefix sums are built for
+     * a list that is cleared before the next search.
+     * 
+     * @param actor               the borrowing actor.
+     * @param actorGraph          the graph holding the potentials.
+     * @param requestedPotential  the requested potential.
+     * @param maximumInterestRate the maximum effective interest rate.
+     * @return the loan.
+     */
+    MostCostEffectiveLoan<I> collectSearchedLoan(Actor<I> actor,
+                                                 ActorGraph<I> actorGraph,
+                                                 double requestedPotential,
+                                                 double maximumInterestRate) {
+        double collectedPrincipal = 0.0;
+        double[] lenderPotentials = new double[size];
+        int numberOfLenders = 0;
+        
+        // The search stops at both cutoffs, so usually all the lenders of 
+        // the list take part in the loan:
+        while (numberOfLenders < size
+                && effectiveInterestRates[numberOfLenders] 
+                <= maximumInterestRate
+                && collectedPrincipal < requestedPotential) {
+            double potentialIncrease =
+                    Math.min(requestedPotential - collectedPrincipal,
+                             actorGraph.getActorPotential(
+                                     lenders[numberOfLenders]));
+            collectedPrincipal += potentialIncrease;
+            lenderPotentials[numberOfLenders++] = potentialIncrease;
+        }
+        
+        return toLoan(actor,
+                      collectedPrincipal,
+                      requestedPotential,
+                      maximumInterestRate,
+                      lenderPotentials,
+                      numberOfLenders);
+    }
+    
+    /**
+     * Streams the lenders of the loan {@link #collectLoan} would collect to
+     * the input consumer. The lenders are scanned from the front of the list,
+     * so neither the prefix sums nor the loan are built.
+     * 
+     * @param actorGraph          the graph holding the potentials.
+     * @param requestedPotential  the requested potential.
+     * @param maximumInterestRate the maximum effective interest rate.
+     * @param consumer            the consumer receiving the lenders.
+     * @return the number of lenders streamed.
+     */
+    int streamLoan(ActorGraph<I> actorGraph,
+                   double requestedPotential,
+                   double maximumInterestRate,
+                   LenderConsumer<I> consumer) {
+        double collectedPrincipal = 0.0;
+        
+        for (int i = 0; i < size; i++) {
+            if (effectiveInterestRates[i] > maximumInterestRate
+                    || collectedPrincipal >= requestedPotential) {
+                return i;
+            }
+            
+            double potentialIncrease =
+                    Math.min(requestedPotential - collectedPrincipal,
+                             actorGraph.getActorPotential(lenders[i]));
+            collectedPrincipal += potentialIncrease;
+            
+            if (!consumer.accept(lenders[i], 
+                                 potentialIncrease,
+                                 effectiveInterestRates[i],
+                                 borrowers[i])) {
+                return i + 1;
+            }
+        }
+        
+        return size;
+    }
+    
+    private MostCostEffectiveLoan<I> toLoan(Actor<I> actor,
+                                            double collectedPrincipal,
+                                            double requestedPotential,
+                                            double maximumInterestRate,
+                                            double[] lenderPotentials,
+                                            int numberOfLenders) {
+        return new MostCostEffectiveLoan<>(actor,
+                                           collectedPrincipal,
+                                           requestedPotential,
+                                           maximumInterestRate,
+                                           lenders,
+                                           lenderPotentials,
+                                           borrowers,
+                                           numberOfLenders);
+    }
+    
+    private void resize(int capacity) {
+        lenders = Arrays.copyOf(lenders, capacity);
+        borrowers = Arrays.copyOf(borrowers, capacity);
+        effectiveInterestRates = 
+                Arrays.copyOf(effectiveInterestRates, capacity);
+    }
+    
+    /**
+     * This inner static class holds the prefix sums of lender potentials 
+     * along with the version of the potentials they were computed from.
+     */
+    private static final class PotentialPrefixSums {
+        
+        final int potentialModificationCount;
+        final double[] prefixSums;
+        
+        PotentialPrefixSums(int potentialModificationCount, 
+                            double[] prefixSums) {
+            this.potentialModificationCount = potentialModificationCount;
+            this.prefixSums = prefixSums;
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package net.coderodde.finance.loan.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.IdentityCodec;
+
+/**
+ * This class implements the binary file format of the lender lists of a
+ * preprocessing finder, and a read-only view over a memory-mapped index file.
+ * The lender lists are decoded only when queried, so the pages of the file
+ * are loaded lazily by the operating system.
+ * <p>
+ * All the numbers are big-endian, and every number is aligned to its own
+ * size. The file consists of:
+ * <ol>
+ *   <li>the header: the magic number {@code 0x4D43454C}, the format version,
+ *       the graph fingerprint (a {@code long}), the number of actors
+ *       {@code n} followed by a reserved {@code int}, and the preprocessing
+ *       limits: the maximum interest rate, the maximum potential and the
+ *       maximum number of lenders followed by a reserved {@code int},</li>
+ *   <li>{@code n + 1} {@code long} offsets: the offset of the lender list
+ *       record of each actor, and the offset of the actor table,</li>
+ *   <li>the lender list records: the truncation rate, the number of lenders
+ *       {@code k} (or {@code -1} if the actor has no lenders at all) followed
+ *       by a reserved {@code int}, {@code k} effective interest rates,
+ *       {@code k} lender indices and {@code k} borrower indices,</li>
+ *   <li>the actor table: the identities of the {@code n} actors written by an
+ *       {@link IdentityCodec}.</li>
+ * </ol>
+ * The fingerprint is computed from the arcs and their interest rates only,
+ * so an index stays valid across potential updates but is rejected once the
+ * structure of the graph changes.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 24, 2018)
+ * @param <I> the actor identity type.
+ */
+final class PreprocessedIndex<I> {
+    
+    /**
+     * The magic number starting each index file ("MCEL").
+     */
+    private static final int MAGIC = 0x4D43454C;
+    
+    /**
+     * The version of the file format.
+     */
+    private static final int VERSION = 1;
+    
+    /**
+     * The length of the file header in bytes.
+     */
+    private static final int HEADER_SIZE = 48;
+    
+    /**
+     * The file is mapped in chunks of this many bytes. Since the chunk size
+     * is a multiple of eight and every number is aligned to its own size, no
+     * number crosses a chunk boundary.
+     */
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+    
+    /**
+     * The length of the output buffer used for saving.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    /**
+     * The mapped chunks of the index file.
+     */
+    private final MappedByteBuffer[] chunks;
+    
+    /**
+     * The limits the lender lists were cut by.
+     */
+    private final PreprocessingLimits preprocessingLimits;
+    
+    /**
+     * Maps each actor index of the file to the actor of the graph.
+     */
+    private final Actor<I>[] actors;
+    
+    /**
+     * Maps each actor to its index in the file.
+     */
+    private final Map<Actor<I>, Integer> actorIndexMap;
+    
+    private PreprocessedIndex(MappedByteBuffer[] chunks,
+                              PreprocessingLimits preprocessingLimits,
+                              Actor<I>[] actors,
+                              Map<Actor<I>, Integer> actorIndexMap) {
+        this.chunks = chunks;
+        this.preprocessingLimits = preprocessingLimits;
+        this.actors = actors;
+        this.actorIndexMap = actorIndexMap;
+    }
+    
+    /**
+     * Writes the lender lists of all the actors of the input graph to a
+     * file.
+     * 
+     * @param <I>                 the actor identity type.
+     * @param path                the path of the file to write.
+     * @param actorGraph          the preprocessed actor graph.
+     * @param preprocessingLimits the limits the lender lists were cut by.
+     * @param lenderLists         maps each actor to its lender list.
+     * @param identityCodec       writes the actor identities.
+     * @throws IOException if an I/O error occurs.
+     */
+    static <I> void save(Path path,
+                         ActorGraph<I> actorGraph,
+                         PreprocessingLimits preprocessingLimits,
+                         Function<Actor<I>, LenderList<I>> lenderLists,
+                         IdentityCodec<I> identityCodec) throws IOException {
+        List<Actor<I>> actorList = new ArrayList<>(actorGraph.getActorSet());
+        int numberOfActors = actorList.size();
+        Map<Actor<I>, Integer> actorIndexMap = new HashMap<>(numberOfActors);
+        LenderList<I>[] lenderListArray = new LenderList[numberOfActors];
+        
+        for (int i = 0; i < numberOfActors; i++) {
+            actorIndexMap.put(actorList.get(i), i);
+            lenderListArray[i] = lenderLists.apply(actorList.get(i));
+        }
+        
+        try (DataOutputStream output =
+                new DataOutputStream(
+                        new BufferedOutputStream(
+                                Files.newOutputStream(path),
+                                BUFFER_SIZE))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(computeFingerprint(actorGraph,
+                                                actorList,
+                                                actorIndexMap));
+            output.writeInt(numberOfActors);
+            output.writeInt(0);
+            output.writeDouble(preprocessingLimits.getMaximumInterestRate());
+            output.writeDouble(preprocessingLimits.getMaximumPotential());
+            output.writeInt(preprocessingLimits.getMaximumNumberOfLenders());
+            output.writeInt(0);
+            
+            long offset = HEADER_SIZE + 8L * (numberOfActors + 1);
+            
+            for (LenderList<I> lenderList : lenderListArray) {
+                output.writeLong(offset);
+                offset += 16L +
+                          16L * (lenderList == null ? 0 : lenderList.size());
+            }
+            
+            output.writeLong(offset);
+            
+            for (LenderList<I> lenderList : lenderListArray) {
+                writeLenderList(output, lenderList, actorIndexMap);
+            }
+            
+            for (Actor<I> actor : actorList) {
+                identityCodec.write(actor.getIdentity(), output);
+            }
+        }
+    }
+    
+    /**
+     * Maps the input index file and matches it against the input graph.
+     * 
+     * @param <I>           the actor identity type.
+     * @param path          the path of the index file.
+     * @param actorGraph    the actor graph the index was built for.
+     * @param identityCodec reads the actor identities.
+     * @return the index.
+     * @throws IOException if an I/O error occurs or the file is not an
+     *                     index file.
+     * @throws IllegalArgumentException if the index was built for another
+     *                                  graph.
+     */
+    static <I> PreprocessedIndex<I> load(Path path,
+                                         ActorGraph<I> actorGraph,
+                                         IdentityCodec<I> identityCodec)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                                                    StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("The index file is truncated.");
+            }
+            
+            int numberOfChunks = 
+                    (int) ((fileSize + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+            MappedByteBuffer[] chunks = new MappedByteBuffer[numberOfChunks];
+            
+            for (int i = 0; i < chunks.length; i++) {
+                long position = (long) i << CHUNK_SHIFT;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                        position,
+                                        Math.min(CHUNK_SIZE,
+                                                 fileSize - position));
+            }
+            
+            if (getInt(chunks, 0) != MAGIC) {
+                throw new IOException("Not a preprocessed index file.");
+            }
+            
+            if (getInt(chunks, 4) != VERSION) {
+                throw new IOException(
+                        "Unsupported index file version: " +
+                        getInt(chunks, 4) + ".");
+            }
+            
+            long fingerprint = getLong(chunks, 8);
+            int numberOfActors = getInt(chunks, 16);
+            PreprocessingLimits preprocessingLimits =
+                    new PreprocessingLimits(getDouble(chunks, 24),
+                                            getDouble(chunks, 32),
+                                            getInt(chunks, 40));
+            
+            if (numberOfActors != actorGraph.getNumberOfActors()) {
+                throw new IllegalArgumentException(
+                        "The index does not match the actor graph.");
+            }
+            
+            // Read the actor table and match it against the graph:
+            long actorTableOffset =
+                    getLong(chunks, HEADER_SIZE + 8L * numberOfActors);
+            channel.position(actorTableOffset);
+            DataInputStream input =
+                    new DataInputStream(
+                            new BufferedInputStream(
+                                    Channels.newInputStream(channel),
+                                    BUFFER_SIZE));
+            Map<Actor<I>, Integer> actorIndexMap =
+                    new HashMap<>(numberOfActors);
+            
+            for (int i = 0; i < numberOfActors; i++) {
+                actorIndexMap.put(new Actor<>(identityCodec.read(input)), i);
+            }
+            
+            Actor<I>[] actors = new Actor[numberOfActors];
+            
+            for (Actor<I> actor : actorGraph.getActorSet()) {
+                Integer actorIndex = actorIndexMap.get(actor);
+                
+                if (actorIndex == null) {
+                    throw new IllegalArgumentException(
+                            "The index does not match the actor graph.");
+                }
+                
+                actors[actorIndex] = actor;
+            }
+            
+            List<Actor<I>> actorList = new ArrayList<>(numberOfActors);
+            
+            for (Actor<I> actor : actors) {
+                actorList.add(actor);
+            }
+            
+            if (actorIndexMap.size() != numberOfActors
+                    || computeFingerprint(actorGraph,
+                                          actorList,
+                                          actorIndexMap) != fingerprint) {
+                throw new IllegalArgumentException(
+                        "The index does not match the actor graph.");
+            }
+            
+            return new PreprocessedIndex<>(chunks,
+                                           preprocessingLimits,
+                                           actors,
+                                           actorIndexMap);
+        }
+    }
+    
+    PreprocessingLimits getPreprocessingLimits() {
+        return preprocessingLimits;
+    }
+    
+    int getNumberOfActors() {
+        return actors.length;
+    }
+    
+    Actor<I> getActor(int actorIndex) {
+        return actors[actorIndex];
+    }
+    
+    /**
+     * Decodes the lender list of the input actor.
+     * 
+     * @param actor the target actor.
+     * @return the lender list, or {@code null} if the actor has no lenders or
+     *         is not in the index.
+     */
+    LenderList<I> getLenderList(Actor<I> actor) {
+        Integer actorIndex = actorIndexMap.get(actor);
+        return actorIndex == null ? null : getLenderList(actorIndex);
+    }
+    
+    /**
+     * Decodes the lender list of the actor with the input index.
+     * 
+     * @param actorIndex the index of the target actor.
+     * @return the lender list, or {@code null} if the actor has no lenders.
+     */
+    LenderList<I> getLenderList(int actorIndex) {
+        long offset = getLong(chunks, HEADER_SIZE + 8L * actorIndex);
+        double truncationRate = getDouble(chunks, offset);
+        int size = getInt(chunks, offset + 8);
+        
+        if (size < 0) {
+            return null;
+        }
+        
+        long ratesOffset = offset + 16;
+        long lendersOffset = ratesOffset + 8L * size;
+        long borrowersOffset = lendersOffset + 4L * size;
+        LenderList<I> lenderList = new LenderList<>(size);
+        
+        for (int i = 0; i < size; i++) {
+            lenderList.add(actors[getInt(chunks, lendersOffset + 4L * i)],
+                           actors[getInt(chunks, borrowersOffset + 4L * i)],
+                           getDouble(chunks, ratesOffset + 8L * i));
+        }
+        
+        lenderList.setTruncationRate(truncationRate);
+        return lenderList;
+    }
+    
+    private static <I> void writeLenderList(
+            DataOutputStream output,
+            LenderList<I> lenderList,
+            Map<Actor<I>, Integer> actorIndexMap) throws IOException {
+        if (lenderList == null) {
+            output.writeDouble(Double.POSITIVE_INFINITY);
+            output.writeInt(-1);
+            output.writeInt(0);
+            return;
+        }
+        
+        output.writeDouble(lenderList.getTruncationRate());
+        output.writeInt(lenderList.size());
+        output.writeInt(0);
+        
+        for (int i = 0; i < lenderList.size(); i++) {
+            output.writeDouble(lenderList.getEffectiveInterestRate(i));
+        }
+        
+        for (int i = 0; i < lenderList.size(); i++) {
+            output.writeInt(actorIndexMap.get(lenderList.getLender(i)));
+        }
+        
+        for (int i = 0; i < lenderList.size(); i++) {
+            output.writeInt(actorIndexMap.get(lenderList.getBorrower(i)));
+        }
+    }
+    
+    /**
+     * Computes the fingerprint of the structure of the input graph. The arcs
+     * are identified by the actor indices of the file, and are combined in an
+     * order-independent way.
+     * 
+     * @param <I>           the actor identity type.
+     * @param actorGraph    the actor graph.
+     * @param actors        the actors in the order of the file.
+     * @param actorIndexMap maps each actor to its index in the file.
+     * @return the fingerprint.
+     */
+    private static <I> long computeFingerprint(
+            ActorGraph<I> actorGraph,
+            List<Actor<I>> actors,
+            Map<Actor<I>, Integer> actorIndexMap) {
+        long fingerprint = 
+                mix(actors.size()) + mix(actorGraph.getNumberOfArcs());
+        
+        for (int targetIndex = 0; targetIndex < actors.size(); targetIndex++) {
+            Actor<I> targetActor = actors.get(targetIndex);
+            
+            for (Actor<I> sourceActor
+                    : actorGraph.getIncomingArcs(targetActor)) {
+                long arc = ((long) actorIndexMap.get(sourceActor) << 32)
+                         | targetIndex;
+                long interestRateBits =
+                        Double.doubleToLongBits(
+                                actorGraph.getInterestRate(sourceActor,
+                                                           targetActor));
+                fingerprint += mix(mix(arc) ^ interestRateBits);
+            }
+        }
+        
+        return fingerprint;
+    }
+    
+    /**
+     * Scrambles the bits of the input value (the finalizer of SplitMix64).
+     * 
+     * @param value the value to scramble.
+     * @return the scrambled value.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+    
+    private static int getInt(MappedByteBuffer[] chunks, long position) {
+        return chunks[(int) (position >>> CHUNK_SHIFT)]
+                .getInt((int) (position & CHUNK_MASK));
+    }
+    
+    private static long getLong(MappedByteBuffer[] chunks, long position) {
+        return chunks[(int) (position >>> CHUNK_SHIFT)]
+                .getLong((int) (position & CHUNK_MASK));
+    }
+    
+    private static double getDouble(MappedByteBuffer[] chunks, long position) {
+        return chunks[(int) (position >>> CHUNK_SHIFT)]
+                .getDouble((int) (position & CHUNK_MASK));
+    }
+}
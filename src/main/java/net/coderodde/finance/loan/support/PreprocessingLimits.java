@@ -0,0 +1,99 @@
+package net.coderodde.finance.loan.support;
+
+/**
+ * This class holds the bounds at which a preprocessing finder stops building
+ * the lender list of an actor. A lender list is cut before the first lender 
+ * whose effective interest rate exceeds the maximum interest rate, once the
+ * lenders already in the list hold at least the maximum potential in total, 
+ * or once the list holds the maximum number of lenders. The queries that 
+ * cannot be answered from a cut lender list are delegated to an on-the-fly 
+ * finder.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 21, 2018)
+ */
+public final class PreprocessingLimits {
+    
+    /**
+     * The limits that never cut a lender list.
+     */
+    public static final PreprocessingLimits UNLIMITED = 
+            new PreprocessingLimits(Double.POSITIVE_INFINITY,
+                                    Double.POSITIVE_INFINITY,
+                                    Integer.MAX_VALUE);
+    
+    /**
+     * The maximum effective interest rate of a preprocessed lender.
+     */
+    private final double maximumInterestRate;
+    
+    /**
+     * The total potential after which no more lenders are preprocessed.
+     */
+    private final double maximumPotential;
+    
+    /**
+     * The maximum number of preprocessed lenders per actor.
+     */
+    private final int maximumNumberOfLenders;
+    
+    /**
+     * Constructs the preprocessing limits. Pass 
+     * {@link Double#POSITIVE_INFINITY} or {@link Integer#MAX_VALUE} in order 
+     * to leave a bound out.
+     * 
+     * @param maximumInterestRate    the maximum effective interest rate.
+     * @param maximumPotential       the maximum total potential.
+     * @param maximumNumberOfLenders the maximum number of lenders.
+     */
+    public PreprocessingLimits(double maximumInterestRate,
+                               double maximumPotential,
+                               int maximumNumberOfLenders) {
+        this.maximumInterestRate = 
+                checkBound(maximumInterestRate, "maximum interest rate");
+        this.maximumPotential = 
+                checkBound(maximumPotential, "maximum potential");
+        
+        if (maximumNumberOfLenders < 0) {
+            throw new IllegalArgumentException(
+                    "The maximum number of lenders is negative: " + 
+                    maximumNumberOfLenders + ".");
+        }
+        
+        this.maximumNumberOfLenders = maximumNumberOfLenders;
+    }
+    
+    public double getMaximumInterestRate() {
+        return maximumInterestRate;
+    }
+    
+    public double getMaximumPotential() {
+        return maximumPotential;
+    }
+    
+    public int getMaximumNumberOfLenders() {
+        return maximumNumberOfLenders;
+    }
+    
+    @Override
+    public String toString() {
+        return "[PreprocessingLimits, maximumInterestRate = " + 
+                maximumInterestRate + ", maximumPotential = " + 
+                maximumPotential + ", maximumNumberOfLenders = " + 
+                maximumNumberOfLenders + "]";
+    }
+    
+    private static double checkBound(double bound, String boundName) {
+        if (Double.isNaN(bound)) {
+            throw new IllegalArgumentException(
+                    "The " + boundName + " is NaN.");
+        }
+        
+        if (bound < 0.0) {
+            throw new IllegalArgumentException(
+                    "The " + boundName + " is negative: " + bound + ".");
+        }
+        
+        return bound;
+    }
+}
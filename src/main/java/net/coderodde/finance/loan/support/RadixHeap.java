@@ -0,0 +1,242 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * This class implements a monotone radix heap of heap nodes keyed by their
+ * effective interest rates. The bit patterns of non-negative doubles order
+ * the same way as the doubles themselves, so the heap is exact: the bucket
+ * of a node is the highest bit in which its key differs from the key last
+ * removed. Removing the minimum node touches only the lowest non-empty
+ * bucket, whose nodes are moved to lower buckets, so each node is moved at
+ * most 64 times during its stay in the heap.
+ * <p>
+ * The heap is monotone: a node may not be added with an effective interest
+ * rate below the rate of the last removed node. The searches satisfy this,
+ * since combining a non-negative rate with another one never decreases it.
+ * {@link #clear()} resets the last removed rate. The order of the nodes
+ * with equal rates is unspecified.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 26, 2018)
+ * @param <I> the actor identity type.
+ */
+final class RadixHeap<I> extends AbstractQueue<HeapNode<I>> {
+    
+    /**
+     * The number of buckets. The bucket 0 holds the nodes with the key last
+     * removed, and the bucket {@code b > 0} the nodes whose key differs from
+     * it first in the bit {@code b - 1}.
+     */
+    private static final int NUMBER_OF_BUCKETS = 65;
+    
+    /**
+     * The initial capacity of a bucket on its first use.
+     */
+    private static final int INITIAL_BUCKET_CAPACITY = 8;
+    
+    private final HeapNode<I>[][] buckets;
+    
+    /**
+     * The keys of the nodes, parallel to {@link #buckets}, so that moving the
+     * nodes between buckets does not need to dereference them.
+     */
+    private final long[][] bucketKeys;
+    
+    private final int[] bucketSizes = new int[NUMBER_OF_BUCKETS];
+    
+    /**
+     * The bit {@code b - 1} is set if the bucket {@code b > 0} is not empty.
+     */
+    private long nonEmptyBuckets;
+    
+    /**
+     * The key of the last removed node.
+     */
+    private long lastKey;
+    
+    private int size;
+    
+    @SuppressWarnings("unchecked")
+    RadixHeap() {
+        this.buckets = new HeapNode[NUMBER_OF_BUCKETS][];
+        this.bucketKeys = new long[NUMBER_OF_BUCKETS][];
+        
+        for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+            this.buckets[bucket] = new HeapNode[0];
+            this.bucketKeys[bucket] = new long[0];
+        }
+    }
+    
+    @Override
+    public Iterator<HeapNode<I>> iterator() {
+        List<HeapNode<I>> nodes = new ArrayList<>(size);
+        
+        for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+            nodes.addAll(
+                    Arrays.asList(buckets[bucket])
+                          .subList(0, bucketSizes[bucket]));
+        }
+        
+        // The iterator walks a snapshot, so it must not remove nodes:
+        return Collections.unmodifiableList(nodes).iterator();
+    }
+    
+    /**
+     * {@inheritDoc }
+     * 
+     * @throws IllegalArgumentException if the effective interest rate of the
+     *                                  node is negative or below the rate of
+     *                                  the last removed node.
+     */
+    @Override
+    public boolean offer(HeapNode<I> node) {
+        long key = getKey(node);
+        
+        if (key < lastKey) {
+            throw new IllegalArgumentException(
+                    "The effective interest rate of the node (" +
+                    node.getEffectiveInterestRate() +
+                    ") is below the rate of the last removed node (" +
+                    Double.longBitsToDouble(lastKey) + ").");
+        }
+        
+        insert(node, key);
+        size++;
+        return true;
+    }
+    
+    @Override
+    public HeapNode<I> poll() {
+        if (size == 0) {
+            return null;
+        }
+        
+        if (bucketSizes[0] == 0) {
+            redistribute();
+        }
+        
+        HeapNode<I>[] bucket = buckets[0];
+        int index = --bucketSizes[0];
+        HeapNode<I> node = bucket[index];
+        bucket[index] = null;
+        size--;
+        return node;
+    }
+    
+    /**
+     * {@inheritDoc }
+     * <p>
+     * Unlike {@link #poll()}, this method does not raise the lower bound of
+     * the rates of the nodes added later.
+     */
+    @Override
+    public HeapNode<I> peek() {
+        if (size == 0) {
+            return null;
+        }
+        
+        if (bucketSizes[0] > 0) {
+            return buckets[0][bucketSizes[0] - 1];
+        }
+        
+        int bucket = Long.numberOfTrailingZeros(nonEmptyBuckets) + 1;
+        long[] keys = bucketKeys[bucket];
+        int minimumIndex = 0;
+        
+        for (int i = 1; i < bucketSizes[bucket]; i++) {
+            if (keys[minimumIndex] > keys[i]) {
+                minimumIndex = i;
+            }
+        }
+        
+        return buckets[bucket][minimumIndex];
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    @Override
+    public void clear() {
+        for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+            Arrays.fill(buckets[bucket], 0, bucketSizes[bucket], null);
+            bucketSizes[bucket] = 0;
+        }
+        
+        nonEmptyBuckets = 0L;
+        lastKey = 0L;
+        size = 0;
+    }
+    
+    /**
+     * Returns the key of the input node. Adding zero maps the negative zero
+     * to the positive one, and any other negative rate to a negative key.
+     * 
+     * @param node the node.
+     * @return the key of the node.
+     */
+    private static long getKey(HeapNode<?> node) {
+        return Double.doubleToRawLongBits(
+                node.getEffectiveInterestRate() + 0.0);
+    }
+    
+    private void insert(HeapNode<I> node, long key) {
+        int bucket = 64 - Long.numberOfLeadingZeros(key ^ lastKey);
+        int bucketSize = bucketSizes[bucket];
+        
+        if (bucketSize == buckets[bucket].length) {
+            int capacity = Math.max(INITIAL_BUCKET_CAPACITY, 2 * bucketSize);
+            buckets[bucket] = Arrays.copyOf(buckets[bucket], capacity);
+            bucketKeys[bucket] = Arrays.copyOf(bucketKeys[bucket], capacity);
+        }
+        
+        buckets[bucket][bucketSize] = node;
+        bucketKeys[bucket][bucketSize] = key;
+        bucketSizes[bucket] = bucketSize + 1;
+        
+        if (bucket > 0) {
+            nonEmptyBuckets |= 1L << (bucket - 1);
+        }
+    }
+    
+    /**
+     * Empties the lowest non-empty bucket into the lower ones after making
+     * its minimum key the last removed key. The nodes with the minimum key
+     * end up in the bucket 0. Requires the bucket 0 to be empty and the heap
+     * not to be.
+     */
+    private void redistribute() {
+        int bucket = Long.numberOfTrailingZeros(nonEmptyBuckets) + 1;
+        HeapNode<I>[] nodes = buckets[bucket];
+        long[] keys = bucketKeys[bucket];
+        int bucketSize = bucketSizes[bucket];
+        long minimumKey = keys[0];
+        
+        for (int i = 1; i < bucketSize; i++) {
+            if (minimumKey > keys[i]) {
+                minimumKey = keys[i];
+            }
+        }
+        
+        lastKey = minimumKey;
+        bucketSizes[bucket] = 0;
+        nonEmptyBuckets &= ~(1L << (bucket - 1));
+        
+        for (int i = 0; i < bucketSize; i++) {
+            insert(nodes[i], keys[i]);
+            nodes[i] = null;
+        }
+    }
+}
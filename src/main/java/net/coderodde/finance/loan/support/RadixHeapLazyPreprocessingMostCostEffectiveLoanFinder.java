@@ -0,0 +1,43 @@
+package net.coderodde.finance.loan.support;
+
+import net.coderodde.finance.loan.ActorGraph;
+
+/**
+ * This class builds the lender lists lazily on demand using a monotone radix
+ * heap, and caches the recently used ones.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 26, 2018)
+ * @param <I> the actor identity type.
+ */
+public final class RadixHeapLazyPreprocessingMostCostEffectiveLoanFinder<I>
+        extends AbstractLazyPreprocessingMostCostEffectiveLoanFinder<I> {
+    
+    public RadixHeapLazyPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph) {
+        this(actorGraph, PreprocessingLimits.UNLIMITED);
+    }
+    
+    public RadixHeapLazyPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            int maximumCacheSize) {
+        this(actorGraph, PreprocessingLimits.UNLIMITED, maximumCacheSize);
+    }
+    
+    public RadixHeapLazyPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            PreprocessingLimits preprocessingLimits) {
+        this(actorGraph, preprocessingLimits, DEFAULT_MAXIMUM_CACHE_SIZE);
+    }
+    
+    public RadixHeapLazyPreprocessingMostCostEffectiveLoanFinder(
+            ActorGraph<I> actorGraph,
+            PreprocessingLimits preprocessingLimits,
+            int maximumCacheSize) {
+        super(actorGraph, 
+              RadixHeap::new, 
+              new RadixHeapMostCostEffectiveLoanFinder<>(),
+              preprocessingLimits,
+              maximumCacheSize);
+    }
+}
@@ -0,0 +1,17 @@
+package net.coderodde.finance.loan.support;
+
+/**
+ * This class implements the default most cost effective loan finder using
+ * a monotone radix heap.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 26, 2018)
+ * @param <I> the actor identity type.
+ */
+public final class RadixHeapMostCostEffectiveLoanFinder<I>
+        extends AbstractMostCostEffectiveLoanFinder<I> {
+    
+    public RadixHeapMostCostEffectiveLoanFinder() {
+        super(RadixHeap::new);
+    }
+}
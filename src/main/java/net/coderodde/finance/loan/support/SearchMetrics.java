@@ -0,0 +1,164 @@
+package net.coderodde.finance.loan.support;
+
+import net.coderodde.finance.loan.LoanQuery;
+
+/**
+ * This class holds the cost metrics of a single query. A finder creates the
+ * metrics only while a {@link SearchMetricsListener} is installed, so the
+ * queries of a finder without a listener pay nothing beyond a few local
+ * counters.
+ * <p>
+ * The search counters describe the priority queue searches run for the
+ * query: the search of an on-the-fly finder, or the building of a lender
+ * list on a cache miss of a lazily preprocessing finder. The queries answered
+ * from an existing lender list have no search, and the queries delegated to
+ * a fallback finder are reported by the fallback finder itself.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 25, 2018)
+ */
+public final class SearchMetrics {
+    
+    /**
+     * The value of {@link System#nanoTime()} at the start of the query.
+     */
+    private final long startNanos;
+    
+    private long heapInsertions;
+    private long heapRemovals;
+    private long stalePops;
+    private long arcsRelaxed;
+    private long actorsSettled;
+    private long lenderListSteps;
+    private long elapsedNanos;
+    private boolean fallbackUsed;
+    
+    SearchMetrics() {
+        this.startNanos = System.nanoTime();
+    }
+    
+    /**
+     * Returns the number of entries added to the priority queue.
+     * 
+     * @return the number of heap insertions.
+     */
+    public long getHeapInsertions() {
+        return heapInsertions;
+    }
+    
+    /**
+     * Returns the number of entries removed from the priority queue,
+     * including the stale ones.
+     * 
+     * @return the number of heap removals.
+     */
+    public long getHeapRemovals() {
+        return heapRemovals;
+    }
+    
+    /**
+     * Returns the number of removed entries whose actor was already settled
+     * through a cheaper path.
+     * 
+     * @return the number of stale pops.
+     */
+    public long getStalePops() {
+        return stalePops;
+    }
+    
+    /**
+     * Returns the number of incoming arcs scanned from the settled actors.
+     * 
+     * @return the number of relaxed arcs.
+     */
+    public long getArcsRelaxed() {
+        return arcsRelaxed;
+    }
+    
+    /**
+     * Returns the number of lenders settled by the searches.
+     * 
+     * @return the number of settled actors.
+     */
+    public long getActorsSettled() {
+        return actorsSettled;
+    }
+    
+    /**
+     * Returns the number of lender list entries walked to collect the loan.
+     * 
+     * @return the number of lender list steps.
+     */
+    public long getLenderListSteps() {
+        return lenderListSteps;
+    }
+    
+    /**
+     * Returns the wall-clock duration of the query in nanoseconds, including
+     * the repairs of the lender lists triggered by the query.
+     * 
+     * @return the elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+    
+    /**
+     * Returns {@code true} only if a lender list finder could not answer the
+     * query from its lender list and delegated it to its fallback finder.
+     * 
+     * @return {@code true} if the fallback finder was used.
+     */
+    public boolean isFallbackUsed() {
+        return fallbackUsed;
+    }
+    
+    @Override
+    public String toString() {
+        return "[SearchMetrics, heapInsertions = " + heapInsertions +
+               ", heapRemovals = " + heapRemovals +
+               ", stalePops = " + stalePops +
+               ", arcsRelaxed = " + arcsRelaxed +
+               ", actorsSettled = " + actorsSettled +
+               ", lenderListSteps = " + lenderListSteps +
+               ", elapsedNanos = " + elapsedNanos +
+               ", fallbackUsed = " + fallbackUsed + "]";
+    }
+    
+    void addSearch(long heapInsertions,
+                   long heapRemovals,
+                   long stalePops,
+                   long arcsRelaxed,
+                   long actorsSettled) {
+        this.heapInsertions += heapInsertions;
+        this.heapRemovals += heapRemovals;
+        this.stalePops += stalePops;
+        this.arcsRelaxed += arcsRelaxed;
+        this.actorsSettled += actorsSettled;
+    }
+    
+    void setFallbackUsed() {
+        this.fallbackUsed = true;
+    }
+    
+    /**
+     * Stops the clock of the query and hands these metrics to the listener.
+     * Unless the loan came from a fallback finder, each lender of the loan
+     * took one lender list step.
+     * 
+     * @param <I>             the actor identity type.
+     * @param listener        the listener to notify.
+     * @param query           the answered query.
+     * @param numberOfLenders the number of lenders of the query.
+     */
+    <I> void report(SearchMetricsListener<I> listener,
+                    LoanQuery<I> query,
+                    int numberOfLenders) {
+        if (!fallbackUsed) {
+            lenderListSteps += numberOfLenders;
+        }
+        
+        elapsedNanos = System.nanoTime() - startNanos;
+        listener.onQueryCompleted(query, this);
+    }
+}
@@ -0,0 +1,25 @@
+package net.coderodde.finance.loan.support;
+
+import net.coderodde.finance.loan.LoanQuery;
+
+/**
+ * This interface defines the API for objects receiving the cost metrics of
+ * the queries answered by a finder. The method is called on the thread that
+ * ran the query, after the loan is computed, so an implementation serving a
+ * finder shared by several threads must be thread-safe.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 25, 2018)
+ * @param <I> the actor identity type.
+ */
+@FunctionalInterface
+public interface SearchMetricsListener<I> {
+    
+    /**
+     * Called after a query is answered.
+     * 
+     * @param query   the query.
+     * @param metrics the cost metrics of the query.
+     */
+    public void onQueryCompleted(LoanQuery<I> query, SearchMetrics metrics);
+}
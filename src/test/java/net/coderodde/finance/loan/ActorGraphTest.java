@@ -1,6 +1,10 @@
 package net.coderodde.finance.loan;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -189,4 +193,239 @@ public class ActorGraphTest {
         assertTrue(graph2.hasArc(actor2b, actor2c));
         assertFalse(graph2.hasArc(actor2c, actor2b));
     }
+    
+    @Test
+    public void testListenerEvents() {
+        Actor<String> alice = new Actor<>("Alice");
+        Actor<String> bob = new Actor<>("Bob");
+        ActorGraph<String> graph = new ActorGraph<>();
+        List<String> events = new ArrayList<>();
+        ActorGraphListener<String> listener = new ActorGraphListener<String>() {
+            @Override
+            public void onActorAdded(Actor<String> actor) {
+                events.add("add " + actor.getIdentity());
+            }
+            
+            @Override
+            public void beforeActorRemoved(Actor<String> actor) {
+                events.add("remove " + actor.getIdentity());
+            }
+            
+            @Override
+            public void onArcChanged(Actor<String> sourceActor, 
+                                     Actor<String> targetActor) {
+                events.add("arc " + sourceActor.getIdentity() 
+                                  + " " + targetActor.getIdentity());
+            }
+            
+            @Override
+            public void onGraphCleared() {
+                events.add("clear");
+            }
+        };
+        
+        graph.addActorGraphListener(listener);
+        graph.addActor(alice, 1.0);
+        graph.addActor(bob, 1.0);
+        graph.addActor(bob, 2.0);
+        graph.addArc(alice, bob, 0.1);
+        graph.removeArc(bob, alice);
+        graph.removeArc(alice, bob);
+        graph.removeActor(bob);
+        graph.clear();
+        graph.removeActorGraphListener(listener);
+        graph.addActor(bob, 1.0);
+        
+        assertEquals(
+                Arrays.asList("add Alice", 
+                                        "add Bob", 
+                                        "arc Alice Bob",
+                                        "arc Alice Bob",
+                                        "remove Bob",
+                                        "clear"),
+                events);
+    }
+    
+    @Test
+    public void testPotentialUpdateIsNotStructural() {
+        Actor<String> alice = new Actor<>("Alice");
+        ActorGraph<String> graph = new ActorGraph<>();
+        graph.addActor(alice, 1.0);
+        
+        int modificationCount = graph.getModificationCount();
+        int potentialModificationCount = 
+                graph.getPotentialModificationCount();
+        
+        graph.addActor(alice, 2.0);
+        
+        assertEquals(modificationCount, graph.getModificationCount());
+        assertEquals(potentialModificationCount + 1, 
+                     graph.getPotentialModificationCount());
+        
+        graph.addActor(alice, 2.0);
+        
+        assertEquals(potentialModificationCount + 1, 
+                     graph.getPotentialModificationCount());
+    }
+    
+    @Test
+    public void testBatchAppliesChangesInOrder() {
+        Actor<String> alice = new Actor<>("Alice");
+        Actor<String> janice = new Actor<>("Janice");
+        Actor<String> bob = new Actor<>("Bob");
+        ActorGraph<String> graph = new ActorGraph<>();
+        
+        graph.addActor(alice, 500.0);
+        graph.addActor(janice, 300.0);
+        graph.addArc(alice, janice, 0.1);
+        int modificationCount = graph.getModificationCount();
+        int potentialModificationCount = 
+                graph.getPotentialModificationCount();
+        List<String> events = new ArrayList<>();
+        graph.addActorGraphListener(new ActorGraphListener<String>() {
+            @Override
+            public void onArcChanged(Actor<String> sourceActor, 
+                                     Actor<String> targetActor) {
+                events.add(sourceActor.getIdentity() + "->" + 
+                           targetActor.getIdentity());
+            }
+        });
+        
+        ActorGraph.Batch<String> batch = 
+                graph.batch()
+                     .addActor(bob, 100.0)
+                     .addArc(bob, alice, 0.2)
+                     .addArc(janice, bob, 0.3)
+                     .addArc(bob, alice, 0.25)
+                     .removeArc(alice, janice)
+                     .removeArc(alice, bob);
+        
+        assertEquals(6, batch.size());
+        // Nothing is applied before the commit:
+        assertEquals(2, graph.getNumberOfActors());
+        
+        batch.commit();
+        
+        assertEquals(3, graph.getNumberOfActors());
+        assertEquals(2, graph.getNumberOfArcs());
+        assertEquals(0.25, graph.getInterestRate(bob, alice), EPSILON);
+        assertEquals(0.3, graph.getInterestRate(janice, bob), EPSILON);
+        assertFalse(graph.hasArc(alice, janice));
+        assertEquals(modificationCount + 1, graph.getModificationCount());
+        assertEquals(potentialModificationCount + 1, 
+                     graph.getPotentialModificationCount());
+        assertEquals(Arrays.asList("Bob->Alice", 
+                                   "Janice->Bob", 
+                                   "Bob->Alice", 
+                                   "Alice->Janice"), 
+                     events);
+    }
+    
+    @Test
+    public void testInvalidBatchLeavesGraphUntouched() {
+        Actor<String> alice = new Actor<>("Alice");
+        Actor<String> janice = new Actor<>("Janice");
+        Actor<String> bob = new Actor<>("Bob");
+        ActorGraph<String> graph = new ActorGraph<>();
+        
+        graph.addActor(alice, 500.0);
+        graph.addActor(janice, 300.0);
+        int modificationCount = graph.getModificationCount();
+        ActorGraph.Batch<String> batch = 
+                graph.batch()
+                     .addArc(alice, janice, 0.1)
+                     .removeActor(janice)
+                     .addArc(bob, alice, 0.2);
+        
+        try {
+            batch.commit();
+            fail("The batch refers to an actor not in the graph.");
+        } catch (IllegalStateException ex) {
+            // Expected.
+        }
+        
+        assertEquals(2, graph.getNumberOfActors());
+        assertEquals(0, graph.getNumberOfArcs());
+        assertEquals(modificationCount, graph.getModificationCount());
+    }
+    
+    @Test
+    public void testBatchMayRemoveActors() {
+        Actor<String> alice = new Actor<>("Alice");
+        Actor<String> janice = new Actor<>("Janice");
+        Actor<String> bob = new Actor<>("Bob");
+        ActorGraph<String> graph = new ActorGraph<>();
+        
+        graph.addActor(alice, 500.0);
+        graph.addActor(janice, 300.0);
+        graph.addArc(alice, janice, 0.1);
+        graph.batch()
+             .addActor(bob, 100.0)
+             .addArc(bob, janice, 0.1)
+             .removeActor(alice)
+             .commit();
+        
+        assertNull(alice.getActorGraph());
+        assertEquals(2, graph.getNumberOfActors());
+        assertEquals(1, graph.getNumberOfArcs());
+        assertEquals(1, graph.getIncomingArcs(janice).size());
+        
+        graph.clear();
+        assertEquals(0, graph.getNumberOfArcs());
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testBatchCommitsOnlyOnce() {
+        ActorGraph<String> graph = new ActorGraph<>();
+        ActorGraph.Batch<String> batch = 
+                graph.batch().addActor(new Actor<>("Alice"), 1.0);
+        batch.commit();
+        batch.commit();
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchRejectsSelfLoops() {
+        Actor<String> alice = new Actor<>("Alice");
+        new ActorGraph<String>().batch().addArc(alice, alice, 0.1);
+    }
+    
+    @Test
+    public void testSlotsAreDenseAndRecycled() {
+        ActorGraph<String> graph = new ActorGraph<>();
+        ActorGraph<String> otherGraph = new ActorGraph<>();
+        Actor<String> alice = new Actor<>("Alice");
+        Actor<String> bob = new Actor<>("Bob");
+        Actor<String> janice = new Actor<>("Janice");
+        
+        assertEquals(-1, alice.getSlot());
+        
+        graph.addActor(alice, 1.0);
+        graph.addActor(bob, 1.0);
+        graph.addActor(janice, 1.0);
+        
+        assertEquals(0, alice.getSlot());
+        assertEquals(1, bob.getSlot());
+        assertEquals(2, janice.getSlot());
+        assertEquals(3, graph.getSlotBound());
+        
+        graph.removeActor(bob);
+        assertEquals(-1, bob.getSlot());
+        
+        // Moving an actor to another graph releases its slot:
+        otherGraph.addActor(alice, 1.0);
+        assertEquals(0, alice.getSlot());
+        assertEquals(1, otherGraph.getSlotBound());
+        
+        graph.addActor(bob, 1.0);
+        graph.addActor(alice, 1.0);
+        assertEquals(3, graph.getSlotBound());
+        assertEquals(3, new HashSet<>(
+                Arrays.asList(alice.getSlot(), 
+                              bob.getSlot(), 
+                              janice.getSlot())).size());
+        
+        graph.clear();
+        assertEquals(-1, janice.getSlot());
+        assertEquals(0, graph.getSlotBound());
+    }
 }
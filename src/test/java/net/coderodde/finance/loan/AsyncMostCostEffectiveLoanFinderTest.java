@@ -0,0 +1,264 @@
+package net.coderodde.finance.loan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.coderodde.finance.loan.support.BinaryHeapMostCostEffectiveLoanFinder;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * The {@link net.coderodde.finance.loan.AsyncMostCostEffectiveLoanFinder}
+ * unit tests.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 26, 2018)
+ */
+public class AsyncMostCostEffectiveLoanFinderTest {
+    
+    private static final int ACTORS = 100;
+    private static final int ARCS = 1_000;
+    private static final int QUERIES = 100;
+    private static final int THREADS = 4;
+    
+    @Test
+    public void testAgreesWithSynchronousFinder() throws Exception {
+        Random random = new Random(37L);
+        List<Actor<Integer>> actors = new ArrayList<>();
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        
+        for (int id = 0; id < ACTORS; id++) {
+            Actor<Integer> actor = new Actor<>(id);
+            actors.add(actor);
+            graph.addActor(actor, 100.0 * random.nextDouble());
+        }
+        
+        while (graph.getNumberOfArcs() < ARCS) {
+            Actor<Integer> sourceActor = actors.get(random.nextInt(ACTORS));
+            Actor<Integer> targetActor = actors.get(random.nextInt(ACTORS));
+            
+            if (!sourceActor.equals(targetActor)) {
+                graph.addArc(sourceActor,
+                             targetActor,
+                             0.1 * random.nextDouble());
+            }
+        }
+        
+        MostCostEffectiveLoanFinder<Integer> finder =
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        List<MostCostEffectiveLoan<Integer>> expectedLoans = new ArrayList<>();
+        List<CompletableFuture<MostCostEffectiveLoan<Integer>>> futures =
+                new ArrayList<>();
+        
+        try (AsyncMostCostEffectiveLoanFinder<Integer> asyncFinder =
+                new AsyncMostCostEffectiveLoanFinder<>(finder, THREADS)) {
+            for (int i = 0; i < QUERIES; i++) {
+                Actor<Integer> actor = actors.get(random.nextInt(ACTORS));
+                double requestedPotential = 1000.0 * random.nextDouble();
+                double maximumInterestRate = 0.3 * random.nextDouble();
+                expectedLoans.add(finder.findLenders(actor,
+                                                     requestedPotential,
+                                                     maximumInterestRate));
+                futures.add(asyncFinder.findLendersAsync(actor,
+                                                         requestedPotential,
+                                                         maximumInterestRate,
+                                                         1L,
+                                                         TimeUnit.MINUTES));
+            }
+            
+            for (int i = 0; i < QUERIES; i++) {
+                assertEquals(expectedLoans.get(i), futures.get(i).get());
+            }
+        }
+    }
+    
+    @Test
+    public void testTimeoutStopsSearch() throws Exception {
+        SlowFinder finder = new SlowFinder();
+        
+        try (AsyncMostCostEffectiveLoanFinder<Integer> asyncFinder =
+                new AsyncMostCostEffectiveLoanFinder<>(finder, 1)) {
+            CompletableFuture<MostCostEffectiveLoan<Integer>> future =
+                    asyncFinder.findLendersAsync(finder.borrower,
+                                                 1000.0,
+                                                 1.0,
+                                                 50L,
+                                                 TimeUnit.MILLISECONDS);
+            try {
+                future.get();
+                fail("The query did not time out.");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof TimeoutException);
+            }
+            
+            finder.searchStopped.await();
+            assertTrue(finder.settledLenders.get() < SlowFinder.LENDERS);
+        }
+    }
+    
+    @Test
+    public void testCancellationStopsSearch() throws Exception {
+        SlowFinder finder = new SlowFinder();
+        
+        try (AsyncMostCostEffectiveLoanFinder<Integer> asyncFinder =
+                new AsyncMostCostEffectiveLoanFinder<>(finder, 1)) {
+            CompletableFuture<MostCostEffectiveLoan<Integer>> future =
+                    asyncFinder.findLendersAsync(finder.borrower, 1000.0, 1.0);
+            finder.searchStarted.await();
+            assertTrue(future.cancel(true));
+            
+            try {
+                future.get();
+                fail("The query was not cancelled.");
+            } catch (CancellationException ex) {
+                // Expected.
+            }
+            
+            finder.searchStopped.await();
+            assertTrue(finder.settledLenders.get() < SlowFinder.LENDERS);
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnNonPositiveTimeout() {
+        try (AsyncMostCostEffectiveLoanFinder<Integer> asyncFinder =
+                new AsyncMostCostEffectiveLoanFinder<>(
+                        new BinaryHeapMostCostEffectiveLoanFinder<>(),
+                        Runnable::run)) {
+            asyncFinder.findLendersAsync(new Actor<>(0),
+                                         1.0,
+                                         1.0,
+                                         0L,
+                                         TimeUnit.SECONDS);
+        }
+    }
+    
+    @Test
+    public void testRejectsQueriesAfterClose() throws Exception {
+        AsyncMostCostEffectiveLoanFinder<Integer> asyncFinder =
+                new AsyncMostCostEffectiveLoanFinder<>(
+                        new BinaryHeapMostCostEffectiveLoanFinder<>(),
+                        Runnable::run);
+        asyncFinder.close();
+        
+        assertRejected(asyncFinder.findLendersAsync(new Actor<>(0), 1.0, 1.0));
+        assertRejected(asyncFinder.findLendersAsync(new Actor<>(0),
+                                                    1.0,
+                                                    1.0,
+                                                    1L,
+                                                    TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testCloseWhileSubmittingCompletesFuture() throws Exception {
+        List<Runnable> submittedQueries = new ArrayList<>();
+        List<AsyncMostCostEffectiveLoanFinder<Integer>> asyncFinders =
+                new ArrayList<>();
+        // Closes the facade after the query is accepted, but before the 
+        // timeout is scheduled:
+        Executor executor = (runnable) -> {
+            submittedQueries.add(runnable);
+            asyncFinders.get(0).close();
+        };
+        SlowFinder finder = new SlowFinder();
+        asyncFinders.add(new AsyncMostCostEffectiveLoanFinder<>(finder,
+                                                                executor));
+        
+        CompletableFuture<MostCostEffectiveLoan<Integer>> future =
+                asyncFinders.get(0).findLendersAsync(finder.borrower,
+                                                     1000.0,
+                                                     1.0,
+                                                     1L,
+                                                     TimeUnit.MINUTES);
+        assertRejected(future);
+        
+        submittedQueries.get(0).run();
+        assertEquals(0, finder.settledLenders.get());
+    }
+    
+    private static void assertRejected(CompletableFuture<?> future) 
+            throws InterruptedException {
+        assertTrue(future.isDone());
+        
+        try {
+            future.get();
+            fail("The query was not rejected.");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof RejectedExecutionException);
+        }
+    }
+    
+    /**
+     * A finder whose lenders take a while to settle. The borrower has
+     * {@link #LENDERS} direct lenders.
+     */
+    private static final class SlowFinder
+            implements MostCostEffectiveLoanFinder<Integer> {
+        
+        static final int LENDERS = 100;
+        
+        final Actor<Integer> borrower = new Actor<>(0);
+        final MostCostEffectiveLoanFinder<Integer> finder =
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        final AtomicInteger settledLenders = new AtomicInteger();
+        final CountDownLatch searchStarted = new CountDownLatch(1);
+        final CountDownLatch searchStopped = new CountDownLatch(1);
+        
+        SlowFinder() {
+            ActorGraph<Integer> graph = new ActorGraph<>();
+            graph.addActor(borrower, 0.0);
+            
+            for (int id = 1; id <= LENDERS; id++) {
+                Actor<Integer> lender = new Actor<>(id);
+                graph.addActor(lender, 1.0);
+                graph.addArc(lender, borrower, 0.001 * id);
+            }
+        }
+        
+        @Override
+        public MostCostEffectiveLoan<Integer> findLenders(
+                Actor<Integer> actor,
+                double requiredPrincipal,
+                double maximumInterestRate) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public void findLenders(Actor<Integer> actor,
+                                double requiredPrincipal,
+                                double maximumInterestRate,
+                                LenderConsumer<Integer> consumer) {
+            LenderConsumer<Integer> slowConsumer =
+                    (lender, potential, rate, direction) -> {
+                        searchStarted.countDown();
+                        settledLenders.incrementAndGet();
+                        
+                        try {
+                            Thread.sleep(10L);
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                        
+                        return consumer.accept(lender,
+                                               potential,
+                                               rate,
+                                               direction);
+                    };
+            
+            finder.findLenders(actor,
+                               requiredPrincipal,
+                               maximumInterestRate,
+                               slowConsumer);
+            searchStopped.countDown();
+        }
+    }
+}
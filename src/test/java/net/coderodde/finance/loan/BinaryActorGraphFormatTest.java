@@ -0,0 +1,112 @@
+package net.coderodde.finance.loan;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import net.coderodde.finance.loan.support.BinaryHeapCompactMostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.support.BinaryHeapMostCostEffectiveLoanFinder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static net.coderodde.finance.loan.RandomActorGraphs.buildRandomGraph;
+import static org.junit.Assert.*;
+
+/**
+ * The {@link net.coderodde.finance.loan.BinaryActorGraphFormat} unit tests.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 24, 2018)
+ */
+public class BinaryActorGraphFormatTest {
+    
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
+    @Test
+    public void testWritesAndReadsActorGraph() throws IOException {
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        List<Actor<Integer>> actors = buildRandomGraph(graph, 71L, 100, 500);
+        Path path = temporaryFolder.newFile().toPath();
+        
+        BinaryActorGraphFormat.write(graph, path, IdentityCodec.INTEGER);
+        ActorGraph<Integer> readGraph =
+                BinaryActorGraphFormat.readActorGraph(path,
+                                                      IdentityCodec.INTEGER);
+        
+        assertEquals(graph.getNumberOfActors(), readGraph.getNumberOfActors());
+        assertEquals(graph.getNumberOfArcs(), readGraph.getNumberOfArcs());
+        
+        for (Actor<Integer> actor : readGraph.getActorSet()) {
+            Actor<Integer> originalActor = actors.get(actor.getIdentity());
+            
+            assertEquals(graph.getActorPotential(originalActor),
+                         readGraph.getActorPotential(actor),
+                         0.0);
+            assertEquals(graph.getIncomingArcs(originalActor),
+                         readGraph.getIncomingArcs(actor));
+            
+            for (Actor<Integer> sourceActor :
+                    readGraph.getIncomingArcs(actor)) {
+                assertEquals(graph.getInterestRate(
+                                     actors.get(sourceActor.getIdentity()),
+                                     originalActor),
+                             readGraph.getInterestRate(sourceActor, actor),
+                             0.0);
+            }
+        }
+        
+        // The read graph is fully functional:
+        Actor<Integer> actor = readGraph.getActorSet().iterator().next();
+        readGraph.removeActor(actor);
+        assertEquals(graph.getNumberOfActors() - 1,
+                     readGraph.getNumberOfActors());
+    }
+    
+    @Test
+    public void testReadsCompactActorGraph() throws IOException {
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        List<Actor<Integer>> actors = buildRandomGraph(graph, 71L, 100, 500);
+        Path path = temporaryFolder.newFile().toPath();
+        
+        BinaryActorGraphFormat.write(graph, path, IdentityCodec.INTEGER);
+        CompactActorGraph<Integer> compactGraph =
+                BinaryActorGraphFormat.readCompactActorGraph(
+                        path,
+                        IdentityCodec.INTEGER);
+        MostCostEffectiveLoanFinder<Integer> finder =
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        MostCostEffectiveLoanFinder<Integer> compactFinder =
+                new BinaryHeapCompactMostCostEffectiveLoanFinder<>(
+                        compactGraph);
+        
+        assertEquals(graph.getNumberOfArcs(), compactGraph.getNumberOfArcs());
+        
+        for (Actor<Integer> actor : actors) {
+            assertEquals(finder.findLenders(actor, 100.0, 0.3),
+                         compactFinder.findLenders(actor, 100.0, 0.3));
+        }
+    }
+    
+    @Test(expected = IOException.class)
+    public void testRejectsForeignFile() throws IOException {
+        Path path = temporaryFolder.newFile().toPath();
+        Files.write(path, new byte[64]);
+        BinaryActorGraphFormat.readActorGraph(path, IdentityCodec.INTEGER);
+    }
+    
+    @Test(expected = IOException.class)
+    public void testRejectsTruncatedFile() throws IOException {
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        buildRandomGraph(graph, 71L, 100, 500);
+        Path path = temporaryFolder.newFile().toPath();
+        
+        BinaryActorGraphFormat.write(graph, path, IdentityCodec.INTEGER);
+        byte[] bytes = Files.readAllBytes(path);
+        byte[] truncatedBytes = new byte[bytes.length / 2];
+        System.arraycopy(bytes, 0, truncatedBytes, 0, truncatedBytes.length);
+        Files.write(path, truncatedBytes);
+        
+        BinaryActorGraphFormat.readActorGraph(path, IdentityCodec.INTEGER);
+    }
+}
@@ -0,0 +1,96 @@
+package net.coderodde.finance.loan;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * The {@link net.coderodde.finance.loan.CompactActorGraph} unit tests.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 15, 2018)
+ */
+public class CompactActorGraphTest {
+    
+    private static final double EPSILON = 0.001;
+    
+    @Test
+    public void testFreeze() {
+        Actor<String> alice = new Actor<>("Alice");
+        Actor<String> janice = new Actor<>("Janice");
+        Actor<String> bob = new Actor<>("Bob");
+        ActorGraph<String> graph = new ActorGraph<>();
+        
+        graph.addActor(alice, 500.0);
+        graph.addActor(janice, 300.0);
+        graph.addActor(bob, 100.0);
+        
+        graph.addArc(alice, bob, 0.2);
+        graph.addArc(janice, bob, 0.199);
+        graph.addArc(alice, janice, 0.3);
+        
+        CompactActorGraph<String> compactGraph = graph.freeze();
+        
+        assertEquals(3, compactGraph.getNumberOfActors());
+        assertEquals(3, compactGraph.getNumberOfArcs());
+        assertEquals(graph.getModificationCount(), 
+                     compactGraph.getModificationCount());
+        
+        int aliceIndex = compactGraph.getActorIndex(alice);
+        int janiceIndex = compactGraph.getActorIndex(janice);
+        int bobIndex = compactGraph.getActorIndex(bob);
+        
+        assertEquals(alice, compactGraph.getActor(aliceIndex));
+        assertEquals(janice, compactGraph.getActor(janiceIndex));
+        assertEquals(bob, compactGraph.getActor(bobIndex));
+        
+        assertEquals(500.0, compactGraph.getActorPotential(aliceIndex), 
+                     EPSILON);
+        assertEquals(300.0, compactGraph.getActorPotential(janiceIndex),
+                     EPSILON);
+        assertEquals(100.0, compactGraph.getActorPotential(bobIndex), 
+                     EPSILON);
+        
+        assertEquals(compactGraph.getIncomingArcStart(aliceIndex),
+                     compactGraph.getIncomingArcEnd(aliceIndex));
+        
+        Set<Integer> bobsLenders = new HashSet<>();
+        
+        for (int arc = compactGraph.getIncomingArcStart(bobIndex);
+                arc < compactGraph.getIncomingArcEnd(bobIndex);
+                arc++) {
+            int lenderIndex = compactGraph.getArcSource(arc);
+            bobsLenders.add(lenderIndex);
+            assertEquals(
+                    graph.getInterestRate(compactGraph.getActor(lenderIndex), 
+                                          bob),
+                    compactGraph.getArcInterestRate(arc),
+                    EPSILON);
+        }
+        
+        assertEquals(2, bobsLenders.size());
+        assertTrue(bobsLenders.contains(aliceIndex));
+        assertTrue(bobsLenders.contains(janiceIndex));
+    }
+    
+    @Test
+    public void testSnapshotIsNotAffectedByLaterModifications() {
+        Actor<String> alice = new Actor<>("Alice");
+        Actor<String> bob = new Actor<>("Bob");
+        ActorGraph<String> graph = new ActorGraph<>();
+        
+        graph.addActor(alice, 500.0);
+        graph.addActor(bob, 100.0);
+        graph.addArc(alice, bob, 0.2);
+        
+        CompactActorGraph<String> compactGraph = graph.freeze();
+        
+        graph.removeArc(alice, bob);
+        graph.addActor(new Actor<>("Janice"), 10.0);
+        
+        assertEquals(2, compactGraph.getNumberOfActors());
+        assertEquals(1, compactGraph.getNumberOfArcs());
+        assertEquals(-1, compactGraph.getActorIndex(new Actor<>("Janice")));
+    }
+}
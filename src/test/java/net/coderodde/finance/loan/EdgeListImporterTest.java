@@ -0,0 +1,176 @@
+package net.coderodde.finance.loan;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.finance.loan.support.BinaryHeapCompactMostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.support.BinaryHeapMostCostEffectiveLoanFinder;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * The {@link net.coderodde.finance.loan.EdgeListImporter} unit tests.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 25, 2018)
+ */
+public class EdgeListImporterTest {
+    
+    private final EdgeListImporter<String> importer =
+            new EdgeListImporter<>(s -> s);
+    
+    @Test
+    public void testImportsActorsAndArcs() throws IOException {
+        EdgeListImportReport<ActorGraph<String>> report =
+                importer.importActorGraph(
+                        toInput("# A comment.\r\n" +
+                                "a,10.5\r\n" +
+                                "b\t2\n" +
+                                "\n" +
+                                " a , b , 0.07\n" +
+                                "b\tc\t1.25e-1\n" +
+                                "c,a,0.1"));
+        ActorGraph<String> graph = report.getGraph();
+        Actor<String> a = new Actor<>("a");
+        Actor<String> b = new Actor<>("b");
+        Actor<String> c = new Actor<>("c");
+        
+        assertTrue(report.isSuccessful());
+        assertEquals(7, report.getNumberOfLines());
+        assertEquals(3, graph.getNumberOfActors());
+        assertEquals(3, graph.getNumberOfArcs());
+        assertEquals(10.5, graph.getActorPotential(getActor(graph, a)), 0.0);
+        assertEquals(2.0, graph.getActorPotential(getActor(graph, b)), 0.0);
+        assertEquals(0.0, graph.getActorPotential(getActor(graph, c)), 0.0);
+        assertEquals(0.07,
+                     graph.getInterestRate(getActor(graph, a),
+                                           getActor(graph, b)),
+                     0.0);
+        assertEquals(0.125,
+                     graph.getInterestRate(getActor(graph, b),
+                                           getActor(graph, c)),
+                     0.0);
+        assertEquals(0.1,
+                     graph.getInterestRate(getActor(graph, c),
+                                           getActor(graph, a)),
+                     0.0);
+    }
+    
+    @Test
+    public void testReportsMalformedLines() throws IOException {
+        EdgeListImportReport<ActorGraph<Integer>> report =
+                new EdgeListImporter<>(Integer::valueOf).importActorGraph(
+                        toInput("source,target,interestRate\n" +
+                                "1,2,0.1\n" +
+                                "1,-0.5\n" +
+                                "2,3,NaN\n" +
+                                "3,3,0.1\n" +
+                                "1,2\t3,0.1\n" +
+                                "1,,0.1\n" +
+                                "2,4,x\n" +
+                                "4,5,0.2\n"));
+        ActorGraph<Integer> graph = report.getGraph();
+        
+        assertFalse(report.isSuccessful());
+        assertEquals(9, report.getNumberOfLines());
+        assertEquals(7, report.getNumberOfErrors());
+        assertEquals(7, report.getErrors().size());
+        assertTrue(report.getErrors().get(0).startsWith("Line 1: "));
+        assertTrue(report.getErrors().get(2).startsWith("Line 4: "));
+        
+        // The skipped lines leave no actors behind:
+        assertEquals(4, graph.getNumberOfActors());
+        assertEquals(2, graph.getNumberOfArcs());
+        assertFalse(graph.getActorSet().contains(new Actor<>(3)));
+    }
+    
+    @Test
+    public void testLastDuplicateArcWins() throws IOException {
+        EdgeListImportReport<ActorGraph<Integer>> report =
+                new EdgeListImporter<>(Integer::valueOf).importActorGraph(
+                        toInput("1,2,0.1\n" +
+                                "3,2,0.3\n" +
+                                "1,2,0.2\n" +
+                                // Same identity as "1":
+                                "01,2,0.05\n"));
+        ActorGraph<Integer> graph = report.getGraph();
+        
+        assertTrue(report.isSuccessful());
+        assertEquals(2, report.getNumberOfDuplicateArcs());
+        assertEquals(3, graph.getNumberOfActors());
+        assertEquals(2, graph.getNumberOfArcs());
+        assertEquals(0.05,
+                     graph.getInterestRate(getActor(graph, new Actor<>(1)),
+                                           getActor(graph, new Actor<>(2))),
+                     0.0);
+    }
+    
+    @Test
+    public void testAgreesWithIncrementallyBuiltGraph() throws IOException {
+        Random random = new Random(13L);
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        List<Actor<Integer>> actors = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        
+        for (int id = 0; id < 300; id++) {
+            Actor<Integer> actor = new Actor<>(id);
+            double potential = 100.0 * random.nextDouble();
+            actors.add(actor);
+            graph.addActor(actor, potential);
+            sb.append(id).append(',').append(potential).append('\n');
+        }
+        
+        // More than the read buffer, so that lines straddle refills:
+        for (int i = 0; i < 6000; i++) {
+            int sourceId = random.nextInt(300);
+            int targetId = random.nextInt(300);
+            double interestRate = 0.1 * random.nextDouble();
+            
+            if (sourceId != targetId) {
+                graph.addArc(actors.get(sourceId),
+                             actors.get(targetId),
+                             interestRate);
+                sb.append(sourceId).append('\t')
+                  .append(targetId).append('\t')
+                  .append(interestRate).append('\n');
+            }
+        }
+        
+        EdgeListImportReport<CompactActorGraph<Integer>> report =
+                new EdgeListImporter<>(Integer::valueOf)
+                        .importCompactActorGraph(toInput(sb.toString()));
+        CompactActorGraph<Integer> compactGraph = report.getGraph();
+        
+        assertTrue(report.isSuccessful());
+        assertEquals(graph.getNumberOfArcs(), compactGraph.getNumberOfArcs());
+        
+        MostCostEffectiveLoanFinder<Integer> finder =
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        MostCostEffectiveLoanFinder<Integer> compactFinder =
+                new BinaryHeapCompactMostCostEffectiveLoanFinder<>(
+                        compactGraph);
+        
+        for (Actor<Integer> actor : actors) {
+            assertEquals(finder.findLenders(actor, 500.0, 0.3),
+                         compactFinder.findLenders(actor, 500.0, 0.3));
+        }
+    }
+    
+    private static ByteArrayInputStream toInput(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    // Returns the actor of the graph equal to the input actor.
+    private static <I> Actor<I> getActor(ActorGraph<I> graph, Actor<I> actor) {
+        for (Actor<I> graphActor : graph.getActorSet()) {
+            if (graphActor.equals(actor)) {
+                return graphActor;
+            }
+        }
+        
+        throw new AssertionError("No actor " + actor + ".");
+    }
+}
@@ -0,0 +1,159 @@
+package net.coderodde.finance.loan;
+
+import java.util.HashMap;
+import java.util.Map;
+import net.coderodde.finance.loan.support.BinaryHeapCompactMostCostEffectiveLoanFinder;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * The {@link net.coderodde.finance.loan.MostCostEffectiveLoan} unit tests.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 26, 2018)
+ */
+public class MostCostEffectiveLoanTest {
+    
+    private static final double EPSILON = 0.001;
+    
+    private final Actor<String> alice = new Actor<>("Alice");
+    private final Actor<String> bob = new Actor<>("Bob");
+    private final Actor<String> carol = new Actor<>("Carol");
+    
+    @Test
+    public void testIndexedLenders() {
+        ActorGraph<String> graph = new ActorGraph<>();
+        graph.addActor(alice, 0.0);
+        graph.addActor(bob, 10.0);
+        graph.addActor(carol, 20.0);
+        graph.addArc(bob, alice, 0.1);
+        graph.addArc(carol, bob, 0.1);
+        
+        MostCostEffectiveLoan<String> loan =
+                new BinaryHeapCompactMostCostEffectiveLoanFinder<>(
+                        graph.freeze()).findLenders(alice, 25.0, 1.0);
+        
+        assertEquals(2, loan.getNumberOfLenders());
+        assertEquals(bob, loan.getLender(0));
+        assertEquals(10.0, loan.getLenderPotential(0), EPSILON);
+        assertEquals(alice, loan.getLenderDirection(0));
+        assertEquals(carol, loan.getLender(1));
+        assertEquals(15.0, loan.getLenderPotential(1), EPSILON);
+        assertEquals(bob, loan.getLenderDirection(1));
+        
+        assertEquals(15.0, loan.getPotentialMapView().get(carol), EPSILON);
+        assertEquals(alice, loan.getDirectionMap().get(bob));
+        assertSame(loan.getPotentialMapView(), loan.getPotentialMapView());
+        assertSame(loan.getDirectionMap(), loan.getDirectionMap());
+    }
+    
+    @Test
+    public void testArrayAndMapConstructorsAgree() {
+        Map<Actor<String>, Double> potentialMap = new HashMap<>();
+        Map<Actor<String>, Actor<String>> directionMap = new HashMap<>();
+        potentialMap.put(bob, 10.0);
+        potentialMap.put(carol, 5.0);
+        directionMap.put(bob, alice);
+        directionMap.put(carol, bob);
+        
+        MostCostEffectiveLoan<String> mapLoan =
+                new MostCostEffectiveLoan<>(alice,
+                                            15.0,
+                                            20.0,
+                                            0.5,
+                                            potentialMap,
+                                            directionMap);
+        MostCostEffectiveLoan<String> arrayLoan =
+                new MostCostEffectiveLoan<>(alice,
+                                            15.0,
+                                            20.0,
+                                            0.5,
+                                            new Actor[]{ carol, bob },
+                                            new double[]{ 5.0, 10.0 },
+                                            new Actor[]{ bob, alice });
+        
+        assertEquals(mapLoan, arrayLoan);
+        assertEquals(arrayLoan, mapLoan);
+        assertEquals(2, mapLoan.getNumberOfLenders());
+        assertEquals(potentialMap, arrayLoan.getPotentialMapView());
+        assertEquals(directionMap, arrayLoan.getDirectionMap());
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void testMapViewIsUnmodifiable() {
+        new MostCostEffectiveLoan<>(alice,
+                                    0.0,
+                                    1.0,
+                                    0.5,
+                                    new Actor[0],
+                                    new double[0],
+                                    new Actor[0])
+                .getPotentialMapView()
+                .put(bob, 1.0);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnArraysOfDifferentLengths() {
+        new MostCostEffectiveLoan<>(alice,
+                                    0.0,
+                                    1.0,
+                                    0.5,
+                                    new Actor[]{ bob },
+                                    new double[0],
+                                    new Actor[]{ alice });
+    }
+    
+    @Test
+    public void testCopiesLenderArrays() {
+        Actor<String>[] lenders = new Actor[]{ bob, carol, null };
+        double[] lenderPotentials = new double[]{ 10.0, 5.0, 0.0 };
+        Actor<String>[] lenderDirections = new Actor[]{ alice, bob, null };
+        
+        MostCostEffectiveLoan<String> loan =
+                new MostCostEffectiveLoan<>(alice,
+                                            15.0,
+                                            20.0,
+                                            0.5,
+                                            lenders,
+                                            lenderPotentials,
+                                            lenderDirections,
+                                            2);
+        lenders[0] = carol;
+        lenderPotentials[0] = 1.0;
+        lenderDirections[0] = carol;
+        
+        assertEquals(2, loan.getNumberOfLenders());
+        assertEquals(bob, loan.getLender(0));
+        assertEquals(10.0, loan.getLenderPotential(0), EPSILON);
+        assertEquals(alice, loan.getLenderDirection(0));
+        assertEquals(carol, loan.getLender(1));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnTooManyLenders() {
+        new MostCostEffectiveLoan<>(alice,
+                                    0.0,
+                                    1.0,
+                                    0.5,
+                                    new Actor[]{ bob },
+                                    new double[]{ 1.0 },
+                                    new Actor[]{ alice },
+                                    2);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnMapsWithDifferentLenders() {
+        Map<Actor<String>, Double> potentialMap = new HashMap<>();
+        Map<Actor<String>, Actor<String>> directionMap = new HashMap<>();
+        potentialMap.put(bob, 10.0);
+        potentialMap.put(carol, 5.0);
+        directionMap.put(bob, alice);
+        
+        new MostCostEffectiveLoan<>(alice,
+                                    15.0,
+                                    20.0,
+                                    0.5,
+                                    potentialMap,
+                                    directionMap);
+    }
+}
@@ -0,0 +1,123 @@
+package net.coderodde.finance.loan;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import net.coderodde.finance.loan.support.BinaryHeapCompactMostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.support.BinaryHeapMostCostEffectiveLoanFinder;
+import net.coderodde.finance.loan.support.DaryHeapCompactMostCostEffectiveLoanFinder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static net.coderodde.finance.loan.RandomActorGraphs.buildRandomGraph;
+import static org.junit.Assert.*;
+
+/**
+ * The {@link net.coderodde.finance.loan.OffHeapActorGraph} unit tests. The
+ * graphs are split into tiny chunks, so that the chunk boundaries are
+ * crossed.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 26, 2018)
+ */
+public class OffHeapActorGraphTest {
+    
+    private static final int ACTORS = 100;
+    private static final int ARCS = 500;
+    private static final int CHUNK_SHIFT = 4;
+    
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
+    @Test
+    public void testCopyAgreesWithCompactGraph() {
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        List<Actor<Integer>> actors = 
+                buildRandomGraph(graph, 73L, ACTORS, ARCS);
+        CompactActorGraph<Integer> compactGraph = graph.freeze();
+        OffHeapActorGraph<Integer> offHeapGraph =
+                OffHeapActorGraph.copyOf(compactGraph, CHUNK_SHIFT);
+        
+        assertEquals(ACTORS, offHeapGraph.getNumberOfActors());
+        assertEquals(ARCS, offHeapGraph.getNumberOfArcs());
+        
+        for (int i = 0; i < ACTORS; i++) {
+            assertEquals(compactGraph.getActor(i), offHeapGraph.getActor(i));
+            assertEquals(i, offHeapGraph.getActorIndex(actors.get(
+                    compactGraph.getActor(i).getIdentity())));
+            assertEquals(compactGraph.getActorPotential(i),
+                         offHeapGraph.getActorPotential(i),
+                         0.0);
+            assertEquals(compactGraph.getIncomingArcStart(i),
+                         offHeapGraph.getIncomingArcStart(i));
+            assertEquals(compactGraph.getIncomingArcEnd(i),
+                         offHeapGraph.getIncomingArcEnd(i));
+        }
+        
+        for (int arc = 0; arc < ARCS; arc++) {
+            assertEquals(compactGraph.getArcSource(arc),
+                         offHeapGraph.getArcSource(arc));
+            assertEquals(compactGraph.getArcInterestRate(arc),
+                         offHeapGraph.getArcInterestRate(arc),
+                         0.0);
+        }
+        
+        assertEquals(-1, offHeapGraph.getActorIndex(new Actor<>(ACTORS)));
+        
+        MostCostEffectiveLoanFinder<Integer> finder =
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        MostCostEffectiveLoanFinder<Integer> offHeapFinder =
+                new DaryHeapCompactMostCostEffectiveLoanFinder<>(
+                        offHeapGraph);
+        
+        for (Actor<Integer> actor : actors) {
+            assertEquals(finder.findLenders(actor, 100.0, 0.3),
+                         offHeapFinder.findLenders(actor, 100.0, 0.3));
+        }
+    }
+    
+    @Test
+    public void testMapsGraphFile() throws IOException {
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        List<Actor<Integer>> actors = 
+                buildRandomGraph(graph, 73L, ACTORS, ARCS);
+        Path path = temporaryFolder.newFile().toPath();
+        
+        BinaryActorGraphFormat.write(graph, path, IdentityCodec.INTEGER);
+        OffHeapActorGraph<Integer> offHeapGraph =
+                BinaryActorGraphFormat.readOffHeapActorGraph(
+                        path,
+                        IdentityCodec.INTEGER,
+                        CHUNK_SHIFT);
+        MostCostEffectiveLoanFinder<Integer> finder =
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        MostCostEffectiveLoanFinder<Integer> offHeapFinder =
+                new BinaryHeapCompactMostCostEffectiveLoanFinder<>(
+                        offHeapGraph);
+        
+        assertEquals(ARCS, offHeapGraph.getNumberOfArcs());
+        
+        for (Actor<Integer> actor : actors) {
+            assertEquals(finder.findLenders(actor, 100.0, 0.3),
+                         offHeapFinder.findLenders(actor, 100.0, 0.3));
+        }
+    }
+    
+    @Test(expected = IOException.class)
+    public void testRejectsInvalidArcSource() throws IOException {
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        buildRandomGraph(graph, 73L, ACTORS, ARCS);
+        Path path = temporaryFolder.newFile().toPath();
+        
+        BinaryActorGraphFormat.write(graph, path, IdentityCodec.INTEGER);
+        byte[] bytes = Files.readAllBytes(path);
+        int sourcesPosition = 16 + 8 * ACTORS + 8 * ARCS + 4 * (ACTORS + 1);
+        ByteBuffer.wrap(bytes).putInt(sourcesPosition, ACTORS);
+        Files.write(path, bytes);
+        
+        BinaryActorGraphFormat.readOffHeapActorGraph(path,
+                                                     IdentityCodec.INTEGER);
+    }
+}
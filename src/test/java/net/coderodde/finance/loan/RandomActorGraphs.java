@@ -0,0 +1,95 @@
+package net.coderodde.finance.loan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class builds the random actor graphs shared by the tests. The actors
+ * are identified by the integers {@code 0, 1, ..., n - 1} and have the
+ * potentials drawn uniformly from {@code [0, 10)}. The arcs connect random
+ * distinct actors and have the interest rates drawn uniformly from
+ * {@code [0, 0.1)}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 26, 2018)
+ */
+public final class RandomActorGraphs {
+    
+    private RandomActorGraphs() {}
+    
+    /**
+     * Adds {@code numberOfActors} random actors and {@code numberOfArcs}
+     * random arcs to the input graph.
+     * 
+     * @param graph          the graph to populate.
+     * @param seed           the seed of the random number generator.
+     * @param numberOfActors the number of actors to add.
+     * @param numberOfArcs   the number of arcs to add.
+     * @return the added actors in the order of their identities.
+     */
+    public static List<Actor<Integer>> buildRandomGraph(
+            ActorGraph<Integer> graph,
+            long seed,
+            int numberOfActors,
+            int numberOfArcs) {
+        return buildRandomGraph(graph,
+                                new Random(seed),
+                                numberOfActors,
+                                numberOfArcs);
+    }
+    
+    /**
+     * Adds {@code numberOfActors} random actors and {@code numberOfArcs}
+     * random arcs to the input graph. The random number generator may be
+     * used further by the caller.
+     * 
+     * @param graph          the graph to populate.
+     * @param random         the random number generator.
+     * @param numberOfActors the number of actors to add.
+     * @param numberOfArcs   the number of arcs to add.
+     * @return the added actors in the order of their identities.
+     */
+    public static List<Actor<Integer>> buildRandomGraph(
+            ActorGraph<Integer> graph,
+            Random random,
+            int numberOfActors,
+            int numberOfArcs) {
+        List<Actor<Integer>> actors = new ArrayList<>(numberOfActors);
+        
+        for (int id = 0; id < numberOfActors; id++) {
+            Actor<Integer> actor = new Actor<>(id);
+            actors.add(actor);
+            graph.addActor(actor, 10.0 * random.nextDouble());
+        }
+        
+        int targetNumberOfArcs = graph.getNumberOfArcs() + numberOfArcs;
+        
+        while (graph.getNumberOfArcs() < targetNumberOfArcs) {
+            addRandomArc(graph, actors, random);
+        }
+        
+        return actors;
+    }
+    
+    /**
+     * Adds an arc between two random actors unless they coincide. An
+     * existing arc gets a new interest rate.
+     * 
+     * @param graph  the graph to add the arc to.
+     * @param actors the actors to choose from.
+     * @param random the random number generator.
+     */
+    public static void addRandomArc(ActorGraph<Integer> graph,
+                                    List<Actor<Integer>> actors,
+                                    Random random) {
+        Actor<Integer> sourceActor = 
+                actors.get(random.nextInt(actors.size()));
+        Actor<Integer> targetActor = 
+                actors.get(random.nextInt(actors.size()));
+        
+        if (!sourceActor.equals(targetActor)) {
+            graph.addArc(sourceActor, targetActor, 0.1 * random.nextDouble());
+        }
+    }
+}
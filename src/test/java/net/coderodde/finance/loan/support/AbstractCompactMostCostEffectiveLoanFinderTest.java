@@ -0,0 +1,135 @@
+package net.coderodde.finance.loan.support;
+
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.CompactActorGraph;
+import net.coderodde.finance.loan.MostCostEffectiveLoan;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ * This test class provides the common template for testing the finders 
+ * running against a {@link CompactActorGraph}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 15, 2018)
+ */
+public abstract class AbstractCompactMostCostEffectiveLoanFinderTest {
+    
+    private static final double EPSILON = 0.001;
+    
+    protected abstract MostCostEffectiveLoanFinder<String> 
+        createFinder(CompactActorGraph<String> actorGraph);
+    
+    @Test
+    public void test1() {
+        ActorGraph<String> graph = new ActorGraph<>();
+        Actor<String> actorA = new Actor<>("A");
+        Actor<String> actorB = new Actor<>("B");
+        Actor<String> actorC = new Actor<>("C");
+        Actor<String> actorD = new Actor<>("D");
+        
+        graph.addActor(actorA, 0);
+        graph.addActor(actorB, 10);
+        graph.addActor(actorC, 20);
+        graph.addActor(actorD, 15);
+        
+        graph.addArc(actorB, actorD, 0.05);
+        graph.addArc(actorD, actorC, 0.2);
+        graph.addArc(actorC, actorB, 0.15);
+        graph.addArc(actorB, actorA, 0.1);
+        
+        MostCostEffectiveLoanFinder<String> finder = 
+                createFinder(graph.freeze());
+        
+        MostCostEffectiveLoan<String> loan = 
+                finder.findLenders(actorA, 35.0, 0.6);
+        
+        assertEquals(35.0, loan.getReceivedPotential(), EPSILON);
+        assertEquals(35.0, loan.getRequestedPotential(), EPSILON);
+        
+        assertEquals(10.0, loan.getPotentialMapView().get(actorB), EPSILON);
+        assertEquals(20.0, loan.getPotentialMapView().get(actorC), EPSILON);
+        assertEquals(5.0,  loan.getPotentialMapView().get(actorD), EPSILON);
+        
+        assertEquals(actorA, loan.getDirectionMap().get(actorB));
+        assertEquals(actorB, loan.getDirectionMap().get(actorC));
+        assertEquals(actorC, loan.getDirectionMap().get(actorD));
+        
+        loan = finder.findLenders(actorA, 35.0, 0.5);
+        
+        assertEquals(30.0, loan.getReceivedPotential(), EPSILON);
+        assertEquals(35.0, loan.getRequestedPotential(), EPSILON);
+        
+        assertEquals(10.0, loan.getPotentialMapView().get(actorB), EPSILON);
+        assertEquals(20.0, loan.getPotentialMapView().get(actorC), EPSILON);
+        
+        assertEquals(actorA, loan.getDirectionMap().get(actorB));
+        assertEquals(actorB, loan.getDirectionMap().get(actorC));
+        
+        loan = finder.findLenders(actorA, 50.0, 0.7);
+        
+        assertEquals(45.0, loan.getReceivedPotential(), EPSILON);
+        assertEquals(50.0, loan.getRequestedPotential(), EPSILON);
+        
+        assertEquals(10.0, loan.getPotentialMapView().get(actorB), EPSILON);
+        assertEquals(20.0, loan.getPotentialMapView().get(actorC), EPSILON);
+        assertEquals(15.0, loan.getPotentialMapView().get(actorD), EPSILON);
+        
+        assertEquals(actorA, loan.getDirectionMap().get(actorB));
+        assertEquals(actorB, loan.getDirectionMap().get(actorC));
+        assertEquals(actorC, loan.getDirectionMap().get(actorD));
+    }   
+    
+    @Test
+    public void test2() {
+        ActorGraph<String> graph = new ActorGraph<>();
+        Actor<String> actorA = new Actor<>("A");
+        Actor<String> actorB = new Actor<>("B");
+        Actor<String> actorC = new Actor<>("C");
+        Actor<String> actorD = new Actor<>("D");
+        
+        graph.addActor(actorA, 4.0);
+        graph.addActor(actorB, 10.0);
+        graph.addActor(actorC, 9.0);
+        graph.addActor(actorD, 8.0);
+        
+        graph.addArc(actorB, actorA, 0.4);
+        graph.addArc(actorC, actorA, 0.3);
+        graph.addArc(actorD, actorA, 0.2);
+        
+        MostCostEffectiveLoanFinder<String> finder = 
+                createFinder(graph.freeze());
+        
+        MostCostEffectiveLoan<String> loan = 
+                finder.findLenders(actorA, 5.0, 0.5);
+        
+        assertEquals(5.0, loan.getReceivedPotential(), EPSILON);
+        assertEquals(5.0, loan.getRequestedPotential(), EPSILON);
+        assertEquals(actorA, loan.getDirectionMap().get(actorD));
+        assertNull(loan.getDirectionMap().get(actorB));
+        assertNull(loan.getDirectionMap().get(actorC));
+    }
+    
+    @Test
+    public void testBorrowerIsNotItsOwnLender() {
+        ActorGraph<String> graph = new ActorGraph<>();
+        Actor<String> actorA = new Actor<>("A");
+        Actor<String> actorB = new Actor<>("B");
+        
+        graph.addActor(actorA, 10.0);
+        graph.addActor(actorB, 10.0);
+        
+        graph.addArc(actorA, actorB, 0.1);
+        graph.addArc(actorB, actorA, 0.1);
+        
+        MostCostEffectiveLoan<String> loan = 
+                createFinder(graph.freeze()).findLenders(actorA, 20.0, 1.0);
+        
+        assertEquals(10.0, loan.getReceivedPotential(), EPSILON);
+        assertFalse(loan.getPotentialMapView().containsKey(actorA));
+    }
+}
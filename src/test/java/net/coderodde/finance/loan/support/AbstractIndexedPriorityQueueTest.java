@@ -0,0 +1,136 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * This test class provides the common template for testing the 
+ * implementations of {@link IndexedPriorityQueue}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 17, 2018)
+ */
+public abstract class AbstractIndexedPriorityQueueTest {
+    
+    private static final int ELEMENTS = 1000;
+    
+    protected abstract IndexedPriorityQueue createQueue(int capacity);
+    
+    @Test
+    public void testExtractsInPriorityOrder() {
+        testExtractsInPriorityOrder(createQueue(ELEMENTS));
+    }
+    
+    @Test
+    public void testDecreasePriority() {
+        IndexedPriorityQueue heap = createQueue(0);
+        heap.ensureCapacity(4);
+        
+        heap.insert(0, 4.0);
+        heap.insert(1, 3.0);
+        heap.insert(2, 2.0);
+        heap.insert(3, 1.0);
+        
+        heap.decreasePriority(0, 0.5);
+        assertEquals(0.5, heap.getPriority(0), 0.0);
+        assertEquals(0, heap.peekMinimum());
+        assertEquals(0, heap.extractMinimum());
+        assertFalse(heap.contains(0));
+        assertEquals(3, heap.extractMinimum());
+        
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(1));
+        assertFalse(heap.contains(2));
+    }
+    
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(17L);
+        IndexedPriorityQueue heap = createQueue(ELEMENTS);
+        double[] priorities = new double[ELEMENTS];
+        boolean[] present = new boolean[ELEMENTS];
+        int size = 0;
+        
+        for (int operation = 0; operation < 20 * ELEMENTS; operation++) {
+            int element = random.nextInt(ELEMENTS);
+            int choice = random.nextInt(3);
+            
+            if (choice == 0 && !present[element]) {
+                priorities[element] = random.nextDouble();
+                present[element] = true;
+                heap.insert(element, priorities[element]);
+                size++;
+            } else if (choice == 1 && present[element]) {
+                priorities[element] *= random.nextDouble();
+                heap.decreasePriority(element, priorities[element]);
+            } else if (choice == 2 && size > 0) {
+                double minimumPriority = Double.POSITIVE_INFINITY;
+                
+                for (int i = 0; i < ELEMENTS; i++) {
+                    if (present[i]) {
+                        minimumPriority = Math.min(minimumPriority, 
+                                                   priorities[i]);
+                    }
+                }
+                
+                int minimumElement = heap.extractMinimum();
+                assertEquals(minimumPriority, 
+                             priorities[minimumElement], 
+                             0.0);
+                present[minimumElement] = false;
+                size--;
+            }
+            
+            assertEquals(size, heap.size());
+            assertEquals(present[element], heap.contains(element));
+        }
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testThrowsOnExtractingFromEmptyHeap() {
+        createQueue(1).extractMinimum();
+    }
+    
+    private static void testExtractsInPriorityOrder(
+            IndexedPriorityQueue heap) {
+        Random random = new Random(13L);
+        double[] priorities = new double[ELEMENTS];
+        
+        for (int element = 0; element < ELEMENTS; element++) {
+            priorities[element] = random.nextDouble();
+            heap.insert(element, priorities[element]);
+        }
+        
+        for (int element = 0; element < ELEMENTS; element += 3) {
+            priorities[element] /= 2.0;
+            heap.decreasePriority(element, priorities[element]);
+        }
+        
+        Arrays.sort(priorities);
+        assertEquals(ELEMENTS, heap.size());
+        
+        for (double priority : priorities) {
+            assertEquals(priority, heap.getPriority(heap.peekMinimum()), 0.0);
+            int element = heap.extractMinimum();
+            assertFalse(heap.contains(element));
+        }
+        
+        assertTrue(heap.isEmpty());
+        
+        for (int element = 0; element < ELEMENTS; element++) {
+            heap.insert(element, priorities[ELEMENTS - 1 - element]);
+        }
+        
+        double previousPriority = Double.NEGATIVE_INFINITY;
+        
+        while (!heap.isEmpty()) {
+            double priority = heap.getPriority(heap.peekMinimum());
+            assertTrue(previousPriority <= priority);
+            heap.extractMinimum();
+            previousPriority = priority;
+        }
+    }
+}
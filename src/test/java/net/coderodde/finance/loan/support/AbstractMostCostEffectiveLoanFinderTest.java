@@ -109,4 +109,32 @@ public abstract class AbstractMostCostEffectiveLoanFinderTest {
         
         System.out.println(loan);
     }
+    
+    @Test
+    public void testLenderReachableViaSeveralPathsIsSettledOnce() {
+        ActorGraph<String> graph = new ActorGraph<>();
+        Actor<String> actorA = new Actor<>("A");
+        Actor<String> actorB = new Actor<>("B");
+        Actor<String> actorC = new Actor<>("C");
+        Actor<String> actorD = new Actor<>("D");
+        
+        graph.addActor(actorA, 1.0);
+        graph.addActor(actorB, 2.0);
+        graph.addActor(actorC, 3.0);
+        graph.addActor(actorD, 4.0);
+        
+        graph.addArc(actorB, actorA, 0.1);
+        graph.addArc(actorC, actorA, 0.2);
+        graph.addArc(actorD, actorB, 0.1);
+        graph.addArc(actorD, actorC, 0.1);
+        graph.addArc(actorA, actorD, 0.1);
+        
+        MostCostEffectiveLoan<String> loan = 
+                finder.findLenders(actorA, 100.0, 1.0);
+        
+        assertEquals(9.0, loan.getReceivedPotential(), EPSILON);
+        assertEquals(4.0, loan.getPotentialMapView().get(actorD), EPSILON);
+        assertEquals(actorB, loan.getDirectionMap().get(actorD));
+        assertNull(loan.getPotentialMapView().get(actorA));
+    }
 }
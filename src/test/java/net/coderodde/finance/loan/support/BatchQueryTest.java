@@ -0,0 +1,112 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.LoanQuery;
+import net.coderodde.finance.loan.MostCostEffectiveLoan;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * This test class checks that the batch queries are answered exactly as the
+ * same queries issued one by one.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 23, 2018)
+ */
+public class BatchQueryTest {
+    
+    private static final int ACTORS = 200;
+    private static final int ARCS = 2_000;
+    private static final int BORROWERS = 20;
+    private static final int QUERIES = 500;
+    private static final int THREADS = 4;
+    
+    @Test
+    public void testBinaryHeapFinder() {
+        testFinder(graph -> new BinaryHeapMostCostEffectiveLoanFinder<>());
+    }
+    
+    @Test
+    public void testFibonacciHeapFinder() {
+        testFinder(graph -> new FibonacciHeapMostCostEffectiveLoanFinder<>());
+    }
+    
+    @Test
+    public void testBinaryHeapPreprocessingFinder() {
+        testFinder(graph ->
+                new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(
+                        graph));
+    }
+    
+    @Test
+    public void testEmptyBatch() {
+        MostCostEffectiveLoanFinder<Integer> finder =
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        
+        assertTrue(finder.findLendersBatch(Collections.emptyList()).isEmpty());
+        assertTrue(finder.findLendersBatch(Collections.emptyList(), THREADS)
+                         .isEmpty());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnNonPositiveParallelism() {
+        new BinaryHeapMostCostEffectiveLoanFinder<Integer>()
+                .findLendersBatch(Collections.emptyList(), 0);
+    }
+    
+    private interface FinderFactory {
+        MostCostEffectiveLoanFinder<Integer> create(ActorGraph<Integer> graph);
+    }
+    
+    private static void testFinder(FinderFactory finderFactory) {
+        Random random = new Random(29L);
+        List<Actor<Integer>> actors = new ArrayList<>();
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        
+        for (int id = 0; id < ACTORS; id++) {
+            Actor<Integer> actor = new Actor<>(id);
+            actors.add(actor);
+            graph.addActor(actor, 100.0 * random.nextDouble());
+        }
+        
+        while (graph.getNumberOfArcs() < ARCS) {
+            Actor<Integer> sourceActor = actors.get(random.nextInt(ACTORS));
+            Actor<Integer> targetActor = actors.get(random.nextInt(ACTORS));
+            
+            if (!sourceActor.equals(targetActor)) {
+                graph.addArc(sourceActor,
+                             targetActor,
+                             0.1 * random.nextDouble());
+            }
+        }
+        
+        MostCostEffectiveLoanFinder<Integer> finder =
+                finderFactory.create(graph);
+        List<LoanQuery<Integer>> queries = new ArrayList<>(QUERIES);
+        List<MostCostEffectiveLoan<Integer>> expectedLoans =
+                new ArrayList<>(QUERIES);
+        
+        // Few borrowers so that each of them gets many queries:
+        for (int i = 0; i < QUERIES; i++) {
+            Actor<Integer> actor = actors.get(random.nextInt(BORROWERS));
+            double requestedPotential = 2000.0 * random.nextDouble();
+            double maximumInterestRate = 0.3 * random.nextDouble();
+            queries.add(new LoanQuery<>(actor,
+                                        requestedPotential,
+                                        maximumInterestRate));
+            expectedLoans.add(finder.findLenders(actor,
+                                                 requestedPotential,
+                                                 maximumInterestRate));
+        }
+        
+        assertEquals(expectedLoans, finder.findLendersBatch(queries));
+        assertEquals(expectedLoans, finder.findLendersBatch(queries, THREADS));
+    }
+}
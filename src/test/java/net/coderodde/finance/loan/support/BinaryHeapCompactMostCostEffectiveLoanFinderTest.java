@@ -0,0 +1,14 @@
+package net.coderodde.finance.loan.support;
+
+import net.coderodde.finance.loan.CompactActorGraph;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+
+public class BinaryHeapCompactMostCostEffectiveLoanFinderTest 
+        extends AbstractCompactMostCostEffectiveLoanFinderTest {
+    
+    @Override
+    protected MostCostEffectiveLoanFinder<String> 
+        createFinder(CompactActorGraph<String> actorGraph) {
+        return new BinaryHeapCompactMostCostEffectiveLoanFinder<>(actorGraph);
+    }
+}
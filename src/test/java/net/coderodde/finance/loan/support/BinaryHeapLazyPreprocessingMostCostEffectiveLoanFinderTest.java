@@ -0,0 +1,139 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.List;
+import java.util.Random;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+import static net.coderodde.finance.loan.RandomActorGraphs.buildRandomGraph;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ * This test class implements the test for 
+ * {@link BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 20, 2018)
+ */
+public final class BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinderTest {
+    
+    @Test
+    public void testAgreesWithEagerPreprocessing() {
+        Random random = new Random(37L);
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        List<Actor<Integer>> actors = buildRandomGraph(graph, random, 50, 150);
+        
+        MostCostEffectiveLoanFinder<Integer> eagerFinder = 
+                new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(graph);
+        BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder<Integer> 
+                lazyFinder = 
+                new BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder<>(
+                        graph, 
+                        10);
+        
+        assertEquals(0, lazyFinder.getCacheSize());
+        
+        for (int round = 0; round < 2; round++) {
+            for (Actor<Integer> actor : actors) {
+                assertEquals(eagerFinder.findLenders(actor, 50.0, 0.3),
+                             lazyFinder.findLenders(actor, 50.0, 0.3));
+            }
+        }
+        
+        assertEquals(10, lazyFinder.getCacheSize());
+        assertEquals(0, lazyFinder.getCacheHitCount());
+        assertEquals(2 * actors.size(), lazyFinder.getCacheMissCount());
+        assertEquals(2 * actors.size() - 10, 
+                     lazyFinder.getCacheEvictionCount());
+        
+        Actor<Integer> actor = actors.get(0);
+        lazyFinder.findLenders(actor, 10.0, 0.3);
+        lazyFinder.findLenders(actor, 20.0, 0.3);
+        
+        assertEquals(1, lazyFinder.getCacheHitCount());
+    }
+    
+    @Test
+    public void testDropsChangedLenderLists() {
+        Random random = new Random(41L);
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        List<Actor<Integer>> actors = buildRandomGraph(graph, random, 50, 150);
+        MostCostEffectiveLoanFinder<Integer> lazyFinder = 
+                new BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder<>(
+                        graph);
+        
+        for (int round = 0; round < 10; round++) {
+            for (Actor<Integer> actor : actors) {
+                lazyFinder.findLenders(actor, 50.0, 0.3);
+            }
+            
+            Actor<Integer> sourceActor = actors.get(random.nextInt(50));
+            Actor<Integer> targetActor = actors.get(random.nextInt(50));
+            
+            if (sourceActor.equals(targetActor)) {
+                continue;
+            }
+            
+            if (graph.hasArc(sourceActor, targetActor)) {
+                graph.removeArc(sourceActor, targetActor);
+            } else {
+                graph.addArc(sourceActor, targetActor, 0.01);
+            }
+            
+            MostCostEffectiveLoanFinder<Integer> freshFinder = 
+                    new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(
+                            graph);
+            
+            for (Actor<Integer> actor : actors) {
+                assertEquals(freshFinder.findLenders(actor, 50.0, 0.3),
+                             lazyFinder.findLenders(actor, 50.0, 0.3));
+            }
+        }
+    }
+    
+    @Test
+    public void testInvalidatesOnlyListsContainingChangedActor() {
+        ActorGraph<String> graph = new ActorGraph<>();
+        Actor<String> actorA = new Actor<>("A");
+        Actor<String> actorB = new Actor<>("B");
+        Actor<String> actorC = new Actor<>("C");
+        Actor<String> actorD = new Actor<>("D");
+        
+        graph.addActor(actorA, 0.0);
+        graph.addActor(actorB, 10.0);
+        graph.addActor(actorC, 0.0);
+        graph.addActor(actorD, 10.0);
+        graph.addArc(actorB, actorA, 0.1);
+        graph.addArc(actorD, actorC, 0.1);
+        
+        BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder<String> 
+                finder = 
+                new BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder<>(
+                        graph);
+        
+        double[] prefixSumsOfA = 
+                finder.getLenderList(actorA).getPotentialPrefixSums(graph);
+        double[] prefixSumsOfC = 
+                finder.getLenderList(actorC).getPotentialPrefixSums(graph);
+        
+        graph.addActor(actorB, 4.0);
+        
+        assertEquals(4.0, finder.getAvailablePotential(actorA, 0.5), 0.001);
+        assertEquals(10.0, finder.getAvailablePotential(actorC, 0.5), 0.001);
+        assertEquals(2, finder.getCacheSize());
+        assertNotSame(prefixSumsOfA, 
+                      finder.getLenderList(actorA)
+                            .getPotentialPrefixSums(graph));
+        assertSame(prefixSumsOfC, 
+                   finder.getLenderList(actorC).getPotentialPrefixSums(graph));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnNonPositiveMaximumCacheSize() {
+        new BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder<>(
+                new ActorGraph<String>(), 0);
+    }
+}
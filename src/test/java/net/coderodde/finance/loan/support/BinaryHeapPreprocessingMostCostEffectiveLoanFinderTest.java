@@ -1,12 +1,24 @@
 package net.coderodde.finance.loan.support;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import net.coderodde.finance.loan.Actor;
 import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.IdentityCodec;
 import net.coderodde.finance.loan.MostCostEffectiveLoan;
 import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+import static net.coderodde.finance.loan.RandomActorGraphs.addRandomArc;
+import static net.coderodde.finance.loan.RandomActorGraphs.buildRandomGraph;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * This test class implements the test for 
@@ -19,6 +31,9 @@ public final class BinaryHeapPreprocessingMostCostEffectiveLoanFinderTest {
     
     private static final double EPSILON = 0.001;
     
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
     @Test
     public void test1() {
         ActorGraph<String> graph = new ActorGraph<>();
@@ -110,4 +125,388 @@ public final class BinaryHeapPreprocessingMostCostEffectiveLoanFinderTest {
         
         System.out.println(loan);
     }
+    
+    @Test
+    public void testParallelPreprocessing() {
+        Random random = new Random(29L);
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        List<Actor<Integer>> actors = new ArrayList<>();
+        
+        for (int id = 0; id < 200; id++) {
+            Actor<Integer> actor = new Actor<>(id);
+            actors.add(actor);
+            graph.addActor(actor, 10.0 * random.nextDouble());
+        }
+        
+        while (graph.getNumberOfArcs() < 2000) {
+            Actor<Integer> sourceActor = actors.get(random.nextInt(200));
+            Actor<Integer> targetActor = actors.get(random.nextInt(200));
+            
+            if (!sourceActor.equals(targetActor)) {
+                graph.addArc(sourceActor, 
+                             targetActor, 
+                             0.1 * random.nextDouble());
+            }
+        }
+        
+        MostCostEffectiveLoanFinder<Integer> sequentialFinder = 
+                new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(graph);
+        MostCostEffectiveLoanFinder<Integer> parallelFinder = 
+                new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(graph,
+                                                                         4);
+        
+        for (Actor<Integer> actor : actors) {
+            assertEquals(sequentialFinder.findLenders(actor, 100.0, 0.3),
+                         parallelFinder.findLenders(actor, 100.0, 0.3));
+        }
+    }
+    
+    @Test
+    public void testAgreesWithSearchingFinder() {
+        Random random = new Random(43L);
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        List<Actor<Integer>> actors = new ArrayList<>();
+        
+        for (int id = 0; id < 100; id++) {
+            Actor<Integer> actor = new Actor<>(id);
+            actors.add(actor);
+            graph.addActor(actor, 10.0 * random.nextDouble());
+        }
+        
+        while (graph.getNumberOfArcs() < 400) {
+            addRandomArc(graph, actors, random);
+        }
+        
+        MostCostEffectiveLoanFinder<Integer> searchingFinder = 
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        MostCostEffectiveLoanFinder<Integer> preprocessingFinder = 
+                new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(graph);
+        
+        for (Actor<Integer> actor : actors) {
+            // The direction maps must agree as well:
+            assertEquals(searchingFinder.findLenders(actor, 60.0, 0.25),
+                         preprocessingFinder.findLenders(actor, 60.0, 0.25));
+        }
+    }
+    
+    @Test
+    public void testAvailablePotential() {
+        Random random = new Random(47L);
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        List<Actor<Integer>> actors = new ArrayList<>();
+        
+        for (int id = 0; id < 60; id++) {
+            Actor<Integer> actor = new Actor<>(id);
+            actors.add(actor);
+            graph.addActor(actor, 10.0 * random.nextDouble());
+        }
+        
+        while (graph.getNumberOfArcs() < 200) {
+            addRandomArc(graph, actors, random);
+        }
+        
+        BinaryHeapPreprocessingMostCostEffectiveLoanFinder<Integer> finder = 
+                new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(graph);
+        
+        for (int round = 0; round < 3; round++) {
+            for (Actor<Integer> actor : actors) {
+                for (double maximumInterestRate : new double[]{ 0.0, 
+                                                                0.05, 
+                                                                0.2, 
+                                                                1.0 }) {
+                    assertEquals(
+                            finder.findLenders(actor, 
+                                               Double.MAX_VALUE, 
+                                               maximumInterestRate)
+                                  .getReceivedPotential(),
+                            finder.getAvailablePotential(actor, 
+                                                         maximumInterestRate),
+                            EPSILON);
+                }
+            }
+            
+            // Potential updates must be reflected in the prefix sums:
+            for (Actor<Integer> actor : actors) {
+                graph.addActor(actor, 10.0 * random.nextDouble());
+            }
+        }
+    }
+    
+    @Test
+    public void testPreprocessingLimits() {
+        Random random = new Random(53L);
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        List<Actor<Integer>> actors = new ArrayList<>();
+        
+        for (int id = 0; id < 80; id++) {
+            Actor<Integer> actor = new Actor<>(id);
+            actors.add(actor);
+            graph.addActor(actor, 10.0 * random.nextDouble());
+        }
+        
+        while (graph.getNumberOfArcs() < 300) {
+            addRandomArc(graph, actors, random);
+        }
+        
+        BinaryHeapPreprocessingMostCostEffectiveLoanFinder<Integer> 
+                unlimitedFinder = 
+                new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(graph);
+        
+        PreprocessingLimits[] limitsArray = {
+            new PreprocessingLimits(0.1, Double.POSITIVE_INFINITY, 
+                                    Integer.MAX_VALUE),
+            new PreprocessingLimits(Double.POSITIVE_INFINITY, 20.0, 
+                                    Integer.MAX_VALUE),
+            new PreprocessingLimits(Double.POSITIVE_INFINITY, 
+                                    Double.POSITIVE_INFINITY, 
+                                    3),
+            new PreprocessingLimits(0.0, 0.0, 0),
+        };
+        
+        for (PreprocessingLimits limits : limitsArray) {
+            BinaryHeapPreprocessingMostCostEffectiveLoanFinder<Integer> 
+                    limitedFinder = 
+                    new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(
+                            graph,
+                            limits);
+            
+            for (Actor<Integer> actor : actors) {
+                for (double requestedPotential : new double[]{ 5.0, 50.0 }) {
+                    for (double maximumInterestRate : new double[]{ 0.05, 
+                                                                    0.1, 
+                                                                    0.3 }) {
+                        assertEquals(
+                                unlimitedFinder.findLenders(
+                                        actor, 
+                                        requestedPotential, 
+                                        maximumInterestRate),
+                                limitedFinder.findLenders(
+                                        actor, 
+                                        requestedPotential, 
+                                        maximumInterestRate));
+                    }
+                }
+                
+                assertEquals(unlimitedFinder.getAvailablePotential(actor, 0.2),
+                             limitedFinder.getAvailablePotential(actor, 0.2),
+                             EPSILON);
+            }
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnNegativePreprocessingLimit() {
+        new PreprocessingLimits(0.1, -1.0, 10);
+    }
+    
+    @Test
+    public void testRepairsAfterGraphModifications() {
+        Random random = new Random(31L);
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        List<Actor<Integer>> actors = new ArrayList<>();
+        
+        for (int id = 0; id < 100; id++) {
+            Actor<Integer> actor = new Actor<>(id);
+            actors.add(actor);
+            graph.addActor(actor, 10.0 * random.nextDouble());
+        }
+        
+        while (graph.getNumberOfArcs() < 300) {
+            addRandomArc(graph, actors, random);
+        }
+        
+        MostCostEffectiveLoanFinder<Integer> finder = 
+                new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(graph,
+                                                                         2);
+        
+        for (int round = 0; round < 20; round++) {
+            switch (round % 4) {
+                case 0:
+                    addRandomArc(graph, actors, random);
+                    break;
+                
+                case 1:
+                    Actor<Integer> actor = actors.get(random.nextInt(100));
+                    
+                    for (Actor<Integer> child : graph.getOutgoingArcs(actor)) {
+                        graph.removeArc(actor, child);
+                        break;
+                    }
+                    
+                    break;
+                
+                case 2:
+                    Actor<Integer> removedActor = 
+                            actors.remove(random.nextInt(actors.size()));
+                    graph.removeActor(removedActor);
+                    break;
+                
+                case 3:
+                    Actor<Integer> newActor = new Actor<>(100 + round);
+                    graph.addActor(newActor, 5.0);
+                    graph.addArc(actors.get(random.nextInt(actors.size())), 
+                                 newActor, 
+                                 0.05);
+                    graph.addArc(newActor,
+                                 actors.get(random.nextInt(actors.size())),
+                                 0.05);
+                    actors.add(newActor);
+                    break;
+            }
+            
+            MostCostEffectiveLoanFinder<Integer> freshFinder = 
+                    new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(
+                            graph);
+            
+            for (Actor<Integer> actor : actors) {
+                assertEquals(freshFinder.findLenders(actor, 50.0, 0.3),
+                             finder.findLenders(actor, 50.0, 0.3));
+            }
+        }
+        
+        graph.clear();
+        Actor<Integer> actorA = new Actor<>(1000);
+        Actor<Integer> actorB = new Actor<>(1001);
+        graph.addActor(actorA, 1.0);
+        graph.addActor(actorB, 2.0);
+        graph.addArc(actorB, actorA, 0.1);
+        
+        assertEquals(2.0, 
+                     finder.findLenders(actorA, 5.0, 0.2)
+                           .getReceivedPotential(), 
+                     EPSILON);
+    }
+    
+    @Test
+    public void testStaysValidAcrossPotentialUpdates() {
+        ActorGraph<String> graph = new ActorGraph<>();
+        Actor<String> actorA = new Actor<>("A");
+        Actor<String> actorB = new Actor<>("B");
+        Actor<String> actorC = new Actor<>("C");
+        
+        graph.addActor(actorA, 0.0);
+        graph.addActor(actorB, 10.0);
+        graph.addActor(actorC, 10.0);
+        graph.addArc(actorB, actorA, 0.1);
+        graph.addArc(actorC, actorA, 0.2);
+        
+        MostCostEffectiveLoanFinder<String> finder = 
+                new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(graph);
+        
+        graph.addActor(actorB, 4.0);
+        MostCostEffectiveLoan<String> loan = 
+                finder.findLenders(actorA, 10.0, 0.5);
+        
+        assertEquals(10.0, loan.getReceivedPotential(), EPSILON);
+        assertEquals(4.0, loan.getPotentialMapView().get(actorB), EPSILON);
+        assertEquals(6.0, loan.getPotentialMapView().get(actorC), EPSILON);
+    }
+    
+    @Test
+    public void testInvalidatesOnlyListsContainingChangedActor() {
+        ActorGraph<String> graph = new ActorGraph<>();
+        Actor<String> actorA = new Actor<>("A");
+        Actor<String> actorB = new Actor<>("B");
+        Actor<String> actorC = new Actor<>("C");
+        Actor<String> actorD = new Actor<>("D");
+        
+        graph.addActor(actorA, 0.0);
+        graph.addActor(actorB, 10.0);
+        graph.addActor(actorC, 0.0);
+        graph.addActor(actorD, 10.0);
+        graph.addArc(actorB, actorA, 0.1);
+        graph.addArc(actorD, actorC, 0.1);
+        
+        BinaryHeapPreprocessingMostCostEffectiveLoanFinder<String> finder = 
+                new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(graph);
+        
+        double[] prefixSumsOfA = 
+                finder.getLenderList(actorA).getPotentialPrefixSums(graph);
+        double[] prefixSumsOfC = 
+                finder.getLenderList(actorC).getPotentialPrefixSums(graph);
+        
+        graph.addActor(actorB, 4.0);
+        
+        assertEquals(4.0, finder.getAvailablePotential(actorA, 0.5), EPSILON);
+        assertEquals(10.0, finder.getAvailablePotential(actorC, 0.5), EPSILON);
+        assertNotSame(prefixSumsOfA, 
+                      finder.getLenderList(actorA)
+                            .getPotentialPrefixSums(graph));
+        assertSame(prefixSumsOfC, 
+                   finder.getLenderList(actorC).getPotentialPrefixSums(graph));
+    }
+    
+    @Test
+    public void testSavesAndLoadsIndex() throws IOException {
+        PreprocessingLimits limits = 
+                new PreprocessingLimits(0.2, Double.POSITIVE_INFINITY, 20);
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        buildRandomGraph(graph, 59L, 100, 400);
+        Path path = temporaryFolder.newFile().toPath();
+        
+        new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(graph, limits)
+                .saveIndex(path, IdentityCodec.INTEGER);
+        
+        // A restarted process rebuilds the same graph:
+        ActorGraph<Integer> restoredGraph = new ActorGraph<>();
+        List<Actor<Integer>> restoredActors = 
+                buildRandomGraph(restoredGraph, 59L, 100, 400);
+        BinaryHeapPreprocessingMostCostEffectiveLoanFinder<Integer> 
+                loadedFinder = 
+                BinaryHeapPreprocessingMostCostEffectiveLoanFinder.load(
+                        restoredGraph, 
+                        path, 
+                        IdentityCodec.INTEGER);
+        MostCostEffectiveLoanFinder<Integer> searchingFinder = 
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        
+        assertEquals(limits.getMaximumNumberOfLenders(),
+                     loadedFinder.getPreprocessingLimits()
+                                 .getMaximumNumberOfLenders());
+        
+        for (Actor<Integer> actor : restoredActors) {
+            assertEquals(searchingFinder.findLenders(actor, 60.0, 0.25),
+                         loadedFinder.findLenders(actor, 60.0, 0.25));
+        }
+        
+        // The loaded finder repairs itself as usual:
+        Random random = new Random(61L);
+        
+        for (int i = 0; i < 20; i++) {
+            addRandomArc(restoredGraph, restoredActors, random);
+        }
+        
+        for (Actor<Integer> actor : restoredActors) {
+            assertEquals(searchingFinder.findLenders(actor, 60.0, 0.25),
+                         loadedFinder.findLenders(actor, 60.0, 0.25));
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsStaleIndex() throws IOException {
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        List<Actor<Integer>> actors = buildRandomGraph(graph, 67L, 100, 400);
+        Path path = temporaryFolder.newFile().toPath();
+        
+        new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(graph)
+                .saveIndex(path, IdentityCodec.INTEGER);
+        
+        graph.addArc(actors.get(0), 
+                     actors.get(1), 
+                     graph.hasArc(actors.get(0), actors.get(1)) ? 
+                             graph.getInterestRate(actors.get(0), 
+                                                   actors.get(1)) + 0.01 :
+                             0.01);
+        
+        BinaryHeapPreprocessingMostCostEffectiveLoanFinder.load(
+                graph, 
+                path, 
+                IdentityCodec.INTEGER);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnNonPositiveParallelism() {
+        new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(
+                new ActorGraph<String>(), 0);
+    }
 }
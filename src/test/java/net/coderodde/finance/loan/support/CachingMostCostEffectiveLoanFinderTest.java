@@ -0,0 +1,245 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.LenderConsumer;
+import net.coderodde.finance.loan.MostCostEffectiveLoan;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * This test class checks that the caching finder answers exactly as the 
+ * finder it decorates.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 23, 2018)
+ */
+public class CachingMostCostEffectiveLoanFinderTest {
+    
+    private static final int ACTORS = 200;
+    private static final int ARCS = 2_000;
+    private static final int BORROWERS = 10;
+    private static final int QUERIES = 300;
+    
+    private final Random random = new Random(31L);
+    private final List<Actor<Integer>> actors = new ArrayList<>();
+    private final ActorGraph<Integer> graph = new ActorGraph<>();
+    
+    @Test
+    public void testAgreesWithDecoratedFinder() {
+        buildGraph();
+        MostCostEffectiveLoanFinder<Integer> finder =
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        CachingMostCostEffectiveLoanFinder<Integer> cachingFinder =
+                new CachingMostCostEffectiveLoanFinder<>(graph, finder);
+        
+        checkQueries(finder, cachingFinder);
+        
+        assertTrue(cachingFinder.getCacheHitCount() > 0);
+        assertEquals(QUERIES,
+                     cachingFinder.getCacheHitCount() +
+                     cachingFinder.getCacheMissCount());
+        assertEquals(BORROWERS, cachingFinder.getCacheSize());
+    }
+    
+    @Test
+    public void testInvalidatesOnGraphModifications() {
+        buildGraph();
+        MostCostEffectiveLoanFinder<Integer> finder =
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        CachingMostCostEffectiveLoanFinder<Integer> cachingFinder =
+                new CachingMostCostEffectiveLoanFinder<>(graph, finder);
+        
+        checkQueries(finder, cachingFinder);
+        
+        // A potential update is not structural, but may change the lenders
+        // needed for the cached queries:
+        graph.addActor(actors.get(BORROWERS), 1000.0);
+        checkQueries(finder, cachingFinder);
+        
+        graph.addArc(actors.get(BORROWERS + 1), actors.get(0), 0.0);
+        checkQueries(finder, cachingFinder);
+        
+        graph.removeActor(actors.get(BORROWERS + 2));
+        checkQueries(finder, cachingFinder);
+    }
+    
+    @Test
+    public void testEvictsLeastRecentlyUsedBorrower() {
+        buildGraph();
+        CachingMostCostEffectiveLoanFinder<Integer> cachingFinder =
+                new CachingMostCostEffectiveLoanFinder<>(
+                        graph,
+                        new BinaryHeapMostCostEffectiveLoanFinder<>(),
+                        2);
+        
+        cachingFinder.findLenders(actors.get(0), 100.0, 0.1);
+        cachingFinder.findLenders(actors.get(1), 100.0, 0.1);
+        cachingFinder.findLenders(actors.get(0), 50.0, 0.05);
+        cachingFinder.findLenders(actors.get(2), 100.0, 0.1);
+        
+        assertEquals(1, cachingFinder.getCacheHitCount());
+        assertEquals(1, cachingFinder.getCacheEvictionCount());
+        
+        // Actor 1 was evicted, actor 0 was not:
+        cachingFinder.findLenders(actors.get(0), 100.0, 0.1);
+        cachingFinder.findLenders(actors.get(1), 100.0, 0.1);
+        
+        assertEquals(2, cachingFinder.getCacheHitCount());
+        assertEquals(4, cachingFinder.getCacheMissCount());
+    }
+    
+    @Test
+    public void testRoundingDoesNotMarkLendersExhausted() {
+        // The received potential of the first query rounds to one ulp below
+        // the requested potential even though the request is fully met:
+        Actor<Integer> borrower = new Actor<>(0);
+        graph.addActor(borrower, 0.0);
+        addLender(borrower, 1, 1.01, 0.01);
+        addLender(borrower, 2, 6.45, 0.02);
+        addLender(borrower, 3, 100.0, 0.03);
+        MostCostEffectiveLoanFinder<Integer> finder =
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        CachingMostCostEffectiveLoanFinder<Integer> cachingFinder =
+                new CachingMostCostEffectiveLoanFinder<>(graph, finder);
+        
+        assertEquals(finder.findLenders(borrower, 3.73, 0.5),
+                     cachingFinder.findLenders(borrower, 3.73, 0.5));
+        assertEquals(finder.findLenders(borrower, 50.0, 0.5),
+                     cachingFinder.findLenders(borrower, 50.0, 0.5));
+        assertEquals(50.0,
+                     cachingFinder.findLenders(borrower, 50.0, 0.5)
+                                  .getReceivedPotential(),
+                     0.0);
+    }
+    
+    @Test
+    public void testKeepsSearchOrderOfEqualRates() {
+        Actor<Integer> borrower = new Actor<>(0);
+        graph.addActor(borrower, 0.0);
+        
+        for (int id = 1; id <= 20; id++) {
+            addLender(borrower, id, id, 0.1);
+        }
+        
+        MostCostEffectiveLoanFinder<Integer> finder =
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        CachingMostCostEffectiveLoanFinder<Integer> cachingFinder =
+                new CachingMostCostEffectiveLoanFinder<>(graph, finder);
+        cachingFinder.findLenders(borrower, 1000.0, 0.5);
+        
+        // Answered by truncating the cached lenders, all of the same rate:
+        for (int potential = 1; potential <= 50; potential++) {
+            assertEquals(finder.findLenders(borrower, potential, 0.5),
+                         cachingFinder.findLenders(borrower, potential, 0.5));
+        }
+        
+        assertEquals(1, cachingFinder.getCacheMissCount());
+    }
+    
+    @Test
+    public void testStreamsMissesThroughDecoratedFinder() {
+        buildGraph();
+        MostCostEffectiveLoanFinder<Integer> binaryHeapFinder =
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        // Fails the query if the caching finder runs a full search:
+        MostCostEffectiveLoanFinder<Integer> finder =
+                new MostCostEffectiveLoanFinder<Integer>() {
+            
+            @Override
+            public MostCostEffectiveLoan<Integer> findLenders(
+                    Actor<Integer> actor,
+                    double requestedPotential,
+                    double maximumInterestRate) {
+                throw new AssertionError("The full search was run.");
+            }
+            
+            @Override
+            public void findLenders(Actor<Integer> actor,
+                                    double requestedPotential,
+                                    double maximumInterestRate,
+                                    LenderConsumer<Integer> consumer) {
+                binaryHeapFinder.findLenders(actor,
+                                             requestedPotential,
+                                             maximumInterestRate,
+                                             consumer);
+            }
+        };
+        CachingMostCostEffectiveLoanFinder<Integer> cachingFinder =
+                new CachingMostCostEffectiveLoanFinder<>(graph, finder);
+        List<Actor<Integer>> lenders = new ArrayList<>();
+        
+        cachingFinder.findLenders(actors.get(0),
+                                  1000.0,
+                                  0.3,
+                                  (lender, potential, rate, direction) -> {
+                                      lenders.add(lender);
+                                      return false;
+                                  });
+        
+        assertEquals(1, lenders.size());
+        assertEquals(binaryHeapFinder.findLenders(actors.get(0), 1000.0, 0.3)
+                                     .getLender(0),
+                     lenders.get(0));
+        assertEquals(1, cachingFinder.getCacheMissCount());
+        assertEquals(0, cachingFinder.getCacheSize());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnNonPositiveMaximumCacheSize() {
+        new CachingMostCostEffectiveLoanFinder<>(
+                graph,
+                new BinaryHeapMostCostEffectiveLoanFinder<>(),
+                0);
+    }
+    
+    private void checkQueries(
+            MostCostEffectiveLoanFinder<Integer> finder,
+            MostCostEffectiveLoanFinder<Integer> cachingFinder) {
+        for (int i = 0; i < QUERIES; i++) {
+            Actor<Integer> actor = actors.get(random.nextInt(BORROWERS));
+            double requestedPotential = 2000.0 * random.nextDouble();
+            double maximumInterestRate = 0.3 * random.nextDouble();
+            
+            assertEquals(finder.findLenders(actor,
+                                            requestedPotential,
+                                            maximumInterestRate),
+                         cachingFinder.findLenders(actor,
+                                                   requestedPotential,
+                                                   maximumInterestRate));
+        }
+    }
+    
+    private void addLender(Actor<Integer> borrower,
+                           int id,
+                           double potential,
+                           double interestRate) {
+        Actor<Integer> lender = new Actor<>(id);
+        graph.addActor(lender, potential);
+        graph.addArc(lender, borrower, interestRate);
+    }
+    
+    private void buildGraph() {
+        for (int id = 0; id < ACTORS; id++) {
+            Actor<Integer> actor = new Actor<>(id);
+            actors.add(actor);
+            graph.addActor(actor, 100.0 * random.nextDouble());
+        }
+        
+        while (graph.getNumberOfArcs() < ARCS) {
+            Actor<Integer> sourceActor = actors.get(random.nextInt(ACTORS));
+            Actor<Integer> targetActor = actors.get(random.nextInt(ACTORS));
+            
+            if (!sourceActor.equals(targetActor)) {
+                graph.addArc(sourceActor,
+                             targetActor,
+                             0.1 * random.nextDouble());
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.CompactActorGraph;
+import net.coderodde.finance.loan.MostCostEffectiveLoan;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * This test class checks that a single finder answers queries issued from 
+ * several threads at a time exactly as it answers them sequentially.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 18, 2018)
+ */
+public class ConcurrentQueryTest {
+    
+    private static final int ACTORS = 300;
+    private static final int ARCS = 3_000;
+    private static final int QUERIES = 200;
+    private static final int THREADS = 8;
+    
+    @Test
+    public void testBinaryHeapFinder() throws Exception {
+        testFinder(graph -> new BinaryHeapMostCostEffectiveLoanFinder<>());
+    }
+    
+    @Test
+    public void testFibonacciHeapFinder() throws Exception {
+        testFinder(graph -> new FibonacciHeapMostCostEffectiveLoanFinder<>());
+    }
+    
+    @Test
+    public void testBinaryHeapPreprocessingFinder() throws Exception {
+        testFinder(BinaryHeapPreprocessingMostCostEffectiveLoanFinder::new);
+    }
+    
+    @Test
+    public void testBinaryHeapCompactFinder() throws Exception {
+        testFinder(graph -> new BinaryHeapCompactMostCostEffectiveLoanFinder<>(
+                graph.freeze()));
+    }
+    
+    @Test
+    public void testDaryHeapCompactFinder() throws Exception {
+        testFinder(graph -> new DaryHeapCompactMostCostEffectiveLoanFinder<>(
+                graph.freeze()));
+    }
+    
+    @Test
+    public void testFibonacciHeapCompactFinder() throws Exception {
+        testFinder(graph -> 
+                new FibonacciHeapCompactMostCostEffectiveLoanFinder<>(
+                        graph.freeze()));
+    }
+    
+    private interface FinderFactory {
+        MostCostEffectiveLoanFinder<Integer> create(ActorGraph<Integer> graph);
+    }
+    
+    private static void testFinder(FinderFactory finderFactory) 
+            throws Exception {
+        Random random = new Random(23L);
+        List<Actor<Integer>> actors = new ArrayList<>();
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        
+        for (int id = 0; id < ACTORS; id++) {
+            Actor<Integer> actor = new Actor<>(id);
+            actors.add(actor);
+            graph.addActor(actor, 100.0 * random.nextDouble());
+        }
+        
+        while (graph.getNumberOfArcs() < ARCS) {
+            Actor<Integer> sourceActor = actors.get(random.nextInt(ACTORS));
+            Actor<Integer> targetActor = actors.get(random.nextInt(ACTORS));
+            
+            if (!sourceActor.equals(targetActor)) {
+                graph.addArc(sourceActor, 
+                             targetActor, 
+                             0.1 * random.nextDouble());
+            }
+        }
+        
+        MostCostEffectiveLoanFinder<Integer> finder = 
+                finderFactory.create(graph);
+        List<Actor<Integer>> queryActors = new ArrayList<>(QUERIES);
+        List<MostCostEffectiveLoan<Integer>> expectedLoans = 
+                new ArrayList<>(QUERIES);
+        
+        for (int i = 0; i < QUERIES; i++) {
+            Actor<Integer> actor = actors.get(random.nextInt(ACTORS));
+            queryActors.add(actor);
+            expectedLoans.add(finder.findLenders(actor, 1000.0, 0.5));
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        
+        try {
+            List<Future<?>> futures = new ArrayList<>(THREADS);
+            
+            for (int thread = 0; thread < THREADS; thread++) {
+                int offset = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < QUERIES; i++) {
+                        int queryIndex = (i + offset) % QUERIES;
+                        assertEquals(
+                                expectedLoans.get(queryIndex),
+                                finder.findLenders(queryActors.get(queryIndex),
+                                                   1000.0,
+                                                   0.5));
+                    }
+                }));
+            }
+            
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
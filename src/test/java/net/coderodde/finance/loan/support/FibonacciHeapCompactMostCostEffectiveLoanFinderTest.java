@@ -0,0 +1,15 @@
+package net.coderodde.finance.loan.support;
+
+import net.coderodde.finance.loan.CompactActorGraph;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+
+public class FibonacciHeapCompactMostCostEffectiveLoanFinderTest 
+        extends AbstractCompactMostCostEffectiveLoanFinderTest {
+    
+    @Override
+    protected MostCostEffectiveLoanFinder<String> 
+        createFinder(CompactActorGraph<String> actorGraph) {
+        return new FibonacciHeapCompactMostCostEffectiveLoanFinder<>(
+                actorGraph);
+    }
+}
@@ -0,0 +1,154 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * The {@link FibonacciHeap} unit tests. The heap is checked against
+ * {@link java.util.PriorityQueue}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 17, 2018)
+ */
+public class FibonacciHeapTest {
+    
+    private static final int OPERATIONS = 20_000;
+    
+    @Test
+    public void testAgainstPriorityQueue() {
+        Random random = new Random(11L);
+        FibonacciHeap<Integer> heap = new FibonacciHeap<>();
+        PriorityQueue<Integer> referenceQueue = new PriorityQueue<>();
+        
+        for (int operation = 0; operation < OPERATIONS; operation++) {
+            if (random.nextInt(3) > 0) {
+                Integer element = random.nextInt(1000);
+                assertTrue(heap.offer(element));
+                referenceQueue.offer(element);
+            } else {
+                assertEquals(referenceQueue.poll(), heap.poll());
+            }
+            
+            assertEquals(referenceQueue.size(), heap.size());
+            assertEquals(referenceQueue.peek(), heap.peek());
+        }
+        
+        assertEquals(sorted(referenceQueue), sorted(heap));
+        
+        while (!referenceQueue.isEmpty()) {
+            assertEquals(referenceQueue.poll(), heap.poll());
+        }
+        
+        assertNull(heap.poll());
+        assertNull(heap.peek());
+        assertFalse(heap.iterator().hasNext());
+    }
+    
+    @Test
+    public void testDecreaseKey() {
+        Random random = new Random(13L);
+        FibonacciHeap<Integer> heap = new FibonacciHeap<>();
+        List<FibonacciHeap.Handle<Integer>> handles = new ArrayList<>();
+        List<Integer> elements = new ArrayList<>();
+        
+        for (int i = 0; i < 1000; i++) {
+            Integer element = 1000 + random.nextInt(1000);
+            handles.add(heap.insert(element));
+            elements.add(element);
+        }
+        
+        // Build some trees so that decreasing keys cuts nodes:
+        int removedElement = heap.poll();
+        handles.removeIf(handle -> handle.getElement() == null);
+        assertEquals(999, handles.size());
+        assertEquals(Collections.min(elements), (Integer) removedElement);
+        
+        elements.clear();
+        
+        for (FibonacciHeap.Handle<Integer> handle : handles) {
+            Integer element = handle.getElement();
+            
+            if (random.nextBoolean()) {
+                element = random.nextInt(1000);
+                heap.decreaseKey(handle, element);
+            }
+            
+            elements.add(element);
+        }
+        
+        Collections.sort(elements);
+        
+        for (Integer element : elements) {
+            assertEquals(element, heap.poll());
+        }
+        
+        assertTrue(heap.isEmpty());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnIncreasingKey() {
+        FibonacciHeap<Integer> heap = new FibonacciHeap<>();
+        heap.decreaseKey(heap.insert(1), 2);
+    }
+    
+    @Test
+    public void testRemoveObjectDoesNotPretendToRemove() {
+        FibonacciHeap<Integer> heap = new FibonacciHeap<>();
+        heap.add(2);
+        heap.add(1);
+        heap.add(3);
+        
+        try {
+            heap.remove(2);
+            fail("The heap claims to support removal of arbitrary elements.");
+        } catch (UnsupportedOperationException ex) {
+            // Expected.
+        }
+        
+        assertEquals(3, heap.size());
+        assertEquals(Integer.valueOf(1), heap.poll());
+        assertEquals(Integer.valueOf(2), heap.poll());
+        assertEquals(Integer.valueOf(3), heap.poll());
+    }
+    
+    @Test
+    public void testReusesHeapAfterClear() {
+        Random random = new Random(17L);
+        FibonacciHeap<Integer> heap = new FibonacciHeap<>();
+        
+        for (int round = 0; round < 10; round++) {
+            PriorityQueue<Integer> queue = new PriorityQueue<>();
+            
+            for (int i = 0; i < 100; i++) {
+                int element = random.nextInt(1000);
+                heap.add(element);
+                queue.add(element);
+            }
+            
+            // Consolidate the heap so that the pool receives child nodes too:
+            for (int i = 0; i < 10; i++) {
+                assertEquals(queue.poll(), heap.poll());
+            }
+            
+            FibonacciHeap.Handle<Integer> handle = heap.insert(2000);
+            heap.decreaseKey(handle, -1);
+            assertEquals(Integer.valueOf(-1), heap.poll());
+            heap.clear();
+            assertTrue(heap.isEmpty());
+            assertNull(heap.peek());
+            assertFalse(heap.iterator().hasNext());
+        }
+    }
+    
+    private static List<Integer> sorted(Iterable<Integer> iterable) {
+        List<Integer> list = new ArrayList<>();
+        iterable.forEach(list::add);
+        Collections.sort(list);
+        return list;
+    }
+}
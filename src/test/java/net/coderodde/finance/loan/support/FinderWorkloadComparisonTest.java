@@ -0,0 +1,117 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.CompactActorGraph;
+import net.coderodde.finance.loan.MostCostEffectiveLoan;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * This test class runs all the finders over the same random query workload 
+ * and checks that they agree with the finder based on 
+ * {@link java.util.PriorityQueue}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 17, 2018)
+ */
+public class FinderWorkloadComparisonTest {
+    
+    private static final int ACTORS = 500;
+    private static final int ARCS = 5_000;
+    private static final int QUERIES = 100;
+    private static final double MAXIMUM_POTENTIAL = 100.0;
+    private static final double MAXIMUM_ARC_INTEREST_RATE = 0.1;
+    private static final double EPSILON = 1e-9;
+    
+    @Test
+    public void testFindersAgree() {
+        Random random = new Random(19L);
+        List<Actor<Integer>> actors = new ArrayList<>();
+        ActorGraph<Integer> graph = createRandomActorGraph(actors, random);
+        CompactActorGraph<Integer> compactGraph = graph.freeze();
+        
+        List<MostCostEffectiveLoanFinder<Integer>> finders = new ArrayList<>();
+        
+        finders.add(new BinaryHeapMostCostEffectiveLoanFinder<>());
+        finders.add(new FibonacciHeapMostCostEffectiveLoanFinder<>());
+        finders.add(new RadixHeapMostCostEffectiveLoanFinder<>());
+        finders.add(new BinaryHeapCompactMostCostEffectiveLoanFinder<>(
+                        compactGraph));
+        finders.add(new DaryHeapCompactMostCostEffectiveLoanFinder<>(
+                        compactGraph));
+        finders.add(new FibonacciHeapCompactMostCostEffectiveLoanFinder<>(
+                        compactGraph));
+        
+        List<Actor<Integer>> queryActors = new ArrayList<>(QUERIES);
+        List<Double> queryPotentials = new ArrayList<>(QUERIES);
+        List<Double> queryInterestRates = new ArrayList<>(QUERIES);
+        
+        for (int i = 0; i < QUERIES; i++) {
+            queryActors.add(actors.get(random.nextInt(ACTORS)));
+            queryPotentials.add(MAXIMUM_POTENTIAL * ACTORS 
+                                                  * random.nextDouble());
+            queryInterestRates.add(random.nextDouble());
+        }
+        
+        List<MostCostEffectiveLoan<Integer>> expectedLoans = null;
+        
+        for (MostCostEffectiveLoanFinder<Integer> finder : finders) {
+            List<MostCostEffectiveLoan<Integer>> loans = 
+                    new ArrayList<>(QUERIES);
+            
+            for (int i = 0; i < QUERIES; i++) {
+                loans.add(finder.findLenders(queryActors.get(i),
+                                             queryPotentials.get(i),
+                                             queryInterestRates.get(i)));
+            }
+            
+            if (expectedLoans == null) {
+                expectedLoans = loans;
+                continue;
+            }
+            
+            for (int i = 0; i < QUERIES; i++) {
+                assertLoansAgree(expectedLoans.get(i), loans.get(i));
+            }
+        }
+    }
+    
+    private static void assertLoansAgree(MostCostEffectiveLoan<Integer> loan1,
+                                         MostCostEffectiveLoan<Integer> loan2) {
+        assertEquals(loan1.getReceivedPotential(),
+                     loan2.getReceivedPotential(),
+                     EPSILON);
+        assertEquals(loan1.getPotentialMapView().keySet(),
+                     loan2.getPotentialMapView().keySet());
+        assertEquals(loan1.getDirectionMap(), loan2.getDirectionMap());
+    }
+    
+    private static ActorGraph<Integer> 
+        createRandomActorGraph(List<Actor<Integer>> actors, Random random) {
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        
+        for (int id = 0; id < ACTORS; id++) {
+            Actor<Integer> actor = new Actor<>(id);
+            actors.add(actor);
+            graph.addActor(actor, MAXIMUM_POTENTIAL * random.nextDouble());
+        }
+        
+        while (graph.getNumberOfArcs() < ARCS) {
+            Actor<Integer> sourceActor = actors.get(random.nextInt(ACTORS));
+            Actor<Integer> targetActor = actors.get(random.nextInt(ACTORS));
+            
+            if (!sourceActor.equals(targetActor)) {
+                graph.addArc(sourceActor, 
+                             targetActor,
+                             MAXIMUM_ARC_INTEREST_RATE * random.nextDouble());
+            }
+        }
+        
+        return graph;
+    }
+}
@@ -0,0 +1,9 @@
+package net.coderodde.finance.loan.support;
+
+public class IndexedDaryHeapTest extends AbstractIndexedPriorityQueueTest {
+    
+    @Override
+    protected IndexedPriorityQueue createQueue(int capacity) {
+        return new IndexedDaryHeap(IndexedDaryHeap.DEFAULT_DEGREE, capacity);
+    }
+}
@@ -0,0 +1,10 @@
+package net.coderodde.finance.loan.support;
+
+public class IndexedFibonacciHeapTest 
+        extends AbstractIndexedPriorityQueueTest {
+    
+    @Override
+    protected IndexedPriorityQueue createQueue(int capacity) {
+        return new IndexedFibonacciHeap(capacity);
+    }
+}
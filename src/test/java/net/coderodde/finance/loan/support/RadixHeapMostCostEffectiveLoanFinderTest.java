@@ -0,0 +1,9 @@
+package net.coderodde.finance.loan.support;
+
+public class RadixHeapMostCostEffectiveLoanFinderTest 
+        extends AbstractMostCostEffectiveLoanFinderTest {
+    
+    public RadixHeapMostCostEffectiveLoanFinderTest() {
+        super(new RadixHeapMostCostEffectiveLoanFinder<>());
+    }
+}
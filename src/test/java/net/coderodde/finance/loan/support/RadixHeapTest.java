@@ -0,0 +1,186 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * The {@link RadixHeap} unit tests. The heap is checked against
+ * {@link java.util.PriorityQueue} on monotone workloads.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 26, 2018)
+ */
+public class RadixHeapTest {
+    
+    private static final int OPERATIONS = 20_000;
+    
+    @Test
+    public void testAgainstPriorityQueue() {
+        Random random = new Random(23L);
+        RadixHeap<Integer> heap = new RadixHeap<>();
+        PriorityQueue<HeapNode<Integer>> referenceQueue =
+                new PriorityQueue<>();
+        double lastRate = 0.0;
+        
+        for (int operation = 0; operation < OPERATIONS; operation++) {
+            if (random.nextInt(3) > 0) {
+                // Some equal and some widely spread rates:
+                double rate = random.nextInt(4) == 0 ?
+                        lastRate :
+                        lastRate + random.nextDouble()
+                                 * Math.pow(10.0, random.nextInt(8) - 6);
+                HeapNode<Integer> node = createNode(rate);
+                assertTrue(heap.offer(node));
+                referenceQueue.offer(node);
+            } else if (!referenceQueue.isEmpty()) {
+                lastRate = referenceQueue.poll().getEffectiveInterestRate();
+                assertEquals(lastRate,
+                             heap.poll().getEffectiveInterestRate(),
+                             0.0);
+            }
+            
+            assertEquals(referenceQueue.size(), heap.size());
+            
+            if (!referenceQueue.isEmpty()) {
+                assertEquals(referenceQueue.peek().getEffectiveInterestRate(),
+                             heap.peek().getEffectiveInterestRate(),
+                             0.0);
+            }
+        }
+        
+        // The nodes with equal rates may leave in a different order:
+        assertEquals(sortedRates(referenceQueue), sortedRates(heap));
+        
+        while (!referenceQueue.isEmpty()) {
+            assertEquals(referenceQueue.poll().getEffectiveInterestRate(),
+                         heap.poll().getEffectiveInterestRate(),
+                         0.0);
+        }
+        
+        assertNull(heap.poll());
+        assertNull(heap.peek());
+        assertFalse(heap.iterator().hasNext());
+    }
+    
+    @Test
+    public void testNegativeZeroEqualsZero() {
+        RadixHeap<Integer> heap = new RadixHeap<>();
+        heap.add(createNode(0.5));
+        heap.add(createNode(-0.0));
+        heap.add(createNode(0.0));
+        
+        assertEquals(0.0, heap.remove().getEffectiveInterestRate(), 0.0);
+        assertEquals(0.0, heap.remove().getEffectiveInterestRate(), 0.0);
+        assertEquals(0.5, heap.remove().getEffectiveInterestRate(), 0.0);
+    }
+    
+    @Test
+    public void testClearResetsLastRemovedRate() {
+        RadixHeap<Integer> heap = new RadixHeap<>();
+        heap.add(createNode(0.3));
+        heap.add(createNode(0.4));
+        heap.remove();
+        
+        try {
+            heap.add(createNode(0.2));
+            fail("A rate below the last removed one was accepted.");
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+        
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        heap.add(createNode(0.2));
+        assertEquals(0.2, heap.remove().getEffectiveInterestRate(), 0.0);
+    }
+    
+    @Test
+    public void testRemoveObjectDoesNotPretendToRemove() {
+        RadixHeap<Integer> heap = new RadixHeap<>();
+        HeapNode<Integer> node = createNode(0.2);
+        heap.add(createNode(0.1));
+        heap.add(node);
+        heap.add(createNode(0.3));
+        
+        try {
+            heap.remove(node);
+            fail("The heap claims to support removal of arbitrary nodes.");
+        } catch (UnsupportedOperationException ex) {
+            // Expected.
+        }
+        
+        assertEquals(3, heap.size());
+        assertEquals(0.1, heap.remove().getEffectiveInterestRate(), 0.0);
+        assertSame(node, heap.remove());
+        assertEquals(0.3, heap.remove().getEffectiveInterestRate(), 0.0);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnNegativeRate() {
+        new RadixHeap<Integer>().add(createNode(-0.1));
+    }
+    
+    @Test
+    public void testLenderListFindersAgree() {
+        Random random = new Random(29L);
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        List<Actor<Integer>> actors = new ArrayList<>();
+        
+        for (int id = 0; id < 100; id++) {
+            Actor<Integer> actor = new Actor<>(id);
+            actors.add(actor);
+            graph.addActor(actor, 10.0 * random.nextDouble());
+        }
+        
+        while (graph.getNumberOfArcs() < 800) {
+            Actor<Integer> sourceActor = actors.get(random.nextInt(100));
+            Actor<Integer> targetActor = actors.get(random.nextInt(100));
+            
+            if (!sourceActor.equals(targetActor)) {
+                graph.addArc(sourceActor,
+                             targetActor,
+                             0.1 * random.nextDouble());
+            }
+        }
+        
+        MostCostEffectiveLoanFinder<Integer> expectedFinder =
+                new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(graph);
+        MostCostEffectiveLoanFinder<Integer> eagerFinder =
+                new RadixHeapPreprocessingMostCostEffectiveLoanFinder<>(graph);
+        MostCostEffectiveLoanFinder<Integer> lazyFinder =
+                new RadixHeapLazyPreprocessingMostCostEffectiveLoanFinder<>(
+                        graph);
+        
+        for (Actor<Integer> actor : actors) {
+            assertEquals(expectedFinder.findLenders(actor, 200.0, 0.3),
+                         eagerFinder.findLenders(actor, 200.0, 0.3));
+            assertEquals(expectedFinder.findLenders(actor, 200.0, 0.3),
+                         lazyFinder.findLenders(actor, 200.0, 0.3));
+        }
+    }
+    
+    private static List<Double> sortedRates(
+            Collection<HeapNode<Integer>> nodes) {
+        List<Double> rates = new ArrayList<>(nodes.size());
+        
+        for (HeapNode<Integer> node : nodes) {
+            rates.add(node.getEffectiveInterestRate());
+        }
+        
+        Collections.sort(rates);
+        return rates;
+    }
+    
+    private static HeapNode<Integer> createNode(double effectiveInterestRate) {
+        return new HeapNode<>(null, null, effectiveInterestRate);
+    }
+}
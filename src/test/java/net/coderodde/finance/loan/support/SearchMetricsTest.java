@@ -0,0 +1,151 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.LoanQuery;
+import net.coderodde.finance.loan.MostCostEffectiveLoan;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * This test class checks the cost metrics reported by the finders.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 25, 2018)
+ */
+public class SearchMetricsTest {
+    
+    private static final int ACTORS = 100;
+    private static final int ARCS = 600;
+    
+    private final List<Actor<Integer>> actors = new ArrayList<>();
+    private final ActorGraph<Integer> graph = new ActorGraph<>();
+    private final List<LoanQuery<Integer>> reportedQueries =
+            new ArrayList<>();
+    private final List<SearchMetrics> reportedMetrics = new ArrayList<>();
+    
+    @Test
+    public void testReportsSearchCosts() {
+        buildGraph();
+        BinaryHeapMostCostEffectiveLoanFinder<Integer> finder =
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        finder.setSearchMetricsListener(this::record);
+        
+        MostCostEffectiveLoan<Integer> loan =
+                finder.findLenders(actors.get(0), 300.0, 0.2);
+        
+        assertEquals(1, reportedMetrics.size());
+        assertEquals(actors.get(0), reportedQueries.get(0).getActor());
+        assertEquals(300.0,
+                     reportedQueries.get(0).getRequestedPotential(),
+                     0.0);
+        
+        SearchMetrics metrics = reportedMetrics.get(0);
+        int numberOfLenders = loan.getPotentialMapView().size();
+        
+        assertTrue(numberOfLenders > 0);
+        assertEquals(numberOfLenders, metrics.getActorsSettled());
+        assertEquals(numberOfLenders, metrics.getLenderListSteps());
+        assertEquals(metrics.getActorsSettled() + metrics.getStalePops(),
+                     metrics.getHeapRemovals());
+        assertTrue(metrics.getHeapInsertions() >= metrics.getHeapRemovals());
+        assertTrue(metrics.getArcsRelaxed() >= metrics.getHeapInsertions());
+        assertTrue(metrics.getElapsedNanos() >= 0L);
+        assertFalse(metrics.isFallbackUsed());
+        
+        // Removing the listener stops the reports:
+        finder.setSearchMetricsListener(null);
+        finder.findLenders(actors.get(1), 300.0, 0.2);
+        assertEquals(1, reportedMetrics.size());
+    }
+    
+    @Test
+    public void testReportsSharedBatchSearchOnce() {
+        buildGraph();
+        BinaryHeapMostCostEffectiveLoanFinder<Integer> finder =
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        finder.setSearchMetricsListener(this::record);
+        List<LoanQuery<Integer>> queries = new ArrayList<>();
+        queries.add(new LoanQuery<>(actors.get(0), 100.0, 0.1));
+        queries.add(new LoanQuery<>(actors.get(0), 300.0, 0.2));
+        
+        finder.findLendersBatch(queries);
+        
+        assertEquals(queries, reportedQueries);
+        assertTrue(reportedMetrics.get(0).getActorsSettled() > 0);
+        assertEquals(0, reportedMetrics.get(1).getActorsSettled());
+        assertTrue(reportedMetrics.get(1).getLenderListSteps() > 0);
+    }
+    
+    @Test
+    public void testReportsLenderListCosts() {
+        buildGraph();
+        BinaryHeapPreprocessingMostCostEffectiveLoanFinder<Integer> finder =
+                new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(
+                        graph,
+                        new PreprocessingLimits(0.1,
+                                                Double.POSITIVE_INFINITY,
+                                                Integer.MAX_VALUE));
+        finder.setSearchMetricsListener(this::record);
+        
+        MostCostEffectiveLoan<Integer> loan =
+                finder.findLenders(actors.get(0), 1.0, 0.05);
+        finder.findLenders(actors.get(0), 1e9, 0.2);
+        
+        SearchMetrics metrics = reportedMetrics.get(0);
+        
+        assertEquals(0, metrics.getActorsSettled());
+        assertEquals(0, metrics.getHeapInsertions());
+        assertEquals(loan.getPotentialMapView().size(),
+                     metrics.getLenderListSteps());
+        assertFalse(metrics.isFallbackUsed());
+        assertTrue(reportedMetrics.get(1).isFallbackUsed());
+        assertEquals(0, reportedMetrics.get(1).getLenderListSteps());
+    }
+    
+    @Test
+    public void testReportsLazyLenderListBuilds() {
+        buildGraph();
+        BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder<Integer>
+                finder =
+                new BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder<>(
+                        graph);
+        finder.setSearchMetricsListener(this::record);
+        
+        finder.findLenders(actors.get(0), 300.0, 0.2);
+        finder.findLenders(actors.get(0), 300.0, 0.2);
+        
+        // Only the cache miss builds a lender list:
+        assertTrue(reportedMetrics.get(0).getActorsSettled() > 0);
+        assertEquals(0, reportedMetrics.get(1).getActorsSettled());
+    }
+    
+    private void record(LoanQuery<Integer> query, SearchMetrics metrics) {
+        reportedQueries.add(query);
+        reportedMetrics.add(metrics);
+    }
+    
+    private void buildGraph() {
+        Random random = new Random(5L);
+        
+        for (int id = 0; id < ACTORS; id++) {
+            Actor<Integer> actor = new Actor<>(id);
+            actors.add(actor);
+            graph.addActor(actor, 10.0 * random.nextDouble());
+        }
+        
+        while (graph.getNumberOfArcs() < ARCS) {
+            Actor<Integer> sourceActor = actors.get(random.nextInt(ACTORS));
+            Actor<Integer> targetActor = actors.get(random.nextInt(ACTORS));
+            
+            if (!sourceActor.equals(targetActor)) {
+                graph.addArc(sourceActor,
+                             targetActor,
+                             0.05 * random.nextDouble());
+            }
+        }
+    }
+}
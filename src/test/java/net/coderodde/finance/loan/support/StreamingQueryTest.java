@@ -0,0 +1,229 @@
+package net.coderodde.finance.loan.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.finance.loan.Actor;
+import net.coderodde.finance.loan.ActorGraph;
+import net.coderodde.finance.loan.MostCostEffectiveLoan;
+import net.coderodde.finance.loan.MostCostEffectiveLoanFinder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * This test class checks that the streamed lenders are exactly the lenders of
+ * the loans returned by the same finders, and that a consumer may stop the
+ * search early.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Mar 26, 2018)
+ */
+public class StreamingQueryTest {
+    
+    private static final int ACTORS = 200;
+    private static final int ARCS = 2_000;
+    private static final int QUERIES = 200;
+    private static final int STOP_AFTER = 3;
+    
+    @Test
+    public void testBinaryHeapFinder() {
+        testFinder(graph -> new BinaryHeapMostCostEffectiveLoanFinder<>());
+    }
+    
+    @Test
+    public void testRadixHeapFinder() {
+        testFinder(graph -> new RadixHeapMostCostEffectiveLoanFinder<>());
+    }
+    
+    @Test
+    public void testBinaryHeapPreprocessingFinder() {
+        // The limits make some queries go to the fallback finder:
+        testFinder(graph ->
+                new BinaryHeapPreprocessingMostCostEffectiveLoanFinder<>(
+                        graph,
+                        new PreprocessingLimits(0.2,
+                                                Double.POSITIVE_INFINITY,
+                                                20)));
+    }
+    
+    @Test
+    public void testBinaryHeapLazyPreprocessingFinder() {
+        testFinder(graph ->
+                new BinaryHeapLazyPreprocessingMostCostEffectiveLoanFinder<>(
+                        graph));
+    }
+    
+    @Test
+    public void testCachingFinder() {
+        testFinder(graph ->
+                new CachingMostCostEffectiveLoanFinder<>(
+                        graph,
+                        new BinaryHeapMostCostEffectiveLoanFinder<>()));
+    }
+    
+    @Test
+    public void testBinaryHeapCompactFinder() {
+        testFinder(graph ->
+                new BinaryHeapCompactMostCostEffectiveLoanFinder<>(
+                        graph.freeze()));
+    }
+    
+    @Test
+    public void testDaryHeapCompactFinder() {
+        testFinder(graph ->
+                new DaryHeapCompactMostCostEffectiveLoanFinder<>(
+                        graph.freeze()));
+    }
+    
+    @Test
+    public void testDefaultReplaysLoan() {
+        Actor<Integer> borrower = new Actor<>(0);
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        graph.addActor(borrower, 0.0);
+        
+        for (int id = 1; id <= 5; id++) {
+            Actor<Integer> lender = new Actor<>(id);
+            graph.addActor(lender, 10.0);
+            graph.addArc(lender, borrower, 0.01 * id);
+        }
+        
+        MostCostEffectiveLoanFinder<Integer> binaryHeapFinder =
+                new BinaryHeapMostCostEffectiveLoanFinder<>();
+        // Only the loan-building query, so the default streaming applies:
+        MostCostEffectiveLoanFinder<Integer> finder =
+                binaryHeapFinder::findLenders;
+        MostCostEffectiveLoan<Integer> expectedLoan =
+                finder.findLenders(borrower, 35.0, 1.0);
+        StreamedLenders allLenders = new StreamedLenders(Integer.MAX_VALUE);
+        StreamedLenders someLenders = new StreamedLenders(STOP_AFTER);
+        
+        finder.findLenders(borrower, 35.0, 1.0, allLenders::accept);
+        finder.findLenders(borrower, 35.0, 1.0, someLenders::accept);
+        
+        assertEquals(expectedLoan, allLenders.toLoan(borrower, 35.0, 1.0));
+        assertEquals(STOP_AFTER, someLenders.lenders.size());
+        
+        for (double rate : allLenders.rates) {
+            assertTrue(Double.isNaN(rate));
+        }
+    }
+    
+    private interface FinderFactory {
+        MostCostEffectiveLoanFinder<Integer> create(ActorGraph<Integer> graph);
+    }
+    
+    private static void testFinder(FinderFactory finderFactory) {
+        Random random = new Random(31L);
+        List<Actor<Integer>> actors = new ArrayList<>();
+        ActorGraph<Integer> graph = new ActorGraph<>();
+        
+        for (int id = 0; id < ACTORS; id++) {
+            Actor<Integer> actor = new Actor<>(id);
+            actors.add(actor);
+            graph.addActor(actor, 100.0 * random.nextDouble());
+        }
+        
+        while (graph.getNumberOfArcs() < ARCS) {
+            Actor<Integer> sourceActor = actors.get(random.nextInt(ACTORS));
+            Actor<Integer> targetActor = actors.get(random.nextInt(ACTORS));
+            
+            if (!sourceActor.equals(targetActor)) {
+                graph.addArc(sourceActor,
+                             targetActor,
+                             0.1 * random.nextDouble());
+            }
+        }
+        
+        MostCostEffectiveLoanFinder<Integer> finder =
+                finderFactory.create(graph);
+        
+        for (int i = 0; i < QUERIES; i++) {
+            Actor<Integer> actor = actors.get(random.nextInt(ACTORS));
+            double requestedPotential = 2000.0 * random.nextDouble();
+            double maximumInterestRate = 0.3 * random.nextDouble();
+            MostCostEffectiveLoan<Integer> expectedLoan =
+                    finder.findLenders(actor,
+                                       requestedPotential,
+                                       maximumInterestRate);
+            StreamedLenders allLenders = new StreamedLenders(Integer.MAX_VALUE);
+            StreamedLenders someLenders = new StreamedLenders(STOP_AFTER);
+            
+            finder.findLenders(actor,
+                               requestedPotential,
+                               maximumInterestRate,
+                               allLenders::accept);
+            finder.findLenders(actor,
+                               requestedPotential,
+                               maximumInterestRate,
+                               someLenders::accept);
+            
+            assertEquals(expectedLoan,
+                         allLenders.toLoan(actor,
+                                           requestedPotential,
+                                           maximumInterestRate));
+            assertEquals(Math.min(STOP_AFTER,
+                                  expectedLoan.getNumberOfLenders()),
+                         someLenders.lenders.size());
+            
+            for (int j = 0; j < someLenders.lenders.size(); j++) {
+                assertEquals(expectedLoan.getLender(j),
+                             someLenders.lenders.get(j));
+            }
+            
+            for (int j = 1; j < allLenders.rates.size(); j++) {
+                assertTrue(allLenders.rates.get(j - 1)
+                        <= allLenders.rates.get(j));
+            }
+        }
+    }
+    
+    /**
+     * Records the streamed lenders and stops the search after a given number
+     * of them.
+     */
+    private static final class StreamedLenders {
+        
+        final int maximumNumberOfLenders;
+        final List<Actor<Integer>> lenders = new ArrayList<>();
+        final List<Double> potentials = new ArrayList<>();
+        final List<Double> rates = new ArrayList<>();
+        final List<Actor<Integer>> directions = new ArrayList<>();
+        double totalPotential;
+        
+        StreamedLenders(int maximumNumberOfLenders) {
+            this.maximumNumberOfLenders = maximumNumberOfLenders;
+        }
+        
+        boolean accept(Actor<Integer> lender,
+                       double potential,
+                       double effectiveInterestRate,
+                       Actor<Integer> direction) {
+            lenders.add(lender);
+            potentials.add(potential);
+            rates.add(effectiveInterestRate);
+            directions.add(direction);
+            totalPotential += potential;
+            return lenders.size() < maximumNumberOfLenders;
+        }
+        
+        MostCostEffectiveLoan<Integer> toLoan(Actor<Integer> actor,
+                                              double requestedPotential,
+                                              double maximumInterestRate) {
+            double[] potentialArray = new double[potentials.size()];
+            
+            for (int i = 0; i < potentialArray.length; i++) {
+                potentialArray[i] = potentials.get(i);
+            }
+            
+            return new MostCostEffectiveLoan<>(
+                    actor,
+                    totalPotential,
+                    requestedPotential,
+                    maximumInterestRate,
+                    lenders.toArray(new Actor[lenders.size()]),
+                    potentialArray,
+                    directions.toArray(new Actor[directions.size()]));
+        }
+    }
+}